@@ -0,0 +1,429 @@
+package dudzinski.kacper.farec.cli;
+
+import dudzinski.kacper.farec.conversion.ArdenConverter;
+import dudzinski.kacper.farec.conversion.FiniteAutomatonConverter;
+import dudzinski.kacper.farec.conversion.KleeneConverter;
+import dudzinski.kacper.farec.conversion.StateEliminationConverter;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonImporter;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonSerializer;
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledRegexCache;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * This class is the command line entry point for converting many regular
+ * expressions or finite automata at once, without the user interface. It does
+ * not start the JavaFX toolkit, so it can run on machines without a display.
+ * <p>
+ * Usage: <code>BatchConverter (re | fa) [options] [path]</code>
+ * <ul>
+ *     <li>In <code>re</code> mode, every non-empty line of the input is a
+ *     regular expression, which is converted into a finite automaton using
+ *     Thompson's construction. Repeated regular expressions are only
+ *     converted once.</li>
+ *     <li>In <code>fa</code> mode, every input is a finite automaton file, DOT
+ *     graph or edge list, which is converted into a regular expression.</li>
+ * </ul>
+ * The path can be a file or a directory, in which case its files are read in
+ * alphabetical order. Without a path, the input is read from standard input:
+ * regular expressions in <code>re</code> mode, or one file path per line in
+ * <code>fa</code> mode. The options are:
+ * <ul>
+ *     <li><code>--threads N</code>: the number of worker threads, by default
+ *     the number of processors</li>
+ *     <li><code>--algorithm NAME</code>: the algorithm used in
+ *     <code>fa</code> mode, one of <code>state-elimination</code> (the
+ *     default), <code>kleene</code> and <code>arden</code></li>
+ *     <li><code>--output DIR</code>: in <code>re</code> mode, the directory to
+ *     save each finite automaton to, as a file named after the number of the
+ *     input</li>
+ * </ul>
+ * Each result is printed to standard output on its own line, in input order,
+ * as tab-separated fields: the source of the input, <code>ok</code> or
+ * <code>error</code>, the conversion time in microseconds, and the result or
+ * the error message. The inputs are read while earlier inputs are converted,
+ * so that only a bounded number of inputs and results are held in memory. The
+ * exit status is 0 if every input was converted, 1 if some conversions failed
+ * and 2 if the arguments are invalid.
+ */
+public final class BatchConverter {
+
+    // The number of inputs queued per worker thread before the oldest result
+    // is waited for.
+    private static final int QUEUED_PER_THREAD = 4;
+    // The maximum estimated memory of the cached finite automata.
+    private static final long CACHE_BYTES = 64L << 20;
+    // The extensions of files converted in fa mode.
+    private static final String[] FINITE_AUTOMATON_EXTENSIONS =
+            {".fa", ".dot", ".gv", ".tsv"};
+    private static final String USAGE =
+            "Usage: BatchConverter (re | fa) [--threads N] " +
+            "[--algorithm state-elimination | kleene | arden] " +
+            "[--output DIR] [path]";
+
+    private final boolean regexMode;
+    private final String algorithm;
+    private final Path outputDirectory;
+    private final int threads;
+    private final PrintStream output;
+    private final ArrayDeque<Future<Result>> pending = new ArrayDeque<>();
+    // The finite automata of recent regular expressions, shared by the
+    // worker threads, so that repeated inputs are only converted once.
+    private final CompiledRegexCache cache =
+            new CompiledRegexCache(CACHE_BYTES, false);
+    private ExecutorService workers;
+    private int itemCount = 0;
+    private int failureCount = 0;
+
+    /**
+     * The result of converting one input.
+     *
+     * @param source  where the input came from
+     * @param success whether the conversion succeeded
+     * @param micros  the conversion time in microseconds
+     * @param text    the result or the error message
+     */
+    private record Result(String source, boolean success, long micros,
+                          String text) {
+    }
+
+    /**
+     * Creates a batch converter with the given options.
+     *
+     * @param regexMode       whether regular expressions are converted
+     * @param algorithm       the algorithm used to convert finite automata
+     * @param outputDirectory the directory to save finite automata to, or
+     *                        <code>null</code>
+     * @param threads         the number of worker threads
+     * @param output          the stream to print the results to
+     */
+    private BatchConverter(boolean regexMode, String algorithm,
+                           Path outputDirectory, int threads,
+                           PrintStream output) {
+        this.regexMode = regexMode;
+        this.algorithm = algorithm;
+        this.outputDirectory = outputDirectory;
+        this.threads = threads;
+        this.output = output;
+    }
+
+    /**
+     * Runs the batch converter with the given arguments and exits with its
+     * exit status.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * Runs the batch converter with the given arguments and streams.
+     *
+     * @param args  the command line arguments
+     * @param input the stream to read inputs from if no path is given
+     * @param out   the stream to print the results to
+     * @param err   the stream to print the summary and errors to
+     * @return the exit status
+     */
+    public static int run(String[] args, InputStream input, PrintStream out,
+                          PrintStream err) {
+        // Parse the arguments.
+        if ((args.length == 0) || !(args[0].equals("re") ||
+                                    args[0].equals("fa"))) {
+            err.println(USAGE);
+            return 2;
+        }
+        String algorithm = "state-elimination";
+        Path outputDirectory = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path path = null;
+        try {
+            for (int index = 1; index < args.length; index++) {
+                switch (args[index]) {
+                    case "--threads" -> {
+                        threads = Integer.parseInt(args[++index]);
+                        if (threads < 1) {
+                            throw new IllegalArgumentException();
+                        }
+                    }
+                    case "--algorithm" -> {
+                        algorithm = args[++index].toLowerCase(Locale.ROOT);
+                        createConverter(algorithm);
+                    }
+                    case "--output" -> outputDirectory = Path.of(args[++index]);
+                    default -> {
+                        if ((path != null) || args[index].startsWith("--")) {
+                            throw new IllegalArgumentException();
+                        }
+                        path = Path.of(args[index]);
+                    }
+                }
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            err.println(USAGE);
+            return 2;
+        }
+
+        // Convert the inputs.
+        BatchConverter converter =
+                new BatchConverter(args[0].equals("re"), algorithm,
+                                   outputDirectory, threads, out);
+        long start = System.nanoTime();
+        try {
+            if (outputDirectory != null) {
+                Files.createDirectories(outputDirectory);
+            }
+            converter.convertAll(path, input);
+        }
+        catch (IOException e) {
+            err.println("Could not read the input: " + e.getMessage());
+            return 1;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        err.printf("Converted %d inputs in %d ms using %d threads, %d " +
+                   "failed.%n", converter.itemCount,
+                   (System.nanoTime() - start) / 1_000_000, threads,
+                   converter.failureCount);
+        return (converter.failureCount == 0) ? 0 : 1;
+    }
+
+    /**
+     * Creates the converter for the given algorithm.
+     *
+     * @param algorithm the name of the algorithm
+     * @return the converter
+     * @throws IllegalArgumentException if there is no such algorithm
+     */
+    private static FiniteAutomatonConverter createConverter(String algorithm)
+            throws IllegalArgumentException {
+        return switch (algorithm) {
+            case "state-elimination" -> new StateEliminationConverter();
+            case "kleene" -> new KleeneConverter();
+            case "arden" -> new ArdenConverter();
+            default -> throw new IllegalArgumentException(
+                    "Unknown algorithm " + algorithm + "!");
+        };
+    }
+
+    /**
+     * Reads the inputs from the given path, or from the stream if there is no
+     * path, and converts them on the worker threads.
+     *
+     * @param path  the file or directory to read, or <code>null</code>
+     * @param input the stream to read if there is no path
+     * @throws IOException          if the inputs cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *                              for a result
+     */
+    private void convertAll(Path path, InputStream input)
+            throws IOException, InterruptedException {
+        workers = Executors.newFixedThreadPool(threads);
+        try {
+            if (path == null) {
+                readLines(new BufferedReader(new InputStreamReader(
+                        input, StandardCharsets.UTF_8)), null);
+            }
+            else if (Files.isDirectory(path)) {
+                List<Path> files;
+                try (Stream<Path> stream = Files.list(path)) {
+                    files = stream.filter(Files::isRegularFile)
+                                  .filter(file -> regexMode ||
+                                                  isFiniteAutomatonFile(file))
+                                  .sorted().toList();
+                }
+                for (Path file : files) {
+                    readFile(file);
+                }
+            }
+            else {
+                readFile(path);
+            }
+
+            // Print the remaining results.
+            while (!pending.isEmpty()) {
+                printResult();
+            }
+        }
+        finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the inputs from the given file.
+     *
+     * @param file the file to read
+     * @throws IOException          if the file cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *                              for a result
+     */
+    private void readFile(Path file) throws IOException, InterruptedException {
+        if (!regexMode) {
+            submit(file.toString(), file.toString());
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(
+                file, StandardCharsets.UTF_8)) {
+            readLines(reader, file.toString());
+        }
+    }
+
+    /**
+     * Reads the inputs from the given reader, one per line. Empty lines are
+     * skipped.
+     *
+     * @param reader the reader to read from
+     * @param name   the name of the file being read, or <code>null</code>
+     * @throws IOException          if the reader cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *                              for a result
+     */
+    private void readLines(BufferedReader reader, String name)
+            throws IOException, InterruptedException {
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String source = !regexMode ? line.strip() :
+                            (name != null) ? name + ":" + lineNumber :
+                            String.valueOf(lineNumber);
+            submit(source, line.strip());
+        }
+    }
+
+    /**
+     * Queues the conversion of the given input, first printing the oldest
+     * result if too many conversions are queued.
+     *
+     * @param source where the input came from
+     * @param input  the regular expression or the path of the finite
+     *               automaton file
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *                              for a result
+     */
+    private void submit(String source, String input)
+            throws InterruptedException {
+        if (pending.size() >= threads * QUEUED_PER_THREAD) {
+            printResult();
+        }
+        int number = ++itemCount;
+        pending.add(workers.submit(() -> convert(source, input, number)));
+    }
+
+    /**
+     * Waits for the oldest queued conversion and prints its result.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private void printResult() throws InterruptedException {
+        Result result;
+        try {
+            result = pending.remove().get();
+        }
+        catch (ExecutionException e) {
+            result = new Result("?", false, 0, e.getCause().toString());
+        }
+        if (!result.success()) {
+            failureCount++;
+        }
+        output.println(result.source() + "\t" +
+                       (result.success() ? "ok" : "error") + "\t" +
+                       result.micros() + "\t" +
+                       result.text().replaceAll("\\s+", " "));
+    }
+
+    /**
+     * Converts one input. Runs on a worker thread.
+     *
+     * @param source where the input came from
+     * @param input  the regular expression or the path of the finite
+     *               automaton file
+     * @param number the number of the input, used to name saved files
+     * @return the result of the conversion
+     */
+    private Result convert(String source, String input, int number) {
+        long start = System.nanoTime();
+        try {
+            String text;
+            if (regexMode) {
+                CompactFiniteAutomaton finiteAutomaton =
+                        cache.getFiniteAutomaton(input);
+                text = finiteAutomaton.getStateCount() + " states, " +
+                       finiteAutomaton.getEdgeCount() + " edges";
+                if (outputDirectory != null) {
+                    Path file = outputDirectory.resolve(number + ".fa");
+                    CompactFiniteAutomatonSerializer.write(finiteAutomaton,
+                                                           file);
+                    text += ", saved to " + file;
+                }
+            }
+            else {
+                Path file = Path.of(input);
+                CompactFiniteAutomaton finiteAutomaton =
+                        file.toString().endsWith(".fa") ?
+                        CompactFiniteAutomatonSerializer.read(file) :
+                        CompactFiniteAutomatonImporter.importFile(file);
+                text = createConverter(algorithm).convert(finiteAutomaton)
+                                                 .toString();
+            }
+            return new Result(source, true, elapsedMicros(start), text);
+        }
+        catch (IOException | RuntimeException | StackOverflowError e) {
+            String message = (e.getMessage() != null) ? e.getMessage() :
+                             e.getClass().getSimpleName();
+            return new Result(source, false, elapsedMicros(start), message);
+        }
+    }
+
+    /**
+     * Returns the number of microseconds since the given time.
+     *
+     * @param start the start time, from {@link System#nanoTime()}
+     * @return the number of microseconds elapsed
+     */
+    private static long elapsedMicros(long start) {
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    /**
+     * Checks whether the given file can be converted in fa mode.
+     *
+     * @param file the file to check
+     * @return true if the file has a finite automaton extension, false
+     * otherwise
+     */
+    private static boolean isFiniteAutomatonFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : FINITE_AUTOMATON_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -1,10 +1,12 @@
 package dudzinski.kacper.farec.controllers;
 
 import dudzinski.kacper.farec.Command;
+import dudzinski.kacper.farec.finiteautomata.EdgeLabels;
 import dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings;
 import dudzinski.kacper.farec.finiteautomata.smart.*;
 import dudzinski.kacper.farec.regex.Parser;
 import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import javafx.concurrent.Task;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -23,6 +25,7 @@ import javafx.util.Pair;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.ResourceBundle;
 
@@ -43,6 +46,10 @@ public final class ConvertFAScreenController implements Initializable {
     @FXML
     private Label infoLabel;
     @FXML
+    private ProgressIndicator progressIndicator;
+    @FXML
+    private Button trimButton;
+    @FXML
     private Button prevButton;
     @FXML
     private Button nextButton;
@@ -56,6 +63,8 @@ public final class ConvertFAScreenController implements Initializable {
     private ArrayList<SmartState> incomingStates = new ArrayList<>();
     private int outgoingIndex = 0;
     private ArrayList<SmartState> outgoingStates = new ArrayList<>();
+    private SmartState finalState;
+    private Task<Pair<String, String>> labelTask = null;
 
     /**
      * Given a label in the form (A)+(B)|(C)*|(D) where A, B, C and D are
@@ -245,22 +254,28 @@ public final class ConvertFAScreenController implements Initializable {
     }
 
     /**
-     * Sets the background color of the scroll pane.
+     * Sets the background color of the scroll pane. Makes the progress
+     * indicator take up space only while it is visible.
      */
     public void initialize(URL location, ResourceBundle resources) {
         // Set the background color of the scroll pane.
         scrollPane.setBackground(new Background(
                 new BackgroundFill(FiniteAutomatonSettings.CONTAINER_COLOR,
                                    CornerRadii.EMPTY, Insets.EMPTY)));
+
+        // Only lay out the progress indicator while it is visible.
+        progressIndicator.managedProperty()
+                         .bind(progressIndicator.visibleProperty());
     }
 
     /**
      * Finalises the finite automaton and sets its container as the content of
      * the scroll pane. Renames all unnamed states. Adds a new initial state and
-     * connects it to the previous initial state. Connects the previous final
-     * state to a new final state. For edges with a list label, removes
-     * whitespace and replaces the commas with the UNION operator. Sets the info
-     * label.
+     * connects it to the previous initial state. If there are several final
+     * states, or the only final state has outgoing edges, connects the
+     * previous final states to a new final state. For edges with a list label,
+     * removes whitespace and replaces the commas with the UNION operator. Sets
+     * the info label.
      *
      * @param finiteAutomaton the finite automaton to convert into a regular
      *                        expression
@@ -275,31 +290,18 @@ public final class ConvertFAScreenController implements Initializable {
         // Name all unnamed states by performing breath-first search from the
         // initial state.
         int counter = 1;
-        ArrayList<SmartState> openList = new ArrayList<>();
-        openList.add(finiteAutomaton.getInitialState());
-        ArrayList<SmartState> closedList = new ArrayList<>();
-        while (!openList.isEmpty()) {
-            SmartState currentState = openList.remove(0);
-            closedList.add(currentState);
+        for (SmartState state : finiteAutomaton.getReachableStates()) {
             // If state has no label, give it one and increase the counter.
-            if (currentState.getLabelText().isEmpty()) {
-                currentState.setLabelText("s" + counter);
+            if (state.getLabelText().isEmpty()) {
+                state.setLabelText("s" + counter);
                 counter++;
             }
-            // Add connected states to the open list (only if the state is not
-            // already in the open list and not in the closed list).
-            for (SmartEdgeComponent outgoingEdge :
-                    currentState.getOutgoingEdges()) {
-                SmartState child = outgoingEdge.getEndState();
-                if (!openList.contains(child) && !closedList.contains(child)) {
-                    openList.add(child);
-                }
-            }
         }
 
         // Get the previous initial and final states.
         SmartState oldInitialState = finiteAutomaton.getInitialState();
-        SmartState oldFinalState = finiteAutomaton.getFinalState();
+        ArrayList<SmartState> oldFinalStates =
+                new ArrayList<>(finiteAutomaton.getFinalStates());
 
         // Add a new initial state.
         SmartState newInitialState =
@@ -318,37 +320,35 @@ public final class ConvertFAScreenController implements Initializable {
                                                                oldInitialState);
         finiteAutomaton.addEdge(iToI);
 
-        // Add a new final state.
-        SmartState newFinalState =
-                SmartFiniteAutomatonBuilder.createState("s" + counter);
-        newFinalState.getContainer()
-                .setTranslateX(oldFinalState.getContainer().getTranslateX());
-        newFinalState.getContainer().setTranslateY(
-                oldFinalState.getContainer().getTranslateY() + 100);
-        finiteAutomaton.addState(newFinalState);
-        finiteAutomaton.setFinalState(newFinalState);
-
-        // Add a transition from the old final state to the new final state.
-        SmartEdge fToF =
-                SmartFiniteAutomatonBuilder.createStraightEdge(EMPTY_STRING,
-                                                               oldFinalState,
-                                                               newFinalState);
-        finiteAutomaton.addEdge(fToF);
+        // If there is a single final state without outgoing edges, it can be
+        // kept as the final state.
+        finalState = oldFinalStates.get(0);
+        if ((oldFinalStates.size() > 1) ||
+            !finalState.getOutgoingEdges().isEmpty()) {
+            // Otherwise, add a new final state.
+            SmartState newFinalState =
+                    SmartFiniteAutomatonBuilder.createState("s" + counter);
+            newFinalState.getContainer()
+                    .setTranslateX(finalState.getContainer().getTranslateX());
+            newFinalState.getContainer().setTranslateY(
+                    finalState.getContainer().getTranslateY() + 100);
+            finiteAutomaton.addState(newFinalState);
+
+            // Add a transition from each old final state to the new final
+            // state.
+            for (SmartState oldFinalState : oldFinalStates) {
+                finiteAutomaton.removeFinalState(oldFinalState);
+                SmartEdge fToF = SmartFiniteAutomatonBuilder.createStraightEdge(
+                        EMPTY_STRING, oldFinalState, newFinalState);
+                finiteAutomaton.addEdge(fToF);
+            }
+            finiteAutomaton.addFinalState(newFinalState);
+            finalState = newFinalState;
+        }
 
         // Remove whitespace and replace commas with the UNION operator.
         for (SmartEdgeComponent edge : finiteAutomaton.getEdges()) {
-            // Get the label text.
-            String label = edge.getLabelText();
-
-            // Remove whitespace.
-            label = label.replaceAll("\\s+", "").trim();
-
-            // Replace commas with the UNION operator.
-            label = label.replaceAll(",", String.valueOf(
-                    RegularExpressionSettings.getUnionOperatorChar()));
-
-            // Update the label text.
-            edge.setLabelText(label);
+            edge.setLabelText(EdgeLabels.toRegexString(edge.getLabelText()));
         }
 
         // Set the info label.
@@ -474,12 +474,11 @@ public final class ConvertFAScreenController implements Initializable {
             }
         }
 
-        // In UPDATE mode, the edge labels are updated.
+        // In UPDATE mode, the edge labels are updated once the new label has
+        // been computed.
         else if (workMode == WorkMode.UPDATE) {
-            UpdateEdgeLabelCommand updateEdgeLabelCommand =
-                    new UpdateEdgeLabelCommand();
-            updateEdgeLabelCommand.execute();
-            commandHistory.add(updateEdgeLabelCommand);
+            updateEdgeLabel();
+            return;
         }
 
         // In REMOVE mode, the chosen state is removed.
@@ -489,7 +488,8 @@ public final class ConvertFAScreenController implements Initializable {
             commandHistory.add(removeStateCommand);
         }
 
-        // Update the prev button.
+        // Update the trim and prev buttons.
+        trimButton.setDisable(workMode != WorkMode.SELECT);
         prevButton.setDisable(commandHistory.isEmpty());
     }
 
@@ -506,7 +506,28 @@ public final class ConvertFAScreenController implements Initializable {
             lastCommand.undo();
         }
 
-        // Update the prev button.
+        // Update the trim and prev buttons.
+        trimButton.setDisable(workMode != WorkMode.SELECT);
+        prevButton.setDisable(commandHistory.isEmpty());
+    }
+
+    /**
+     * Removes the useless states of the finite automaton, which are the states
+     * that are not on any path from the initial state to the final state. This
+     * is an optional step that can be taken whenever the user can select a
+     * state to remove, and it can be undone with the prev button.
+     */
+    public void trim() {
+        TrimCommand trimCommand = new TrimCommand();
+        trimCommand.execute();
+
+        // Only add to command history if states were removed.
+        if (!trimCommand.savedStates.isEmpty()) {
+            commandHistory.add(trimCommand);
+        }
+
+        // Update the trim and prev buttons.
+        trimButton.setDisable(workMode != WorkMode.SELECT);
         prevButton.setDisable(commandHistory.isEmpty());
     }
 
@@ -613,6 +634,155 @@ public final class ConvertFAScreenController implements Initializable {
         }
     }
 
+    /**
+     * Computes the new label of the edge being updated on a background thread,
+     * and then updates the edge. The labels can grow very long as states are
+     * removed, so building and simplifying them could otherwise freeze the
+     * window. While the label is being computed, the progress indicator is
+     * shown, the prev and trim buttons are disabled and the next button reads
+     * "Stop". Pressing it interrupts the background thread, and simplifying
+     * the label checks for this, so the computation stops.
+     */
+    private void updateEdgeLabel() {
+        // If the label is being computed, stop it.
+        if (labelTask != null) {
+            labelTask.cancel();
+            finishLabelTask();
+            infoLabel.setText("Stopped computing the new label.");
+            return;
+        }
+
+        // Get the labels of the edges involved in the update.
+        SmartState startState = incomingStates.get(incomingIndex);
+        SmartState endState = outgoingStates.get(outgoingIndex);
+        String directLabel = getEdgeLabelText(startState, endState);
+        String startToMiddleLabel =
+                getEdgeLabelText(startState, stateToRemove);
+        String middleToMiddleLabel =
+                getEdgeLabelText(stateToRemove, stateToRemove);
+        String middleToEndLabel = getEdgeLabelText(stateToRemove, endState);
+
+        // Build and simplify the new label.
+        Task<Pair<String, String>> task = new Task<>() {
+            @Override
+            protected Pair<String, String> call() {
+                updateProgress(0, 2);
+                String newLabel = createUpdatedLabel(directLabel,
+                                                     startToMiddleLabel,
+                                                     middleToMiddleLabel,
+                                                     middleToEndLabel);
+                if (isCancelled()) {
+                    return null;
+                }
+                updateProgress(1, 2);
+                return new Pair<>(newLabel, simplifyLabel(newLabel));
+            }
+        };
+        labelTask = task;
+        progressIndicator.progressProperty().bind(task.progressProperty());
+        progressIndicator.visibleProperty().bind(task.runningProperty());
+
+        // Once the label has been computed, update the edge. The info label
+        // is restored first, so that undoing the update restores it.
+        String infoLabelText = infoLabel.getText();
+        task.setOnSucceeded(event -> {
+            infoLabel.setText(infoLabelText);
+            UpdateEdgeLabelCommand updateEdgeLabelCommand =
+                    new UpdateEdgeLabelCommand(task.getValue().getKey(),
+                                               task.getValue().getValue());
+            updateEdgeLabelCommand.execute();
+            commandHistory.add(updateEdgeLabelCommand);
+            finishLabelTask();
+        });
+        task.setOnFailed(event -> {
+            finishLabelTask();
+            infoLabel.setText("The new label could not be computed!");
+        });
+
+        // Start computing the label.
+        infoLabel.setText("Computing the new label...");
+        trimButton.setDisable(true);
+        prevButton.setDisable(true);
+        nextButton.setText("Stop");
+        Thread thread = new Thread(task, "Label");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Clears the label task once it has finished or been stopped. Turns the
+     * stop button back into the next button, and enables the prev and trim
+     * buttons again where they apply.
+     */
+    private void finishLabelTask() {
+        labelTask = null;
+        nextButton.setText("Next");
+        trimButton.setDisable(workMode != WorkMode.SELECT);
+        prevButton.setDisable(commandHistory.isEmpty());
+    }
+
+    /**
+     * Returns the label of the edge between two states.
+     *
+     * @param startState the start state of the edge
+     * @param endState   the end state of the edge
+     * @return the label of the edge, or <code>null</code> if there is no such
+     * edge
+     */
+    private String getEdgeLabelText(SmartState startState,
+                                    SmartState endState) {
+        SmartEdgeComponent edge = finiteAutomaton.getEdge(startState, endState);
+        return (edge != null) ? edge.getLabelText() : null;
+    }
+
+    /**
+     * Returns the new label of the edge from a start state to an end state
+     * when a middle state is removed. The label is the union of the direct
+     * path and the indirect path through the middle state, and has the
+     * format:<br>
+     * (start to end) + (start to middle) | (middle to middle)* | (middle to
+     * end)<br>
+     * where a missing edge is replaced by the empty set symbol. The label
+     * only depends on the given strings, so it can be computed on any
+     * thread.
+     *
+     * @param directLabel         the label of the edge from the start state to
+     *                            the end state (might be <code>null</code>)
+     * @param startToMiddleLabel  the label of the edge from the start state to
+     *                            the middle state (might be
+     *                            <code>null</code>)
+     * @param middleToMiddleLabel the label of the edge from the middle state
+     *                            to itself (might be <code>null</code>)
+     * @param middleToEndLabel    the label of the edge from the middle state
+     *                            to the end state (might be
+     *                            <code>null</code>)
+     * @return the new label, in the form (A)+(B)|(C)*|(D)
+     */
+    protected static String createUpdatedLabel(String directLabel,
+                                               String startToMiddleLabel,
+                                               String middleToMiddleLabel,
+                                               String middleToEndLabel) {
+        return bracket(directLabel) +
+               RegularExpressionSettings.getUnionOperatorChar() +
+               bracket(startToMiddleLabel) +
+               RegularExpressionSettings.getConcatenationOperatorChar() +
+               bracket(middleToMiddleLabel) +
+               RegularExpressionSettings.getStarOperatorChar() +
+               RegularExpressionSettings.getConcatenationOperatorChar() +
+               bracket(middleToEndLabel);
+    }
+
+    /**
+     * Returns the given label in brackets, or the empty set symbol in
+     * brackets if there is no label.
+     *
+     * @param label the label (might be <code>null</code>)
+     * @return the label in brackets
+     */
+    private static String bracket(String label) {
+        return "(" + ((label != null) ? label : EMPTY_SET) + ")";
+    }
+
     /**
      * Returns the label (in brackets) and edge of the direct path between two
      * states. The direct path between two states is simply the edge between
@@ -629,11 +799,9 @@ public final class ConvertFAScreenController implements Initializable {
             SmartState startState, SmartState endState) {
         // If there is an edge between the two states, return its label and the
         // edge itself.
-        for (SmartEdgeComponent edge : finiteAutomaton.getEdges()) {
-            if ((edge.getStartState() == startState) &&
-                (edge.getEndState() == endState)) {
-                return new Pair<>("(" + edge.getLabelText() + ")", edge);
-            }
+        SmartEdgeComponent edge = finiteAutomaton.getEdge(startState, endState);
+        if (edge != null) {
+            return new Pair<>("(" + edge.getLabelText() + ")", edge);
         }
 
         // Otherwise, return the EMPTY SET symbol and null.
@@ -641,72 +809,29 @@ public final class ConvertFAScreenController implements Initializable {
     }
 
     /**
-     * Returns the label and a list of edges of the indirect path from the start
-     * state to the end state, going through the middle state. The label of this
-     * path is the concatenation of the labels of the individual direct paths,
-     * with the star regex operator being applied to the path from the middle
-     * state to the middle state. Thus, the label has the format:<br>
-     * (start to middle) | (middle to middle)* | (middle to end)
+     * Returns the edges of the indirect path from the start state to the end
+     * state, going through the middle state. The path consists of the edges
+     * from the start state to the middle state, from the middle state to
+     * itself, and from the middle state to the end state, if they exist.
      *
      * @param startState  the start state of the path
      * @param middleState the middle state of the path
      * @param endState    the end state of the path
-     * @return a pair (K, V) where K is the label of the indirect path between
-     * the start state and end state, going through the middle state, and V is a
-     * list of edges on that path
+     * @return a list of edges on the indirect path
      */
-    private Pair<String, ArrayList<SmartEdgeComponent>> getIndirectPath(
+    private ArrayList<SmartEdgeComponent> getIndirectPathEdges(
             SmartState startState, SmartState middleState,
             SmartState endState) {
-        // Create the list to store path edges.
         ArrayList<SmartEdgeComponent> pathEdges = new ArrayList<>();
-
-        // Get the path from the start state to the middle state.
-        Pair<String, SmartEdgeComponent> startToMiddle =
-                getDirectPath(startState, middleState);
-
-        // Get the path label.
-        String startToMiddleLabel = startToMiddle.getKey();
-
-        // If the path edge exists, add it to the path edges.
-        if (startToMiddle.getValue() != null) {
-            pathEdges.add(startToMiddle.getValue());
-        }
-
-        // Get the path from the middle state to the middle state.
-        Pair<String, SmartEdgeComponent> middleToMiddle =
-                getDirectPath(middleState, middleState);
-
-        // Get the path label.
-        String middleToMiddleLabel = middleToMiddle.getKey();
-
-        // If the path edge exists, add it to the path edges.
-        if (middleToMiddle.getValue() != null) {
-            pathEdges.add(middleToMiddle.getValue());
-        }
-
-        // Get the path from the middle state to the end state.
-        Pair<String, SmartEdgeComponent> middleToEnd =
-                getDirectPath(middleState, endState);
-
-        // Get the path label.
-        String middleToEndLabel = middleToEnd.getKey();
-
-        // If the path edge exists, add it to the path edges.
-        if (middleToEnd.getValue() != null) {
-            pathEdges.add(middleToEnd.getValue());
+        for (SmartEdgeComponent edge : new SmartEdgeComponent[]{
+                finiteAutomaton.getEdge(startState, middleState),
+                finiteAutomaton.getEdge(middleState, middleState),
+                finiteAutomaton.getEdge(middleState, endState)}) {
+            if (edge != null) {
+                pathEdges.add(edge);
+            }
         }
-
-        // Create the path label for the indirect path.
-        String pathLabel = startToMiddleLabel +
-                           RegularExpressionSettings.getConcatenationOperatorChar() +
-                           middleToMiddleLabel +
-                           RegularExpressionSettings.getStarOperatorChar() +
-                           RegularExpressionSettings.getConcatenationOperatorChar() +
-                           middleToEndLabel;
-
-        // Return the path label and the path edges.
-        return new Pair<>(pathLabel, pathEdges);
+        return pathEdges;
     }
 
     /**
@@ -751,7 +876,7 @@ public final class ConvertFAScreenController implements Initializable {
                 infoLabel.setText("You cannot select the initial state!");
             }
             // If the selected state is the final state, update the info label.
-            else if (currentlySelected == finiteAutomaton.getFinalState()) {
+            else if (currentlySelected == finalState) {
                 infoLabel.setText("You cannot select the final state!");
             }
             // Otherwise, the state selected is a valid state to remove.
@@ -825,12 +950,14 @@ public final class ConvertFAScreenController implements Initializable {
     /**
      * Updates the label on an edge of the finite automaton as a result of one
      * of its states being removed. Removes the previous highlighting and then
-     * highlights the states and edges involved in the update. Generates and
-     * sets the updated label on the edge being updated (creating the edge if it
-     * did not previously exist).
+     * highlights the states and edges involved in the update. Sets the updated
+     * label, which has already been generated, on the edge being updated
+     * (creating the edge if it did not previously exist).
      */
     private class UpdateEdgeLabelCommand extends Command {
 
+        private final String newLabel;
+        private final String simplifiedLabel;
         private ArrayList<Pair<SmartComponent, Paint>> savedHighlighting;
         private String savedLabelText = null;
         private SmartEdgeComponent savedUpdatedEdge;
@@ -838,6 +965,18 @@ public final class ConvertFAScreenController implements Initializable {
         private int savedIncomingIndex;
         private int savedOutgoingIndex;
 
+        /**
+         * Creates an {@link UpdateEdgeLabelCommand} command that sets the
+         * given label on the edge being updated.
+         *
+         * @param newLabel        the new label
+         * @param simplifiedLabel the simplified version of the new label
+         */
+        UpdateEdgeLabelCommand(String newLabel, String simplifiedLabel) {
+            this.newLabel = newLabel;
+            this.simplifiedLabel = simplifiedLabel;
+        }
+
         /**
          * Executes the {@link UpdateEdgeLabelCommand} command.
          */
@@ -860,31 +999,13 @@ public final class ConvertFAScreenController implements Initializable {
             SmartState endState = outgoingStates.get(outgoingIndex);
             endState.setStroke(PATH_HIGHLIGHT_COLOR);
 
-            // Get the direct path.
-            Pair<String, SmartEdgeComponent> directPath =
-                    getDirectPath(startState, endState);
-
-            // Get the indirect path.
-            Pair<String, ArrayList<SmartEdgeComponent>> indirectPath =
-                    getIndirectPath(startState, stateToRemove, endState);
-
             // Highlight the indirect path edges.
-            indirectPath.getValue().forEach(edge -> {
-                if (edge != null) {
-                    edge.setStroke(PATH_HIGHLIGHT_COLOR);
-                }
-            });
-
-            // Create the new label.
-            String newLabel = directPath.getKey() +
-                              RegularExpressionSettings.getUnionOperatorChar() +
-                              indirectPath.getKey();
-
-            // Simplify the label.
-            String simplifiedLabel = simplifyLabel(newLabel);
+            getIndirectPathEdges(startState, stateToRemove, endState)
+                    .forEach(edge -> edge.setStroke(PATH_HIGHLIGHT_COLOR));
 
             // If the edge being updated already exists, update its label.
-            SmartEdgeComponent updatedEdge = directPath.getValue();
+            SmartEdgeComponent updatedEdge =
+                    finiteAutomaton.getEdge(startState, endState);
             if (updatedEdge != null) {
                 // Save the label of the edge being updated before it's changed.
                 savedLabelText = updatedEdge.getLabelText();
@@ -1020,7 +1141,7 @@ public final class ConvertFAScreenController implements Initializable {
                 // Get the regex string.
                 String regexString =
                         getDirectPath(finiteAutomaton.getInitialState(),
-                                      finiteAutomaton.getFinalState()).getKey();
+                                      finalState).getKey();
 
                 // Update the info label.
                 infoLabel.setText(
@@ -1074,4 +1195,81 @@ public final class ConvertFAScreenController implements Initializable {
         }
     }
 
+    /**
+     * Removes the useless states of the finite automaton, together with their
+     * edges. The initial state and the final state are never removed. Updates
+     * the info label with the number of removed states and edges.
+     */
+    private class TrimCommand extends Command {
+
+        private final ArrayList<SmartState> savedStates = new ArrayList<>();
+        private final ArrayList<SmartEdgeComponent> savedEdges =
+                new ArrayList<>();
+        private String savedInfoLabelText;
+
+        /**
+         * Executes the {@link TrimCommand} command.
+         */
+        @Override
+        public void execute() {
+            // Unselect currently selected.
+            unselectCurrentlySelected();
+
+            // Save the info label.
+            savedInfoLabelText = infoLabel.getText();
+
+            // Find the useless states, keeping the initial and final states.
+            LinkedHashSet<SmartState> uselessStates =
+                    finiteAutomaton.getUselessStates();
+            uselessStates.remove(finiteAutomaton.getInitialState());
+            uselessStates.remove(finalState);
+
+            // If there are no useless states, there is nothing to do.
+            if (uselessStates.isEmpty()) {
+                infoLabel.setText("There are no useless states. " +
+                                  SELECT_STRING);
+                return;
+            }
+
+            // Save the states and the edges connected to them.
+            LinkedHashSet<SmartEdgeComponent> edges = new LinkedHashSet<>();
+            for (SmartState state : uselessStates) {
+                edges.addAll(state.getIncomingEdges());
+                edges.addAll(state.getOutgoingEdges());
+            }
+            savedStates.addAll(uselessStates);
+            savedEdges.addAll(edges);
+
+            // Remove the states.
+            for (SmartState state : uselessStates) {
+                finiteAutomaton.removeState(state);
+            }
+
+            // Update the info label.
+            infoLabel.setText("Removed " + savedStates.size() +
+                              " useless state(s) and " + savedEdges.size() +
+                              " edge(s). " + SELECT_STRING);
+        }
+
+        /**
+         * Undoes the {@link TrimCommand} command.
+         */
+        @Override
+        public void undo() {
+            // Unselect currently selected.
+            unselectCurrentlySelected();
+
+            // Restore the info label.
+            infoLabel.setText(savedInfoLabelText);
+
+            // Restore the removed states and the edges connected to them.
+            for (SmartState state : savedStates) {
+                finiteAutomaton.addState(state);
+            }
+            for (SmartEdgeComponent edge : savedEdges) {
+                finiteAutomaton.addEdge(edge);
+            }
+        }
+    }
+
 }
@@ -12,6 +12,7 @@ import javafx.scene.layout.*;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.ResourceBundle;
 
 import static dudzinski.kacper.farec.regex.RegularExpressionSettings.*;
@@ -53,6 +54,9 @@ public final class ConvertREScreenController implements Initializable {
     private int maxPostorderIndex;
     private ArrayList<ParseTreeNode> parseTreeNodesPostorder;
     private ArrayList<RegularExpression> regularExpressionsPostorder;
+    // The finite automaton of each parse tree node that has been shown.
+    private final IdentityHashMap<ParseTreeNode, Pane> finiteAutomata =
+            new IdentityHashMap<>();
 
     /**
      * Makes the finite automaton area and the parse tree area grow by equal
@@ -109,6 +113,7 @@ public final class ConvertREScreenController implements Initializable {
                 parseTree.getRegularExpression().postorderTraversal();
         currentPostorderIndex = 0;
         maxPostorderIndex = parseTreeNodesPostorder.size() - 1;
+        finiteAutomata.clear();
 
         // Display the parse tree and update the regular expression label.
         parseTreeScrollPane.setContent(parseTree.getContainer());
@@ -144,9 +149,7 @@ public final class ConvertREScreenController implements Initializable {
 
         // Display the first finite automaton.
         blankPane.getChildren().clear();
-        blankPane.getChildren()
-                .add(GraphicalFiniteAutomatonBuilder.buildFiniteAutomaton(
-                        currentRegularExpression).getContainer());
+        blankPane.getChildren().add(getFiniteAutomaton(currentPostorderIndex));
     }
 
     /**
@@ -190,9 +193,7 @@ public final class ConvertREScreenController implements Initializable {
 
         // Display the previous finite automaton.
         blankPane.getChildren().clear();
-        blankPane.getChildren()
-                .add(GraphicalFiniteAutomatonBuilder.buildFiniteAutomaton(
-                        previousRegularExpression).getContainer());
+        blankPane.getChildren().add(getFiniteAutomaton(currentPostorderIndex));
     }
 
     /**
@@ -236,9 +237,28 @@ public final class ConvertREScreenController implements Initializable {
 
         // Display the next finite automaton.
         blankPane.getChildren().clear();
-        blankPane.getChildren()
-                .add(GraphicalFiniteAutomatonBuilder.buildFiniteAutomaton(
-                        nextRegularExpression).getContainer());
+        blankPane.getChildren().add(getFiniteAutomaton(currentPostorderIndex));
+    }
+
+    /**
+     * Returns the finite automaton for the parse tree node at the given index
+     * of the postorder traversal. Each finite automaton is only built the
+     * first time its node is shown, and is shown again when the user steps
+     * back to it. Each finite automaton is built as a single flat pane, so
+     * the depth of the scene graph does not grow with the depth of the
+     * regular expression.
+     *
+     * @param postorderIndex the index of the parse tree node in the postorder
+     *                       traversal
+     * @return the finite automaton for the parse tree node
+     */
+    private Pane getFiniteAutomaton(int postorderIndex) {
+        return finiteAutomata.computeIfAbsent(
+                parseTreeNodesPostorder.get(postorderIndex),
+                node -> GraphicalFiniteAutomatonBuilder
+                        .buildFlatFiniteAutomaton(
+                                regularExpressionsPostorder.get(
+                                        postorderIndex)));
     }
 
 }
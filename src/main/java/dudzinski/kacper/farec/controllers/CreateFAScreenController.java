@@ -2,8 +2,18 @@ package dudzinski.kacper.farec.controllers;
 
 import dudzinski.kacper.farec.App;
 import dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings;
+import dudzinski.kacper.farec.finiteautomata.ForceDirectedLayout;
+import dudzinski.kacper.farec.finiteautomata.LayeredLayout;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonImporter;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonSerializer;
 import dudzinski.kacper.farec.finiteautomata.smart.*;
+import dudzinski.kacper.farec.rendering.Diagram;
+import dudzinski.kacper.farec.rendering.DiagramCanvas;
+import dudzinski.kacper.farec.rendering.DiagramExporter;
+import dudzinski.kacper.farec.rendering.VirtualizedFiniteAutomatonPane;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.fxml.FXML;
@@ -18,9 +28,11 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
@@ -37,8 +49,27 @@ import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
  */
 public final class CreateFAScreenController implements Initializable {
 
-    private final SmartFiniteAutomaton finiteAutomaton =
+    private static final FileChooser.ExtensionFilter FILE_FILTER =
+            new FileChooser.ExtensionFilter("Finite automata", "*.fa");
+    private static final FileChooser.ExtensionFilter IMPORT_FILTER =
+            new FileChooser.ExtensionFilter("DOT graphs and edge lists",
+                                            "*.dot", "*.gv", "*.tsv");
+    private static final FileChooser.ExtensionFilter SVG_FILTER =
+            new FileChooser.ExtensionFilter("SVG images", "*.svg");
+    private static final FileChooser.ExtensionFilter PNG_FILTER =
+            new FileChooser.ExtensionFilter("PNG images", "*.png");
+    // The time between showing the positions of a running layout, in
+    // nanoseconds.
+    private static final long LAYOUT_PUBLISH_INTERVAL = 50_000_000;
+
+    private SmartFiniteAutomaton finiteAutomaton =
             new SmartFiniteAutomaton(this);
+    // The loaded finite automaton if it is too large to edit, or null.
+    private CompactFiniteAutomaton largeFiniteAutomaton = null;
+    // The view of the large finite automaton if it is virtualised, or null.
+    private VirtualizedFiniteAutomatonPane virtualizedPane = null;
+    // The running automatic layout, or null.
+    private Task<double[]> layoutTask = null;
     private FXMLLoader fxmlLoader;
     @FXML
     private ScrollPane scrollPane;
@@ -306,12 +337,19 @@ public final class CreateFAScreenController implements Initializable {
      * @throws IOException if the view fxml file cannot be found
      */
     public void convert() throws IOException {
-        // Unselect the currently selected component.
+        // Unselect the currently selected component, and stop the layout.
         unselectCurrentlySelected();
+        cancelLayout();
+
+        // A finite automaton too large to edit cannot be converted here.
+        if (largeFiniteAutomaton != null) {
+            showTemporaryMessage("The finite automaton is too large to " +
+                                 "convert step by step!");
+        }
 
         // If the finite automaton is valid, change views and pass the finite
         // automaton to the new controller.
-        if (finiteAutomaton.isValid()) {
+        else if (finiteAutomaton.isValid()) {
             fxmlLoader = new FXMLLoader(
                     App.class.getResource("convert_fa_screen.fxml"));
             Scene scene = new Scene(fxmlLoader.load(),
@@ -329,17 +367,421 @@ public final class CreateFAScreenController implements Initializable {
         // If the finite automaton is not valid, show an error message in the
         // info label for a short time.
         else {
-            infoLabel.setText("The finite automaton is not valid!");
-            Timer timer = new Timer(true);
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    Platform.runLater(() -> infoLabel.setText(infoLabelText));
+            showTemporaryMessage("The finite automaton is not valid!");
+        }
+    }
+
+    /**
+     * Asks the user for a file and saves the finite automaton to it. If the
+     * file cannot be written, displays an error message in the info label for
+     * a short time. This method is called when the save button is pressed.
+     *
+     * @see CompactFiniteAutomatonSerializer
+     */
+    public void save() {
+        // Unselect the currently selected component.
+        unselectCurrentlySelected();
+
+        // Ask the user for the file to save to.
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save finite automaton");
+        fileChooser.getExtensionFilters().add(FILE_FILTER);
+        File file = fileChooser.showSaveDialog(scrollPane.getScene()
+                                                       .getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Save the finite automaton.
+        try {
+            CompactFiniteAutomatonSerializer.write(
+                    (largeFiniteAutomaton != null) ? largeFiniteAutomaton :
+                    SmartFiniteAutomatonAdapter.toCompact(finiteAutomaton),
+                    file.toPath());
+            showTemporaryMessage("Saved to " + file.getName() + ".");
+        }
+        catch (IOException e) {
+            showTemporaryMessage("The finite automaton could not be saved!");
+        }
+    }
+
+    /**
+     * Asks the user for a file and replaces the finite automaton with the one
+     * stored in it. Files that are not finite automaton files are imported as
+     * DOT graphs or edge lists. Finite automata too large to edit are shown
+     * with scene nodes only for their visible components, or drawn on a
+     * canvas if they are even larger, and can only be saved. If the file
+     * cannot be read, displays an error message in the info label for a short
+     * time. This method is called when the load button is pressed.
+     *
+     * @see CompactFiniteAutomatonSerializer
+     * @see CompactFiniteAutomatonImporter
+     */
+    public void load() {
+        // Unselect the currently selected component, and stop the layout.
+        unselectCurrentlySelected();
+        cancelLayout();
+
+        // Ask the user for the file to load from.
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Load finite automaton");
+        fileChooser.getExtensionFilters().addAll(FILE_FILTER, IMPORT_FILTER);
+        File file = fileChooser.showOpenDialog(scrollPane.getScene()
+                                                       .getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Load the finite automaton and show it in the scroll pane.
+        try {
+            CompactFiniteAutomaton compactFiniteAutomaton =
+                    file.getName().endsWith(".fa") ?
+                    CompactFiniteAutomatonSerializer.read(file.toPath()) :
+                    CompactFiniteAutomatonImporter.importFile(file.toPath());
+            edgeStartState = null;
+            edgeEndState = null;
+            if (compactFiniteAutomaton.getStateCount() +
+                compactFiniteAutomaton.getEdgeCount() >
+                VIRTUALIZATION_COMPONENT_THRESHOLD) {
+                showLargeFiniteAutomaton(compactFiniteAutomaton);
+                showTemporaryMessage("Loaded " + file.getName() +
+                                     ", which is too large to edit.");
+            }
+            else {
+                largeFiniteAutomaton = null;
+                detachVirtualizedPane();
+                finiteAutomaton = SmartFiniteAutomatonAdapter.toSmart(
+                        compactFiniteAutomaton, this);
+                scrollPane.setContent(finiteAutomaton.getContainer());
+                showTemporaryMessage("Loaded " + file.getName() + ".");
+            }
+        }
+        catch (IOException e) {
+            showTemporaryMessage("The finite automaton could not be loaded!");
+        }
+    }
+
+    /**
+     * Asks the user for a file and exports an image of the finite automaton to
+     * it, as an SVG image if the file name ends with ".svg" and as a PNG image
+     * otherwise. The image is drawn on a background thread from the layout of
+     * the finite automaton, without taking a snapshot of the scene, so that
+     * finite automata of any size can be exported. If the image cannot be
+     * written, displays an error message in the info label for a short time.
+     * This method is called when the export button is pressed.
+     *
+     * @see DiagramExporter
+     */
+    public void export() {
+        // Unselect the currently selected component.
+        unselectCurrentlySelected();
+
+        // Ask the user for the file to export to.
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export finite automaton");
+        fileChooser.getExtensionFilters().addAll(SVG_FILTER, PNG_FILTER);
+        File file = fileChooser.showSaveDialog(scrollPane.getScene()
+                                                       .getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Export the finite automaton on a background thread.
+        CompactFiniteAutomaton compactFiniteAutomaton =
+                (largeFiniteAutomaton != null) ? largeFiniteAutomaton :
+                SmartFiniteAutomatonAdapter.toCompact(finiteAutomaton);
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                DiagramExporter.export(Diagram.of(compactFiniteAutomaton),
+                                       file.toPath());
+                return null;
+            }
+        };
+        task.setOnSucceeded(event -> showTemporaryMessage(
+                "Exported to " + file.getName() + "."));
+        task.setOnFailed(event -> showTemporaryMessage(
+                "The finite automaton could not be exported!"));
+        infoLabel.setText("Exporting the finite automaton...");
+        Thread thread = new Thread(task, "Export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Moves the states of the finite automaton into columns, so that the edges
+     * flow from left to right. A finite automaton too large to edit keeps its
+     * view, and only the positions in it change. Stops the force-directed
+     * layout if it is running. This method is called when the layered layout
+     * menu item is pressed.
+     *
+     * @see LayeredLayout
+     */
+    public void layoutInLayers() {
+        // Unselect the currently selected component, and stop the layout.
+        unselectCurrentlySelected();
+        cancelLayout();
+
+        // Lay out the finite automaton, whose states are in the order of the
+        // set of states, and move the states.
+        if (largeFiniteAutomaton != null) {
+            showLargeLayout(withPositions(
+                    largeFiniteAutomaton,
+                    new LayeredLayout(largeFiniteAutomaton).getPositions()));
+        }
+        else {
+            moveStates(new ArrayList<>(finiteAutomaton.getStates()),
+                       new LayeredLayout(SmartFiniteAutomatonAdapter.toCompact(
+                               finiteAutomaton)).getPositions());
+        }
+        showTemporaryMessage("Laid out the finite automaton.");
+    }
+
+    /**
+     * Moves the states of the finite automaton to the positions computed by a
+     * force-directed layout, which runs on a background thread. The states of
+     * a finite automaton that can be edited move while the layout settles,
+     * and a finite automaton too large to edit is shown again once the layout
+     * has settled. Pressing the menu item while the layout is running stops
+     * it, and so does adding or removing a state, since the positions would
+     * no longer belong to the right states. This method is called when the
+     * force-directed layout menu item is pressed.
+     *
+     * @see ForceDirectedLayout
+     */
+    public void layoutWithForces() {
+        // Unselect the currently selected component.
+        unselectCurrentlySelected();
+
+        // If the layout is running, stop it.
+        if (layoutTask != null) {
+            cancelLayout();
+            showTemporaryMessage("Stopped the layout.");
+            return;
+        }
+
+        // Get the finite automaton to lay out. The states of the compact
+        // finite automaton are in the order of the set of states.
+        CompactFiniteAutomaton compactFiniteAutomaton =
+                (largeFiniteAutomaton != null) ? largeFiniteAutomaton :
+                SmartFiniteAutomatonAdapter.toCompact(finiteAutomaton);
+        ArrayList<SmartState> states =
+                new ArrayList<>(finiteAutomaton.getStates());
+        ForceDirectedLayout layout =
+                new ForceDirectedLayout(compactFiniteAutomaton);
+
+        // Run the layout, publishing the positions of the states a few times
+        // per second. Only the latest positions are shown.
+        Task<double[]> task = new Task<>() {
+            @Override
+            protected double[] call() {
+                long lastPublished = System.nanoTime();
+                while (!isCancelled() && layout.step()) {
+                    updateProgress(layout.getIteration(),
+                                   layout.getIterationCount());
+                    if (System.nanoTime() - lastPublished >
+                        LAYOUT_PUBLISH_INTERVAL) {
+                        updateValue(layout.getPositions());
+                        lastPublished = System.nanoTime();
+                    }
                 }
-            }, 5000);
+                return layout.getPositions();
+            }
+        };
+        layoutTask = task;
+
+        // Move the states to the published positions, and show the progress
+        // in the info label, unless the layout has been stopped since. If the
+        // states have been changed while the layout was running, the
+        // positions no longer belong to them, so the layout is stopped.
+        task.valueProperty().addListener((observable, oldValue, positions) -> {
+            if ((layoutTask != task) || (positions == null)) {
+                return;
+            }
+            if ((largeFiniteAutomaton == null) && !hasStates(states)) {
+                cancelLayout();
+                showTemporaryMessage("Stopped the layout, because the finite " +
+                                     "automaton was changed.");
+            }
+            else {
+                moveStates(states, positions);
+            }
+        });
+        task.progressProperty().addListener((observable, oldValue, value) -> {
+            if (layoutTask == task) {
+                infoLabel.setText("Laying out the finite automaton... " +
+                                  Math.round(100 * value.doubleValue()) +
+                                  "%");
+            }
+        });
+
+        // Once the layout has settled, show a finite automaton too large to
+        // edit in its new layout.
+        task.setOnSucceeded(event -> {
+            if (layoutTask != task) {
+                return;
+            }
+            layoutTask = null;
+            if (largeFiniteAutomaton == compactFiniteAutomaton) {
+                showLargeLayout(withPositions(compactFiniteAutomaton,
+                                              task.getValue()));
+            }
+            showTemporaryMessage("Laid out the finite automaton.");
+        });
+        task.setOnFailed(event -> {
+            layoutTask = null;
+            showTemporaryMessage("The finite automaton could not be laid " +
+                                 "out!");
+        });
+
+        // Start the layout.
+        Thread thread = new Thread(task, "Layout");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the automatic layout, if it is running. The states keep the
+     * positions they have been moved to so far.
+     */
+    private void cancelLayout() {
+        if (layoutTask != null) {
+            layoutTask.cancel();
+            layoutTask = null;
         }
     }
 
+    /**
+     * Returns whether the finite automaton still has exactly the given states,
+     * in the given order.
+     *
+     * @param states the states
+     * @return true if the states of the finite automaton are the given states,
+     * false otherwise
+     */
+    private boolean hasStates(List<SmartState> states) {
+        if (finiteAutomaton.getStates().size() != states.size()) {
+            return false;
+        }
+        int index = 0;
+        for (SmartState state : finiteAutomaton.getStates()) {
+            if (state != states.get(index)) {
+                return false;
+            }
+            index++;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the given states to the given positions.
+     *
+     * @param states    the states
+     * @param positions the position of each state, as consecutive pairs of x
+     *                  and y coordinates
+     */
+    private static void moveStates(List<SmartState> states,
+                                   double[] positions) {
+        for (int index = 0; index < states.size(); index++) {
+            Group container = states.get(index).getContainer();
+            container.setTranslateX(positions[2 * index]);
+            container.setTranslateY(positions[(2 * index) + 1]);
+        }
+    }
+
+    /**
+     * Returns a copy of the given compact finite automaton with the states at
+     * the given positions.
+     *
+     * @param compactFiniteAutomaton the finite automaton
+     * @param positions              the position of each state, as
+     *                               consecutive pairs of x and y coordinates
+     * @return a copy of the finite automaton with the given layout
+     */
+    private static CompactFiniteAutomaton withPositions(
+            CompactFiniteAutomaton compactFiniteAutomaton, double[] positions) {
+        double[] xCoordinates = new double[positions.length / 2];
+        double[] yCoordinates = new double[positions.length / 2];
+        for (int state = 0; state < xCoordinates.length; state++) {
+            xCoordinates[state] = positions[2 * state];
+            yCoordinates[state] = positions[(2 * state) + 1];
+        }
+        return compactFiniteAutomaton.withCoordinates(xCoordinates,
+                                                      yCoordinates);
+    }
+
+    /**
+     * Shows a finite automaton too large to edit in the scroll pane. Only the
+     * scene nodes for the visible components are created, or the finite
+     * automaton is drawn on a canvas if it is even larger.
+     *
+     * @param compactFiniteAutomaton the finite automaton
+     */
+    private void showLargeFiniteAutomaton(
+            CompactFiniteAutomaton compactFiniteAutomaton) {
+        largeFiniteAutomaton = compactFiniteAutomaton;
+        finiteAutomaton = new SmartFiniteAutomaton(this);
+        detachVirtualizedPane();
+        if (compactFiniteAutomaton.getStateCount() +
+            compactFiniteAutomaton.getEdgeCount() >
+            CANVAS_COMPONENT_THRESHOLD) {
+            scrollPane.setContent(new DiagramCanvas(
+                    Diagram.of(compactFiniteAutomaton)));
+        }
+        else {
+            virtualizedPane =
+                    new VirtualizedFiniteAutomatonPane(compactFiniteAutomaton);
+            virtualizedPane.attachTo(scrollPane);
+        }
+    }
+
+    /**
+     * Shows the large finite automaton again in a new layout. A virtualised
+     * view is kept and only its positions are updated, rather than building
+     * another view.
+     *
+     * @param compactFiniteAutomaton the finite automaton in its new layout
+     */
+    private void showLargeLayout(
+            CompactFiniteAutomaton compactFiniteAutomaton) {
+        if (virtualizedPane != null) {
+            largeFiniteAutomaton = compactFiniteAutomaton;
+            virtualizedPane.setFiniteAutomaton(compactFiniteAutomaton);
+        }
+        else {
+            showLargeFiniteAutomaton(compactFiniteAutomaton);
+        }
+    }
+
+    /**
+     * Detaches the view of the large finite automaton from the scroll pane,
+     * if it is virtualised, so that it stops listening to the scroll pane
+     * before its content is replaced.
+     */
+    private void detachVirtualizedPane() {
+        if (virtualizedPane != null) {
+            virtualizedPane.detach();
+            virtualizedPane = null;
+        }
+    }
+
+    /**
+     * Displays the message in the info label for a short time, after which
+     * the previous text of the info label is restored.
+     *
+     * @param message the message to display
+     */
+    private void showTemporaryMessage(String message) {
+        infoLabel.setText(message);
+        Timer timer = new Timer(true);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                Platform.runLater(() -> infoLabel.setText(infoLabelText));
+            }
+        }, 5000);
+    }
+
     /**
      * Sets the work mode based on what key was pressed. This method is called
      * when a key is pressed. What happens next depends on the key.
@@ -520,10 +962,15 @@ public final class CreateFAScreenController implements Initializable {
             finiteAutomaton.setInitialState(state);
         });
 
-        MenuItem setFinal = new MenuItem("Set as final");
+        MenuItem setFinal = new MenuItem("Toggle final");
         setFinal.setOnAction(event -> {
             SmartState state = (SmartState) currentlySelected;
-            finiteAutomaton.setFinalState(state);
+            if (finiteAutomaton.getFinalStates().contains(state)) {
+                finiteAutomaton.removeFinalState(state);
+            }
+            else {
+                finiteAutomaton.addFinalState(state);
+            }
         });
 
         MenuItem delete = new MenuItem("Delete");
@@ -2,8 +2,13 @@ package dudzinski.kacper.farec.controllers;
 
 import dudzinski.kacper.farec.App;
 import dudzinski.kacper.farec.regex.ParseTree;
+import dudzinski.kacper.farec.regex.ParseTreeLayout;
 import dudzinski.kacper.farec.regex.Parser;
 import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.rendering.Diagram;
+import dudzinski.kacper.farec.rendering.DiagramCanvas;
+import dudzinski.kacper.farec.rendering.DiagramExporter;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -11,29 +16,41 @@ import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.Pane;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
 
+import static dudzinski.kacper.farec.regex.RegularExpressionSettings.CANVAS_NODE_THRESHOLD;
 import static dudzinski.kacper.farec.regex.RegularExpressionSettings.CONTAINER_COLOR;
 
 /**
  * This is the controller for the view used for creating regular expressions.
  * This view is displayed when the user wants to create a regular expression, so
  * that it can be converted into a finite automaton. It allows the user to enter
- * a regex string to be parsed and displayed as a parse tree.
+ * a regex string to be parsed and displayed as a parse tree. Large parse trees
+ * are drawn on a canvas, and their nodes are only created when converting.
+ * Parsing, laying out and building the parse tree happen on a background
+ * thread, so that a long regex string does not freeze the window. While they
+ * do, a progress indicator is shown and the parse button stops them.
  */
 public final class CreateREScreenController implements Initializable {
 
+    private static final FileChooser.ExtensionFilter SVG_FILTER =
+            new FileChooser.ExtensionFilter("SVG images", "*.svg");
+    private static final FileChooser.ExtensionFilter PNG_FILTER =
+            new FileChooser.ExtensionFilter("PNG images", "*.png");
     private FXMLLoader fxmlLoader;
     @FXML
     private TextField regexStringTextField;
@@ -44,21 +61,34 @@ public final class CreateREScreenController implements Initializable {
     @FXML
     private Label infoLabel;
     @FXML
+    private ProgressIndicator progressIndicator;
+    @FXML
+    private Button parseButton;
+    @FXML
+    private Button exportButton;
+    @FXML
     private Button convertButton;
 
+    private RegularExpression regularExpression;
     private ParseTree parseTree;
+    private Task<?> parseTask = null;
 
     /**
      * Adds a listener to the regex string text field so that any changes to it
-     * disable the convert button. Sets the background color of the scroll pane
-     * and the blank pane.
+     * disable the export and convert buttons and stop any parsing in progress.
+     * Sets the background color of the scroll pane and the blank pane. Makes
+     * the progress indicator take up space only while it is visible.
      */
     public void initialize(URL location, ResourceBundle resources) {
         // Add a listener to the regex string text field so that any changes to
-        // it disable the convert button.
+        // it disable the export and convert buttons and stop any parsing in
+        // progress.
         regexStringTextField.textProperty().addListener(
-                (observable, oldValue, newValue) -> convertButton.setDisable(
-                        true));
+                (observable, oldValue, newValue) -> {
+                    cancelParse();
+                    exportButton.setDisable(true);
+                    convertButton.setDisable(true);
+                });
 
         // Set the background color of the scroll pane.
         scrollPane.setBackground(new Background(
@@ -69,6 +99,10 @@ public final class CreateREScreenController implements Initializable {
         blankPane.setBackground(new Background(
                 new BackgroundFill(CONTAINER_COLOR, CornerRadii.EMPTY,
                                    Insets.EMPTY)));
+
+        // Only lay out the progress indicator while it is visible.
+        progressIndicator.managedProperty()
+                         .bind(progressIndicator.visibleProperty());
     }
 
     /**
@@ -94,54 +128,218 @@ public final class CreateREScreenController implements Initializable {
      * expression. If parsing is successful, a parse tree is built and
      * displayed, and the info label is updated accordingly. If parsing is
      * unsuccessful, an error message is shown in the info label and any
-     * currently displayed parse tree is removed. This method is called when the
-     * parse button is pressed.
+     * currently displayed parse tree is removed. The regex string is parsed
+     * and the parse tree is laid out and built on a background thread, and
+     * only the finished parse tree is added to the view. While parsing, the
+     * progress indicator shows how far it has got and the parse button reads
+     * "Stop"; pressing it interrupts the background thread, which stops
+     * parsing. This method is called when the parse button is pressed.
      */
     public void parseRegexString() {
-        // Remove the current parse tree.
+        // If the regex string is being parsed, stop it.
+        if (parseTask != null) {
+            cancelParse();
+            infoLabel.setText("Stopped parsing.");
+            return;
+        }
+
+        // Remove the current parse tree and disable the export and convert
+        // buttons.
         scrollPane.setContent(blankPane);
+        exportButton.setDisable(true);
+        convertButton.setDisable(true);
 
         // Get the regex string and remove whitespace.
         String regexString =
                 regexStringTextField.getText().replaceAll("\\s+", "").trim();
 
-        // Try parsing the regex string. If it's valid, set the info label,
-        // display the parse tree and enable the convert button.
-        try {
-            // Parse the regex string.
-            RegularExpression regularExpression =
-                    Parser.parseRegexString(regexString);
+        // Parse the regex string, and lay out the parse tree. If the parse
+        // tree is small enough, build its nodes as well; otherwise it is
+        // drawn on a canvas. The nodes are not part of the scene yet, so they
+        // can be created on the background thread.
+        Task<ParseResult> task = new Task<>() {
+            @Override
+            protected ParseResult call() {
+                updateMessage("Parsing the regular expression...");
+                updateProgress(0, 3);
+                RegularExpression parsedRegularExpression =
+                        Parser.parseRegexString(regexString);
+                if (isCancelled()) {
+                    return null;
+                }
+                updateMessage("Laying out the parse tree...");
+                updateProgress(1, 3);
+                ParseTreeLayout layout =
+                        new ParseTreeLayout(parsedRegularExpression);
+                if (layout.size() > CANVAS_NODE_THRESHOLD) {
+                    return new ParseResult(parsedRegularExpression, null,
+                                           Diagram.of(layout));
+                }
+                if (isCancelled()) {
+                    return null;
+                }
+                updateMessage("Building the parse tree...");
+                updateProgress(2, 3);
+                return new ParseResult(parsedRegularExpression,
+                                       new ParseTree(parsedRegularExpression),
+                                       null);
+            }
+        };
+        startParseTask(task);
 
-            // Updated the info label and build and display the parse tree.
+        // Show the progress in the info label, unless parsing has been
+        // stopped since.
+        task.messageProperty().addListener((observable, oldValue, message) -> {
+            if (parseTask == task) {
+                infoLabel.setText(message);
+            }
+        });
+
+        // If the regex string is valid, set the info label, display the parse
+        // tree and enable the export and convert buttons.
+        task.setOnSucceeded(event -> {
+            finishParseTask();
+            ParseResult result = task.getValue();
+            regularExpression = result.regularExpression();
+            parseTree = result.parseTree();
             infoLabel.setText("Regular expression is valid!");
-            parseTree = new ParseTree(regularExpression);
-            scrollPane.setContent(parseTree.getContainer());
+            if (parseTree == null) {
+                scrollPane.setContent(new DiagramCanvas(result.diagram()));
+            }
+            else {
+                scrollPane.setContent(parseTree.getContainer());
+            }
 
             // Reset scroll bar position.
             scrollPane.setHvalue(0);
             scrollPane.setVvalue(0);
 
-            // Enable the convert button.
+            // Enable the export and convert buttons.
+            exportButton.setDisable(false);
             convertButton.setDisable(false);
-        }
-        // If invalid, set the info label and disable the convert button.
-        catch (IllegalArgumentException e) {
-            // Update the info label.
-            infoLabel.setText(e.getMessage());
+        });
+
+        // If invalid, set the info label. The export and convert buttons stay
+        // disabled.
+        task.setOnFailed(event -> {
+            finishParseTask();
+            if (task.getException() instanceof IllegalArgumentException) {
+                infoLabel.setText(task.getException().getMessage());
+            }
+            else {
+                infoLabel.setText("The regular expression could not be " +
+                                  "parsed!");
+            }
+        });
 
-            // Disable the convert button.
-            convertButton.setDisable(true);
+        // Start parsing.
+        Thread thread = new Thread(task, "Parse");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks the user for a file and exports an image of the parse tree to it, as
+     * an SVG image if the file name ends with ".svg" and as a PNG image
+     * otherwise. The parse tree is laid out and the image is drawn on a
+     * background thread, without building the nodes of the parse tree, so that
+     * parse trees of any size can be exported. If the image cannot be written,
+     * displays an error message in the info label. This method is called when
+     * the export button is pressed.
+     *
+     * @see DiagramExporter
+     */
+    public void export() {
+        // Ask the user for the file to export to.
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export parse tree");
+        fileChooser.getExtensionFilters().addAll(SVG_FILTER, PNG_FILTER);
+        File file = fileChooser.showSaveDialog(scrollPane.getScene()
+                                                       .getWindow());
+        if (file == null) {
+            return;
         }
+
+        // Export the parse tree on a background thread.
+        RegularExpression exportedRegularExpression = regularExpression;
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                DiagramExporter.export(Diagram.of(new ParseTreeLayout(
+                        exportedRegularExpression)), file.toPath());
+                return null;
+            }
+        };
+        task.setOnSucceeded(event -> infoLabel.setText(
+                "Exported to " + file.getName() + "."));
+        task.setOnFailed(event -> infoLabel.setText(
+                "The parse tree could not be exported!"));
+        infoLabel.setText("Exporting the parse tree...");
+        Thread thread = new Thread(task, "Export");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
      * Changes the view to the screen for converting a regular expression into a
      * finite automaton and passes the parse tree to the controller of the new
-     * view. This method is called when the convert button is pressed.
+     * view. A parse tree that was drawn on a canvas is built on a background
+     * thread first, which the parse button stops. This method is called when
+     * the convert button is pressed.
      *
      * @throws IOException if the view fxml file cannot be found
      */
     public void openConvertREScreen() throws IOException {
+        // If the parse tree has already been built, show it straight away.
+        if (parseTree != null) {
+            showConvertREScreen(parseTree);
+            return;
+        }
+
+        // Otherwise, build it first. The convert button is disabled until the
+        // parse tree has been built, and editing the regex string stops it.
+        RegularExpression builtRegularExpression = regularExpression;
+        Task<ParseTree> task = new Task<>() {
+            @Override
+            protected ParseTree call() {
+                return new ParseTree(builtRegularExpression);
+            }
+        };
+        startParseTask(task);
+        task.setOnSucceeded(event -> {
+            finishParseTask();
+            parseTree = task.getValue();
+            try {
+                showConvertREScreen(parseTree);
+            }
+            catch (IOException e) {
+                //noinspection CallToPrintStackTrace
+                e.printStackTrace();
+            }
+        });
+        task.setOnFailed(event -> {
+            finishParseTask();
+            convertButton.setDisable(false);
+            infoLabel.setText("The parse tree could not be built!");
+        });
+
+        // Start building the parse tree.
+        infoLabel.setText("Building the parse tree...");
+        convertButton.setDisable(true);
+        Thread thread = new Thread(task, "Parse");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Changes the view to the screen for converting a regular expression into a
+     * finite automaton and passes the given parse tree to the controller of
+     * the new view.
+     *
+     * @param parseTree the parse tree of the regular expression
+     * @throws IOException if the view fxml file cannot be found
+     */
+    private void showConvertREScreen(ParseTree parseTree) throws IOException {
         fxmlLoader =
                 new FXMLLoader(App.class.getResource("convert_re_screen.fxml"));
         Scene scene = new Scene(fxmlLoader.load(),
@@ -156,4 +354,54 @@ public final class CreateREScreenController implements Initializable {
         convertREScreenController.setParseTree(parseTree);
     }
 
+    /**
+     * Makes the given task the current parse task. Shows its progress in the
+     * progress indicator while it runs, and turns the parse button into a stop
+     * button.
+     *
+     * @param task the task that parses the regex string or builds the parse
+     *             tree
+     */
+    private void startParseTask(Task<?> task) {
+        parseTask = task;
+        progressIndicator.progressProperty().bind(task.progressProperty());
+        progressIndicator.visibleProperty().bind(task.runningProperty());
+        parseButton.setText("Stop");
+    }
+
+    /**
+     * Clears the current parse task once it has finished, and turns the stop
+     * button back into the parse button.
+     */
+    private void finishParseTask() {
+        parseTask = null;
+        parseButton.setText("Parse");
+    }
+
+    /**
+     * Stops parsing the regex string or building the parse tree, if either is
+     * in progress. Cancelling the task interrupts its thread, and the parser
+     * checks for this, so the thread stops as well.
+     */
+    private void cancelParse() {
+        if (parseTask != null) {
+            parseTask.cancel();
+            finishParseTask();
+        }
+    }
+
+    /**
+     * This record holds the result of parsing a regex string: the regular
+     * expression, and either its parse tree or, if the parse tree is too large
+     * to build, a diagram of it.
+     *
+     * @param regularExpression the regular expression
+     * @param parseTree         the parse tree (might be <code>null</code>)
+     * @param diagram           the diagram of the parse tree (might be
+     *                          <code>null</code>)
+     */
+    private record ParseResult(RegularExpression regularExpression,
+                               ParseTree parseTree, Diagram diagram) {
+    }
+
 }
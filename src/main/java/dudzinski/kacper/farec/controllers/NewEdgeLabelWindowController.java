@@ -1,6 +1,6 @@
 package dudzinski.kacper.farec.controllers;
 
-import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import dudzinski.kacper.farec.finiteautomata.EdgeLabels;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
@@ -36,22 +36,12 @@ public final class NewEdgeLabelWindowController implements Initializable {
      * what the label on an edge may be.
      */
     public void initialize(URL location, ResourceBundle resources) {
-        // Get the valid operand pattern and remove the start and end anchors.
-        String validOperands =
-                RegularExpressionSettings.getValidRegexOperandPattern();
-        validOperands = validOperands.substring(1, validOperands.length() - 1);
-
-        // Create the valid label pattern.
-        //noinspection EscapedSpace
-        String validLabelPattern =
-                "^" + validOperands + "(,\s?" + validOperands + ")*$";
-
         // Add a listener to the text field to enable/disable the submit button
         // depending on if the text conforms to the restrictions on an edge
         // label.
         textField.textProperty().addListener(
                 (observable, oldValue, newValue) -> submitButton.setDisable(
-                        !newValue.matches(validLabelPattern)));
+                        !EdgeLabels.isValid(newValue)));
     }
 
     /**
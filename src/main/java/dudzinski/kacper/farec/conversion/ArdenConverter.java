@@ -0,0 +1,144 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionFactory;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class converts finite automata into regular expressions by solving a
+ * system of language equations with Arden's lemma.
+ * <p>
+ * Every state i has a variable X(i), the language of all strings that lead
+ * from state i to the final state. These satisfy the equations:
+ * <br>
+ * X(i) = (i to 0) | X(0) UNION ... UNION (i to n - 1) | X(n - 1) UNION C(i)
+ * <br>
+ * where C(i) is the empty string for the final state and the empty set for
+ * every other state. Arden's lemma states that the equation X = A | X UNION B
+ * has the solution X = A* | B. The variables other than the one of the
+ * initial state are solved one by one: the equation of X(k) is solved with
+ * Arden's lemma, and the solution is substituted into every equation that
+ * still contains X(k). The substitutions into different equations are
+ * independent of each other, so they are performed in parallel once the
+ * finite automaton is large enough. Finally, the equation of the initial
+ * state only refers to itself, and solving it gives the regular expression of
+ * the finite automaton.
+ *
+ * @see FiniteAutomatonConverter
+ * @see KleeneConverter
+ * @see StateEliminationConverter
+ */
+public final class ArdenConverter extends FiniteAutomatonConverter {
+
+    /**
+     * Creates a converter with its own regular expression factory.
+     */
+    public ArdenConverter() {
+        super();
+    }
+
+    /**
+     * Creates a converter that uses the given regular expression factory.
+     *
+     * @param factory the factory used to create regular expressions
+     */
+    public ArdenConverter(RegularExpressionFactory factory) {
+        super(factory);
+    }
+
+    /**
+     * Converts the finite automaton described by the given transition matrix
+     * into an equivalent regular expression, by solving its language
+     * equations with Arden's lemma.
+     *
+     * @param transitions  the transition matrix of the finite automaton
+     * @param initialState the index of the initial state
+     * @param finalState   the index of the final state
+     * @return a regular expression equivalent to the finite automaton
+     */
+    @Override
+    public RegularExpression convert(RegularExpression[][] transitions,
+                                     int initialState, int finalState) {
+        int size = transitions.length;
+
+        // Create the equations: the coefficients are the edge labels and only
+        // the final state has a constant.
+        RegularExpression[][] coefficients = createEmptyTransitions(size);
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(transitions[i], 0, coefficients[i], 0, size);
+        }
+        RegularExpression[] constants = new RegularExpression[size];
+        for (int i = 0; i < size; i++) {
+            constants[i] = factory.getEmptySet();
+        }
+        constants[finalState] = factory.getEmptyString();
+
+        // Solve every variable except the one of the initial state.
+        boolean[] solved = new boolean[size];
+        for (int k = 0; k < size; k++) {
+            if (k == initialState) {
+                continue;
+            }
+
+            // Apply Arden's lemma to the equation of X(k), which removes X(k)
+            // from its right-hand side.
+            RegularExpression loop = factory.createStar(coefficients[k][k]);
+            for (int j = 0; j < size; j++) {
+                coefficients[k][j] = (j == k) ?
+                                     factory.getEmptySet() :
+                                     factory.createConcatenation(
+                                             loop, coefficients[k][j]);
+            }
+            constants[k] = factory.createConcatenation(loop, constants[k]);
+            solved[k] = true;
+
+            // Substitute the solution into every unsolved equation that
+            // contains X(k).
+            IntStream rows = IntStream.range(0, size);
+            if (size >= PARALLEL_THRESHOLD) {
+                rows = rows.parallel();
+            }
+            int variable = k;
+            rows.forEach(i -> substitute(coefficients, constants, solved, i,
+                                         variable));
+        }
+
+        // Solve the equation of the initial state, which now only refers to
+        // itself.
+        return factory.createConcatenation(
+                factory.createStar(coefficients[initialState][initialState]),
+                constants[initialState]);
+    }
+
+    /**
+     * Substitutes the solution of the variable X(k) into the equation of the
+     * variable X(i), if that equation is unsolved and contains X(k). Only the
+     * row of the equation of X(i) is modified.
+     *
+     * @param coefficients the coefficients of the equations
+     * @param constants    the constants of the equations
+     * @param solved       which variables have been solved
+     * @param i            the index of the equation to substitute into
+     * @param k            the index of the solved variable
+     */
+    private void substitute(RegularExpression[][] coefficients,
+                            RegularExpression[] constants, boolean[] solved,
+                            int i, int k) {
+        RegularExpression iToK = coefficients[i][k];
+        if (solved[i] || (iToK == factory.getEmptySet())) {
+            return;
+        }
+        for (int j = 0; j < coefficients.length; j++) {
+            if (coefficients[k][j] != factory.getEmptySet()) {
+                coefficients[i][j] = factory.createUnion(
+                        coefficients[i][j],
+                        factory.createConcatenation(iToK, coefficients[k][j]));
+            }
+        }
+        coefficients[i][k] = factory.getEmptySet();
+        constants[i] = factory.createUnion(
+                constants[i], factory.createConcatenation(iToK, constants[k]));
+    }
+
+}
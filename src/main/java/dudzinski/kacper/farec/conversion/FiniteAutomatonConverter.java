@@ -0,0 +1,198 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.finiteautomata.EdgeLabels;
+import dudzinski.kacper.farec.finiteautomata.FiniteAutomatonTrimmer;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.smart.SmartFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.smart.SmartFiniteAutomatonAdapter;
+import dudzinski.kacper.farec.regex.Parser;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+
+/**
+ * This abstract class represents an algorithm for converting finite automata
+ * into regular expressions without user interaction. The finite automaton is
+ * first turned into a transition matrix: the states are numbered and the entry
+ * in row i, column j of the matrix is the label of the edge from state i to
+ * state j (or the empty set symbol if there is no such edge). The conversion
+ * itself works on the transition matrix.
+ * <p>
+ * All regular expressions are created by a {@link RegularExpressionFactory},
+ * so that equal subexpressions are shared and simplified as they are built.
+ *
+ * @see ArdenConverter
+ * @see KleeneConverter
+ * @see StateEliminationConverter
+ */
+public abstract class FiniteAutomatonConverter {
+
+    // The minimum number of states for which independent rows of a matrix are
+    // computed in parallel.
+    protected static final int PARALLEL_THRESHOLD = 32;
+
+    protected final RegularExpressionFactory factory;
+
+    /**
+     * Creates a converter with its own regular expression factory.
+     */
+    public FiniteAutomatonConverter() {
+        this(new RegularExpressionFactory());
+    }
+
+    /**
+     * Creates a converter that uses the given regular expression factory.
+     *
+     * @param factory the factory used to create regular expressions
+     */
+    public FiniteAutomatonConverter(RegularExpressionFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the regular expression factory used by this converter.
+     *
+     * @return the regular expression factory used by this converter
+     */
+    public RegularExpressionFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Converts the given finite automaton into an equivalent regular
+     * expression. The finite automaton is not modified.
+     *
+     * @param finiteAutomaton the finite automaton to convert, which must have
+     *                        an initial state and a final state
+     * @return a regular expression equivalent to the finite automaton
+     * @throws IllegalArgumentException if the finite automaton does not have an
+     *                                  initial state and a final state
+     * @see SmartFiniteAutomatonAdapter#toCompact(SmartFiniteAutomaton)
+     */
+    public RegularExpression convert(SmartFiniteAutomaton finiteAutomaton)
+            throws IllegalArgumentException {
+        return convert(SmartFiniteAutomatonAdapter.toCompact(finiteAutomaton));
+    }
+
+    /**
+     * Converts the given compact finite automaton into an equivalent regular
+     * expression. The finite automaton is trimmed first, and each distinct
+     * edge label is only parsed once. If the finite automaton has more than
+     * one final state, a new final state is added with an empty string edge
+     * from each of the final states.
+     *
+     * @param finiteAutomaton the finite automaton to convert, which must have
+     *                        an initial state and at least one final state
+     * @return a regular expression equivalent to the finite automaton
+     * @throws IllegalArgumentException if the finite automaton does not have an
+     *                                  initial state and a final state
+     */
+    public RegularExpression convert(CompactFiniteAutomaton finiteAutomaton)
+            throws IllegalArgumentException {
+        // Check that the finite automaton has an initial and a final state.
+        if ((finiteAutomaton.getInitialState() == NO_STATE) ||
+            (finiteAutomaton.getFinalStateCount() == 0)) {
+            throw new IllegalArgumentException(
+                    "The finite automaton must have an initial state and a " +
+                    "final state!");
+        }
+
+        // Remove the states that are not on any path from the initial state
+        // to a final state. If no final state remains, no word is accepted.
+        CompactFiniteAutomaton trimmed =
+                FiniteAutomatonTrimmer.trim(finiteAutomaton).finiteAutomaton();
+        BitSet finalStates = trimmed.getFinalStates();
+        if (finalStates.isEmpty()) {
+            return factory.getEmptySet();
+        }
+
+        // Parse the edge labels.
+        RegularExpression[] labels =
+                new RegularExpression[trimmed.getLabelCount()];
+        for (int label = 0; label < labels.length; label++) {
+            labels[label] = parseEdgeLabel(trimmed.getLabel(label));
+        }
+
+        // Build the transition matrix, with room for a new final state if
+        // there are several final states.
+        int stateCount = trimmed.getStateCount();
+        boolean singleFinalState = finalStates.cardinality() == 1;
+        RegularExpression[][] transitions = createEmptyTransitions(
+                singleFinalState ? stateCount : stateCount + 1);
+        for (int edge = 0; edge < trimmed.getEdgeCount(); edge++) {
+            transitions[trimmed.getEdgeStart(edge)][trimmed.getEdgeEnd(edge)] =
+                    labels[trimmed.getEdgeLabel(edge)];
+        }
+
+        // Use the only final state, or connect every final state to the new
+        // final state.
+        int finalState = stateCount;
+        if (singleFinalState) {
+            finalState = finalStates.nextSetBit(0);
+        }
+        else {
+            for (int state = finalStates.nextSetBit(0); state >= 0;
+                 state = finalStates.nextSetBit(state + 1)) {
+                transitions[state][finalState] = factory.getEmptyString();
+            }
+        }
+
+        // Convert the transition matrix.
+        return convert(transitions, trimmed.getInitialState(), finalState);
+    }
+
+    /**
+     * Converts the finite automaton described by the given transition matrix
+     * into an equivalent regular expression. The entries of the transition
+     * matrix must have been created by the factory of this converter. The
+     * transition matrix is not modified.
+     *
+     * @param transitions  the transition matrix of the finite automaton
+     * @param initialState the index of the initial state
+     * @param finalState   the index of the final state
+     * @return a regular expression equivalent to the finite automaton
+     */
+    public abstract RegularExpression convert(RegularExpression[][] transitions,
+                                              int initialState,
+                                              int finalState);
+
+    /**
+     * Creates a square transition matrix of the given size, in which every
+     * entry is the empty set.
+     *
+     * @param size the number of states
+     * @return a transition matrix without any transitions
+     */
+    public RegularExpression[][] createEmptyTransitions(int size) {
+        RegularExpression[][] transitions = new RegularExpression[size][size];
+        for (RegularExpression[] row : transitions) {
+            Arrays.fill(row, factory.getEmptySet());
+        }
+        return transitions;
+    }
+
+    /**
+     * Parses the label of an edge into a regular expression created by the
+     * factory of this converter. Whitespace is removed and commas are replaced
+     * with the UNION operator, in the same way as when an edge label is
+     * prepared for the finite automaton conversion screen.
+     *
+     * @param labelText the text of the edge label
+     * @return the regular expression represented by the label
+     * @throws IllegalArgumentException if the label does not represent a valid
+     *                                  regular expression
+     */
+    public RegularExpression parseEdgeLabel(String labelText)
+            throws IllegalArgumentException {
+        // Remove whitespace and replace commas with the UNION operator.
+        String regexString = EdgeLabels.toRegexString(labelText);
+
+        // Parse the regex string and intern the result.
+        return factory.intern(Parser.parseRegexString(regexString));
+    }
+
+}
@@ -0,0 +1,110 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionFactory;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class converts finite automata into regular expressions using the
+ * McNaughton–Yamada (Kleene) dynamic programming algorithm.
+ * <p>
+ * Let R(i, j, k) be the regular expression describing the labels of all paths
+ * from state i to state j that only pass through the states 0 to k - 1 on the
+ * way. R(i, j, 0) is the label of the edge from i to j (with the empty string
+ * added when i = j), and:
+ * <br>
+ * R(i, j, k + 1) = R(i, j, k) UNION R(i, k, k) | R(k, k, k)* | R(k, j, k)
+ * <br>
+ * The regular expression of the finite automaton is R(initial, final, n),
+ * where n is the number of states. Only the matrices for the previous and the
+ * current value of k are kept in memory, and the entries of the matrix for
+ * each k are computed in parallel once the finite automaton is large enough.
+ * Since the regular expressions are hash-consed by the factory, the many
+ * repeated subexpressions of the algorithm are only stored once.
+ *
+ * @see FiniteAutomatonConverter
+ * @see ArdenConverter
+ * @see StateEliminationConverter
+ */
+public final class KleeneConverter extends FiniteAutomatonConverter {
+
+    /**
+     * Creates a converter with its own regular expression factory.
+     */
+    public KleeneConverter() {
+        super();
+    }
+
+    /**
+     * Creates a converter that uses the given regular expression factory.
+     *
+     * @param factory the factory used to create regular expressions
+     */
+    public KleeneConverter(RegularExpressionFactory factory) {
+        super(factory);
+    }
+
+    /**
+     * Converts the finite automaton described by the given transition matrix
+     * into an equivalent regular expression, using the McNaughton–Yamada
+     * algorithm.
+     *
+     * @param transitions  the transition matrix of the finite automaton
+     * @param initialState the index of the initial state
+     * @param finalState   the index of the final state
+     * @return a regular expression equivalent to the finite automaton
+     */
+    @Override
+    public RegularExpression convert(RegularExpression[][] transitions,
+                                     int initialState, int finalState) {
+        int size = transitions.length;
+
+        // Create R(i, j, 0): the edge labels, with the empty string added to
+        // the diagonal.
+        RegularExpression[][] previous = new RegularExpression[size][size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(transitions[i], 0, previous[i], 0, size);
+            previous[i][i] = factory.createUnion(factory.getEmptyString(),
+                                                 transitions[i][i]);
+        }
+        RegularExpression[][] current = new RegularExpression[size][size];
+
+        // Compute R(i, j, k + 1) from R(i, j, k) for every k.
+        for (int k = 0; k < size; k++) {
+            RegularExpression[][] last = previous;
+            RegularExpression[][] next = current;
+            RegularExpression loop = factory.createStar(last[k][k]);
+
+            IntStream rows = IntStream.range(0, size);
+            if (size >= PARALLEL_THRESHOLD) {
+                rows = rows.parallel();
+            }
+            int pivot = k;
+            rows.forEach(i -> {
+                // If there is no path from i to the pivot, the row is
+                // unchanged.
+                RegularExpression iToK = last[i][pivot];
+                if (iToK == factory.getEmptySet()) {
+                    System.arraycopy(last[i], 0, next[i], 0, size);
+                    return;
+                }
+                RegularExpression iToKLoop =
+                        factory.createConcatenation(iToK, loop);
+                for (int j = 0; j < size; j++) {
+                    next[i][j] = factory.createUnion(
+                            last[i][j], factory.createConcatenation(
+                                    iToKLoop, last[pivot][j]));
+                }
+            });
+
+            // Swap the matrices.
+            previous = next;
+            current = last;
+        }
+
+        // Return R(initial, final, n).
+        return previous[initialState][finalState];
+    }
+
+}
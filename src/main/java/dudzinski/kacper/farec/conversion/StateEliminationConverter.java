@@ -0,0 +1,101 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionFactory;
+
+/**
+ * This class converts finite automata into regular expressions using the State
+ * Elimination with GNFAs algorithm, without any user interaction. It performs
+ * the same steps as the finite automaton conversion screen.
+ * <p>
+ * First, a new initial state with an empty string transition to the old
+ * initial state and a new final state with an empty string transition from the
+ * old final state are added. Then the old states are removed one by one, in
+ * order. When a state k is removed, the label of the edge between every pair of
+ * its neighbours i and j is updated to:
+ * <br>
+ * (i to j) UNION (i to k) | (k to k)* | (k to j)
+ * <br>
+ * Once only the new initial state and the new final state remain, the label of
+ * the edge between them is the regular expression of the finite automaton.
+ *
+ * @see FiniteAutomatonConverter
+ * @see ArdenConverter
+ * @see KleeneConverter
+ */
+public final class StateEliminationConverter extends FiniteAutomatonConverter {
+
+    /**
+     * Creates a converter with its own regular expression factory.
+     */
+    public StateEliminationConverter() {
+        super();
+    }
+
+    /**
+     * Creates a converter that uses the given regular expression factory.
+     *
+     * @param factory the factory used to create regular expressions
+     */
+    public StateEliminationConverter(RegularExpressionFactory factory) {
+        super(factory);
+    }
+
+    /**
+     * Converts the finite automaton described by the given transition matrix
+     * into an equivalent regular expression, using the State Elimination with
+     * GNFAs algorithm.
+     *
+     * @param transitions  the transition matrix of the finite automaton
+     * @param initialState the index of the initial state
+     * @param finalState   the index of the final state
+     * @return a regular expression equivalent to the finite automaton
+     */
+    @Override
+    public RegularExpression convert(RegularExpression[][] transitions,
+                                     int initialState, int finalState) {
+        int size = transitions.length;
+
+        // Copy the transitions into a larger matrix, with room for the new
+        // initial state and the new final state.
+        int newInitialState = size;
+        int newFinalState = size + 1;
+        RegularExpression[][] gnfa = createEmptyTransitions(size + 2);
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(transitions[i], 0, gnfa[i], 0, size);
+        }
+        gnfa[newInitialState][initialState] = factory.getEmptyString();
+        gnfa[finalState][newFinalState] = factory.getEmptyString();
+
+        // Remove the old states one by one.
+        boolean[] removed = new boolean[size + 2];
+        for (int k = 0; k < size; k++) {
+            RegularExpression loop = factory.createStar(gnfa[k][k]);
+            for (int i = 0; i < size + 2; i++) {
+                // Only update the edges of incoming states.
+                if (removed[i] || (i == k) ||
+                    (gnfa[i][k] == factory.getEmptySet())) {
+                    continue;
+                }
+                RegularExpression iToKLoop =
+                        factory.createConcatenation(gnfa[i][k], loop);
+                for (int j = 0; j < size + 2; j++) {
+                    // Only update the edges to outgoing states.
+                    if (removed[j] || (j == k) ||
+                        (gnfa[k][j] == factory.getEmptySet())) {
+                        continue;
+                    }
+                    gnfa[i][j] = factory.createUnion(
+                            gnfa[i][j],
+                            factory.createConcatenation(iToKLoop, gnfa[k][j]));
+                }
+            }
+            removed[k] = true;
+        }
+
+        // Return the label of the edge from the new initial state to the new
+        // final state.
+        return gnfa[newInitialState][newFinalState];
+    }
+
+}
@@ -0,0 +1,160 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.SimpleRegularExpression;
+
+import java.util.ArrayDeque;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_SET;
+import static dudzinski.kacper.farec.Settings.EMPTY_STRING;
+
+/**
+ * This class is responsible for converting regular expressions into equivalent
+ * finite automata using Thompson's construction, the same construction shown
+ * step by step on the screen for converting regular expressions. The result is
+ * a compact finite automaton without a layout, so that large regular
+ * expressions can be converted without creating any user interface components.
+ * <p>
+ * Every edge is labelled with a single symbol or the empty string symbol. The
+ * finite automaton has a single final state, which has no outgoing edges, and
+ * its initial state has no incoming edges.
+ *
+ * @see CompactFiniteAutomaton
+ */
+public final class ThompsonConstruction {
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private ThompsonConstruction() {
+        throw new RuntimeException(
+                "The ThompsonConstruction class should never be " +
+                "instantiated!");
+    }
+
+    /**
+     * Creates a compact finite automaton equivalent to the given regular
+     * expression. The regular expression is traversed with an explicit stack,
+     * so that deep regular expressions do not overflow the call stack. Takes
+     * time linear in the size of the regular expression.
+     *
+     * @param regularExpression the regular expression to convert
+     * @return an equivalent compact finite automaton
+     */
+    public static CompactFiniteAutomaton toFiniteAutomaton(
+            RegularExpression regularExpression) {
+        CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder();
+
+        // The initial and final states of the finite automata created for the
+        // subexpressions that have been visited, in postorder.
+        ArrayDeque<int[]> fragments = new ArrayDeque<>();
+
+        // Visit the subexpressions in postorder. Each complex regular
+        // expression is pushed twice: once to visit its operands and once to
+        // combine their finite automata.
+        ArrayDeque<RegularExpression> pending = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        pending.push(regularExpression);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            RegularExpression current = pending.pop();
+            boolean isExpanded = expanded.pop();
+
+            // A simple regular expression becomes a single edge, or no edge
+            // for the empty set.
+            if (current instanceof SimpleRegularExpression simple) {
+                int initialState = builder.addState("");
+                int finalState = builder.addState("");
+                String symbol = String.valueOf(simple.getSymbol());
+                if (!symbol.equals(EMPTY_SET)) {
+                    builder.addEdge(initialState, finalState, symbol);
+                }
+                fragments.push(new int[]{initialState, finalState});
+                continue;
+            }
+
+            // Visit the operands of a complex regular expression first.
+            ComplexRegularExpression complex =
+                    (ComplexRegularExpression) current;
+            if (!isExpanded) {
+                pending.push(complex);
+                expanded.push(true);
+                if (complex.getRightOperand() != null) {
+                    pending.push(complex.getRightOperand());
+                    expanded.push(false);
+                }
+                pending.push(complex.getLeftOperand());
+                expanded.push(false);
+                continue;
+            }
+
+            // Then combine the finite automata of the operands.
+            fragments.push(switch (complex.getOperator()) {
+                case STAR -> star(builder, fragments.pop());
+                case CONCATENATION -> {
+                    int[] right = fragments.pop();
+                    int[] left = fragments.pop();
+                    builder.addEdge(left[1], right[0], EMPTY_STRING);
+                    yield new int[]{left[0], right[1]};
+                }
+                case UNION -> {
+                    int[] right = fragments.pop();
+                    int[] left = fragments.pop();
+                    yield union(builder, left, right);
+                }
+            });
+        }
+
+        // Set the initial and final states.
+        int[] result = fragments.pop();
+        builder.setInitialState(result[0]);
+        builder.addFinalState(result[1]);
+        return builder.build();
+    }
+
+    /**
+     * Adds the finite automaton accepting any number of repetitions of the
+     * words accepted by the given finite automaton.
+     *
+     * @param builder the builder to add the states and edges to
+     * @param inner   the initial and final state of the repeated finite
+     *                automaton
+     * @return the initial and final state of the new finite automaton
+     */
+    private static int[] star(CompactFiniteAutomatonBuilder builder,
+                              int[] inner) {
+        int initialState = builder.addState("");
+        int finalState = builder.addState("");
+        builder.addEdge(initialState, inner[0], EMPTY_STRING);
+        builder.addEdge(inner[1], finalState, EMPTY_STRING);
+        builder.addEdge(inner[1], inner[0], EMPTY_STRING);
+        builder.addEdge(initialState, finalState, EMPTY_STRING);
+        return new int[]{initialState, finalState};
+    }
+
+    /**
+     * Adds the finite automaton accepting the words accepted by either of the
+     * given finite automata.
+     *
+     * @param builder the builder to add the states and edges to
+     * @param left    the initial and final state of the first finite automaton
+     * @param right   the initial and final state of the second finite
+     *                automaton
+     * @return the initial and final state of the new finite automaton
+     */
+    private static int[] union(CompactFiniteAutomatonBuilder builder,
+                               int[] left, int[] right) {
+        int initialState = builder.addState("");
+        int finalState = builder.addState("");
+        builder.addEdge(initialState, left[0], EMPTY_STRING);
+        builder.addEdge(initialState, right[0], EMPTY_STRING);
+        builder.addEdge(left[1], finalState, EMPTY_STRING);
+        builder.addEdge(right[1], finalState, EMPTY_STRING);
+        return new int[]{initialState, finalState};
+    }
+
+}
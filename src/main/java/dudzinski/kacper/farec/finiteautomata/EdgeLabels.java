@@ -0,0 +1,76 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+
+import java.util.regex.Pattern;
+
+/**
+ * This class contains the rules for the labels of finite automaton edges. An
+ * edge label must be a valid regex operand, or a list of valid regex operands
+ * separated by commas. Before conversion, the whitespace in a label is removed
+ * and the commas are replaced with the UNION operator, so that the label
+ * becomes a regex string.
+ */
+public final class EdgeLabels {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern VALID_LABEL = createValidLabelPattern();
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private EdgeLabels() {
+        throw new RuntimeException(
+                "The EdgeLabels class should never be instantiated!");
+    }
+
+    /**
+     * Creates the pattern for valid edge labels: a valid regex operand,
+     * followed by any number of commas, each followed by an optional space and
+     * a valid regex operand.
+     *
+     * @return the pattern for valid edge labels
+     */
+    private static Pattern createValidLabelPattern() {
+        // Get the valid operand pattern and remove the start and end anchors.
+        String validOperands =
+                RegularExpressionSettings.getValidRegexOperandPattern();
+        validOperands = validOperands.substring(1, validOperands.length() - 1);
+
+        return Pattern.compile(
+                "^" + validOperands + "(, ?" + validOperands + ")*$");
+    }
+
+    /**
+     * Checks whether the given text is a valid edge label.
+     *
+     * @param labelText the text to check
+     * @return true if the text is a valid edge label, false otherwise
+     */
+    public static boolean isValid(String labelText) {
+        return VALID_LABEL.matcher(labelText).matches();
+    }
+
+    /**
+     * Removes all whitespace from the given edge label.
+     *
+     * @param labelText the text of the edge label
+     * @return the edge label without whitespace
+     */
+    public static String normalise(String labelText) {
+        return WHITESPACE.matcher(labelText).replaceAll("");
+    }
+
+    /**
+     * Turns the given edge label into a regex string by removing whitespace
+     * and replacing the commas with the UNION operator.
+     *
+     * @param labelText the text of the edge label
+     * @return the regex string represented by the edge label
+     */
+    public static String toRegexString(String labelText) {
+        return normalise(labelText).replace(
+                ',', RegularExpressionSettings.getUnionOperatorChar());
+    }
+
+}
@@ -36,6 +36,12 @@ public abstract class FiniteAutomatonSettings extends Settings {
     // The horizontal distance between two states, measured from their
     // circumference.
     public static final double STATE_SEPARATION = 60;
+    // The number of states and edges above which a loaded finite automaton is
+    // shown read-only, with scene nodes only for the visible components.
+    public static final int VIRTUALIZATION_COMPONENT_THRESHOLD = 2000;
+    // The number of states and edges above which a loaded finite automaton is
+    // drawn on a canvas instead of being built from scene nodes.
+    public static final int CANVAS_COMPONENT_THRESHOLD = 50000;
 
     ///////////
     // Edges //
@@ -0,0 +1,118 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+
+import java.util.BitSet;
+
+/**
+ * This class is responsible for trimming finite automata. Trimming removes the
+ * useless states of a finite automaton, which are the states that are not on
+ * any path from the initial state to a final state, together with their edges.
+ * Such states do not change the language of the finite automaton, but they make
+ * its conversion into a regular expression slower and its labels larger. The
+ * initial state is never removed. Final states are removed if they are not
+ * reachable from the initial state, so a trimmed finite automaton may have no
+ * final states, in which case it accepts no words.
+ *
+ * @see GraphTraversal#uselessStates(CompactFiniteAutomaton)
+ */
+public final class FiniteAutomatonTrimmer {
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private FiniteAutomatonTrimmer() {
+        throw new RuntimeException(
+                "The FiniteAutomatonTrimmer class should never be " +
+                "instantiated!");
+    }
+
+    /**
+     * Creates a trimmed copy of the given compact finite automaton. The
+     * remaining states keep their relative order, labels and coordinates. Takes
+     * time linear in the number of states and edges.
+     *
+     * @param finiteAutomaton the compact finite automaton to trim, which must
+     *                        have an initial state
+     * @return the trimmed finite automaton and the number of states and edges
+     * that were removed
+     * @throws IllegalArgumentException if the finite automaton does not have an
+     *                                  initial state
+     */
+    public static Result trim(CompactFiniteAutomaton finiteAutomaton)
+            throws IllegalArgumentException {
+        // Check that the finite automaton has an initial state.
+        int initialState = finiteAutomaton.getInitialState();
+        if (initialState == CompactFiniteAutomaton.NO_STATE) {
+            throw new IllegalArgumentException(
+                    "The finite automaton must have an initial state!");
+        }
+
+        // Find the states to remove, keeping the initial state.
+        BitSet uselessStates = GraphTraversal.uselessStates(finiteAutomaton);
+        uselessStates.clear(initialState);
+        if (uselessStates.isEmpty()) {
+            return new Result(finiteAutomaton, 0, 0);
+        }
+
+        // Copy the remaining states.
+        CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder();
+        int[] newStates = new int[finiteAutomaton.getStateCount()];
+        for (int state = 0; state < finiteAutomaton.getStateCount(); state++) {
+            if (uselessStates.get(state)) {
+                newStates[state] = CompactFiniteAutomaton.NO_STATE;
+            }
+            else if (finiteAutomaton.hasLayout()) {
+                newStates[state] = builder.addState(
+                        finiteAutomaton.getStateLabel(state),
+                        finiteAutomaton.getX(state),
+                        finiteAutomaton.getY(state));
+            }
+            else {
+                newStates[state] = builder.addState(
+                        finiteAutomaton.getStateLabel(state));
+            }
+        }
+
+        // Copy the edges between the remaining states.
+        int removedEdges = 0;
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            int startState = newStates[finiteAutomaton.getEdgeStart(edge)];
+            int endState = newStates[finiteAutomaton.getEdgeEnd(edge)];
+            if ((startState == CompactFiniteAutomaton.NO_STATE) ||
+                (endState == CompactFiniteAutomaton.NO_STATE)) {
+                removedEdges++;
+            }
+            else {
+                builder.addEdge(startState, endState,
+                                finiteAutomaton.getEdgeLabelText(edge));
+            }
+        }
+
+        // Set the initial and final states.
+        builder.setInitialState(newStates[initialState]);
+        BitSet finalStates = finiteAutomaton.getFinalStates();
+        finalStates.andNot(uselessStates);
+        for (int state = finalStates.nextSetBit(0); state >= 0;
+             state = finalStates.nextSetBit(state + 1)) {
+            builder.addFinalState(newStates[state]);
+        }
+
+        return new Result(builder.build(), uselessStates.cardinality(),
+                          removedEdges);
+    }
+
+    /**
+     * The result of trimming a finite automaton.
+     *
+     * @param finiteAutomaton the trimmed finite automaton
+     * @param removedStates   the number of states that were removed
+     * @param removedEdges    the number of edges that were removed
+     */
+    public record Result(CompactFiniteAutomaton finiteAutomaton,
+                         int removedStates, int removedEdges) {
+    }
+
+}
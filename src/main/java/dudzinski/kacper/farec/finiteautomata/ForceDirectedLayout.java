@@ -0,0 +1,517 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+
+import java.util.Arrays;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_RADIUS;
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_SEPARATION;
+
+/**
+ * This class computes positions for the states of a finite automaton with a
+ * force-directed algorithm. Every pair of states repels, the states connected
+ * by an edge attract, and every state is pulled weakly towards the centre so
+ * that disconnected parts stay together. Each iteration moves every state in
+ * the direction of the total force on it, by at most the current temperature,
+ * and the temperature falls after each iteration until the layout settles.
+ * <p>
+ * The repulsion between all pairs of states is approximated with a
+ * Barnes-Hut quadtree, built again in each iteration: a cell of the quadtree
+ * that is far enough from a state pushes it as a single body at its centre of
+ * mass. An iteration therefore takes O(n log n) time for n states, rather
+ * than O(n<sup>2</sup>).
+ * <p>
+ * The layout is run one iteration at a time, so that it can be run on a
+ * background thread and the intermediate positions shown as it settles. It
+ * does not use any user interface components.
+ *
+ * @see CompactFiniteAutomaton
+ * @see LayeredLayout
+ */
+public final class ForceDirectedLayout {
+
+    // The ideal distance between the centres of two connected states.
+    private static final double IDEAL_DISTANCE =
+            (2 * STATE_RADIUS) + STATE_SEPARATION;
+    // The ratio of the size of a quadtree cell to its distance from a state
+    // below which the cell pushes the state as a single body.
+    private static final double THETA = 0.8;
+    // The strength of the pull of each state towards the centre.
+    private static final double GRAVITY = 0.2;
+    // The factor the temperature is multiplied by after each iteration.
+    private static final double COOLING = 0.95;
+    // The temperature at which the layout is considered settled.
+    private static final double FINAL_TEMPERATURE = IDEAL_DISTANCE / 100;
+    // The size of the smallest quadtree cell. States closer together than this
+    // share a cell.
+    private static final double MIN_CELL_SIZE = 1e-3;
+    // The angle between the directions in which states at the same position
+    // are pushed apart.
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+    // The first child of a quadtree cell that is not divided.
+    private static final int NO_CELL = -1;
+    // The state held by a quadtree cell with no states, and by a cell with
+    // several states at the same position.
+    private static final int NO_BODY = -1;
+    private static final int SEVERAL_BODIES = -2;
+
+    private final int stateCount;
+    private final int[] edgeStarts;
+    private final int[] edgeEnds;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] forceXs;
+    private final double[] forceYs;
+    private final double initialTemperature;
+    private final int iterationCount;
+    private int iteration = 0;
+
+    // The quadtree. Each cell has a centre and half its width, the total mass
+    // and position of its states, and either its first child (the children
+    // are consecutive) or the single state it holds.
+    private double[] cellCentreXs = new double[0];
+    private double[] cellCentreYs = new double[0];
+    private double[] cellHalfSizes = new double[0];
+    private double[] cellMasses = new double[0];
+    private double[] cellSumXs = new double[0];
+    private double[] cellSumYs = new double[0];
+    private int[] cellFirstChildren = new int[0];
+    private int[] cellBodies = new int[0];
+    private int cellCount = 0;
+    private int[] cellStack = new int[64];
+
+    /**
+     * Creates a layout of the given finite automaton. If the finite automaton
+     * has a layout, its positions are the starting positions. Otherwise, the
+     * states start in columns by their distance from the initial state.
+     *
+     * @param finiteAutomaton the finite automaton
+     */
+    public ForceDirectedLayout(CompactFiniteAutomaton finiteAutomaton) {
+        stateCount = finiteAutomaton.getStateCount();
+        xs = new double[stateCount];
+        ys = new double[stateCount];
+        forceXs = new double[stateCount];
+        forceYs = new double[stateCount];
+
+        // Place the states in their starting positions.
+        if (finiteAutomaton.hasLayout()) {
+            for (int state = 0; state < stateCount; state++) {
+                xs[state] = finiteAutomaton.getX(state);
+                ys[state] = finiteAutomaton.getY(state);
+            }
+        }
+        else {
+            placeInLayers(finiteAutomaton);
+        }
+
+        // Keep the edges between different states, since loops do not pull.
+        int edgeCount = 0;
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            if (finiteAutomaton.getEdgeStart(edge) !=
+                finiteAutomaton.getEdgeEnd(edge)) {
+                edgeCount++;
+            }
+        }
+        edgeStarts = new int[edgeCount];
+        edgeEnds = new int[edgeCount];
+        edgeCount = 0;
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            if (finiteAutomaton.getEdgeStart(edge) !=
+                finiteAutomaton.getEdgeEnd(edge)) {
+                edgeStarts[edgeCount] = finiteAutomaton.getEdgeStart(edge);
+                edgeEnds[edgeCount] = finiteAutomaton.getEdgeEnd(edge);
+                edgeCount++;
+            }
+        }
+
+        // The states may first move a fiftieth of the width of a layout with
+        // the ideal density, but at least a fifth of the ideal distance, and
+        // the layout settles once they may only move a small fraction of the
+        // ideal distance. Larger moves make long chains of states fold over.
+        initialTemperature = IDEAL_DISTANCE *
+                             Math.max(0.2, Math.sqrt(stateCount) / 50);
+        iterationCount = (stateCount < 2) ? 0 : (int) Math.ceil(
+                Math.log(FINAL_TEMPERATURE / initialTemperature) /
+                Math.log(COOLING));
+    }
+
+    /**
+     * Returns the number of states being laid out.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns the number of iterations performed so far.
+     *
+     * @return the number of iterations performed
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * Returns the number of iterations after which the layout is settled.
+     *
+     * @return the total number of iterations
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Returns whether the layout is settled.
+     *
+     * @return true if every iteration has been performed, false otherwise
+     */
+    public boolean isFinished() {
+        return iteration >= iterationCount;
+    }
+
+    /**
+     * Returns the current position of every state, as consecutive pairs of x
+     * and y coordinates. The positions are moved so that the leftmost and
+     * topmost states are half the ideal distance between states from the
+     * axes.
+     *
+     * @return the positions of the states
+     */
+    public double[] getPositions() {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        for (int state = 0; state < stateCount; state++) {
+            minX = Math.min(minX, xs[state]);
+            minY = Math.min(minY, ys[state]);
+        }
+        double[] positions = new double[2 * stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            positions[2 * state] = xs[state] - minX + (IDEAL_DISTANCE / 2);
+            positions[(2 * state) + 1] = ys[state] - minY +
+                                         (IDEAL_DISTANCE / 2);
+        }
+        return positions;
+    }
+
+    /**
+     * Performs one iteration of the layout, unless the layout is already
+     * settled.
+     *
+     * @return true if there are more iterations to perform, false otherwise
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        Arrays.fill(forceXs, 0);
+        Arrays.fill(forceYs, 0);
+
+        // Push every state away from the others.
+        buildQuadtree();
+        for (int state = 0; state < stateCount; state++) {
+            addRepulsion(state);
+        }
+
+        // Pull the states of each edge towards each other.
+        for (int edge = 0; edge < edgeStarts.length; edge++) {
+            int start = edgeStarts[edge];
+            int end = edgeEnds[edge];
+            double dx = xs[end] - xs[start];
+            double dy = ys[end] - ys[start];
+            double distance = Math.hypot(dx, dy);
+            if (distance > 0) {
+                double force = distance / IDEAL_DISTANCE;
+                forceXs[start] += dx * force;
+                forceYs[start] += dy * force;
+                forceXs[end] -= dx * force;
+                forceYs[end] -= dy * force;
+            }
+        }
+
+        // Pull every state towards the centre of mass, then move each state
+        // by at most the temperature.
+        double centreX = cellSumXs[0] / cellMasses[0];
+        double centreY = cellSumYs[0] / cellMasses[0];
+        double temperature = initialTemperature *
+                             Math.pow(COOLING, iteration);
+        for (int state = 0; state < stateCount; state++) {
+            double forceX = forceXs[state] -
+                            (GRAVITY * (xs[state] - centreX));
+            double forceY = forceYs[state] -
+                            (GRAVITY * (ys[state] - centreY));
+            double force = Math.hypot(forceX, forceY);
+            if (force > temperature) {
+                forceX *= temperature / force;
+                forceY *= temperature / force;
+            }
+            xs[state] += forceX;
+            ys[state] += forceY;
+        }
+
+        iteration++;
+        return !isFinished();
+    }
+
+    /**
+     * Places the states in columns by their distance from the initial state,
+     * ignoring the direction of the edges, so that connected states start
+     * close together. Each part of the finite automaton that is not connected
+     * to the initial state gets its own columns after the previous part.
+     *
+     * @param finiteAutomaton the finite automaton
+     */
+    private void placeInLayers(CompactFiniteAutomaton finiteAutomaton) {
+        int[] queue = new int[stateCount];
+        int[] layers = new int[stateCount];
+        boolean[] visited = new boolean[stateCount];
+        int queueEnd = 0;
+        int firstLayer = 0;
+        int start = (finiteAutomaton.getInitialState() ==
+                     CompactFiniteAutomaton.NO_STATE) ?
+                    0 : finiteAutomaton.getInitialState();
+        for (int offset = 0; offset < stateCount; offset++) {
+            int root = (start + offset) % stateCount;
+            if (visited[root]) {
+                continue;
+            }
+
+            // Find the layer of each state in the part containing the root,
+            // by breadth-first search.
+            int queueStart = queueEnd;
+            visited[root] = true;
+            layers[root] = firstLayer;
+            queue[queueEnd++] = root;
+            for (int index = queueStart; index < queueEnd; index++) {
+                int state = queue[index];
+                for (int edge = finiteAutomaton.getOutgoingOffset(state);
+                     edge < finiteAutomaton.getOutgoingOffset(state + 1);
+                     edge++) {
+                    int neighbour = finiteAutomaton.getEdgeEnd(edge);
+                    if (!visited[neighbour]) {
+                        visited[neighbour] = true;
+                        layers[neighbour] = layers[state] + 1;
+                        queue[queueEnd++] = neighbour;
+                    }
+                }
+                for (int incoming = finiteAutomaton.getIncomingOffset(state);
+                     incoming < finiteAutomaton.getIncomingOffset(state + 1);
+                     incoming++) {
+                    int neighbour = finiteAutomaton.getEdgeStart(
+                            finiteAutomaton.getIncomingEdge(incoming));
+                    if (!visited[neighbour]) {
+                        visited[neighbour] = true;
+                        layers[neighbour] = layers[state] + 1;
+                        queue[queueEnd++] = neighbour;
+                    }
+                }
+            }
+            firstLayer = layers[queue[queueEnd - 1]] + 1;
+        }
+
+        // Place the layers side by side, and stack the states of each layer
+        // in the order they were found, centred vertically. The states of a
+        // layer are consecutive in the queue.
+        int layerStart = 0;
+        for (int index = 1; index <= stateCount; index++) {
+            if ((index == stateCount) ||
+                (layers[queue[index]] != layers[queue[layerStart]])) {
+                double top = -(index - layerStart - 1) / 2.0;
+                for (int row = layerStart; row < index; row++) {
+                    xs[queue[row]] = layers[queue[row]] * IDEAL_DISTANCE;
+                    ys[queue[row]] = (top + row - layerStart) *
+                                     IDEAL_DISTANCE;
+                }
+                layerStart = index;
+            }
+        }
+    }
+
+    /**
+     * Builds the quadtree of the current positions of the states.
+     */
+    private void buildQuadtree() {
+        // Find the square around all states.
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int state = 0; state < stateCount; state++) {
+            minX = Math.min(minX, xs[state]);
+            minY = Math.min(minY, ys[state]);
+            maxX = Math.max(maxX, xs[state]);
+            maxY = Math.max(maxY, ys[state]);
+        }
+
+        // Create the root cell, then insert the states one at a time.
+        cellCount = 0;
+        createCell((minX + maxX) / 2, (minY + maxY) / 2,
+                   (Math.max(maxX - minX, maxY - minY) / 2) + 1);
+        for (int state = 0; state < stateCount; state++) {
+            insert(state);
+        }
+    }
+
+    /**
+     * Inserts the given state into the quadtree. The state moves down from
+     * the root to the empty cell containing its position, and a cell holding
+     * another state is divided until the two states are in different cells.
+     *
+     * @param state the state to insert
+     */
+    private void insert(int state) {
+        int cell = 0;
+        while (true) {
+            // Move down through the divided cells.
+            if (cellFirstChildren[cell] != NO_CELL) {
+                addMass(cell, state);
+                cell = childContaining(cell, xs[state], ys[state]);
+            }
+            // Store the state in an empty cell.
+            else if (cellMasses[cell] == 0) {
+                cellBodies[cell] = state;
+                addMass(cell, state);
+                return;
+            }
+            // Share a cell too small to divide.
+            else if ((cellBodies[cell] == SEVERAL_BODIES) ||
+                     (cellHalfSizes[cell] < MIN_CELL_SIZE)) {
+                cellBodies[cell] = SEVERAL_BODIES;
+                addMass(cell, state);
+                return;
+            }
+            // Divide a cell holding another state, and move that state into
+            // one of the children.
+            else {
+                int otherState = cellBodies[cell];
+                double quarterSize = cellHalfSizes[cell] / 2;
+                int firstChild = cellCount;
+                for (int child = 0; child < 4; child++) {
+                    createCell(cellCentreXs[cell] + ((child % 2 == 0) ?
+                                                     -quarterSize :
+                                                     quarterSize),
+                               cellCentreYs[cell] + ((child < 2) ?
+                                                     -quarterSize :
+                                                     quarterSize),
+                               quarterSize);
+                }
+                cellFirstChildren[cell] = firstChild;
+                cellBodies[cell] = NO_BODY;
+                int child = childContaining(cell, xs[otherState],
+                                            ys[otherState]);
+                cellBodies[child] = otherState;
+                addMass(child, otherState);
+            }
+        }
+    }
+
+    /**
+     * Adds the force pushing the given state away from every other state,
+     * treating the cells of the quadtree that are far enough away as single
+     * bodies.
+     *
+     * @param state the state
+     */
+    private void addRepulsion(int state) {
+        int stackSize = 0;
+        cellStack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int cell = cellStack[--stackSize];
+            double mass = cellMasses[cell];
+            if ((mass == 0) || (cellBodies[cell] == state)) {
+                continue;
+            }
+
+            // Open cells that are too close to treat as a single body.
+            double dx = xs[state] - (cellSumXs[cell] / mass);
+            double dy = ys[state] - (cellSumYs[cell] / mass);
+            double squaredDistance = (dx * dx) + (dy * dy);
+            double size = 2 * cellHalfSizes[cell];
+            if ((cellFirstChildren[cell] != NO_CELL) &&
+                (size * size >= THETA * THETA * squaredDistance)) {
+                if (stackSize + 4 > cellStack.length) {
+                    cellStack = Arrays.copyOf(cellStack,
+                                              2 * cellStack.length);
+                }
+                for (int child = 0; child < 4; child++) {
+                    cellStack[stackSize++] = cellFirstChildren[cell] + child;
+                }
+                continue;
+            }
+
+            // Push the state away from the cell, or in a direction of its own
+            // if they are at the same position.
+            if (squaredDistance < MIN_CELL_SIZE * MIN_CELL_SIZE) {
+                forceXs[state] += IDEAL_DISTANCE * mass *
+                                  Math.cos(state * GOLDEN_ANGLE);
+                forceYs[state] += IDEAL_DISTANCE * mass *
+                                  Math.sin(state * GOLDEN_ANGLE);
+            }
+            else {
+                double force = IDEAL_DISTANCE * IDEAL_DISTANCE * mass /
+                               squaredDistance;
+                forceXs[state] += dx * force;
+                forceYs[state] += dy * force;
+            }
+        }
+    }
+
+    /**
+     * Adds an empty cell to the quadtree.
+     *
+     * @param centreX  the horizontal position of the centre of the cell
+     * @param centreY  the vertical position of the centre of the cell
+     * @param halfSize half the width of the cell
+     */
+    private void createCell(double centreX, double centreY, double halfSize) {
+        if (cellCount == cellBodies.length) {
+            int capacity = Math.max(4 * stateCount, 2 * cellCount) + 1;
+            cellCentreXs = Arrays.copyOf(cellCentreXs, capacity);
+            cellCentreYs = Arrays.copyOf(cellCentreYs, capacity);
+            cellHalfSizes = Arrays.copyOf(cellHalfSizes, capacity);
+            cellMasses = Arrays.copyOf(cellMasses, capacity);
+            cellSumXs = Arrays.copyOf(cellSumXs, capacity);
+            cellSumYs = Arrays.copyOf(cellSumYs, capacity);
+            cellFirstChildren = Arrays.copyOf(cellFirstChildren, capacity);
+            cellBodies = Arrays.copyOf(cellBodies, capacity);
+        }
+        cellCentreXs[cellCount] = centreX;
+        cellCentreYs[cellCount] = centreY;
+        cellHalfSizes[cellCount] = halfSize;
+        cellMasses[cellCount] = 0;
+        cellSumXs[cellCount] = 0;
+        cellSumYs[cellCount] = 0;
+        cellFirstChildren[cellCount] = NO_CELL;
+        cellBodies[cellCount] = NO_BODY;
+        cellCount++;
+    }
+
+    /**
+     * Adds the given state to the total mass and position of the given cell.
+     *
+     * @param cell  the cell
+     * @param state the state
+     */
+    private void addMass(int cell, int state) {
+        cellMasses[cell]++;
+        cellSumXs[cell] += xs[state];
+        cellSumYs[cell] += ys[state];
+    }
+
+    /**
+     * Returns the child of the given divided cell that contains the given
+     * position.
+     *
+     * @param cell the cell
+     * @param x    the horizontal position
+     * @param y    the vertical position
+     * @return the child containing the position
+     */
+    private int childContaining(int cell, double x, double y) {
+        return cellFirstChildren[cell] + ((x < cellCentreXs[cell]) ? 0 : 1) +
+               ((y < cellCentreYs[cell]) ? 0 : 2);
+    }
+
+}
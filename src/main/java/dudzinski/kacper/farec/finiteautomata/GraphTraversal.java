@@ -0,0 +1,182 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class contains the graph traversals shared by the algorithms working on
+ * finite automata. All traversals take time linear in the number of states and
+ * edges visited.
+ * <p>
+ * The forward traversals find the states reachable from a state, following
+ * edges from their start state to their end state. The backward traversals
+ * find the states co-reachable to a state, that is the states from which the
+ * state can be reached, following edges from their end state to their start
+ * state. A state that is not reachable from the initial state or not
+ * co-reachable to any final state is useless: it is not on any path from the
+ * initial state to a final state.
+ */
+public final class GraphTraversal {
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private GraphTraversal() {
+        throw new RuntimeException(
+                "The GraphTraversal class should never be instantiated!");
+    }
+
+    /**
+     * Performs breadth-first search from the given node. The neighbours of a
+     * node are given by a function that passes each neighbour of the node to a
+     * consumer, so that no collection has to be created for them. Nodes are
+     * compared using <code>equals</code>.
+     *
+     * @param start      the node to start from
+     * @param neighbours passes each neighbour of the given node to the given
+     *                   consumer
+     * @param <T>        the type of the nodes
+     * @return the nodes reachable from the start node (including the start
+     * node), in the order in which they were visited
+     */
+    public static <T> LinkedHashSet<T> breadthFirstSearch(
+            T start, BiConsumer<T, Consumer<T>> neighbours) {
+        return multiSourceBreadthFirstSearch(List.of(start), neighbours);
+    }
+
+    /**
+     * Performs breadth-first search from all the given nodes at once.
+     *
+     * @param starts     the nodes to start from
+     * @param neighbours passes each neighbour of the given node to the given
+     *                   consumer
+     * @param <T>        the type of the nodes
+     * @return the nodes reachable from any of the start nodes (including the
+     * start nodes), in the order in which they were visited
+     * @see #breadthFirstSearch(Object, BiConsumer)
+     */
+    public static <T> LinkedHashSet<T> multiSourceBreadthFirstSearch(
+            Collection<T> starts, BiConsumer<T, Consumer<T>> neighbours) {
+        LinkedHashSet<T> visited = new LinkedHashSet<>(starts);
+        ArrayDeque<T> frontier = new ArrayDeque<>(visited);
+        Consumer<T> visit = neighbour -> {
+            if (visited.add(neighbour)) {
+                frontier.add(neighbour);
+            }
+        };
+        while (!frontier.isEmpty()) {
+            neighbours.accept(frontier.remove(), visit);
+        }
+        return visited;
+    }
+
+    /**
+     * Returns the states of the compact finite automaton that are reachable
+     * from the given state (including the state itself).
+     *
+     * @param finiteAutomaton the compact finite automaton
+     * @param state           the state to start from
+     * @return the set of reachable states
+     */
+    public static BitSet reachableStates(
+            CompactFiniteAutomaton finiteAutomaton, int state) {
+        BitSet states = new BitSet(finiteAutomaton.getStateCount());
+        states.set(state);
+        return traverse(finiteAutomaton, states, true);
+    }
+
+    /**
+     * Returns the states of the compact finite automaton from which any of the
+     * given states is reachable (including the states themselves).
+     *
+     * @param finiteAutomaton the compact finite automaton
+     * @param states          the states to end at
+     * @return the set of co-reachable states
+     */
+    public static BitSet coReachableStates(
+            CompactFiniteAutomaton finiteAutomaton, BitSet states) {
+        return traverse(finiteAutomaton, states, false);
+    }
+
+    /**
+     * Returns the useless states of the compact finite automaton: the states
+     * that are not reachable from the initial state or from which no final
+     * state is reachable. If there is no initial state, every state is
+     * useless.
+     *
+     * @param finiteAutomaton the compact finite automaton
+     * @return the set of useless states
+     */
+    public static BitSet uselessStates(CompactFiniteAutomaton finiteAutomaton) {
+        BitSet useless = new BitSet(finiteAutomaton.getStateCount());
+        useless.set(0, finiteAutomaton.getStateCount());
+        if (finiteAutomaton.getInitialState() ==
+            CompactFiniteAutomaton.NO_STATE) {
+            return useless;
+        }
+        BitSet useful = reachableStates(finiteAutomaton,
+                                        finiteAutomaton.getInitialState());
+        useful.and(coReachableStates(finiteAutomaton,
+                                     finiteAutomaton.getFinalStates()));
+        useless.andNot(useful);
+        return useless;
+    }
+
+    /**
+     * Performs breadth-first search over the compact finite automaton from the
+     * given states. Every state is added to the queue at most once, so an array
+     * the size of the number of states is used as the queue.
+     *
+     * @param finiteAutomaton the compact finite automaton
+     * @param states          the states to start from
+     * @param forward         whether to follow the edges forwards or
+     *                        backwards
+     * @return the set of visited states
+     */
+    private static BitSet traverse(CompactFiniteAutomaton finiteAutomaton,
+                                   BitSet states, boolean forward) {
+        BitSet visited = (BitSet) states.clone();
+        int[] queue = new int[finiteAutomaton.getStateCount()];
+        int head = 0;
+        int tail = 0;
+        for (int state = states.nextSetBit(0); state >= 0;
+             state = states.nextSetBit(state + 1)) {
+            queue[tail++] = state;
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            if (forward) {
+                for (int edge = finiteAutomaton.getOutgoingOffset(current);
+                     edge < finiteAutomaton.getOutgoingOffset(current + 1);
+                     edge++) {
+                    int neighbour = finiteAutomaton.getEdgeEnd(edge);
+                    if (!visited.get(neighbour)) {
+                        visited.set(neighbour);
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            else {
+                for (int index = finiteAutomaton.getIncomingOffset(current);
+                     index < finiteAutomaton.getIncomingOffset(current + 1);
+                     index++) {
+                    int neighbour = finiteAutomaton.getEdgeStart(
+                            finiteAutomaton.getIncomingEdge(index));
+                    if (!visited.get(neighbour)) {
+                        visited.set(neighbour);
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+}
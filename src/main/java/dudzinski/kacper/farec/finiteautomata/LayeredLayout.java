@@ -0,0 +1,441 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+
+import java.util.Arrays;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_RADIUS;
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_SEPARATION;
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+
+/**
+ * This class represents a layered layout of a finite automaton, in which the
+ * edges flow from left to right. The layout is computed in four phases:
+ * <ol>
+ *     <li>Cycle breaking: the edges that close a cycle in a depth-first
+ *     search from the initial state are reversed, so that the edges form a
+ *     directed acyclic graph.</li>
+ *     <li>Layer assignment: each state is put in the column after the last
+ *     of its predecessors (longest path layering).</li>
+ *     <li>Crossing minimisation: the states of each column are sorted by the
+ *     average position of their predecessors, then of their successors, a
+ *     fixed number of times (barycentre heuristic).</li>
+ *     <li>Coordinate assignment: each state is moved as close as possible to
+ *     the average position of its neighbours, keeping the order and
+ *     separation of the states of each column.</li>
+ * </ol>
+ * An edge spanning several columns is not split by dummy nodes, as it usually
+ * is, but counts its far end as a neighbour directly. The nested unions of
+ * Thompson's construction would otherwise need a number of dummy nodes
+ * quadratic in the size of the regular expression. Every phase therefore
+ * takes time linear in the number of states and edges, apart from sorting
+ * the columns. The layout uses only the pure-data finite automaton, so any
+ * finite automaton can be laid out, including a smart finite automaton
+ * converted into a compact one.
+ *
+ * @see ForceDirectedLayout
+ */
+public final class LayeredLayout {
+
+    // The distance between the centres of neighbouring states, both between
+    // and within columns.
+    private static final double SPACING = (2 * STATE_RADIUS) + STATE_SEPARATION;
+    // The number of times the columns are sorted in each direction.
+    private static final int ORDERING_SWEEPS = 4;
+    // The number of times the states are moved towards their neighbours in
+    // each direction.
+    private static final int STRAIGHTENING_SWEEPS = 4;
+
+    private final int stateCount;
+    private final int layerCount;
+    private final int[] layers;
+    // The states of each layer, in order from top to bottom. The states of
+    // layer l are layerStates[layerOffsets[l]] to
+    // layerStates[layerOffsets[l + 1] - 1].
+    private final int[] layerOffsets;
+    private final int[] layerStates;
+    // The position of each state within its layer.
+    private final int[] ranks;
+    // The neighbours of each state in earlier and later layers.
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] successorOffsets;
+    private final int[] successors;
+    private final double[] ys;
+
+    /**
+     * Computes the layered layout of the given finite automaton. Loops are
+     * ignored, since they do not connect different states.
+     *
+     * @param finiteAutomaton the finite automaton
+     */
+    public LayeredLayout(CompactFiniteAutomaton finiteAutomaton) {
+        stateCount = finiteAutomaton.getStateCount();
+
+        // Break the cycles, and number the states in the order in which they
+        // are discovered.
+        int[] discoveryOrder = new int[stateCount];
+        boolean[] reversed = breakCycles(finiteAutomaton, discoveryOrder);
+
+        // Orient the edges between different states from left to right.
+        int edgeCount = 0;
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            if (finiteAutomaton.getEdgeStart(edge) !=
+                finiteAutomaton.getEdgeEnd(edge)) {
+                edgeCount++;
+            }
+        }
+        int[] starts = new int[edgeCount];
+        int[] ends = new int[edgeCount];
+        edgeCount = 0;
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            int start = finiteAutomaton.getEdgeStart(edge);
+            int end = finiteAutomaton.getEdgeEnd(edge);
+            if (start != end) {
+                starts[edgeCount] = reversed[edge] ? end : start;
+                ends[edgeCount++] = reversed[edge] ? start : end;
+            }
+        }
+
+        // Store the neighbours of each state on either side.
+        predecessorOffsets = new int[stateCount + 1];
+        successorOffsets = new int[stateCount + 1];
+        predecessors = new int[edgeCount];
+        successors = new int[edgeCount];
+        groupEdges(ends, starts, predecessorOffsets, predecessors);
+        groupEdges(starts, ends, successorOffsets, successors);
+
+        // Assign the layers.
+        int[] statesByDiscovery = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            statesByDiscovery[discoveryOrder[state]] = state;
+        }
+        layers = assignLayers(statesByDiscovery);
+        int maxLayer = -1;
+        for (int state = 0; state < stateCount; state++) {
+            maxLayer = Math.max(maxLayer, layers[state]);
+        }
+        layerCount = maxLayer + 1;
+
+        // Order the states of each layer in the order they were discovered.
+        layerOffsets = new int[layerCount + 1];
+        for (int state = 0; state < stateCount; state++) {
+            layerOffsets[layers[state] + 1]++;
+        }
+        for (int layer = 0; layer < layerCount; layer++) {
+            layerOffsets[layer + 1] += layerOffsets[layer];
+        }
+        layerStates = new int[stateCount];
+        ranks = new int[stateCount];
+        int[] layerSizes = new int[layerCount];
+        for (int state : statesByDiscovery) {
+            int layer = layers[state];
+            ranks[state] = layerSizes[layer]++;
+            layerStates[layerOffsets[layer] + ranks[state]] = state;
+        }
+
+        // Minimise the crossings, then assign the vertical positions.
+        double[] barycentres = new double[stateCount];
+        for (int sweep = 0; sweep < ORDERING_SWEEPS; sweep++) {
+            for (int layer = 1; layer < layerCount; layer++) {
+                sortLayer(layer, predecessorOffsets, predecessors,
+                          barycentres);
+            }
+            for (int layer = layerCount - 2; layer >= 0; layer--) {
+                sortLayer(layer, successorOffsets, successors, barycentres);
+            }
+        }
+        ys = new double[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            ys[state] = ranks[state] * SPACING;
+        }
+        double[] targets = new double[stateCount];
+        for (int sweep = 0; sweep < STRAIGHTENING_SWEEPS; sweep++) {
+            for (int layer = 1; layer < layerCount; layer++) {
+                straightenLayer(layer, predecessorOffsets, predecessors,
+                                targets);
+            }
+            for (int layer = layerCount - 2; layer >= 0; layer--) {
+                straightenLayer(layer, successorOffsets, successors,
+                                targets);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of layers (columns) of this layout.
+     *
+     * @return the number of layers
+     */
+    public int getLayerCount() {
+        return layerCount;
+    }
+
+    /**
+     * Returns the layer (column) of the given state.
+     *
+     * @param state the state
+     * @return the layer of the state
+     */
+    public int getLayer(int state) {
+        return layers[state];
+    }
+
+    /**
+     * Returns the position of the given state within its layer, counting from
+     * the top.
+     *
+     * @param state the state
+     * @return the position of the state within its layer
+     */
+    public int getRank(int state) {
+        return ranks[state];
+    }
+
+    /**
+     * Returns the position of every state, as consecutive pairs of x and y
+     * coordinates. The positions are moved so that the leftmost and topmost
+     * states are half the spacing between states from the axes.
+     *
+     * @return the positions of the states
+     */
+    public double[] getPositions() {
+        double minY = Double.POSITIVE_INFINITY;
+        for (int state = 0; state < stateCount; state++) {
+            minY = Math.min(minY, ys[state]);
+        }
+        double[] positions = new double[2 * stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            positions[2 * state] = (layers[state] + 0.5) * SPACING;
+            positions[(2 * state) + 1] = ys[state] - minY + (SPACING / 2);
+        }
+        return positions;
+    }
+
+    /**
+     * Reverses the edges that close a cycle in a depth-first search, starting
+     * from the initial state and then from each state not yet visited. Loops
+     * are never reversed.
+     *
+     * @param finiteAutomaton the finite automaton
+     * @param discoveryOrder  filled with the order in which each state is
+     *                        first visited
+     * @return whether each edge is reversed
+     */
+    private static boolean[] breakCycles(
+            CompactFiniteAutomaton finiteAutomaton, int[] discoveryOrder) {
+        int stateCount = finiteAutomaton.getStateCount();
+        boolean[] reversed = new boolean[finiteAutomaton.getEdgeCount()];
+        // Whether each state has been visited, and whether it is on the
+        // current path of the search.
+        boolean[] visited = new boolean[stateCount];
+        boolean[] onPath = new boolean[stateCount];
+        // The states on the current path, and the next edge of each to follow.
+        int[] path = new int[stateCount];
+        int[] nextEdges = new int[stateCount];
+        int discovered = 0;
+        int first = (finiteAutomaton.getInitialState() == NO_STATE) ?
+                    0 : finiteAutomaton.getInitialState();
+        for (int offset = 0; offset < stateCount; offset++) {
+            int root = (first + offset) % stateCount;
+            if (visited[root]) {
+                continue;
+            }
+            int pathLength = 0;
+            visited[root] = true;
+            onPath[root] = true;
+            discoveryOrder[root] = discovered++;
+            path[pathLength] = root;
+            nextEdges[pathLength++] = finiteAutomaton.getOutgoingOffset(root);
+            while (pathLength > 0) {
+                int state = path[pathLength - 1];
+                int edge = nextEdges[pathLength - 1];
+
+                // Leave the state once all of its edges have been followed.
+                if (edge == finiteAutomaton.getOutgoingOffset(state + 1)) {
+                    onPath[state] = false;
+                    pathLength--;
+                    continue;
+                }
+                nextEdges[pathLength - 1]++;
+
+                // Reverse an edge back to a state on the path, and follow an
+                // edge to a state not visited yet.
+                int end = finiteAutomaton.getEdgeEnd(edge);
+                if (onPath[end]) {
+                    reversed[edge] = end != state;
+                }
+                else if (!visited[end]) {
+                    visited[end] = true;
+                    onPath[end] = true;
+                    discoveryOrder[end] = discovered++;
+                    path[pathLength] = end;
+                    nextEdges[pathLength++] =
+                            finiteAutomaton.getOutgoingOffset(end);
+                }
+            }
+        }
+        return reversed;
+    }
+
+    /**
+     * Puts each state in the layer after the last of its predecessors. The
+     * states are visited in topological order, starting with the sources in
+     * the order they were discovered.
+     *
+     * @param statesByDiscovery the states in the order they were discovered
+     * @return the layer of each state
+     */
+    private int[] assignLayers(int[] statesByDiscovery) {
+        int[] inDegrees = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int queueEnd = 0;
+        for (int state : statesByDiscovery) {
+            inDegrees[state] = predecessorOffsets[state + 1] -
+                               predecessorOffsets[state];
+            if (inDegrees[state] == 0) {
+                queue[queueEnd++] = state;
+            }
+        }
+        int[] stateLayers = new int[stateCount];
+        for (int index = 0; index < queueEnd; index++) {
+            int state = queue[index];
+            for (int successor = successorOffsets[state];
+                 successor < successorOffsets[state + 1]; successor++) {
+                int end = successors[successor];
+                stateLayers[end] = Math.max(stateLayers[end],
+                                            stateLayers[state] + 1);
+                if (--inDegrees[end] == 0) {
+                    queue[queueEnd++] = end;
+                }
+            }
+        }
+        return stateLayers;
+    }
+
+    /**
+     * Groups the given edges by one of their states, storing the other state
+     * of each edge. The other states of the edges of state s are
+     * <code>others[offsets[s]]</code> to
+     * <code>others[offsets[s + 1] - 1]</code>.
+     *
+     * @param keys    the state each edge is grouped by
+     * @param values  the other state of each edge
+     * @param offsets filled with the offset of the group of each state,
+     *                followed by the number of edges
+     * @param others  filled with the other states of the edges
+     */
+    private static void groupEdges(int[] keys, int[] values, int[] offsets,
+                                      int[] others) {
+        for (int key : keys) {
+            offsets[key + 1]++;
+        }
+        for (int state = 0; state + 1 < offsets.length; state++) {
+            offsets[state + 1] += offsets[state];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int edge = 0; edge < keys.length; edge++) {
+            others[next[keys[edge]]++] = values[edge];
+        }
+    }
+
+    /**
+     * Sorts the states of the given layer by the average rank of their
+     * neighbours in the adjacent layer. A state without neighbours there keeps
+     * its current rank.
+     *
+     * @param layer       the layer
+     * @param offsets     the offset of the neighbours of each state
+     * @param neighbours  the neighbours of the states
+     * @param barycentres space for the average rank of each state
+     */
+    private void sortLayer(int layer, int[] offsets, int[] neighbours,
+                           double[] barycentres) {
+        int first = layerOffsets[layer];
+        int last = layerOffsets[layer + 1];
+        Integer[] states = new Integer[last - first];
+        for (int index = first; index < last; index++) {
+            int state = layerStates[index];
+            states[index - first] = state;
+            if (offsets[state] == offsets[state + 1]) {
+                barycentres[state] = ranks[state];
+                continue;
+            }
+            double sum = 0;
+            for (int neighbour = offsets[state]; neighbour < offsets[state + 1];
+                 neighbour++) {
+                sum += ranks[neighbours[neighbour]];
+            }
+            barycentres[state] = sum / (offsets[state + 1] - offsets[state]);
+        }
+
+        // The sort is stable, so states with equal averages keep their order.
+        Arrays.sort(states, (state1, state2) ->
+                Double.compare(barycentres[state1], barycentres[state2]));
+        for (int index = 0; index < states.length; index++) {
+            layerStates[first + index] = states[index];
+            ranks[states[index]] = index;
+        }
+    }
+
+    /**
+     * Moves the states of the given layer as close as possible to the average
+     * vertical position of their neighbours in the adjacent layer, keeping
+     * their order and at least the spacing between them. The positions are
+     * found by isotonic regression with the pool adjacent violators
+     * algorithm, in time linear in the number of states of the layer.
+     *
+     * @param layer      the layer
+     * @param offsets    the offset of the neighbours of each state
+     * @param neighbours the neighbours of the states
+     * @param targets    space for the target position of each state
+     */
+    private void straightenLayer(int layer, int[] offsets, int[] neighbours,
+                                 double[] targets) {
+        int first = layerOffsets[layer];
+        int last = layerOffsets[layer + 1];
+
+        // Find the target of each state, less the spacing of the states above
+        // it, so that the targets only need to be kept in order.
+        for (int index = first; index < last; index++) {
+            int state = layerStates[index];
+            double target = ys[state];
+            if (offsets[state] < offsets[state + 1]) {
+                double sum = 0;
+                for (int neighbour = offsets[state];
+                     neighbour < offsets[state + 1]; neighbour++) {
+                    sum += ys[neighbours[neighbour]];
+                }
+                target = sum / (offsets[state + 1] - offsets[state]);
+            }
+            targets[index - first] = target - ((index - first) * SPACING);
+        }
+
+        // Merge neighbouring blocks of states while their averages are out of
+        // order. Each block is placed at the average of its targets.
+        int size = last - first;
+        double[] blockSums = new double[size];
+        int[] blockSizes = new int[size];
+        int blockCount = 0;
+        for (int index = 0; index < size; index++) {
+            blockSums[blockCount] = targets[index];
+            blockSizes[blockCount++] = 1;
+            while ((blockCount > 1) &&
+                   (blockSums[blockCount - 2] / blockSizes[blockCount - 2] >
+                    blockSums[blockCount - 1] / blockSizes[blockCount - 1])) {
+                blockSums[blockCount - 2] += blockSums[blockCount - 1];
+                blockSizes[blockCount - 2] += blockSizes[blockCount - 1];
+                blockCount--;
+            }
+        }
+        int index = first;
+        for (int block = 0; block < blockCount; block++) {
+            double average = blockSums[block] / blockSizes[block];
+            for (int member = 0; member < blockSizes[block]; member++) {
+                ys[layerStates[index]] = average + ((index - first) * SPACING);
+                index++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,524 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.SimpleRegularExpression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
+
+/**
+ * This class represents the layout of the finite automaton built from a
+ * regular expression by Thompson's construction, computed without creating
+ * any JavaFX nodes. The finite automaton is drawn the same way as in the
+ * step-by-step conversion: the finite automata of the subexpressions of a
+ * concatenation are side by side, those of a union are above and below the
+ * baseline, and a star wraps its operand in two U-shaped edges.
+ * <p>
+ * The size of each subexpression is computed once, children first, and the
+ * absolute position of each state and edge is then computed once, parents
+ * first. Both passes are iterative, so the layout takes time linear in the
+ * size of the regular expression, however deeply it is nested. The edges are
+ * kept as straight segments; a U-shaped edge is made of three segments, of
+ * which only the last is directed. The two states merged by a concatenation
+ * are drawn on top of each other, as in the step-by-step conversion.
+ *
+ * @see dudzinski.kacper.farec.finiteautomata.graphical.GraphicalFiniteAutomatonBuilder
+ */
+public final class ThompsonLayout {
+
+    // The distance between a state and a new state created next to it.
+    private static final double NEW_STATE_OFFSET =
+            (2 * STATE_RADIUS) + (2 * STATE_STROKE_RADIUS) + STATE_SEPARATION;
+    // The extra height of a star, which makes room for the labels.
+    private static final double STAR_LABEL_HEIGHT = 50;
+    private final double[] stateXs;
+    private final double[] stateYs;
+    private final int initialState;
+    private final int finalState;
+    private final double[] segmentStartXs;
+    private final double[] segmentStartYs;
+    private final double[] segmentEndXs;
+    private final double[] segmentEndYs;
+    private final String[] segmentLabels;
+    private final BitSet directedSegments = new BitSet();
+    private int stateCount = 0;
+    private int segmentCount = 0;
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Computes the layout of the finite automaton for the given regular
+     * expression. The finite automaton is centred on 0.
+     *
+     * @param regularExpression the regular expression
+     * @throws IllegalArgumentException if the regular expression contains a
+     *                                  subexpression that is neither simple
+     *                                  nor complex
+     */
+    public ThompsonLayout(RegularExpression regularExpression)
+            throws IllegalArgumentException {
+        // Flatten the regular expression into postorder, and count the states
+        // and segments.
+        ArrayList<RegularExpression> postorder = postorder(regularExpression);
+        int size = postorder.size();
+        RegexOperator[] operators = new RegexOperator[size];
+        int[] leftChildren = new int[size];
+        int[] rightChildren = new int[size];
+        ArrayDeque<Integer> subtrees = new ArrayDeque<>();
+        int totalStates = 0;
+        int totalSegments = 0;
+        for (int index = 0; index < size; index++) {
+            RegularExpression subexpression = postorder.get(index);
+            leftChildren[index] = -1;
+            rightChildren[index] = -1;
+            if (subexpression instanceof SimpleRegularExpression) {
+                totalStates += 2;
+                totalSegments += 1;
+            }
+            else if (subexpression instanceof
+                    ComplexRegularExpression complexRegex) {
+                operators[index] = complexRegex.getOperator();
+                if (operators[index] == RegexOperator.STAR) {
+                    totalStates += 2;
+                    totalSegments += 8;
+                }
+                else {
+                    rightChildren[index] = subtrees.pop();
+                    if (operators[index] == RegexOperator.UNION) {
+                        totalStates += 2;
+                        totalSegments += 4;
+                    }
+                }
+                leftChildren[index] = subtrees.pop();
+            }
+            else {
+                throw new IllegalArgumentException(
+                        "Regular Expression is neither simple nor complex!");
+            }
+            subtrees.push(index);
+        }
+
+        // Compute the size of each subexpression, and the offsets of its
+        // initial state, its final state and its children from its centre,
+        // children first.
+        double[] widths = new double[size];
+        double[] heights = new double[size];
+        double[] initialOffsets = new double[size];
+        double[] finalOffsets = new double[size];
+        double[] offsetXs = new double[size];
+        double[] offsetYs = new double[size];
+        for (int index = 0; index < size; index++) {
+            int left = leftChildren[index];
+            int right = rightChildren[index];
+            if (left == -1) {
+                finalOffsets[index] = STATE_RADIUS + STATE_STROKE_RADIUS +
+                                      (0.5 * STATE_SEPARATION);
+                initialOffsets[index] = -finalOffsets[index];
+                widths[index] = finalOffsets[index] - initialOffsets[index] +
+                                (2 * STATE_STROKE_RADIUS) + (2 * STATE_RADIUS);
+                heights[index] = (2 * STATE_RADIUS) +
+                                 (2 * STATE_STROKE_RADIUS);
+            }
+            else if (operators[index] == RegexOperator.STAR) {
+                initialOffsets[index] = initialOffsets[left] -
+                                        NEW_STATE_OFFSET;
+                finalOffsets[index] = finalOffsets[left] + NEW_STATE_OFFSET;
+                widths[index] = Math.abs(finalOffsets[index]) +
+                                Math.abs(initialOffsets[index]) +
+                                (2 * STATE_STROKE_RADIUS) + (2 * STATE_RADIUS);
+                heights[index] = (2 * starEdgeHeight(heights[left])) +
+                                 STAR_LABEL_HEIGHT;
+            }
+            else if (operators[index] == RegexOperator.CONCATENATION) {
+                // Put the final state of the left finite automaton and the
+                // initial state of the right one in the centre, then centre
+                // the whole finite automaton.
+                double centreOffset = 0.5 * (widths[right] - widths[left]);
+                offsetXs[left] = -(0.5 * widths[left]) + STATE_RADIUS +
+                                 STATE_STROKE_RADIUS - centreOffset;
+                offsetXs[right] = (0.5 * widths[right]) - STATE_RADIUS -
+                                  STATE_STROKE_RADIUS - centreOffset;
+                initialOffsets[index] = offsetXs[left] + initialOffsets[left];
+                finalOffsets[index] = offsetXs[right] + finalOffsets[right];
+                widths[index] = widths[left] + widths[right] -
+                                ((2 * STATE_RADIUS) +
+                                 (2 * STATE_STROKE_RADIUS));
+                heights[index] = Math.max(heights[left], heights[right]);
+            }
+            else {
+                // Put the left finite automaton above the baseline and the
+                // right one below it, and the new states beyond the widest.
+                offsetYs[left] = -((0.5 * heights[left]) + STATE_RADIUS +
+                                   STATE_STROKE_RADIUS);
+                offsetYs[right] = (0.5 * heights[right]) + STATE_RADIUS +
+                                  STATE_STROKE_RADIUS;
+                int widest = (widths[left] > widths[right]) ? left : right;
+                initialOffsets[index] = initialOffsets[widest] -
+                                        NEW_STATE_OFFSET;
+                finalOffsets[index] = finalOffsets[widest] + NEW_STATE_OFFSET;
+                widths[index] = finalOffsets[index] - initialOffsets[index] +
+                                (2 * STATE_STROKE_RADIUS) + (2 * STATE_RADIUS);
+                heights[index] = (2 * Math.max(heights[left],
+                                               heights[right])) +
+                                 (2 * STATE_RADIUS) +
+                                 (2 * STATE_STROKE_RADIUS);
+            }
+        }
+
+        // Find the subexpressions whose states become the initial state and
+        // the final state of the whole finite automaton.
+        int root = size - 1;
+        int initialOwner = root;
+        while (operators[initialOwner] == RegexOperator.CONCATENATION) {
+            initialOwner = leftChildren[initialOwner];
+        }
+        int finalOwner = root;
+        while (operators[finalOwner] == RegexOperator.CONCATENATION) {
+            finalOwner = rightChildren[finalOwner];
+        }
+
+        // Place each subexpression relative to its parent, parents first, and
+        // add its own states and segments.
+        stateXs = new double[totalStates];
+        stateYs = new double[totalStates];
+        segmentStartXs = new double[totalSegments];
+        segmentStartYs = new double[totalSegments];
+        segmentEndXs = new double[totalSegments];
+        segmentEndYs = new double[totalSegments];
+        segmentLabels = new String[totalSegments];
+        double[] centreXs = new double[size];
+        double[] centreYs = new double[size];
+        int initial = -1;
+        int last = -1;
+        for (int index = root; index >= 0; index--) {
+            int left = leftChildren[index];
+            int right = rightChildren[index];
+            for (int child : new int[]{left, right}) {
+                if (child != -1) {
+                    centreXs[child] = centreXs[index] + offsetXs[child];
+                    centreYs[child] = centreYs[index] + offsetYs[child];
+                }
+            }
+            double x = centreXs[index];
+            double y = centreYs[index];
+            double initialX = x + initialOffsets[index];
+            double finalX = x + finalOffsets[index];
+
+            // A concatenation has no states or segments of its own.
+            if (operators[index] == RegexOperator.CONCATENATION) {
+                continue;
+            }
+            int newInitial = addState(initialX, y);
+            int newFinal = addState(finalX, y);
+            if (index == initialOwner) {
+                initial = newInitial;
+            }
+            if (index == finalOwner) {
+                last = newFinal;
+            }
+
+            if (left == -1) {
+                SimpleRegularExpression simpleRegex =
+                        (SimpleRegularExpression) postorder.get(index);
+                addSegment(initialX, y, finalX, y,
+                           String.valueOf(simpleRegex.getSymbol()), true);
+            }
+            else if (operators[index] == RegexOperator.STAR) {
+                // Connect the new states to the old ones, then connect the old
+                // final state to the old initial state above the operand, and
+                // the new initial state to the new final state below it.
+                double oldInitialX = x + initialOffsets[left];
+                double oldFinalX = x + finalOffsets[left];
+                double edgeHeight = starEdgeHeight(heights[left]);
+                addSegment(initialX, y, oldInitialX, y, EMPTY_STRING, true);
+                addSegment(oldFinalX, y, finalX, y, EMPTY_STRING, true);
+                addUShapedEdge(oldFinalX, oldInitialX, y, y - edgeHeight);
+                addUShapedEdge(initialX, finalX, y, y + edgeHeight);
+            }
+            else {
+                // Connect the new initial state to the old initial states, and
+                // the old final states to the new final state.
+                for (int child : new int[]{left, right}) {
+                    double childY = centreYs[child];
+                    addSegment(initialX, y,
+                               centreXs[child] + initialOffsets[child], childY,
+                               EMPTY_STRING, true);
+                    addSegment(centreXs[child] + finalOffsets[child], childY,
+                               finalX, y, EMPTY_STRING, true);
+                }
+            }
+        }
+        initialState = initial;
+        finalState = last;
+
+        // Leave room for the marking on the initial state.
+        minX = Math.min(minX, stateXs[initialState] - STATE_RADIUS -
+                              STATE_STROKE_RADIUS - INITIAL_STATE_EDGE_LENGTH);
+    }
+
+    /**
+     * Returns the number of states in this layout.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns the horizontal position of the centre of the given state.
+     *
+     * @param state the state
+     * @return the horizontal position of the state
+     */
+    public double getStateX(int state) {
+        return stateXs[state];
+    }
+
+    /**
+     * Returns the vertical position of the centre of the given state.
+     *
+     * @param state the state
+     * @return the vertical position of the state
+     */
+    public double getStateY(int state) {
+        return stateYs[state];
+    }
+
+    /**
+     * Returns the initial state of the finite automaton.
+     *
+     * @return the initial state
+     */
+    public int getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Returns the final state of the finite automaton.
+     *
+     * @return the final state
+     */
+    public int getFinalState() {
+        return finalState;
+    }
+
+    /**
+     * Returns the number of edge segments in this layout.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns the horizontal position of the start of the given segment.
+     *
+     * @param segment the segment
+     * @return the horizontal position of the start
+     */
+    public double getSegmentStartX(int segment) {
+        return segmentStartXs[segment];
+    }
+
+    /**
+     * Returns the vertical position of the start of the given segment.
+     *
+     * @param segment the segment
+     * @return the vertical position of the start
+     */
+    public double getSegmentStartY(int segment) {
+        return segmentStartYs[segment];
+    }
+
+    /**
+     * Returns the horizontal position of the end of the given segment.
+     *
+     * @param segment the segment
+     * @return the horizontal position of the end
+     */
+    public double getSegmentEndX(int segment) {
+        return segmentEndXs[segment];
+    }
+
+    /**
+     * Returns the vertical position of the end of the given segment.
+     *
+     * @param segment the segment
+     * @return the vertical position of the end
+     */
+    public double getSegmentEndY(int segment) {
+        return segmentEndYs[segment];
+    }
+
+    /**
+     * Returns the label of the given segment, which is empty if the segment
+     * has no label.
+     *
+     * @param segment the segment
+     * @return the label of the segment
+     */
+    public String getSegmentLabel(int segment) {
+        return segmentLabels[segment];
+    }
+
+    /**
+     * Returns whether the given segment ends in an arrowhead. The end of a
+     * directed segment is the centre of a state.
+     *
+     * @param segment the segment
+     * @return true if the segment is directed, false otherwise
+     */
+    public boolean isSegmentDirected(int segment) {
+        return directedSegments.get(segment);
+    }
+
+    /**
+     * Returns the smallest horizontal position of any state, segment or
+     * marking.
+     *
+     * @return the smallest horizontal position
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * Returns the smallest vertical position of any state or segment.
+     *
+     * @return the smallest vertical position
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * Returns the largest horizontal position of any state or segment.
+     *
+     * @return the largest horizontal position
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Returns the largest vertical position of any state or segment.
+     *
+     * @return the largest vertical position
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Adds a state at the given position.
+     *
+     * @param x the horizontal position of the state
+     * @param y the vertical position of the state
+     * @return the new state
+     */
+    private int addState(double x, double y) {
+        stateXs[stateCount] = x;
+        stateYs[stateCount] = y;
+        double extent = STATE_RADIUS + STATE_STROKE_RADIUS;
+        minX = Math.min(minX, x - extent);
+        minY = Math.min(minY, y - extent);
+        maxX = Math.max(maxX, x + extent);
+        maxY = Math.max(maxY, y + extent);
+        return stateCount++;
+    }
+
+    /**
+     * Adds a segment between the given points.
+     *
+     * @param startX   the horizontal position of the start
+     * @param startY   the vertical position of the start
+     * @param endX     the horizontal position of the end
+     * @param endY     the vertical position of the end
+     * @param label    the label of the segment
+     * @param directed whether the segment ends in an arrowhead
+     */
+    private void addSegment(double startX, double startY, double endX,
+                            double endY, String label, boolean directed) {
+        segmentStartXs[segmentCount] = startX;
+        segmentStartYs[segmentCount] = startY;
+        segmentEndXs[segmentCount] = endX;
+        segmentEndYs[segmentCount] = endY;
+        segmentLabels[segmentCount] = label;
+        directedSegments.set(segmentCount, directed);
+        minX = Math.min(minX, Math.min(startX, endX));
+        minY = Math.min(minY, Math.min(startY, endY));
+        maxX = Math.max(maxX, Math.max(startX, endX));
+        maxY = Math.max(maxY, Math.max(startY, endY));
+        segmentCount++;
+    }
+
+    /**
+     * Adds a U-shaped edge between two states on the same baseline. The edge
+     * goes from the first state to the given height, across to the second
+     * state, and back to the baseline. Only the middle segment is labelled,
+     * and only the last segment is directed.
+     *
+     * @param startX the horizontal position of the first state
+     * @param endX   the horizontal position of the second state
+     * @param y      the vertical position of the baseline
+     * @param turnY  the vertical position of the middle segment
+     */
+    private void addUShapedEdge(double startX, double endX, double y,
+                                double turnY) {
+        addSegment(startX, y, startX, turnY, "", false);
+        addSegment(startX, turnY, endX, turnY, EMPTY_STRING, false);
+        addSegment(endX, turnY, endX, y, "", true);
+    }
+
+    /**
+     * Returns the distance between the baseline of a star and the U-shaped
+     * edges around its operand.
+     *
+     * @param operandHeight the height of the operand
+     * @return the height of the U-shaped edges
+     */
+    private static double starEdgeHeight(double operandHeight) {
+        // Leave an extra state radius for spacing.
+        return (0.5 * operandHeight) + (2 * STATE_RADIUS);
+    }
+
+    /**
+     * Returns the subexpressions of the given regular expression in postorder,
+     * without recursion.
+     *
+     * @param regularExpression the regular expression
+     * @return the subexpressions in postorder
+     */
+    private static ArrayList<RegularExpression> postorder(
+            RegularExpression regularExpression) {
+        // Visit each node before its right child and then its left child, and
+        // reverse the order at the end.
+        ArrayList<RegularExpression> postorder = new ArrayList<>();
+        ArrayDeque<RegularExpression> stack = new ArrayDeque<>();
+        stack.push(regularExpression);
+        while (!stack.isEmpty()) {
+            RegularExpression subexpression = stack.pop();
+            postorder.add(subexpression);
+            if (subexpression instanceof
+                    ComplexRegularExpression complexRegex) {
+                stack.push(complexRegex.getLeftOperand());
+                if (complexRegex.getOperator() != RegexOperator.STAR) {
+                    stack.push(complexRegex.getRightOperand());
+                }
+            }
+        }
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+}
@@ -0,0 +1,392 @@
+package dudzinski.kacper.farec.finiteautomata.compact;
+
+import dudzinski.kacper.farec.finiteautomata.GraphTraversal;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class represents a compact finite automaton. A compact finite automaton
+ * stores its states and edges in primitive arrays, without any user interface
+ * components, so that algorithms can run on large finite automata quickly and
+ * without allocating JavaFX nodes.
+ * <p>
+ * The states are the integers from 0 to (number of states - 1). The edges are
+ * the integers from 0 to (number of edges - 1), ordered by their start state
+ * and then by their end state. The outgoing edges of a state therefore form a
+ * contiguous range of edges, described by the outgoing offsets (compressed
+ * sparse row format). The incoming edges of each state are stored the same
+ * way, as a list of edges ordered by their end state. Edge labels are stored as
+ * ids into a table of distinct label texts.
+ * <p>
+ * As with a smart finite automaton, there may be only one edge between any
+ * pair of states in each direction, and any number of states may be final. A
+ * compact finite automaton cannot be modified: use a
+ * {@link CompactFiniteAutomatonBuilder} to create one.
+ *
+ * @see CompactFiniteAutomatonBuilder
+ * @see GraphTraversal
+ */
+public final class CompactFiniteAutomaton {
+
+    // The value used when there is no initial state.
+    public static final int NO_STATE = -1;
+
+    private final String[] stateLabels;
+    private final double[] xCoordinates;
+    private final double[] yCoordinates;
+    private final boolean hasLayout;
+    private final int[] edgeStarts;
+    private final int[] edgeEnds;
+    private final int[] edgeLabels;
+    private final int[] outgoingOffsets;
+    private final int[] incomingOffsets;
+    private final int[] incomingEdges;
+    private final String[] labels;
+    private final int initialState;
+    private final BitSet finalStates;
+
+    /**
+     * Creates a compact finite automaton from the given arrays, which are not
+     * copied. Only the builder should create compact finite automata.
+     *
+     * @param stateLabels     the label of each state
+     * @param xCoordinates    the x coordinate of each state
+     * @param yCoordinates    the y coordinate of each state
+     * @param hasLayout       whether the coordinates are meaningful
+     * @param edgeStarts      the start state of each edge
+     * @param edgeEnds        the end state of each edge
+     * @param edgeLabels      the label id of each edge
+     * @param outgoingOffsets the offset of the first outgoing edge of each
+     *                        state, followed by the number of edges
+     * @param incomingOffsets the offset of the first incoming edge of each
+     *                        state in the incoming edges, followed by the
+     *                        number of edges
+     * @param incomingEdges   the edges ordered by their end state
+     * @param labels          the text of each label id
+     * @param initialState    the initial state (or {@link #NO_STATE})
+     * @param finalStates     the final states
+     */
+    CompactFiniteAutomaton(String[] stateLabels, double[] xCoordinates,
+                           double[] yCoordinates, boolean hasLayout,
+                           int[] edgeStarts, int[] edgeEnds, int[] edgeLabels,
+                           int[] outgoingOffsets, int[] incomingOffsets,
+                           int[] incomingEdges, String[] labels,
+                           int initialState, BitSet finalStates) {
+        this.stateLabels = stateLabels;
+        this.xCoordinates = xCoordinates;
+        this.yCoordinates = yCoordinates;
+        this.hasLayout = hasLayout;
+        this.edgeStarts = edgeStarts;
+        this.edgeEnds = edgeEnds;
+        this.edgeLabels = edgeLabels;
+        this.outgoingOffsets = outgoingOffsets;
+        this.incomingOffsets = incomingOffsets;
+        this.incomingEdges = incomingEdges;
+        this.labels = labels;
+        this.initialState = initialState;
+        this.finalStates = finalStates;
+    }
+
+    /**
+     * Returns the number of states of this finite automaton.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return stateLabels.length;
+    }
+
+    /**
+     * Returns the number of edges of this finite automaton.
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return edgeStarts.length;
+    }
+
+    /**
+     * Returns the text of the label of the given state.
+     *
+     * @param state the state
+     * @return the text of the label of the state
+     */
+    public String getStateLabel(int state) {
+        return stateLabels[state];
+    }
+
+    /**
+     * Returns whether the states of this finite automaton have meaningful
+     * coordinates.
+     *
+     * @return true if the states have coordinates, false otherwise
+     */
+    public boolean hasLayout() {
+        return hasLayout;
+    }
+
+    /**
+     * Returns the x coordinate of the given state. The coordinate is 0 if this
+     * finite automaton has no layout.
+     *
+     * @param state the state
+     * @return the x coordinate of the state
+     */
+    public double getX(int state) {
+        return xCoordinates[state];
+    }
+
+    /**
+     * Returns the y coordinate of the given state. The coordinate is 0 if this
+     * finite automaton has no layout.
+     *
+     * @param state the state
+     * @return the y coordinate of the state
+     */
+    public double getY(int state) {
+        return yCoordinates[state];
+    }
+
+    /**
+     * Returns a copy of this finite automaton with the states at the given
+     * coordinates. The states, edges, labels, and initial and final states
+     * are shared with this finite automaton, since neither can be modified.
+     *
+     * @param xCoordinates the x coordinate of each state
+     * @param yCoordinates the y coordinate of each state
+     * @return a copy of this finite automaton with the given layout
+     * @throws IllegalArgumentException if there is not one coordinate of each
+     *                                  kind per state
+     */
+    public CompactFiniteAutomaton withCoordinates(double[] xCoordinates,
+                                                  double[] yCoordinates)
+            throws IllegalArgumentException {
+        if ((xCoordinates.length != getStateCount()) ||
+            (yCoordinates.length != getStateCount())) {
+            throw new IllegalArgumentException(
+                    "There must be one coordinate of each kind per state!");
+        }
+        return new CompactFiniteAutomaton(stateLabels, xCoordinates.clone(),
+                                          yCoordinates.clone(), true,
+                                          edgeStarts, edgeEnds, edgeLabels,
+                                          outgoingOffsets, incomingOffsets,
+                                          incomingEdges, labels, initialState,
+                                          finalStates);
+    }
+
+    /**
+     * Returns the start state of the given edge.
+     *
+     * @param edge the edge
+     * @return the start state of the edge
+     */
+    public int getEdgeStart(int edge) {
+        return edgeStarts[edge];
+    }
+
+    /**
+     * Returns the end state of the given edge.
+     *
+     * @param edge the edge
+     * @return the end state of the edge
+     */
+    public int getEdgeEnd(int edge) {
+        return edgeEnds[edge];
+    }
+
+    /**
+     * Returns the label id of the given edge.
+     *
+     * @param edge the edge
+     * @return the label id of the edge
+     */
+    public int getEdgeLabel(int edge) {
+        return edgeLabels[edge];
+    }
+
+    /**
+     * Returns the text of the label of the given edge.
+     *
+     * @param edge the edge
+     * @return the text of the label of the edge
+     */
+    public String getEdgeLabelText(int edge) {
+        return labels[edgeLabels[edge]];
+    }
+
+    /**
+     * Returns the number of distinct edge labels.
+     *
+     * @return the number of distinct edge labels
+     */
+    public int getLabelCount() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the text of the given label id.
+     *
+     * @param label the label id
+     * @return the text of the label
+     */
+    public String getLabel(int label) {
+        return labels[label];
+    }
+
+    /**
+     * Returns the first outgoing edge of the given state. The outgoing edges
+     * of a state are the edges from <code>getOutgoingOffset(state)</code>
+     * (inclusive) to <code>getOutgoingOffset(state + 1)</code> (exclusive),
+     * ordered by their end state.
+     *
+     * @param state the state, or the number of states
+     * @return the first outgoing edge of the state
+     */
+    public int getOutgoingOffset(int state) {
+        return outgoingOffsets[state];
+    }
+
+    /**
+     * Returns the offset of the first incoming edge of the given state. The
+     * incoming edges of a state are <code>getIncomingEdge(index)</code> for
+     * every index from <code>getIncomingOffset(state)</code> (inclusive) to
+     * <code>getIncomingOffset(state + 1)</code> (exclusive), ordered by their
+     * start state.
+     *
+     * @param state the state, or the number of states
+     * @return the offset of the first incoming edge of the state
+     */
+    public int getIncomingOffset(int state) {
+        return incomingOffsets[state];
+    }
+
+    /**
+     * Returns the incoming edge at the given offset.
+     *
+     * @param index the offset of the incoming edge
+     * @return the incoming edge
+     * @see #getIncomingOffset(int)
+     */
+    public int getIncomingEdge(int index) {
+        return incomingEdges[index];
+    }
+
+    /**
+     * Returns the number of outgoing edges of the given state.
+     *
+     * @param state the state
+     * @return the number of outgoing edges
+     */
+    public int getOutDegree(int state) {
+        return outgoingOffsets[state + 1] - outgoingOffsets[state];
+    }
+
+    /**
+     * Returns the number of incoming edges of the given state.
+     *
+     * @param state the state
+     * @return the number of incoming edges
+     */
+    public int getInDegree(int state) {
+        return incomingOffsets[state + 1] - incomingOffsets[state];
+    }
+
+    /**
+     * Returns the edge from the start state to the end state, using binary
+     * search over the outgoing edges of the start state.
+     *
+     * @param startState the start state
+     * @param endState   the end state
+     * @return the edge from the start state to the end state, or -1 if there
+     * is no such edge
+     */
+    public int findEdge(int startState, int endState) {
+        int edge = Arrays.binarySearch(edgeEnds, outgoingOffsets[startState],
+                                       outgoingOffsets[startState + 1],
+                                       endState);
+        return (edge >= 0) ? edge : -1;
+    }
+
+    /**
+     * Returns the initial state of this finite automaton.
+     *
+     * @return the initial state, or {@link #NO_STATE} if there is none
+     */
+    public int getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Returns the final states of this finite automaton. The returned set is a
+     * copy and may be modified.
+     *
+     * @return the set of final states
+     */
+    public BitSet getFinalStates() {
+        return (BitSet) finalStates.clone();
+    }
+
+    /**
+     * Returns the number of final states of this finite automaton.
+     *
+     * @return the number of final states
+     */
+    public int getFinalStateCount() {
+        return finalStates.cardinality();
+    }
+
+    /**
+     * Checks whether the given state is a final state.
+     *
+     * @param state the state
+     * @return true if the state is a final state, false otherwise
+     */
+    public boolean isFinal(int state) {
+        return finalStates.get(state);
+    }
+
+    /**
+     * Returns an estimate of the memory used by this finite automaton, in
+     * bytes. The arrays are counted in full, while each state label is
+     * counted as a reference only, since the labels are often shared.
+     *
+     * @return the estimated memory use in bytes
+     */
+    public long getMemoryEstimate() {
+        // Each array has a 16-byte header.
+        long size = 13 * 16;
+        size += (long) stateLabels.length * 8;
+        size += (long) (xCoordinates.length + yCoordinates.length) * 8;
+        size += (long) (edgeStarts.length + edgeEnds.length +
+                        edgeLabels.length + incomingEdges.length) * 4;
+        size += (long) (outgoingOffsets.length + incomingOffsets.length) * 4;
+        for (String label : labels) {
+            size += 48 + (2L * label.length());
+        }
+        size += finalStates.size() / 8;
+        return size;
+    }
+
+    /**
+     * Checks whether this finite automaton is a valid finite automaton. A valid
+     * finite automaton must have an initial state and at least one final
+     * state. Every state in this finite automaton must be reachable from the
+     * initial state.
+     *
+     * @return true if this finite automaton is valid, false otherwise
+     */
+    public boolean isValid() {
+        // If there is no initial state or no final state, the finite automaton
+        // is not valid.
+        if ((initialState == NO_STATE) || finalStates.isEmpty()) {
+            return false;
+        }
+
+        // The finite automaton is valid if every state is reachable from the
+        // initial state.
+        return GraphTraversal.reachableStates(this, initialState)
+                       .cardinality() == getStateCount();
+    }
+
+}
@@ -0,0 +1,449 @@
+package dudzinski.kacper.farec.finiteautomata.compact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+
+/**
+ * This class is responsible for building compact finite automata. States and
+ * edges are added one at a time, after which {@link #build()} creates the
+ * compact finite automaton. The edges are sorted into compressed sparse row
+ * format with two passes of counting sort, so building takes time linear in
+ * the number of states and edges.
+ * <p>
+ * Edges are stored as they are added, without looking up repeated edges, so
+ * that each edge only takes a few bytes until the finite automaton is built.
+ * Repeated edges between the same states end up next to each other after
+ * sorting, and are merged then.
+ * <p>
+ * Edge labels are interned: edges with the same label text share a single
+ * label id. Labels that are not used by any edge of the built finite automaton
+ * are left out of it.
+ *
+ * @see CompactFiniteAutomaton
+ */
+public final class CompactFiniteAutomatonBuilder {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ArrayList<String> stateLabels = new ArrayList<>();
+    private double[] xCoordinates = new double[INITIAL_CAPACITY];
+    private double[] yCoordinates = new double[INITIAL_CAPACITY];
+    private boolean hasLayout = false;
+    private int[] edgeStarts = new int[INITIAL_CAPACITY];
+    private int[] edgeEnds = new int[INITIAL_CAPACITY];
+    private int[] edgeLabels = new int[INITIAL_CAPACITY];
+    private int edgeCount = 0;
+    private final ArrayList<String> labels = new ArrayList<>();
+    private final HashMap<String, Integer> labelIds = new HashMap<>();
+    private int initialState = NO_STATE;
+    private final BitSet finalStates = new BitSet();
+    // Whether repeated edges are merged by joining their labels, rather than
+    // by keeping the last label.
+    private final boolean joinRepeatedEdges;
+
+    /**
+     * Creates a builder where a repeated edge replaces the label of the
+     * earlier edge.
+     */
+    public CompactFiniteAutomatonBuilder() {
+        this(false);
+    }
+
+    /**
+     * Creates a builder.
+     *
+     * @param joinRepeatedEdges whether repeated edges are merged by joining
+     *                          their labels with commas, in the order they
+     *                          were added, rather than by keeping the last
+     *                          label
+     */
+    CompactFiniteAutomatonBuilder(boolean joinRepeatedEdges) {
+        this.joinRepeatedEdges = joinRepeatedEdges;
+    }
+
+    /**
+     * Adds a state without coordinates.
+     *
+     * @param labelText the text of the state's label
+     * @return the new state
+     */
+    public int addState(String labelText) {
+        // Make room for the state.
+        int state = stateLabels.size();
+        if (state == xCoordinates.length) {
+            xCoordinates = Arrays.copyOf(xCoordinates, 2 * state);
+            yCoordinates = Arrays.copyOf(yCoordinates, 2 * state);
+        }
+
+        // Add the state.
+        stateLabels.add(labelText);
+        return state;
+    }
+
+    /**
+     * Adds a state with the given coordinates.
+     *
+     * @param labelText the text of the state's label
+     * @param x         the x coordinate of the state
+     * @param y         the y coordinate of the state
+     * @return the new state
+     */
+    public int addState(String labelText, double x, double y) {
+        int state = addState(labelText);
+        xCoordinates[state] = x;
+        yCoordinates[state] = y;
+        hasLayout = true;
+        return state;
+    }
+
+    /**
+     * Replaces the label of the given state.
+     *
+     * @param state     the state
+     * @param labelText the new text of the state's label
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    void setStateLabel(int state, String labelText)
+            throws IllegalArgumentException {
+        checkState(state);
+        stateLabels.set(state, labelText);
+    }
+
+    /**
+     * Replaces the coordinates of the given state.
+     *
+     * @param state the state
+     * @param x     the new x coordinate of the state
+     * @param y     the new y coordinate of the state
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    void setCoordinates(int state, double x, double y)
+            throws IllegalArgumentException {
+        checkState(state);
+        xCoordinates[state] = x;
+        yCoordinates[state] = y;
+        hasLayout = true;
+    }
+
+    /**
+     * Returns the number of states added so far.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return stateLabels.size();
+    }
+
+    /**
+     * Adds an edge between the two states. If there is already an edge with
+     * the same start and end state, its label is replaced, or joined with the
+     * new label if this builder joins repeated edges.
+     *
+     * @param startState the start state of the edge
+     * @param endState   the end state of the edge
+     * @param labelText  the text of the edge's label
+     * @throws IllegalArgumentException if one of the states does not exist
+     */
+    public void addEdge(int startState, int endState, String labelText)
+            throws IllegalArgumentException {
+        // Check that the states exist.
+        checkState(startState);
+        checkState(endState);
+
+        // Intern the label.
+        int label = labelIds.computeIfAbsent(labelText, text -> {
+            labels.add(text);
+            return labels.size() - 1;
+        });
+
+        // Make room for the edge and add it. Repeated edges are merged when
+        // the finite automaton is built.
+        if (edgeCount == edgeStarts.length) {
+            edgeStarts = Arrays.copyOf(edgeStarts, 2 * edgeCount);
+            edgeEnds = Arrays.copyOf(edgeEnds, 2 * edgeCount);
+            edgeLabels = Arrays.copyOf(edgeLabels, 2 * edgeCount);
+        }
+        edgeStarts[edgeCount] = startState;
+        edgeEnds[edgeCount] = endState;
+        edgeLabels[edgeCount] = label;
+        edgeCount++;
+    }
+
+    /**
+     * Sets the initial state, replacing the previous initial state.
+     *
+     * @param state the state to be set as the initial state
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    public void setInitialState(int state) throws IllegalArgumentException {
+        checkState(state);
+        initialState = state;
+    }
+
+    /**
+     * Adds the state to the final states.
+     *
+     * @param state the state to be set as a final state
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    public void addFinalState(int state) throws IllegalArgumentException {
+        checkState(state);
+        finalStates.set(state);
+    }
+
+    /**
+     * Removes the state from the final states.
+     *
+     * @param state the state to be set as a non-final state
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    public void removeFinalState(int state) throws IllegalArgumentException {
+        checkState(state);
+        finalStates.clear(state);
+    }
+
+    /**
+     * Creates the compact finite automaton consisting of the states and edges
+     * added so far. The builder can still be used afterwards.
+     *
+     * @return the compact finite automaton
+     */
+    public CompactFiniteAutomaton build() {
+        int stateCount = stateLabels.size();
+
+        // Order the edges by their end state, then (stably) by their start
+        // state, so that they are ordered by start state and then end state,
+        // and repeated edges are next to each other in the order they were
+        // added.
+        int[] byEnd = countingSort(identity(edgeCount), edgeEnds, stateCount,
+                                   null);
+        int[] order = countingSort(byEnd, edgeStarts, stateCount, null);
+
+        // Count the distinct edges.
+        int distinctCount = 0;
+        for (int index = 0; index < edgeCount; index++) {
+            if ((index == 0) || !isRepeated(order[index - 1], order[index])) {
+                distinctCount++;
+            }
+        }
+
+        // Lay out the distinct edges in that order, merging each run of
+        // repeated edges into its first edge. Only the labels used by the
+        // merged edges are kept.
+        int[] sortedStarts = new int[distinctCount];
+        int[] sortedEnds = new int[distinctCount];
+        int[] sortedLabels = new int[distinctCount];
+        int[] outgoingOffsets = new int[stateCount + 1];
+        ArrayList<String> usedLabels = new ArrayList<>();
+        HashMap<String, Integer> usedLabelIds = new HashMap<>();
+        StringBuilder joinedLabel = new StringBuilder();
+        int edge = 0;
+        int index = 0;
+        while (index < edgeCount) {
+            int first = order[index];
+            int last = first;
+            joinedLabel.setLength(0);
+            joinedLabel.append(labels.get(edgeLabels[first]));
+            while ((++index < edgeCount) && isRepeated(first, order[index])) {
+                last = order[index];
+                if (joinRepeatedEdges) {
+                    joinedLabel.append(',')
+                               .append(labels.get(edgeLabels[last]));
+                }
+            }
+            String labelText = joinRepeatedEdges ? joinedLabel.toString() :
+                               labels.get(edgeLabels[last]);
+            sortedStarts[edge] = edgeStarts[first];
+            sortedEnds[edge] = edgeEnds[first];
+            sortedLabels[edge] = usedLabelIds.computeIfAbsent(
+                    labelText, text -> {
+                        usedLabels.add(text);
+                        return usedLabels.size() - 1;
+                    });
+            outgoingOffsets[edgeStarts[first] + 1]++;
+            edge++;
+        }
+        for (int state = 0; state < stateCount; state++) {
+            outgoingOffsets[state + 1] += outgoingOffsets[state];
+        }
+
+        return createFromSorted(stateLabels.toArray(new String[0]),
+                                Arrays.copyOf(xCoordinates, stateCount),
+                                Arrays.copyOf(yCoordinates, stateCount),
+                                hasLayout, sortedStarts, sortedEnds,
+                                sortedLabels, outgoingOffsets,
+                                usedLabels.toArray(new String[0]),
+                                initialState, (BitSet) finalStates.clone());
+    }
+
+    /**
+     * Checks whether the two added edges have the same start and end state.
+     *
+     * @param edge      the first edge
+     * @param otherEdge the second edge
+     * @return true if the edges are between the same states, false otherwise
+     */
+    private boolean isRepeated(int edge, int otherEdge) {
+        return (edgeStarts[edge] == edgeStarts[otherEdge]) &&
+               (edgeEnds[edge] == edgeEnds[otherEdge]);
+    }
+
+    /**
+     * Creates a compact finite automaton from the given states and edges. The
+     * edges may be in any order, but there must not be two edges with the same
+     * start and end state. The state arrays, labels and final states are used
+     * directly, while the edge arrays are only read.
+     *
+     * @param stateLabels  the label of each state
+     * @param xCoordinates the x coordinate of each state
+     * @param yCoordinates the y coordinate of each state
+     * @param hasLayout    whether the coordinates are meaningful
+     * @param edgeStarts   the start state of each edge
+     * @param edgeEnds     the end state of each edge
+     * @param edgeLabels   the label id of each edge
+     * @param edgeCount    the number of edges
+     * @param labels       the text of each label id
+     * @param initialState the initial state (or {@link
+     *                     CompactFiniteAutomaton#NO_STATE})
+     * @param finalStates  the final states
+     * @return the compact finite automaton
+     */
+    static CompactFiniteAutomaton create(String[] stateLabels,
+                                         double[] xCoordinates,
+                                         double[] yCoordinates,
+                                         boolean hasLayout, int[] edgeStarts,
+                                         int[] edgeEnds, int[] edgeLabels,
+                                         int edgeCount, String[] labels,
+                                         int initialState,
+                                         BitSet finalStates) {
+        int stateCount = stateLabels.length;
+
+        // Order the edges by their end state, then (stably) by their start
+        // state, so that they are ordered by start state and then end state.
+        int[] byEnd = countingSort(identity(edgeCount), edgeEnds, stateCount,
+                                   null);
+        int[] outgoingOffsets = new int[stateCount + 1];
+        int[] order = countingSort(byEnd, edgeStarts, stateCount,
+                                   outgoingOffsets);
+
+        // Lay out the edges in that order.
+        int[] sortedStarts = new int[edgeCount];
+        int[] sortedEnds = new int[edgeCount];
+        int[] sortedLabels = new int[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sortedStarts[edge] = edgeStarts[order[edge]];
+            sortedEnds[edge] = edgeEnds[order[edge]];
+            sortedLabels[edge] = edgeLabels[order[edge]];
+        }
+
+        return createFromSorted(stateLabels, xCoordinates, yCoordinates,
+                                hasLayout, sortedStarts, sortedEnds,
+                                sortedLabels, outgoingOffsets, labels,
+                                initialState, finalStates);
+    }
+
+    /**
+     * Creates a compact finite automaton from the given states and edges,
+     * where the edges are ordered by start state and then end state. All of
+     * the arrays are used directly.
+     *
+     * @param stateLabels     the label of each state
+     * @param xCoordinates    the x coordinate of each state
+     * @param yCoordinates    the y coordinate of each state
+     * @param hasLayout       whether the coordinates are meaningful
+     * @param sortedStarts    the start state of each edge
+     * @param sortedEnds      the end state of each edge
+     * @param sortedLabels    the label id of each edge
+     * @param outgoingOffsets the offset of the first edge of each state,
+     *                        followed by the number of edges
+     * @param labels          the text of each label id
+     * @param initialState    the initial state (or {@link
+     *                        CompactFiniteAutomaton#NO_STATE})
+     * @param finalStates     the final states
+     * @return the compact finite automaton
+     */
+    private static CompactFiniteAutomaton createFromSorted(
+            String[] stateLabels, double[] xCoordinates,
+            double[] yCoordinates, boolean hasLayout, int[] sortedStarts,
+            int[] sortedEnds, int[] sortedLabels, int[] outgoingOffsets,
+            String[] labels, int initialState, BitSet finalStates) {
+        int stateCount = stateLabels.length;
+
+        // Order the sorted edges (stably) by their end state for the incoming
+        // edges.
+        int[] incomingOffsets = new int[stateCount + 1];
+        int[] incomingEdges = countingSort(identity(sortedEnds.length),
+                                           sortedEnds, stateCount,
+                                           incomingOffsets);
+
+        return new CompactFiniteAutomaton(
+                stateLabels, xCoordinates, yCoordinates, hasLayout,
+                sortedStarts, sortedEnds, sortedLabels, outgoingOffsets,
+                incomingOffsets, incomingEdges, labels, initialState,
+                finalStates);
+    }
+
+    /**
+     * Checks that the given state exists.
+     *
+     * @param state the state to check
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    private void checkState(int state) throws IllegalArgumentException {
+        if ((state < 0) || (state >= stateLabels.size())) {
+            throw new IllegalArgumentException(
+                    "State " + state + " does not exist!");
+        }
+    }
+
+    /**
+     * Returns an array containing the integers from 0 to (length - 1).
+     *
+     * @param length the length of the array
+     * @return the array of integers
+     */
+    private static int[] identity(int length) {
+        int[] array = new int[length];
+        for (int index = 0; index < length; index++) {
+            array[index] = index;
+        }
+        return array;
+    }
+
+    /**
+     * Stably sorts the given edges by the given key using counting sort.
+     *
+     * @param edges   the edges to sort
+     * @param keys    the key of each edge
+     * @param range   the number of possible keys
+     * @param offsets if not <code>null</code>, filled with the offset of the
+     *                first edge for each key, followed by the number of edges
+     * @return the sorted edges
+     */
+    private static int[] countingSort(int[] edges, int[] keys, int range,
+                                      int[] offsets) {
+        // Count the edges for each key.
+        int[] counts = (offsets != null) ? offsets : new int[range + 1];
+        for (int edge : edges) {
+            counts[keys[edge] + 1]++;
+        }
+
+        // Turn the counts into offsets.
+        for (int key = 0; key < range; key++) {
+            counts[key + 1] += counts[key];
+        }
+
+        // Place the edges.
+        int[] positions = Arrays.copyOf(counts, range);
+        int[] sorted = new int[edges.length];
+        for (int edge : edges) {
+            sorted[positions[keys[edge]]++] = edge;
+        }
+        return sorted;
+    }
+
+}
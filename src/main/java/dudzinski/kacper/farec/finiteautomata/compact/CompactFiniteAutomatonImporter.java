@@ -0,0 +1,701 @@
+package dudzinski.kacper.farec.finiteautomata.compact;
+
+import dudzinski.kacper.farec.finiteautomata.EdgeLabels;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_STRING;
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+
+/**
+ * This class is responsible for importing finite automata created by other
+ * tools. Two formats are supported:
+ * <ul>
+ *     <li>Graphviz DOT files, where a node with the doublecircle shape is a
+ *     final state, and an edge from a node with the point, none, plain or
+ *     plaintext shape marks its end as the initial state. Such nodes must be
+ *     declared before they are used, and are not states themselves.</li>
+ *     <li>edge lists, where each line contains tab-separated fields: a start
+ *     state, an end state and an edge label for an edge, the word initial or
+ *     final and a state, or a single state. Empty lines and lines starting
+ *     with # are skipped.</li>
+ * </ul>
+ * The input is read in a single pass, one token or line at a time. States are
+ * looked up by name in a table of state indices, and edges are appended to
+ * the builder without being looked up, so that importing needs a few bytes
+ * per state and edge besides the finite automaton being built. Edge labels are
+ * checked and their whitespace is removed in the same way as for edges created
+ * by the user. Repeated edges between the same states are merged by joining
+ * their labels with commas, and edges without a label are labelled with the
+ * empty string symbol.
+ *
+ * @see CompactFiniteAutomatonBuilder
+ * @see EdgeLabels
+ */
+public final class CompactFiniteAutomatonImporter {
+
+    // The extensions of files imported as DOT files.
+    private static final String[] DOT_EXTENSIONS = {".dot", ".gv"};
+    // The shapes of DOT nodes that are not states.
+    private static final String[] HIDDEN_SHAPES =
+            {"point", "none", "plain", "plaintext"};
+    // The initial number of slots in the table of states by name.
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private CompactFiniteAutomatonImporter() {
+        throw new RuntimeException(
+                "The CompactFiniteAutomatonImporter class should never be " +
+                "instantiated!");
+    }
+
+    /**
+     * Imports the finite automaton stored in the given file. Files with the
+     * .dot or .gv extension are imported as DOT files, and all other files as
+     * edge lists.
+     *
+     * @param path the file to import
+     * @return the imported finite automaton
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static CompactFiniteAutomaton importFile(Path path)
+            throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (BufferedReader reader = Files.newBufferedReader(
+                path, StandardCharsets.UTF_8)) {
+            for (String extension : DOT_EXTENSIONS) {
+                if (name.endsWith(extension)) {
+                    return importDot(reader);
+                }
+            }
+            return importEdgeList(reader);
+        }
+    }
+
+    /**
+     * Imports the finite automaton stored as an edge list. The reader is not
+     * closed.
+     *
+     * @param reader the reader containing the edge list
+     * @return the imported finite automaton
+     * @throws IOException if the edge list cannot be read or is invalid
+     */
+    public static CompactFiniteAutomaton importEdgeList(Reader reader)
+            throws IOException {
+        Importer importer = new Importer();
+        BufferedReader lines = (reader instanceof BufferedReader buffered) ?
+                               buffered : new BufferedReader(reader);
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            // Add the state or edge, or set the initial or final state.
+            String[] fields = line.split("\t", -1);
+            if (fields.length == 1) {
+                importer.getState(fields[0]);
+            }
+            else if ((fields.length == 2) && fields[0].equals("initial")) {
+                importer.builder.setInitialState(importer.getState(fields[1]));
+            }
+            else if ((fields.length == 2) && fields[0].equals("final")) {
+                importer.builder.addFinalState(importer.getState(fields[1]));
+            }
+            else if (fields.length == 3) {
+                importer.addEdge(importer.getState(fields[0]),
+                                 importer.getState(fields[1]), fields[2],
+                                 lineNumber);
+            }
+            else {
+                throw new IOException("Line " + lineNumber + ": expected a " +
+                                      "state, an edge, or an initial or " +
+                                      "final state!");
+            }
+        }
+        return importer.builder.build();
+    }
+
+    /**
+     * Imports the finite automaton stored as a DOT graph. Subgraphs are
+     * flattened, and graph attributes are ignored. The reader is not closed.
+     *
+     * @param reader the reader containing the DOT graph
+     * @return the imported finite automaton
+     * @throws IOException if the DOT graph cannot be read or is invalid
+     */
+    public static CompactFiniteAutomaton importDot(Reader reader)
+            throws IOException {
+        Importer importer = new Importer();
+        DotTokenizer tokenizer = new DotTokenizer(reader);
+        HashMap<String, String> nodeDefaults = new HashMap<>();
+        HashMap<String, String> edgeDefaults = new HashMap<>();
+
+        // Read the graph header.
+        String token = tokenizer.next();
+        if ("strict".equalsIgnoreCase(token)) {
+            token = tokenizer.next();
+        }
+        if (!"digraph".equalsIgnoreCase(token) &&
+            !"graph".equalsIgnoreCase(token)) {
+            throw tokenizer.error("expected a graph");
+        }
+        token = tokenizer.next();
+        if ((token != null) && !token.equals("{")) {
+            token = tokenizer.next();
+        }
+        if (!"{".equals(token)) {
+            throw tokenizer.error("expected {");
+        }
+
+        // Read the statements until the graph is closed.
+        int depth = 1;
+        while (depth > 0) {
+            token = tokenizer.next();
+            if (token == null) {
+                throw tokenizer.error("expected }");
+            }
+            switch (token) {
+                case ";", "," -> {
+                }
+                case "{" -> depth++;
+                case "}" -> depth--;
+                case "node" -> tokenizer.readAttributes(nodeDefaults);
+                case "edge" -> tokenizer.readAttributes(edgeDefaults);
+                case "graph" -> tokenizer.readAttributes(new HashMap<>());
+                case "subgraph" -> {
+                    if (!"{".equals(tokenizer.peek())) {
+                        tokenizer.next();
+                    }
+                }
+                default -> {
+                    // A graph attribute.
+                    if ("=".equals(tokenizer.peek())) {
+                        tokenizer.next();
+                        tokenizer.readId();
+                        continue;
+                    }
+
+                    // A node or a chain of edges.
+                    String name = token;
+                    tokenizer.skipPort();
+                    if (!tokenizer.isEdgeOperator(tokenizer.peek())) {
+                        HashMap<String, String> attributes =
+                                new HashMap<>(nodeDefaults);
+                        tokenizer.readAttributes(attributes);
+                        importer.addNode(name, attributes);
+                        continue;
+                    }
+                    int lineNumber = tokenizer.line;
+                    ArrayList<String> chain = new ArrayList<>();
+                    chain.add(name);
+                    while (tokenizer.isEdgeOperator(tokenizer.peek())) {
+                        tokenizer.next();
+                        chain.add(tokenizer.readId());
+                        tokenizer.skipPort();
+                    }
+                    HashMap<String, String> attributes =
+                            new HashMap<>(edgeDefaults);
+                    tokenizer.readAttributes(attributes);
+                    for (int index = 1; index < chain.size(); index++) {
+                        importer.addDotEdge(chain.get(index - 1),
+                                            chain.get(index),
+                                            attributes.get("label"),
+                                            nodeDefaults, lineNumber);
+                    }
+                }
+            }
+        }
+        return importer.builder.build();
+    }
+
+    /**
+     * This class holds the state of an import: the finite automaton being
+     * built and the indices of the states by name.
+     */
+    private static final class Importer {
+
+        private final CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder(true);
+        // The name of each state.
+        private final ArrayList<String> stateNames = new ArrayList<>();
+        // The states by name, using open addressing. Each slot holds a state
+        // plus one, or zero if it is empty.
+        private int[] stateTable = new int[INITIAL_TABLE_SIZE];
+        // The DOT nodes that are not states.
+        private final HashSet<String> hiddenNodes = new HashSet<>();
+
+        /**
+         * Returns the state with the given name, adding it if it does not
+         * exist yet.
+         *
+         * @param name the name of the state
+         * @return the index of the state
+         */
+        int getState(String name) {
+            int state = findState(name);
+            if (state == NO_STATE) {
+                state = builder.addState(name);
+                stateNames.add(name);
+                if (2 * stateNames.size() > stateTable.length) {
+                    stateTable = new int[2 * stateTable.length];
+                    for (int other = 0; other < stateNames.size(); other++) {
+                        stateTable[findSlot(stateNames.get(other))] =
+                                other + 1;
+                    }
+                }
+                else {
+                    stateTable[findSlot(name)] = state + 1;
+                }
+            }
+            return state;
+        }
+
+        /**
+         * Returns the state with the given name.
+         *
+         * @param name the name of the state
+         * @return the index of the state, or {@link
+         * CompactFiniteAutomaton#NO_STATE} if there is no such state
+         */
+        int findState(String name) {
+            return stateTable[findSlot(name)] - 1;
+        }
+
+        /**
+         * Returns the slot of the table holding the state with the given
+         * name, or the empty slot where it would be added.
+         *
+         * @param name the name of the state
+         * @return the slot
+         */
+        private int findSlot(String name) {
+            int mask = stateTable.length - 1;
+            int hash = name.hashCode() * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while ((stateTable[slot] != 0) &&
+                   !stateNames.get(stateTable[slot] - 1).equals(name)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Adds an edge between the two states. If there already is an edge
+         * between them, the labels are joined when the finite automaton is
+         * built.
+         *
+         * @param startState the start state of the edge
+         * @param endState   the end state of the edge
+         * @param labelText  the text of the edge's label
+         * @param lineNumber the line the edge was read from
+         * @throws IOException if the label is not a valid edge label
+         */
+        void addEdge(int startState, int endState, String labelText,
+                     int lineNumber) throws IOException {
+            if (!EdgeLabels.isValid(labelText)) {
+                throw new IOException("Line " + lineNumber + ": " + labelText +
+                                      " is not a valid edge label!");
+            }
+            builder.addEdge(startState, endState,
+                            EdgeLabels.normalise(labelText));
+        }
+
+        /**
+         * Adds or updates a DOT node using its attributes.
+         *
+         * @param name       the name of the node
+         * @param attributes the attributes of the node
+         */
+        void addNode(String name, HashMap<String, String> attributes) {
+            // Nodes with a hidden shape are only recorded.
+            if ((findState(name) == NO_STATE) && isHidden(attributes)) {
+                hiddenNodes.add(name);
+                return;
+            }
+            if (hiddenNodes.contains(name)) {
+                return;
+            }
+
+            // Update the state.
+            int state = getState(name);
+            if (attributes.containsKey("label")) {
+                builder.setStateLabel(state, attributes.get("label"));
+            }
+            if ("doublecircle".equalsIgnoreCase(attributes.get("shape"))) {
+                builder.addFinalState(state);
+            }
+            String position = attributes.get("pos");
+            if (position != null) {
+                String[] coordinates = position.replace("!", "").split(",");
+                try {
+                    builder.setCoordinates(
+                            state, Double.parseDouble(coordinates[0]),
+                            -Double.parseDouble(coordinates[1]));
+                }
+                catch (NumberFormatException |
+                       ArrayIndexOutOfBoundsException e) {
+                    // Ignore positions that cannot be parsed.
+                }
+            }
+        }
+
+        /**
+         * Adds a DOT edge. An edge from a hidden node marks its end as the
+         * initial state, and an edge to a hidden node is ignored.
+         *
+         * @param start        the name of the start node
+         * @param end          the name of the end node
+         * @param labelText    the label of the edge, or <code>null</code>
+         * @param nodeDefaults the default attributes of new nodes
+         * @param lineNumber   the line the edge was read from
+         * @throws IOException if the label is not a valid edge label
+         */
+        void addDotEdge(String start, String end, String labelText,
+                        HashMap<String, String> nodeDefaults, int lineNumber)
+                throws IOException {
+            // Add nodes that have not been declared.
+            for (String name : new String[]{start, end}) {
+                if ((findState(name) == NO_STATE) &&
+                    !hiddenNodes.contains(name)) {
+                    addNode(name, new HashMap<>(nodeDefaults));
+                }
+            }
+
+            if (hiddenNodes.contains(end)) {
+                return;
+            }
+            if (hiddenNodes.contains(start)) {
+                builder.setInitialState(findState(end));
+                return;
+            }
+            addEdge(findState(start), findState(end),
+                    (labelText != null) ? labelText : EMPTY_STRING,
+                    lineNumber);
+        }
+
+        /**
+         * Checks whether a node with the given attributes is not a state.
+         *
+         * @param attributes the attributes of the node
+         * @return true if the node is not a state, false otherwise
+         */
+        private static boolean isHidden(HashMap<String, String> attributes) {
+            String shape = attributes.get("shape");
+            if ("invis".equalsIgnoreCase(attributes.get("style"))) {
+                return true;
+            }
+            for (String hiddenShape : HIDDEN_SHAPES) {
+                if (hiddenShape.equalsIgnoreCase(shape)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * This class splits a DOT graph into tokens, reading one character at a
+     * time. Comments are skipped, and quoted strings are returned without
+     * their quotes.
+     */
+    private static final class DotTokenizer {
+
+        private final Reader reader;
+        // The line of the last character read.
+        private int line = 1;
+        // The next character, or -2 if it has not been read yet.
+        private int nextCharacter = -2;
+        // The next token, if it has been peeked.
+        private String nextToken;
+        private boolean hasNextToken = false;
+
+        /**
+         * Creates a tokenizer reading from the given reader.
+         *
+         * @param reader the reader containing the DOT graph
+         */
+        DotTokenizer(Reader reader) {
+            this.reader = (reader instanceof BufferedReader) ?
+                          reader : new BufferedReader(reader);
+        }
+
+        /**
+         * Returns the next token without consuming it.
+         *
+         * @return the next token, or <code>null</code> at the end of the input
+         * @throws IOException if the input cannot be read or is invalid
+         */
+        String peek() throws IOException {
+            if (!hasNextToken) {
+                nextToken = readToken();
+                hasNextToken = true;
+            }
+            return nextToken;
+        }
+
+        /**
+         * Returns and consumes the next token.
+         *
+         * @return the next token, or <code>null</code> at the end of the input
+         * @throws IOException if the input cannot be read or is invalid
+         */
+        String next() throws IOException {
+            String token = peek();
+            hasNextToken = false;
+            return token;
+        }
+
+        /**
+         * Returns and consumes the next token, which must be an identifier.
+         *
+         * @return the identifier
+         * @throws IOException if the next token is not an identifier
+         */
+        String readId() throws IOException {
+            String token = next();
+            if ((token == null) || (token.length() == 1 &&
+                                    "{}[]=,;:".contains(token)) ||
+                isEdgeOperator(token)) {
+                throw error("expected an identifier");
+            }
+            return token;
+        }
+
+        /**
+         * Checks whether the given token is an edge operator.
+         *
+         * @param token the token to check
+         * @return true if the token is an edge operator, false otherwise
+         */
+        boolean isEdgeOperator(String token) {
+            return "->".equals(token) || "--".equals(token);
+        }
+
+        /**
+         * Consumes the port and compass point following a node name, if any.
+         *
+         * @throws IOException if the input cannot be read or is invalid
+         */
+        void skipPort() throws IOException {
+            while (":".equals(peek())) {
+                next();
+                readId();
+            }
+        }
+
+        /**
+         * Reads any number of attribute lists, adding the attributes to the
+         * given map.
+         *
+         * @param attributes the map to add the attributes to
+         * @throws IOException if the input cannot be read or is invalid
+         */
+        void readAttributes(HashMap<String, String> attributes)
+                throws IOException {
+            while ("[".equals(peek())) {
+                next();
+                while (!"]".equals(peek())) {
+                    if (",".equals(peek()) || ";".equals(peek())) {
+                        next();
+                        continue;
+                    }
+                    String key = readId();
+                    if (!"=".equals(next())) {
+                        throw error("expected =");
+                    }
+                    attributes.put(key.toLowerCase(Locale.ROOT), readId());
+                }
+                next();
+            }
+        }
+
+        /**
+         * Creates an exception for invalid input on the current line.
+         *
+         * @param message the description of the problem
+         * @return the exception
+         */
+        IOException error(String message) {
+            return new IOException("Line " + line + ": " + message + "!");
+        }
+
+        /**
+         * Reads the next character.
+         *
+         * @return the next character, or -1 at the end of the input
+         * @throws IOException if the input cannot be read
+         */
+        private int read() throws IOException {
+            int character = (nextCharacter != -2) ? nextCharacter :
+                            reader.read();
+            nextCharacter = -2;
+            if (character == '\n') {
+                line++;
+            }
+            return character;
+        }
+
+        /**
+         * Returns the next character without consuming it.
+         *
+         * @return the next character, or -1 at the end of the input
+         * @throws IOException if the input cannot be read
+         */
+        private int peekCharacter() throws IOException {
+            if (nextCharacter == -2) {
+                nextCharacter = reader.read();
+            }
+            return nextCharacter;
+        }
+
+        /**
+         * Reads the next token from the input.
+         *
+         * @return the next token, or <code>null</code> at the end of the input
+         * @throws IOException if the input cannot be read or is invalid
+         */
+        private String readToken() throws IOException {
+            int character = skipWhitespaceAndComments();
+            if (character == -1) {
+                return null;
+            }
+
+            // Punctuation and edge operators.
+            if ("{}[]=,;:".indexOf(character) >= 0) {
+                return String.valueOf((char) character);
+            }
+            if ((character == '-') &&
+                ((peekCharacter() == '>') || (peekCharacter() == '-'))) {
+                return "-" + (char) read();
+            }
+
+            // Quoted strings, with escaped quotes and line continuations.
+            StringBuilder token = new StringBuilder();
+            if (character == '"') {
+                while ((character = read()) != '"') {
+                    if (character == -1) {
+                        throw error("unterminated string");
+                    }
+                    if ((character == '\\') && (peekCharacter() == '"')) {
+                        character = read();
+                    }
+                    else if ((character == '\\') &&
+                             (peekCharacter() == '\n')) {
+                        read();
+                        continue;
+                    }
+                    token.append((char) character);
+                }
+                return token.toString();
+            }
+
+            // HTML strings, kept with their nested brackets.
+            if (character == '<') {
+                int depth = 1;
+                while (depth > 0) {
+                    character = read();
+                    if (character == -1) {
+                        throw error("unterminated HTML string");
+                    }
+                    depth += (character == '<') ? 1 :
+                             (character == '>') ? -1 : 0;
+                    if (depth > 0) {
+                        token.append((char) character);
+                    }
+                }
+                return token.toString();
+            }
+
+            // Identifiers and numerals.
+            token.append((char) character);
+            while (isIdCharacter(peekCharacter())) {
+                token.append((char) read());
+            }
+            return token.toString();
+        }
+
+        /**
+         * Skips whitespace and comments, and reads the next character.
+         *
+         * @return the next character, or -1 at the end of the input
+         * @throws IOException if the input cannot be read or is invalid
+         */
+        private int skipWhitespaceAndComments() throws IOException {
+            boolean lineStart = (line == 1) && (nextCharacter == -2);
+            while (true) {
+                int character = read();
+                if (character == '\n') {
+                    lineStart = true;
+                }
+                else if (Character.isWhitespace(character)) {
+                    continue;
+                }
+                else if ((character == '#') && lineStart) {
+                    skipLine();
+                }
+                else if ((character == '/') && (peekCharacter() == '/')) {
+                    skipLine();
+                    lineStart = true;
+                }
+                else if ((character == '/') && (peekCharacter() == '*')) {
+                    read();
+                    int previous = 0;
+                    while (((character = read()) != '/') ||
+                           (previous != '*')) {
+                        if (character == -1) {
+                            throw error("unterminated comment");
+                        }
+                        previous = character;
+                    }
+                    lineStart = false;
+                }
+                else {
+                    return character;
+                }
+            }
+        }
+
+        /**
+         * Skips the rest of the current line.
+         *
+         * @throws IOException if the input cannot be read
+         */
+        private void skipLine() throws IOException {
+            int character;
+            do {
+                character = read();
+            } while ((character != '\n') && (character != -1));
+        }
+
+        /**
+         * Checks whether the given character can be part of an identifier or
+         * numeral.
+         *
+         * @param character the character to check
+         * @return true if the character can be part of an identifier, false
+         * otherwise
+         */
+        private static boolean isIdCharacter(int character) {
+            return (character == '_') || (character == '.') ||
+                   (character > 127) ||
+                   ((character >= 0) && Character.isLetterOrDigit(character));
+        }
+
+    }
+
+}
@@ -0,0 +1,438 @@
+package dudzinski.kacper.farec.finiteautomata.compact;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+
+/**
+ * This class is responsible for saving compact finite automata to files and
+ * loading them back. Files are read and written with a {@link FileChannel}
+ * through a single buffer, so that large finite automata can be saved and
+ * loaded quickly.
+ * <p>
+ * The file format is binary. All integers are unsigned variable-length
+ * integers (7 bits per byte, least significant group first, with the high bit
+ * set on every byte except the last), and all strings are a byte count
+ * followed by that many bytes of UTF-8. A file consists of:
+ * <ol>
+ *     <li>the magic bytes "FARE" and a version byte ({@link #VERSION})</li>
+ *     <li>a flags byte: bit 0 is set if the states have coordinates</li>
+ *     <li>the string table: the number of edge labels, followed by the text
+ *     of each edge label</li>
+ *     <li>the number of states and the number of edges</li>
+ *     <li>for each state: its label and, if the states have coordinates, its
+ *     x and y coordinates as 8-byte doubles</li>
+ *     <li>the initial state plus one, or 0 if there is no initial state</li>
+ *     <li>the number of final states, followed by each final state as the
+ *     difference from the previous final state (or from 0)</li>
+ *     <li>for each state: its number of outgoing edges, followed by the end
+ *     state of each outgoing edge, as the difference from the previous end
+ *     state (or from 0), and its label's index into the string table</li>
+ * </ol>
+ * Since the edges of a compact finite automaton are ordered by start and end
+ * state, the differences are small and most of them fit in a single byte.
+ *
+ * @see CompactFiniteAutomaton
+ */
+public final class CompactFiniteAutomatonSerializer {
+
+    // The version of the file format written by this class.
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'F', 'A', 'R', 'E'};
+    private static final int HAS_LAYOUT = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private CompactFiniteAutomatonSerializer() {
+        throw new RuntimeException(
+                "The CompactFiniteAutomatonSerializer class should never be " +
+                "instantiated!");
+    }
+
+    /**
+     * Saves the compact finite automaton to the given file, replacing its
+     * contents.
+     *
+     * @param finiteAutomaton the compact finite automaton to save
+     * @param path            the file to save to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CompactFiniteAutomaton finiteAutomaton, Path path)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output output = new Output(channel);
+
+            // Write the header.
+            for (byte magicByte : MAGIC) {
+                output.writeByte(magicByte);
+            }
+            output.writeByte(VERSION);
+            output.writeByte(finiteAutomaton.hasLayout() ? HAS_LAYOUT : 0);
+
+            // Write the string table.
+            output.writeVarint(finiteAutomaton.getLabelCount());
+            for (int label = 0; label < finiteAutomaton.getLabelCount();
+                 label++) {
+                output.writeString(finiteAutomaton.getLabel(label));
+            }
+
+            // Write the states.
+            output.writeVarint(finiteAutomaton.getStateCount());
+            output.writeVarint(finiteAutomaton.getEdgeCount());
+            for (int state = 0; state < finiteAutomaton.getStateCount();
+                 state++) {
+                output.writeString(finiteAutomaton.getStateLabel(state));
+                if (finiteAutomaton.hasLayout()) {
+                    output.writeDouble(finiteAutomaton.getX(state));
+                    output.writeDouble(finiteAutomaton.getY(state));
+                }
+            }
+
+            // Write the initial and final states.
+            output.writeVarint(finiteAutomaton.getInitialState() + 1);
+            BitSet finalStates = finiteAutomaton.getFinalStates();
+            output.writeVarint(finalStates.cardinality());
+            int previousState = 0;
+            for (int state = finalStates.nextSetBit(0); state >= 0;
+                 state = finalStates.nextSetBit(state + 1)) {
+                output.writeVarint(state - previousState);
+                previousState = state;
+            }
+
+            // Write the outgoing edges of each state.
+            for (int state = 0; state < finiteAutomaton.getStateCount();
+                 state++) {
+                output.writeVarint(finiteAutomaton.getOutDegree(state));
+                int previousEnd = 0;
+                for (int edge = finiteAutomaton.getOutgoingOffset(state);
+                     edge < finiteAutomaton.getOutgoingOffset(state + 1);
+                     edge++) {
+                    int end = finiteAutomaton.getEdgeEnd(edge);
+                    output.writeVarint(end - previousEnd);
+                    output.writeVarint(finiteAutomaton.getEdgeLabel(edge));
+                    previousEnd = end;
+                }
+            }
+            output.flush();
+        }
+    }
+
+    /**
+     * Loads a compact finite automaton from the given file.
+     *
+     * @param path the file to load from
+     * @return the compact finite automaton stored in the file
+     * @throws IOException if the file cannot be read, or is not a valid finite
+     *                     automaton file
+     */
+    public static CompactFiniteAutomaton read(Path path) throws IOException {
+        // Read the whole file into a buffer.
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file is too large!");
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("The file is truncated!");
+                }
+            }
+            buffer.flip();
+        }
+
+        try {
+            return read(buffer);
+        }
+        catch (BufferUnderflowException e) {
+            throw new IOException("The file is truncated!", e);
+        }
+    }
+
+    /**
+     * Decodes a compact finite automaton from the given buffer.
+     *
+     * @param buffer the buffer containing the file contents
+     * @return the compact finite automaton stored in the buffer
+     * @throws IOException if the buffer does not contain a valid finite
+     *                     automaton
+     */
+    private static CompactFiniteAutomaton read(ByteBuffer buffer)
+            throws IOException {
+        // Read the header.
+        for (byte magicByte : MAGIC) {
+            if (buffer.get() != magicByte) {
+                throw new IOException("The file is not a finite automaton!");
+            }
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException(
+                    "Unsupported file version " + version + "!");
+        }
+        boolean hasLayout = (buffer.get() & HAS_LAYOUT) != 0;
+
+        // Read the string table.
+        String[] labels = new String[readCount(buffer)];
+        for (int label = 0; label < labels.length; label++) {
+            labels[label] = readString(buffer);
+        }
+
+        // Read the states.
+        int stateCount = readCount(buffer);
+        int edgeCount = readCount(buffer);
+        String[] stateLabels = new String[stateCount];
+        double[] xCoordinates = new double[stateCount];
+        double[] yCoordinates = new double[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            stateLabels[state] = readString(buffer);
+            if (hasLayout) {
+                xCoordinates[state] = buffer.getDouble();
+                yCoordinates[state] = buffer.getDouble();
+            }
+        }
+
+        // Read the initial and final states.
+        int initialState = readVarint(buffer) - 1;
+        if (initialState != NO_STATE) {
+            checkState(initialState, stateCount);
+        }
+        BitSet finalStates = new BitSet(stateCount);
+        int finalStateCount = readCount(buffer);
+        int state = 0;
+        for (int index = 0; index < finalStateCount; index++) {
+            state += readVarint(buffer);
+            checkState(state, stateCount);
+            finalStates.set(state);
+        }
+
+        // Read the outgoing edges of each state.
+        int[] edgeStarts = new int[edgeCount];
+        int[] edgeEnds = new int[edgeCount];
+        int[] edgeLabels = new int[edgeCount];
+        int edge = 0;
+        for (int start = 0; start < stateCount; start++) {
+            int outDegree = readCount(buffer);
+            if (outDegree > edgeCount - edge) {
+                throw new IOException("The file has too many edges!");
+            }
+            int end = 0;
+            for (int index = 0; index < outDegree; index++) {
+                int difference = readVarint(buffer);
+                if ((index > 0) && (difference == 0)) {
+                    throw new IOException("The file has duplicate edges!");
+                }
+                end += difference;
+                checkState(end, stateCount);
+                int label = readVarint(buffer);
+                if ((label < 0) || (label >= labels.length)) {
+                    throw new IOException(
+                            "Label " + label + " does not exist!");
+                }
+                edgeStarts[edge] = start;
+                edgeEnds[edge] = end;
+                edgeLabels[edge] = label;
+                edge++;
+            }
+        }
+        if (edge != edgeCount) {
+            throw new IOException("The file has too few edges!");
+        }
+
+        return CompactFiniteAutomatonBuilder.create(
+                stateLabels, xCoordinates, yCoordinates, hasLayout,
+                edgeStarts, edgeEnds, edgeLabels, edgeCount, labels,
+                initialState, finalStates);
+    }
+
+    /**
+     * Checks that the given state exists.
+     *
+     * @param state      the state to check
+     * @param stateCount the number of states
+     * @throws IOException if the state does not exist
+     */
+    private static void checkState(int state, int stateCount)
+            throws IOException {
+        if ((state < 0) || (state >= stateCount)) {
+            throw new IOException("State " + state + " does not exist!");
+        }
+    }
+
+    /**
+     * Reads a variable-length integer from the buffer.
+     *
+     * @param buffer the buffer to read from
+     * @return the integer
+     * @throws IOException if the integer is longer than 5 bytes
+     */
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte currentByte = buffer.get();
+            value |= (currentByte & 0x7F) << shift;
+            if (currentByte >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("The file contains an invalid integer!");
+    }
+
+    /**
+     * Reads a variable-length integer used as the size of an array, which must
+     * be smaller than the number of bytes left in the buffer for each element
+     * to take up at least one byte.
+     *
+     * @param buffer the buffer to read from
+     * @return the count
+     * @throws IOException if the count is negative or too large
+     */
+    private static int readCount(ByteBuffer buffer) throws IOException {
+        int count = readVarint(buffer);
+        if ((count < 0) || (count > buffer.remaining())) {
+            throw new IOException("The file is truncated!");
+        }
+        return count;
+    }
+
+    /**
+     * Reads a string from the buffer.
+     *
+     * @param buffer the buffer to read from
+     * @return the string
+     * @throws IOException if the string is longer than the rest of the buffer
+     */
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = readCount(buffer);
+        String string = new String(buffer.array(), buffer.position(), length,
+                                   StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    /**
+     * This class writes to a file channel through a fixed-size buffer, which
+     * is written to the channel whenever it is full.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Creates an output that writes to the given channel.
+         *
+         * @param channel the channel to write to
+         */
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Writes a single byte.
+         *
+         * @param value the byte to write
+         * @throws IOException if the channel cannot be written
+         */
+        private void writeByte(int value) throws IOException {
+            ensureRemaining(1);
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Writes an unsigned variable-length integer.
+         *
+         * @param value the integer to write
+         * @throws IOException if the channel cannot be written
+         */
+        private void writeVarint(int value) throws IOException {
+            ensureRemaining(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Writes an 8-byte double.
+         *
+         * @param value the double to write
+         * @throws IOException if the channel cannot be written
+         */
+        private void writeDouble(double value) throws IOException {
+            ensureRemaining(8);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Writes a string as its length followed by its UTF-8 bytes. Strings
+         * larger than the buffer are written to the channel directly.
+         *
+         * @param string the string to write
+         * @throws IOException if the channel cannot be written
+         */
+        private void writeString(String string) throws IOException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                writeFully(ByteBuffer.wrap(bytes));
+            }
+            else {
+                ensureRemaining(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        /**
+         * Writes the buffer to the channel if it has fewer than the given
+         * number of bytes remaining.
+         *
+         * @param bytes the number of bytes needed
+         * @throws IOException if the channel cannot be written
+         */
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes the contents of the buffer to the channel and clears it.
+         *
+         * @throws IOException if the channel cannot be written
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        /**
+         * Writes all the remaining bytes of the given buffer to the channel.
+         *
+         * @param source the buffer to write
+         * @throws IOException if the channel cannot be written
+         */
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+}
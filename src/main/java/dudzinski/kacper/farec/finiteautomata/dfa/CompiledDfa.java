@@ -0,0 +1,356 @@
+package dudzinski.kacper.farec.finiteautomata.dfa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+
+/**
+ * This class represents a compiled deterministic finite automaton (DFA). A
+ * compiled DFA is stored in a single buffer using the same layout in memory as
+ * in a file, so a file can be opened by memory-mapping it and used in place,
+ * without reading or converting its contents. Opening a file therefore takes
+ * the same time regardless of its size, and processes that open the same file
+ * share its pages through the operating system's page cache.
+ * <p>
+ * The symbols of a compiled DFA are ASCII characters. All values in the buffer
+ * are 4-byte little-endian integers:
+ * <ol>
+ *     <li>the header: {@link #MAGIC}, {@link #VERSION}, the number of states,
+ *     the number of symbols and the initial state</li>
+ *     <li>the symbol table: for each of the 128 ASCII characters, its symbol
+ *     index or -1 if it is not a symbol</li>
+ *     <li>the accepting states as a bit set, 32 states per integer</li>
+ *     <li>the transition table: for each state and each symbol index, the next
+ *     state or -1 if there is no transition</li>
+ * </ol>
+ * Compiled DFAs cannot be modified. Use {@link DfaCompiler} to create one.
+ *
+ * @see DfaCompiler
+ */
+public final class CompiledDfa {
+
+    // The first integer of every compiled DFA.
+    public static final int MAGIC = 0x41464446;
+    // The version of the layout used by this class.
+    public static final int VERSION = 1;
+    // The value used when there is no next state.
+    public static final int NO_STATE = -1;
+
+    static final int ASCII_SIZE = 128;
+    static final int NO_SYMBOL = -1;
+    private static final int HEADER_INTS = 5;
+    private static final int SYMBOL_TABLE_OFFSET = HEADER_INTS * Integer.BYTES;
+    private static final int ACCEPTING_OFFSET =
+            SYMBOL_TABLE_OFFSET + (ASCII_SIZE * Integer.BYTES);
+
+    private final ByteBuffer buffer;
+    private final int stateCount;
+    private final int symbolCount;
+    private final int initialState;
+    private final int transitionsOffset;
+
+    /**
+     * Creates a compiled DFA using the given buffer, which must contain a
+     * valid compiled DFA.
+     *
+     * @param buffer the buffer containing the compiled DFA
+     */
+    private CompiledDfa(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.stateCount = buffer.getInt(2 * Integer.BYTES);
+        this.symbolCount = buffer.getInt(3 * Integer.BYTES);
+        this.initialState = buffer.getInt(4 * Integer.BYTES);
+        this.transitionsOffset =
+                ACCEPTING_OFFSET + (acceptingInts(stateCount) * Integer.BYTES);
+    }
+
+    /**
+     * Creates a compiled DFA from the given tables. Only the compiler should
+     * create compiled DFAs.
+     *
+     * @param symbolIndices the symbol index of each ASCII character, or -1
+     * @param symbolCount   the number of symbols
+     * @param stateCount    the number of states
+     * @param initialState  the initial state
+     * @param accepting     the accepting states, 32 states per integer
+     * @param transitions   the next state for each state and symbol index
+     * @return the compiled DFA
+     * @throws IllegalArgumentException if the compiled DFA would be larger
+     *                                  than 2 GB
+     */
+    static CompiledDfa create(int[] symbolIndices, int symbolCount,
+                              int stateCount, int initialState,
+                              int[] accepting, int[] transitions)
+            throws IllegalArgumentException {
+        long size = size(stateCount, symbolCount);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The DFA is too large!");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(stateCount)
+                .putInt(symbolCount).putInt(initialState);
+        buffer.asIntBuffer().put(symbolIndices, 0, ASCII_SIZE);
+        buffer.position(ACCEPTING_OFFSET);
+        buffer.asIntBuffer().put(accepting, 0, acceptingInts(stateCount));
+        buffer.position(ACCEPTING_OFFSET +
+                        (acceptingInts(stateCount) * Integer.BYTES));
+        buffer.asIntBuffer().put(transitions, 0, stateCount * symbolCount);
+        buffer.clear();
+        return new CompiledDfa(buffer);
+    }
+
+    /**
+     * Opens the compiled DFA stored in the given file by memory-mapping it.
+     * Only the header and the size of the file are checked, so this takes the
+     * same time for any file size. The file must not be modified while the
+     * compiled DFA is in use.
+     *
+     * @param path the file containing the compiled DFA
+     * @return the compiled DFA
+     * @throws IOException if the file cannot be read, or does not contain a
+     *                     compiled DFA
+     */
+    public static CompiledDfa open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            // Map the file. The mapping stays valid after the channel is
+            // closed.
+            if (channel.size() < ACCEPTING_OFFSET) {
+                throw new IOException("The file is not a compiled DFA!");
+            }
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file is too large!");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                            channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            // Check the header.
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("The file is not a compiled DFA!");
+            }
+            if (buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Unsupported compiled DFA version " +
+                                      buffer.getInt(Integer.BYTES) + "!");
+            }
+            int stateCount = buffer.getInt(2 * Integer.BYTES);
+            int symbolCount = buffer.getInt(3 * Integer.BYTES);
+            int initialState = buffer.getInt(4 * Integer.BYTES);
+            if ((stateCount <= 0) || (symbolCount < 0) ||
+                (symbolCount > ASCII_SIZE) || (initialState < 0) ||
+                (initialState >= stateCount) ||
+                (size(stateCount, symbolCount) != channel.size())) {
+                throw new IOException("The compiled DFA is corrupted!");
+            }
+            return new CompiledDfa(buffer);
+        }
+    }
+
+    /**
+     * Saves this compiled DFA to the given file, replacing its contents.
+     *
+     * @param path the file to save to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = buffer.duplicate().clear();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+    }
+
+    /**
+     * Returns the size of this compiled DFA in bytes, which is the same in
+     * memory and in a file.
+     *
+     * @return the size in bytes
+     */
+    public int getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the number of states of this DFA.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns the number of symbols of this DFA.
+     *
+     * @return the number of symbols
+     */
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * Returns the initial state of this DFA.
+     *
+     * @return the initial state
+     */
+    public int getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Checks whether the given state is an accepting state.
+     *
+     * @param state the state
+     * @return true if the state is accepting, false otherwise
+     */
+    public boolean isAccepting(int state) {
+        int bits = buffer.getInt(ACCEPTING_OFFSET +
+                                 ((state >>> 5) * Integer.BYTES));
+        return (bits & (1 << (state & 31))) != 0;
+    }
+
+    /**
+     * Returns the state reached from the given state by reading the given
+     * character.
+     *
+     * @param state     the state
+     * @param character the character to read
+     * @return the next state, or {@link #NO_STATE} if there is none
+     */
+    public int getTransition(int state, char character) {
+        if (character >= ASCII_SIZE) {
+            return NO_STATE;
+        }
+        int symbol = symbolIndex(character);
+        if (symbol == NO_SYMBOL) {
+            return NO_STATE;
+        }
+        return buffer.getInt(transitionsOffset +
+                             (((state * symbolCount) + symbol) *
+                              Integer.BYTES));
+    }
+
+    /**
+     * Checks whether this DFA accepts the given word. Takes time linear in the
+     * length of the word.
+     *
+     * @param word the word to check
+     * @return true if the word is accepted, false otherwise
+     */
+    public boolean matches(CharSequence word) {
+        int state = initialState;
+        for (int index = 0; index < word.length(); index++) {
+            state = getTransition(state, word.charAt(index));
+            if (state == NO_STATE) {
+                return false;
+            }
+        }
+        return isAccepting(state);
+    }
+
+    /**
+     * Checks whether this DFA accepts the same words as the given DFA. The
+     * pairs of states reachable by reading the same word in both DFAs are
+     * visited in breadth-first order, and the DFAs are equivalent if no pair
+     * has exactly one accepting state. A missing transition leads to a
+     * non-accepting state that loops on every symbol.
+     *
+     * @param other the DFA to compare with
+     * @return true if the DFAs accept the same words, false otherwise
+     */
+    public boolean isEquivalent(CompiledDfa other) {
+        // Collect the symbols of both DFAs.
+        StringBuilder symbols = new StringBuilder();
+        for (char character = 0; character < ASCII_SIZE; character++) {
+            if ((symbolIndex(character) != NO_SYMBOL) ||
+                (other.symbolIndex(character) != NO_SYMBOL)) {
+                symbols.append(character);
+            }
+        }
+
+        // Visit the pairs of states reachable from the initial states.
+        HashSet<Long> visited = new HashSet<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        long initialPair = pair(initialState, other.initialState);
+        visited.add(initialPair);
+        queue.add(initialPair);
+        while (!queue.isEmpty()) {
+            long current = queue.remove();
+            int state = (int) (current >> 32);
+            int otherState = (int) current;
+            boolean accepting = (state != NO_STATE) && isAccepting(state);
+            boolean otherAccepting =
+                    (otherState != NO_STATE) && other.isAccepting(otherState);
+            if (accepting != otherAccepting) {
+                return false;
+            }
+            for (int index = 0; index < symbols.length(); index++) {
+                char symbol = symbols.charAt(index);
+                int next = (state == NO_STATE) ? NO_STATE :
+                           getTransition(state, symbol);
+                int otherNext = (otherState == NO_STATE) ? NO_STATE :
+                                other.getTransition(otherState, symbol);
+                long nextPair = pair(next, otherNext);
+                if (((next != NO_STATE) || (otherNext != NO_STATE)) &&
+                    visited.add(nextPair)) {
+                    queue.add(nextPair);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the symbol index of the given character.
+     *
+     * @param character the character
+     * @return the symbol index, or -1 if the character is not a symbol
+     */
+    int symbolIndex(char character) {
+        return buffer.getInt(SYMBOL_TABLE_OFFSET + (character * Integer.BYTES));
+    }
+
+    /**
+     * Packs a pair of states into a single number.
+     *
+     * @param state      the first state
+     * @param otherState the second state
+     * @return the pair of states
+     */
+    private static long pair(int state, int otherState) {
+        return ((long) state << 32) | (otherState & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the number of integers used for the accepting states.
+     *
+     * @param stateCount the number of states
+     * @return the number of integers used for the accepting states
+     */
+    static int acceptingInts(int stateCount) {
+        return (stateCount + 31) >>> 5;
+    }
+
+    /**
+     * Returns the size in bytes of a compiled DFA.
+     *
+     * @param stateCount  the number of states
+     * @param symbolCount the number of symbols
+     * @return the size of the compiled DFA
+     */
+    private static long size(int stateCount, int symbolCount) {
+        return ACCEPTING_OFFSET +
+               ((long) acceptingInts(stateCount) * Integer.BYTES) +
+               ((long) stateCount * symbolCount * Integer.BYTES);
+    }
+
+}
@@ -0,0 +1,395 @@
+package dudzinski.kacper.farec.finiteautomata.dfa;
+
+import dudzinski.kacper.farec.conversion.ThompsonConstruction;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.regex.Parser;
+import dudzinski.kacper.farec.regex.RegularExpression;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents a cache of the automata compiled from regular
+ * expressions, keyed by the canonical, fully bracketed form of the regular
+ * expression. For each regular expression, the cache holds the finite
+ * automaton created by Thompson's construction, the compiled DFA and the
+ * minimal DFA, each created on first use. Regular expressions that only differ
+ * in whitespace or redundant brackets share the same automata.
+ * <p>
+ * The cache can be used from many threads at once. Requests for the same
+ * regular expression share a single computation. The total estimated memory
+ * of the cached automata is bounded, and once it is exceeded the least
+ * recently used regular expressions are evicted. Evicted automata can
+ * optionally be kept through soft references, which the garbage collector
+ * clears only when memory runs low, and are restored if they are requested
+ * again before that.
+ *
+ * @see ThompsonConstruction
+ * @see DfaCompiler
+ * @see DfaMinimizer
+ */
+public final class CompiledRegexCache {
+
+    private final long maxWeight;
+    private final boolean softSpill;
+    private final LinkedHashMap<String, Entry> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, SpilledEntry> spilledEntries =
+            new HashMap<>();
+    private final ReferenceQueue<Entry> clearedEntries =
+            new ReferenceQueue<>();
+    private long weight = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long spillHitCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * The counters of a cache at one point in time.
+     *
+     * @param hitCount      the number of requests answered from the cache
+     * @param missCount     the number of requests that compiled automata
+     * @param spillHitCount the number of requests answered by restoring
+     *                      evicted automata
+     * @param evictionCount the number of evicted regular expressions
+     * @param size          the number of cached regular expressions
+     * @param weight        the estimated memory of the cached automata
+     */
+    public record Statistics(long hitCount, long missCount, long spillHitCount,
+                             long evictionCount, int size, long weight) {
+
+        /**
+         * Returns the fraction of requests answered without compiling
+         * automata.
+         *
+         * @return the hit rate, or 0 if there were no requests
+         */
+        public double hitRate() {
+            long requestCount = hitCount + spillHitCount + missCount;
+            return (requestCount == 0) ? 0 :
+                   (double) (hitCount + spillHitCount) / requestCount;
+        }
+
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxWeight the maximum estimated memory of the cached automata, in
+     *                  bytes
+     * @param softSpill whether evicted automata are kept through soft
+     *                  references
+     */
+    public CompiledRegexCache(long maxWeight, boolean softSpill) {
+        this.maxWeight = maxWeight;
+        this.softSpill = softSpill;
+    }
+
+    /**
+     * Returns the canonical form of the given regex string. Whitespace is
+     * removed, as on the regular expression screen.
+     *
+     * @param regexString the regex string
+     * @return the canonical form of the regex string
+     * @throws IllegalArgumentException if the regex string is invalid
+     */
+    public static String canonicalForm(String regexString)
+            throws IllegalArgumentException {
+        return Parser.parseRegexString(regexString.replaceAll("\\s+", ""))
+                     .toString();
+    }
+
+    /**
+     * Returns the finite automaton of the given regex string, created by
+     * Thompson's construction.
+     *
+     * @param regexString the regex string
+     * @return the finite automaton
+     * @throws IllegalArgumentException if the regex string is invalid
+     */
+    public CompactFiniteAutomaton getFiniteAutomaton(String regexString)
+            throws IllegalArgumentException {
+        Entry entry = getEntry(canonicalForm(regexString));
+        CompactFiniteAutomaton finiteAutomaton = entry.getFiniteAutomaton();
+        updateWeight(entry);
+        return finiteAutomaton;
+    }
+
+    /**
+     * Returns the finite automaton of the given regular expression, created
+     * by Thompson's construction.
+     *
+     * @param regularExpression the regular expression
+     * @return the finite automaton
+     */
+    public CompactFiniteAutomaton getFiniteAutomaton(
+            RegularExpression regularExpression) {
+        Entry entry = getEntry(regularExpression.toString());
+        CompactFiniteAutomaton finiteAutomaton = entry.getFiniteAutomaton();
+        updateWeight(entry);
+        return finiteAutomaton;
+    }
+
+    /**
+     * Returns the compiled DFA of the given regex string.
+     *
+     * @param regexString the regex string
+     * @return the compiled DFA
+     * @throws IllegalArgumentException if the regex string is invalid, or
+     *                                  contains symbols that are not ASCII
+     *                                  characters
+     */
+    public CompiledDfa getDfa(String regexString)
+            throws IllegalArgumentException {
+        Entry entry = getEntry(canonicalForm(regexString));
+        CompiledDfa dfa = entry.getDfa();
+        updateWeight(entry);
+        return dfa;
+    }
+
+    /**
+     * Returns the minimal DFA of the given regex string.
+     *
+     * @param regexString the regex string
+     * @return the minimal DFA
+     * @throws IllegalArgumentException if the regex string is invalid, or
+     *                                  contains symbols that are not ASCII
+     *                                  characters
+     */
+    public CompiledDfa getMinimalDfa(String regexString)
+            throws IllegalArgumentException {
+        Entry entry = getEntry(canonicalForm(regexString));
+        CompiledDfa minimalDfa = entry.getMinimalDfa();
+        updateWeight(entry);
+        return minimalDfa;
+    }
+
+    /**
+     * Checks whether the given regex string matches the word, using its
+     * minimal DFA.
+     *
+     * @param regexString the regex string
+     * @param word        the word to check
+     * @return true if the regex string matches the word, false otherwise
+     * @throws IllegalArgumentException if the regex string is invalid, or
+     *                                  contains symbols that are not ASCII
+     *                                  characters
+     */
+    public boolean matches(String regexString, CharSequence word)
+            throws IllegalArgumentException {
+        return getMinimalDfa(regexString).matches(word);
+    }
+
+    /**
+     * Returns the current counters of this cache.
+     *
+     * @return the statistics of this cache
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hitCount, missCount, spillHitCount,
+                              evictionCount, entries.size(), weight);
+    }
+
+    /**
+     * Removes every cached and spilled regular expression. The counters are
+     * not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        spilledEntries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the entry of the given canonical regex string, creating it if
+     * it is neither cached nor spilled.
+     *
+     * @param canonicalRegex the canonical regex string
+     * @return the entry
+     */
+    private synchronized Entry getEntry(String canonicalRegex) {
+        // Look for a cached entry.
+        Entry entry = entries.get(canonicalRegex);
+        if (entry != null) {
+            hitCount++;
+            return entry;
+        }
+
+        // Look for a spilled entry, or create a new one.
+        removeClearedEntries();
+        SpilledEntry spilledEntry = spilledEntries.remove(canonicalRegex);
+        entry = (spilledEntry != null) ? spilledEntry.get() : null;
+        if (entry != null) {
+            spillHitCount++;
+            weight += entry.weight;
+        }
+        else {
+            missCount++;
+            entry = new Entry(canonicalRegex);
+        }
+        entries.put(canonicalRegex, entry);
+        evict();
+        return entry;
+    }
+
+    /**
+     * Records the estimated memory of the given entry after its automata have
+     * been created, and evicts entries if the cache is too large.
+     *
+     * @param entry the entry
+     */
+    private void updateWeight(Entry entry) {
+        // Estimate the memory before locking the cache.
+        long entryWeight = entry.getMemoryEstimate();
+        synchronized (this) {
+            if ((entries.get(entry.canonicalRegex) == entry) &&
+                (entryWeight != entry.weight)) {
+                weight += entryWeight - entry.weight;
+                entry.weight = entryWeight;
+                evict();
+            }
+            else {
+                entry.weight = entryWeight;
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the estimated memory of
+     * the cached automata is within the limit.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> iterator =
+                entries.entrySet().iterator();
+        while ((weight > maxWeight) && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            weight -= entry.weight;
+            evictionCount++;
+            if (softSpill) {
+                spilledEntries.put(entry.canonicalRegex,
+                                   new SpilledEntry(entry, clearedEntries));
+            }
+        }
+    }
+
+    /**
+     * Removes the spilled entries cleared by the garbage collector.
+     */
+    private void removeClearedEntries() {
+        SpilledEntry spilledEntry;
+        while ((spilledEntry = (SpilledEntry) clearedEntries.poll()) != null) {
+            spilledEntries.remove(spilledEntry.canonicalRegex, spilledEntry);
+        }
+    }
+
+    /**
+     * This class holds the automata of one regular expression. Each automaton
+     * is created on first use, by the first thread requesting it, while other
+     * threads requesting it wait.
+     */
+    private static final class Entry {
+
+        private final String canonicalRegex;
+        private volatile CompactFiniteAutomaton finiteAutomaton;
+        private volatile CompiledDfa dfa;
+        private volatile CompiledDfa minimalDfa;
+        // The estimated memory last recorded by the cache.
+        private long weight = 0;
+
+        /**
+         * Creates an entry without any automata.
+         *
+         * @param canonicalRegex the canonical regex string
+         */
+        Entry(String canonicalRegex) {
+            this.canonicalRegex = canonicalRegex;
+        }
+
+        /**
+         * Returns the finite automaton, creating it if needed.
+         *
+         * @return the finite automaton
+         */
+        synchronized CompactFiniteAutomaton getFiniteAutomaton() {
+            if (finiteAutomaton == null) {
+                finiteAutomaton = ThompsonConstruction.toFiniteAutomaton(
+                        Parser.parseRegexString(canonicalRegex));
+            }
+            return finiteAutomaton;
+        }
+
+        /**
+         * Returns the compiled DFA, creating it if needed.
+         *
+         * @return the compiled DFA
+         */
+        synchronized CompiledDfa getDfa() {
+            if (dfa == null) {
+                dfa = DfaCompiler.compile(getFiniteAutomaton());
+            }
+            return dfa;
+        }
+
+        /**
+         * Returns the minimal DFA, creating it if needed.
+         *
+         * @return the minimal DFA
+         */
+        synchronized CompiledDfa getMinimalDfa() {
+            if (minimalDfa == null) {
+                minimalDfa = DfaMinimizer.minimize(getDfa());
+            }
+            return minimalDfa;
+        }
+
+        /**
+         * Returns the estimated memory of the automata created so far. Does
+         * not wait for automata being created.
+         *
+         * @return the estimated memory in bytes
+         */
+        long getMemoryEstimate() {
+            long size = 64 + (2L * canonicalRegex.length());
+            CompactFiniteAutomaton currentFiniteAutomaton = finiteAutomaton;
+            CompiledDfa currentDfa = dfa;
+            CompiledDfa currentMinimalDfa = minimalDfa;
+            if (currentFiniteAutomaton != null) {
+                size += currentFiniteAutomaton.getMemoryEstimate();
+            }
+            if (currentDfa != null) {
+                size += currentDfa.getSizeInBytes();
+            }
+            if (currentMinimalDfa != null) {
+                size += currentMinimalDfa.getSizeInBytes();
+            }
+            return size;
+        }
+
+    }
+
+    /**
+     * A soft reference to an evicted entry, which remembers its key.
+     */
+    private static final class SpilledEntry extends SoftReference<Entry> {
+
+        private final String canonicalRegex;
+
+        /**
+         * Creates a soft reference to the evicted entry.
+         *
+         * @param entry the evicted entry
+         * @param queue the queue to add the reference to once it is cleared
+         */
+        SpilledEntry(Entry entry, ReferenceQueue<Entry> queue) {
+            super(entry, queue);
+            this.canonicalRegex = entry.canonicalRegex;
+        }
+
+    }
+
+}
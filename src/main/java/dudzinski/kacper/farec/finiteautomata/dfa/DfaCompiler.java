@@ -0,0 +1,206 @@
+package dudzinski.kacper.farec.finiteautomata.dfa;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_SET;
+import static dudzinski.kacper.farec.Settings.EMPTY_STRING;
+import static dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa.ASCII_SIZE;
+import static dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa.NO_STATE;
+import static dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa.NO_SYMBOL;
+
+/**
+ * This class is responsible for compiling finite automata into deterministic
+ * finite automata (DFAs) using the subset construction. Each state of the DFA
+ * is a set of states of the finite automaton, closed under empty string edges.
+ * Only the sets reachable from the initial state are created, and the empty
+ * set is represented by the absence of a transition.
+ * <p>
+ * Edge labels must be lists of symbols separated by commas, as in the finite
+ * automata created by the user, where each symbol is a single ASCII character,
+ * the empty string symbol or the empty set symbol.
+ *
+ * @see CompiledDfa
+ */
+public final class DfaCompiler {
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private DfaCompiler() {
+        throw new RuntimeException(
+                "The DfaCompiler class should never be instantiated!");
+    }
+
+    /**
+     * Compiles the given finite automaton into a DFA accepting the same
+     * language.
+     *
+     * @param finiteAutomaton the finite automaton to compile, which must have
+     *                        an initial state
+     * @return the compiled DFA
+     * @throws IllegalArgumentException if the finite automaton has no initial
+     *                                  state, if an edge label is not a list of
+     *                                  symbols, or if the DFA is too large
+     */
+    public static CompiledDfa compile(CompactFiniteAutomaton finiteAutomaton)
+            throws IllegalArgumentException {
+        if (finiteAutomaton.getInitialState() ==
+            CompactFiniteAutomaton.NO_STATE) {
+            throw new IllegalArgumentException(
+                    "The finite automaton must have an initial state!");
+        }
+
+        // Parse each distinct edge label into its symbols, and number the
+        // symbols in alphabetical order.
+        int labelCount = finiteAutomaton.getLabelCount();
+        char[][] labelSymbols = new char[labelCount][];
+        boolean[] labelIsEmptyString = new boolean[labelCount];
+        int[] symbolIndices = new int[ASCII_SIZE];
+        for (int label = 0; label < labelCount; label++) {
+            StringBuilder symbols = new StringBuilder();
+            for (String symbol : finiteAutomaton.getLabel(label).split(",")) {
+                symbol = symbol.strip();
+                if (symbol.equals(EMPTY_STRING)) {
+                    labelIsEmptyString[label] = true;
+                }
+                else if (symbol.equals(EMPTY_SET)) {
+                    continue;
+                }
+                else if ((symbol.length() == 1) &&
+                         (symbol.charAt(0) < ASCII_SIZE)) {
+                    symbols.append(symbol.charAt(0));
+                    symbolIndices[symbol.charAt(0)] = 1;
+                }
+                else {
+                    throw new IllegalArgumentException(
+                            "Edge label " + finiteAutomaton.getLabel(label) +
+                            " is not a list of symbols!");
+                }
+            }
+            labelSymbols[label] = symbols.toString().toCharArray();
+        }
+        int symbolCount = 0;
+        for (int character = 0; character < ASCII_SIZE; character++) {
+            symbolIndices[character] =
+                    (symbolIndices[character] == 0) ? NO_SYMBOL : symbolCount++;
+        }
+
+        // Start from the closure of the initial state.
+        ArrayList<BitSet> dfaStates = new ArrayList<>();
+        HashMap<BitSet, Integer> dfaStateIds = new HashMap<>();
+        int[] stack = new int[finiteAutomaton.getStateCount()];
+        BitSet initialSet = new BitSet(finiteAutomaton.getStateCount());
+        initialSet.set(finiteAutomaton.getInitialState());
+        closure(finiteAutomaton, initialSet, labelIsEmptyString, stack);
+        dfaStates.add(initialSet);
+        dfaStateIds.put(initialSet, 0);
+
+        // Create the transitions of each DFA state, adding new DFA states as
+        // they are found.
+        int[] transitions = new int[Math.max(symbolCount, 1) * 16];
+        BitSet finalStates = finiteAutomaton.getFinalStates();
+        int[] accepting = new int[1];
+        BitSet[] moves = new BitSet[symbolCount];
+        for (int dfaState = 0; dfaState < dfaStates.size(); dfaState++) {
+            BitSet set = dfaStates.get(dfaState);
+
+            // Record whether the DFA state is accepting.
+            if (CompiledDfa.acceptingInts(dfaState + 1) > accepting.length) {
+                accepting = Arrays.copyOf(accepting, 2 * accepting.length);
+            }
+            if (set.intersects(finalStates)) {
+                accepting[dfaState >>> 5] |= 1 << (dfaState & 31);
+            }
+
+            // Find the states reached by each symbol.
+            Arrays.fill(moves, null);
+            for (int state = set.nextSetBit(0); state >= 0;
+                 state = set.nextSetBit(state + 1)) {
+                for (int edge = finiteAutomaton.getOutgoingOffset(state);
+                     edge < finiteAutomaton.getOutgoingOffset(state + 1);
+                     edge++) {
+                    for (char symbol :
+                            labelSymbols[finiteAutomaton.getEdgeLabel(edge)]) {
+                        int index = symbolIndices[symbol];
+                        if (moves[index] == null) {
+                            moves[index] = new BitSet(
+                                    finiteAutomaton.getStateCount());
+                        }
+                        moves[index].set(finiteAutomaton.getEdgeEnd(edge));
+                    }
+                }
+            }
+
+            // Close the reached states and look up or add their DFA states.
+            long rowEnd = (long) (dfaState + 1) * symbolCount;
+            if (rowEnd > Integer.MAX_VALUE / Integer.BYTES) {
+                throw new IllegalArgumentException("The DFA is too large!");
+            }
+            if (rowEnd > transitions.length) {
+                transitions = Arrays.copyOf(
+                        transitions,
+                        (int) Math.min(2L * transitions.length,
+                                       Integer.MAX_VALUE / Integer.BYTES));
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = NO_STATE;
+                if (moves[symbol] != null) {
+                    BitSet nextSet = moves[symbol];
+                    closure(finiteAutomaton, nextSet, labelIsEmptyString,
+                            stack);
+                    Integer nextId = dfaStateIds.get(nextSet);
+                    if (nextId == null) {
+                        nextId = dfaStates.size();
+                        dfaStates.add(nextSet);
+                        dfaStateIds.put(nextSet, nextId);
+                    }
+                    next = nextId;
+                }
+                transitions[(dfaState * symbolCount) + symbol] = next;
+            }
+        }
+
+        return CompiledDfa.create(symbolIndices, symbolCount,
+                                  dfaStates.size(), 0, accepting,
+                                  transitions);
+    }
+
+    /**
+     * Adds to the set every state reachable from it using only edges whose
+     * label contains the empty string symbol.
+     *
+     * @param finiteAutomaton    the finite automaton
+     * @param set                the set of states to close
+     * @param labelIsEmptyString whether each label contains the empty string
+     *                           symbol
+     * @param stack              an array with room for every state
+     */
+    private static void closure(CompactFiniteAutomaton finiteAutomaton,
+                                BitSet set, boolean[] labelIsEmptyString,
+                                int[] stack) {
+        int size = 0;
+        for (int state = set.nextSetBit(0); state >= 0;
+             state = set.nextSetBit(state + 1)) {
+            stack[size++] = state;
+        }
+        while (size > 0) {
+            int state = stack[--size];
+            for (int edge = finiteAutomaton.getOutgoingOffset(state);
+                 edge < finiteAutomaton.getOutgoingOffset(state + 1);
+                 edge++) {
+                int end = finiteAutomaton.getEdgeEnd(edge);
+                if (labelIsEmptyString[finiteAutomaton.getEdgeLabel(edge)] &&
+                    !set.get(end)) {
+                    set.set(end);
+                    stack[size++] = end;
+                }
+            }
+        }
+    }
+
+}
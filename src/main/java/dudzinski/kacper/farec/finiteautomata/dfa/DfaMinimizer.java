@@ -0,0 +1,167 @@
+package dudzinski.kacper.farec.finiteautomata.dfa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa.ASCII_SIZE;
+import static dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa.NO_STATE;
+import static dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa.NO_SYMBOL;
+
+/**
+ * This class is responsible for minimising compiled DFAs using Moore's
+ * partition refinement. The states are first split into accepting and
+ * non-accepting states, and then each group is split by the groups of the
+ * states reached by each symbol, until no group is split. The states of a
+ * group accept the same words, so each group becomes a single state.
+ * <p>
+ * Missing transitions lead to an implicit non-accepting state that loops on
+ * every symbol. The group of states equivalent to it is removed, so that the
+ * minimal DFA has no states from which no word is accepted, except for its
+ * initial state if it accepts no words at all.
+ *
+ * @see CompiledDfa
+ */
+public final class DfaMinimizer {
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private DfaMinimizer() {
+        throw new RuntimeException(
+                "The DfaMinimizer class should never be instantiated!");
+    }
+
+    /**
+     * Creates the minimal DFA accepting the same words as the given DFA. Its
+     * states are numbered in breadth-first order from the initial state, so
+     * equivalent DFAs with the same symbols have identical minimal DFAs.
+     *
+     * @param dfa the DFA to minimise
+     * @return the minimal DFA
+     */
+    public static CompiledDfa minimize(CompiledDfa dfa) {
+        // Find the character of each symbol.
+        int symbolCount = dfa.getSymbolCount();
+        int[] symbolIndices = new int[ASCII_SIZE];
+        char[] symbolChars = new char[symbolCount];
+        for (char character = 0; character < ASCII_SIZE; character++) {
+            symbolIndices[character] = dfa.symbolIndex(character);
+            if (symbolIndices[character] != NO_SYMBOL) {
+                symbolChars[symbolIndices[character]] = character;
+            }
+        }
+
+        // Copy the transitions, using an extra state for missing transitions.
+        int deadState = dfa.getStateCount();
+        int stateCount = deadState + 1;
+        int[] transitions = new int[stateCount * symbolCount];
+        Arrays.fill(transitions, deadState);
+        for (int state = 0; state < deadState; state++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = dfa.getTransition(state, symbolChars[symbol]);
+                if (next != NO_STATE) {
+                    transitions[(state * symbolCount) + symbol] = next;
+                }
+            }
+        }
+
+        // Start with the accepting and non-accepting groups, and split the
+        // groups until the number of groups does not change.
+        int[] groups = new int[stateCount];
+        for (int state = 0; state < deadState; state++) {
+            groups[state] = dfa.isAccepting(state) ? 1 : 0;
+        }
+        int groupCount = 0;
+        int[] signature = new int[symbolCount + 1];
+        while (true) {
+            HashMap<Signature, Integer> newGroupIds = new HashMap<>();
+            int[] newGroups = new int[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                signature[0] = groups[state];
+                for (int symbol = 0; symbol < symbolCount; symbol++) {
+                    signature[symbol + 1] =
+                            groups[transitions[(state * symbolCount) +
+                                               symbol]];
+                }
+                newGroups[state] = newGroupIds.computeIfAbsent(
+                        new Signature(signature.clone()),
+                        key -> newGroupIds.size());
+            }
+            groups = newGroups;
+            if (newGroupIds.size() == groupCount) {
+                break;
+            }
+            groupCount = newGroupIds.size();
+        }
+
+        // Number the groups in breadth-first order, leaving out the group of
+        // the extra state.
+        int[] groupStates = new int[groupCount];
+        Arrays.fill(groupStates, NO_STATE);
+        int[] representatives = new int[groupCount];
+        int minimalCount = 0;
+        if (groups[dfa.getInitialState()] == groups[deadState]) {
+            groupStates[groups[deadState]] = 0;
+            representatives[0] = deadState;
+            minimalCount = 1;
+        }
+        else {
+            groupStates[groups[dfa.getInitialState()]] = minimalCount;
+            representatives[minimalCount++] = dfa.getInitialState();
+        }
+        for (int index = 0; index < minimalCount; index++) {
+            int state = representatives[index];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int group = groups[transitions[(state * symbolCount) +
+                                               symbol]];
+                if ((group != groups[deadState]) &&
+                    (groupStates[group] == NO_STATE)) {
+                    groupStates[group] = minimalCount;
+                    representatives[minimalCount++] =
+                            transitions[(state * symbolCount) + symbol];
+                }
+            }
+        }
+
+        // Create the minimal DFA.
+        int[] accepting = new int[CompiledDfa.acceptingInts(minimalCount)];
+        int[] minimalTransitions = new int[minimalCount * symbolCount];
+        for (int index = 0; index < minimalCount; index++) {
+            int state = representatives[index];
+            if ((state != deadState) && dfa.isAccepting(state)) {
+                accepting[index >>> 5] |= 1 << (index & 31);
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int group = groups[transitions[(state * symbolCount) +
+                                               symbol]];
+                minimalTransitions[(index * symbolCount) + symbol] =
+                        (group == groups[deadState]) ? NO_STATE :
+                        groupStates[group];
+            }
+        }
+        return CompiledDfa.create(symbolIndices, symbolCount, minimalCount, 0,
+                                  accepting, minimalTransitions);
+    }
+
+    /**
+     * The group of a state followed by the groups of the states it reaches by
+     * each symbol.
+     *
+     * @param groups the groups
+     */
+    private record Signature(int[] groups) {
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof Signature signature) &&
+                   Arrays.equals(groups, signature.groups);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(groups);
+        }
+
+    }
+
+}
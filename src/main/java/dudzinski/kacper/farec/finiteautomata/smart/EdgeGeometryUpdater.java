@@ -0,0 +1,113 @@
+package dudzinski.kacper.farec.finiteautomata.smart;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.scene.Group;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+/**
+ * This class keeps the geometry of smart edges up to date with the positions
+ * of their states. Moving a state only marks its edges as out of date, and
+ * every out of date edge is updated once, at the start of the next frame. An
+ * edge whose state is moved many times between two frames, or whose label is
+ * resized as well, is therefore still only updated once.
+ * <p>
+ * This class is only used on the JavaFX application thread.
+ *
+ * @see SmartEdgeComponent
+ */
+final class EdgeGeometryUpdater {
+
+    // The out of date edges, in the order they were marked.
+    private static final LinkedHashSet<SmartEdgeComponent> dirtyEdges =
+            new LinkedHashSet<>();
+    private static AnimationTimer timer = null;
+    private static boolean running = false;
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private EdgeGeometryUpdater() {
+        throw new RuntimeException(
+                "The EdgeGeometryUpdater class should never be instantiated!");
+    }
+
+    /**
+     * Places the components of the given edge, and marks the edge as out of
+     * date whenever one of its states moves. The states only hold weak
+     * references to the edge.
+     *
+     * @param edge the edge to keep up to date
+     */
+    static void track(SmartEdgeComponent edge) {
+        InvalidationListener listener = edge.getWeakGeometryListener();
+        Group startContainer = edge.getStartState().getContainer();
+        Group endContainer = edge.getEndState().getContainer();
+        startContainer.translateXProperty().addListener(listener);
+        startContainer.translateYProperty().addListener(listener);
+        if (endContainer != startContainer) {
+            endContainer.translateXProperty().addListener(listener);
+            endContainer.translateYProperty().addListener(listener);
+        }
+        edge.updateGeometry();
+    }
+
+    /**
+     * Stops keeping the given edge up to date, and removes its listener from
+     * its states, so that states which outlive the edge do not collect
+     * listeners.
+     *
+     * @param edge the edge to stop keeping up to date
+     */
+    static void untrack(SmartEdgeComponent edge) {
+        InvalidationListener listener = edge.getWeakGeometryListener();
+        Group startContainer = edge.getStartState().getContainer();
+        Group endContainer = edge.getEndState().getContainer();
+        startContainer.translateXProperty().removeListener(listener);
+        startContainer.translateYProperty().removeListener(listener);
+        endContainer.translateXProperty().removeListener(listener);
+        endContainer.translateYProperty().removeListener(listener);
+        dirtyEdges.remove(edge);
+    }
+
+    /**
+     * Marks the given edge as out of date, and makes sure the out of date
+     * edges are updated at the start of the next frame.
+     *
+     * @param edge the out of date edge
+     */
+    static void invalidate(SmartEdgeComponent edge) {
+        if (dirtyEdges.add(edge) && !running) {
+            if (timer == null) {
+                timer = new AnimationTimer() {
+                    @Override
+                    public void handle(long now) {
+                        flush();
+                        if (dirtyEdges.isEmpty()) {
+                            stop();
+                            running = false;
+                        }
+                    }
+                };
+            }
+            timer.start();
+            running = true;
+        }
+    }
+
+    /**
+     * Updates every out of date edge now.
+     */
+    static void flush() {
+        // Copy the edges first, so that edges marked as out of date while
+        // updating are kept for the next frame.
+        ArrayList<SmartEdgeComponent> edges = new ArrayList<>(dirtyEdges);
+        dirtyEdges.clear();
+        for (SmartEdgeComponent edge : edges) {
+            edge.updateGeometry();
+        }
+    }
+
+}
@@ -2,7 +2,7 @@ package dudzinski.kacper.farec.finiteautomata.smart;
 
 import javafx.scene.control.Label;
 import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Shape;
+import javafx.scene.shape.QuadCurve;
 
 /**
  * This class represents a smart edge in a finite automaton. A smart edge is an
@@ -19,65 +19,71 @@ import javafx.scene.shape.Shape;
  */
 public final class SmartEdge extends SmartEdgeComponent {
 
-    private boolean isCurved = false;
+    private boolean isCurved;
 
     /**
      * Creates an edge between two different states.
      *
-     * @param edgeShape  the shape of the edge (a line or a curve)
+     * @param curve      the curve of the edge, which is drawn as a straight
+     *                   line while the edge is not curved
      * @param arrowhead  the arrowhead at the end of the edge
      * @param label      the label on the edge
      * @param startState the start state of the edge
      * @param endState   the end state of the edge
+     * @param isCurved   whether the edge is curved (true), or straight (false)
      * @throws IllegalArgumentException if the two states are the same
      */
-    public SmartEdge(Shape edgeShape, Polygon arrowhead, Label label,
-                     SmartState startState, SmartState endState)
+    public SmartEdge(QuadCurve curve, Polygon arrowhead, Label label,
+                     SmartState startState, SmartState endState,
+                     boolean isCurved)
             throws IllegalArgumentException {
-        super(edgeShape, arrowhead, label, startState, endState);
+        super(curve, arrowhead, label, startState, endState);
 
         if (startState == endState) {
             throw new IllegalArgumentException(
                     "The two states cannot be the same!");
         }
+        this.isCurved = isCurved;
+    }
+
+    /**
+     * Returns whether the edge is a curve or a straight line.
+     *
+     * @return true if the edge is a curve, false if it is a straight line
+     */
+    public boolean isCurved() {
+        return isCurved;
     }
 
     /**
      * Sets the edge as a curve or a straight line. If <code>setCurve</code> is
      * true, the edge will be a curve. If <code>setCurve</code> is false, the
-     * edge will be a straight line.
+     * edge will be a straight line. The same components are kept either way,
+     * and only their geometry changes.
      *
      * @param setCurve whether to set the edge as a curve (true), or a straight
      *                 line (false)
      */
     public void setCurved(boolean setCurve) {
         // Check if anything needs to be done.
-        if ((setCurve && !isCurved) || (!setCurve && isCurved)) {
+        if (setCurve != isCurved) {
             isCurved = setCurve;
-
-            // Create a new edge that has the correct line shape.
-            SmartEdge newEdge;
-            if (setCurve) {
-                newEdge = SmartFiniteAutomatonBuilder.createCurvedEdge(
-                        label.getText(), startState, endState);
-            }
-            else {
-                newEdge = SmartFiniteAutomatonBuilder.createStraightEdge(
-                        label.getText(), startState, endState);
-            }
-
-            // Set the stroke of the new edge to the stroke of this edge.
-            newEdge.setStroke(this.getStroke());
-
-            // Steal the components of the new edge.
-            edgeShape = newEdge.edgeShape;
-            arrowhead = newEdge.arrowhead;
-            label = newEdge.label;
-
-            // Clear the container and add the new components.
-            container.getChildren().clear();
-            container.getChildren().addAll(edgeShape, arrowhead, label);
+            updateGeometry();
         }
     }
 
+    /**
+     * Places the curve, arrowhead and label between the current positions of
+     * the states.
+     */
+    @Override
+    void updateGeometry() {
+        SmartFiniteAutomatonBuilder.layoutEdge(
+                (QuadCurve) edgeShape, arrowhead, label,
+                startState.getContainer().getTranslateX(),
+                startState.getContainer().getTranslateY(),
+                endState.getContainer().getTranslateX(),
+                endState.getContainer().getTranslateY(), isCurved);
+    }
+
 }
@@ -1,6 +1,7 @@
 package dudzinski.kacper.farec.finiteautomata.smart;
 
-import dudzinski.kacper.farec.finiteautomata.graphical.GraphicalEdge;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
 import javafx.scene.Group;
 import javafx.scene.control.Label;
 import javafx.scene.paint.Paint;
@@ -20,19 +21,28 @@ import javafx.scene.shape.Shape;
  * If the two states connected by an edge are different states, the edge is a
  * {@link SmartEdge}. If the two states connected by an edge are the same state,
  * the edge is a {@link SmartLoopEdge}.
+ * <p>
+ * The geometry of an edge is not bound to its states. Instead, moving a state
+ * or resizing the label marks the edge as out of date, and all out of date
+ * edges are updated together once per frame.
  *
  * @see SmartEdge
  * @see SmartLoopEdge
- * @see GraphicalEdge
  */
 public abstract class SmartEdgeComponent extends SmartComponent {
 
     protected final Group container = new Group();
     protected final SmartState startState;
     protected final SmartState endState;
-    protected Shape edgeShape;
-    protected Polygon arrowhead;
-    protected Label label;
+    protected final Shape edgeShape;
+    protected final Polygon arrowhead;
+    protected final Label label;
+    // Marks this edge as out of date. The states only hold weak references to
+    // it, so it lives as long as this edge.
+    private final InvalidationListener geometryListener =
+            observable -> EdgeGeometryUpdater.invalidate(this);
+    private final InvalidationListener weakGeometryListener =
+            new WeakInvalidationListener(geometryListener);
 
     /**
      * Creates an edge between two (not necessarily unique) states.
@@ -52,8 +62,29 @@ public abstract class SmartEdgeComponent extends SmartComponent {
         this.endState = endState;
         container.getChildren().addAll(edgeShape, arrowhead, label);
         container.setId("selectable");
+
+        // Mark this edge as out of date whenever the size of the label
+        // changes, since the label is centred on a point of the edge.
+        label.widthProperty().addListener(geometryListener);
+        label.heightProperty().addListener(geometryListener);
+    }
+
+    /**
+     * Returns a weak reference to the listener that marks this edge as out of
+     * date, for the states to hold.
+     *
+     * @return the weak geometry listener of this edge
+     */
+    InvalidationListener getWeakGeometryListener() {
+        return weakGeometryListener;
     }
 
+    /**
+     * Places the edge shape, arrowhead and label according to the current
+     * positions of the states.
+     */
+    abstract void updateGeometry();
+
     /**
      * Returns the container of this edge. The container contains the edge
      * shape, arrowhead and label.
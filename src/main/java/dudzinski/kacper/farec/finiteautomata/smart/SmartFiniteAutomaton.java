@@ -2,16 +2,20 @@ package dudzinski.kacper.farec.finiteautomata.smart;
 
 import dudzinski.kacper.farec.controllers.ConvertFAScreenController;
 import dudzinski.kacper.farec.controllers.CreateFAScreenController;
-import dudzinski.kacper.farec.finiteautomata.graphical.GraphicalFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.GraphTraversal;
+import javafx.animation.AnimationTimer;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.Pane;
 import javafx.util.Pair;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
 
@@ -27,21 +31,39 @@ import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
  * same direction are not allowed. A state may have a single transition to
  * itself, called a loop, but multiple loops for the same state are not allowed.
  * One of the states of the finite automaton is designated as the initial state
- * and a second, different state is designated as the final state.
+ * and any number of states are designated as final (accepting) states. The
+ * initial state may also be a final state.
+ * <p>
+ * Adding an edge container to the front of the children of the container, or
+ * removing a container from them, takes time linear in the number of children.
+ * These changes are therefore queued, and applied together in a single pass at
+ * the start of the next frame, or when the container is requested. Removed
+ * containers are hidden straight away. Removing many states or edges at once,
+ * for example when trimming the finite automaton, therefore takes one pass
+ * over the children rather than one pass per component.
  *
- * @see GraphicalFiniteAutomaton
  * @see SmartComponent
  */
 public final class SmartFiniteAutomaton {
 
     private final CreateFAScreenController createFAController;
     private final Pane container = new Pane();
-    private final ArrayList<SmartState> states = new ArrayList<>();
-    private final ArrayList<SmartEdgeComponent> edges = new ArrayList<>();
+    private final LinkedHashSet<SmartState> states = new LinkedHashSet<>();
+    private final LinkedHashSet<SmartEdgeComponent> edges =
+            new LinkedHashSet<>();
+    private final HashMap<EdgeKey, SmartEdgeComponent> edgeIndex =
+            new HashMap<>();
     private ConvertFAScreenController convertFAController;
     private boolean underConstruction = true;
     private SmartState initialState;
-    private SmartState finalState;
+    private final LinkedHashSet<SmartState> finalStates =
+            new LinkedHashSet<>();
+    // The edge containers waiting to be added to the front of the children of
+    // the container, and the containers waiting to be removed from them.
+    private final LinkedHashSet<Node> pendingAdditions = new LinkedHashSet<>();
+    private final HashSet<Node> pendingRemovals = new HashSet<>();
+    private AnimationTimer childrenTimer = null;
+    private boolean childrenTimerRunning = false;
 
     /**
      * Creates a new finite automaton and sets the construction controller. The
@@ -68,44 +90,66 @@ public final class SmartFiniteAutomaton {
 
     /**
      * Returns the container of this finite automaton. The container holds the
-     * containers of all the components of this finite automaton.
+     * containers of all the components of this finite automaton. Any queued
+     * changes to its children are applied first.
      *
      * @return the container of this finite automaton
      */
     public Pane getContainer() {
+        applyChildrenChanges();
         return container;
     }
 
     /**
-     * Returns the list of states for this finite automaton.
+     * Returns the set of states for this finite automaton, in the order in
+     * which they were added.
      *
-     * @return the list of states for this finite automaton
+     * @return the set of states for this finite automaton
      */
-    public ArrayList<SmartState> getStates() {
+    public LinkedHashSet<SmartState> getStates() {
         return states;
     }
 
     /**
-     * Returns the list of edges for this finite automaton.
+     * Returns the set of edges for this finite automaton, in the order in
+     * which they were added.
      *
-     * @return the list of edges for this finite automaton
+     * @return the set of edges for this finite automaton
      */
-    public ArrayList<SmartEdgeComponent> getEdges() {
+    public LinkedHashSet<SmartEdgeComponent> getEdges() {
         return edges;
     }
 
+    /**
+     * Returns the edge from the start state to the end state. The edges are
+     * indexed by their start and end state, so this takes constant time.
+     *
+     * @param startState the start state of the edge
+     * @param endState   the end state of the edge
+     * @return the edge from the start state to the end state, or
+     * <code>null</code> if there is no such edge
+     */
+    public SmartEdgeComponent getEdge(SmartState startState,
+                                      SmartState endState) {
+        return edgeIndex.get(new EdgeKey(startState, endState));
+    }
+
     /**
      * Adds the given state to this finite automaton. The state is added to the
-     * list of states and its container is added to the container of this finite
+     * set of states and its container is added to the container of this finite
      * automaton. The user interaction behaviour for the state is set. The
      * minimum size of this finite automaton container is also updated.
      *
      * @param state the state to add to this finite automaton
      */
     public void addState(SmartState state) {
-        // Add the state.
+        // Add the state. States are added after the edges, so appending its
+        // container does not shift the other children.
         states.add(state);
-        container.getChildren().add(state.getContainer());
+        if (!pendingRemovals.remove(state.getContainer())) {
+            container.getChildren().add(state.getContainer());
+        }
+        state.getContainer().setVisible(true);
 
         // Set the user interaction behaviour.
         if (underConstruction) {
@@ -121,52 +165,46 @@ public final class SmartFiniteAutomaton {
 
     /**
      * Removes the given state from this finite automaton. The state is removed
-     * from the list of states and its container is removed from the container
-     * of this finite automaton. If the state is the initial state or the final
-     * state of this finite automaton, the corresponding class variables will be
-     * set to <code>null</code>. Removing the state will also remove any edges
-     * connected to it.
+     * from the set of states and its container is removed from the container
+     * of this finite automaton. If the state is the initial state of this
+     * finite automaton, the initial state will be set to <code>null</code>. If
+     * the state is a final state, it is removed from the set of final states.
+     * Removing the state will also remove any edges connected to it.
      *
      * @param state the state to remove
      */
     public void removeState(SmartState state) {
-        // If the state is an initial or final state, set these to null.
+        // If the state is an initial or final state, remove it as such.
         if (initialState == state) {
             initialState = null;
         }
-        if (finalState == state) {
-            finalState = null;
-        }
-
-        // Remove edges attached to the state.
-        Iterator<SmartEdgeComponent> it = edges.iterator();
-        while (it.hasNext()) {
-            SmartEdgeComponent edge = it.next();
-            if (edge.getStartState() == state) {
-                state.removeOutgoingEdge(edge);
-                edge.getEndState().removeIncomingEdge(edge);
-                container.getChildren().remove(edge.getContainer());
-                it.remove();
-            }
-            else if (edge.getEndState() == state) {
-                state.removeIncomingEdge(edge);
-                edge.getStartState().removeOutgoingEdge(edge);
-                container.getChildren().remove(edge.getContainer());
-                it.remove();
-            }
+        finalStates.remove(state);
+
+        // Remove edges attached to the state. Only the edges incident to the
+        // state are visited.
+        LinkedHashSet<SmartEdgeComponent> incidentEdges =
+                new LinkedHashSet<>(state.getIncomingEdges());
+        incidentEdges.addAll(state.getOutgoingEdges());
+        for (SmartEdgeComponent edge : incidentEdges) {
+            edge.getStartState().removeOutgoingEdge(edge);
+            edge.getEndState().removeIncomingEdge(edge);
+            edgeIndex.remove(new EdgeKey(edge.getStartState(),
+                                         edge.getEndState()));
+            edges.remove(edge);
+            queueRemoval(edge.getContainer());
         }
 
         // Remove the state.
         states.remove(state);
-        container.getChildren().remove(state.getContainer());
+        queueRemoval(state.getContainer());
     }
 
     /**
      * Adds the given edge to this finite automaton. The edge is added to the
-     * list of edges and its container is added to the container of this finite
+     * set of edges and its container is added to the container of this finite
      * automaton. If there is already an edge that has the same start and end
-     * state, it is replaced by the new edge. The list of outgoing edges of the
-     * start state and the list of incoming edges of the end state is updated to
+     * state, it is replaced by the new edge. The set of outgoing edges of the
+     * start state and the set of incoming edges of the end state is updated to
      * reflect the addition of the edge. The user interaction behaviour for the
      * edge is set. The states connected to the edge are checked for symmetric
      * edges.
@@ -179,13 +217,7 @@ public final class SmartFiniteAutomaton {
         SmartState endState = edge.getEndState();
 
         // Check for an existing, equivalent edge.
-        SmartEdgeComponent oldEdge = null;
-        for (SmartEdgeComponent existingEdge : edges) {
-            if ((existingEdge.getStartState() == startState) &&
-                (existingEdge.getEndState() == endState)) {
-                oldEdge = existingEdge;
-            }
-        }
+        SmartEdgeComponent oldEdge = getEdge(startState, endState);
 
         // If there is an existing, equivalent edge, remove it.
         if (oldEdge != null) {
@@ -198,7 +230,8 @@ public final class SmartFiniteAutomaton {
 
         // Add the edge.
         edges.add(edge);
-        container.getChildren().add(0, edge.getContainer());
+        edgeIndex.put(new EdgeKey(startState, endState), edge);
+        queueAddition(edge.getContainer());
 
         // Set the user interaction behaviour.
         if (underConstruction) {
@@ -214,9 +247,9 @@ public final class SmartFiniteAutomaton {
 
     /**
      * Removes the given edge from this finite automaton. The edge is removed
-     * from the list of edges and its container is removed from the container of
-     * this finite automaton. The list of outgoing edges of the start state and
-     * the list of incoming edges of the end state is updated to reflect the
+     * from the set of edges and its container is removed from the container of
+     * this finite automaton. The set of outgoing edges of the start state and
+     * the set of incoming edges of the end state is updated to reflect the
      * removal of the edge. The states connected to the edge are checked for
      * symmetric edges.
      *
@@ -233,12 +266,85 @@ public final class SmartFiniteAutomaton {
 
         // Remove the edge.
         edges.remove(edge);
-        container.getChildren().remove(edge.getContainer());
+        edgeIndex.remove(new EdgeKey(startState, endState), edge);
+        queueRemoval(edge.getContainer());
 
         // Check for symmetric edges.
         checkSymmetricEdges(startState, endState);
     }
 
+    /**
+     * Queues the given edge container to be added to the front of the children
+     * of the container, behind the states. If the container is still waiting
+     * to be removed, it is kept instead.
+     *
+     * @param node the edge container to add
+     */
+    private void queueAddition(Node node) {
+        node.setVisible(true);
+        if (!pendingRemovals.remove(node)) {
+            pendingAdditions.add(node);
+            startChildrenTimer();
+        }
+    }
+
+    /**
+     * Hides the given container and queues it to be removed from the children
+     * of the container. If the container is still waiting to be added, it is
+     * not added.
+     *
+     * @param node the container to remove
+     */
+    private void queueRemoval(Node node) {
+        if (!pendingAdditions.remove(node)) {
+            node.setVisible(false);
+            pendingRemovals.add(node);
+            startChildrenTimer();
+        }
+    }
+
+    /**
+     * Makes sure the queued changes to the children of the container are
+     * applied at the start of the next frame.
+     */
+    private void startChildrenTimer() {
+        if (!childrenTimerRunning) {
+            if (childrenTimer == null) {
+                childrenTimer = new AnimationTimer() {
+                    @Override
+                    public void handle(long now) {
+                        applyChildrenChanges();
+                    }
+                };
+            }
+            childrenTimer.start();
+            childrenTimerRunning = true;
+        }
+    }
+
+    /**
+     * Applies the queued changes to the children of the container, with one
+     * pass over the children for the removals and one for the additions.
+     */
+    private void applyChildrenChanges() {
+        List<Node> children = container.getChildren();
+        if (!pendingRemovals.isEmpty()) {
+            children.removeAll(pendingRemovals);
+            for (Node node : pendingRemovals) {
+                node.setVisible(true);
+            }
+            pendingRemovals.clear();
+        }
+        if (!pendingAdditions.isEmpty()) {
+            children.addAll(0, pendingAdditions);
+            pendingAdditions.clear();
+        }
+        if (childrenTimerRunning) {
+            childrenTimer.stop();
+            childrenTimerRunning = false;
+        }
+    }
+
     /**
      * Returns the initial state of this finite automaton. May be null if the
      * automaton is still under construction.
@@ -252,9 +358,8 @@ public final class SmartFiniteAutomaton {
     /**
      * Sets the state as the initial state of this finite automaton. The state
      * is updated to look like an initial state. The previous initial state is
-     * updated to look like a normal state. A state cannot be both initial and
-     * final, so if the state is also the final state of this finite automaton,
-     * it is removed as the final state.
+     * updated to look like a non-initial state. Whether the state is a final
+     * state is not changed.
      *
      * @param state the state to be set as the initial state of this finite
      *              automaton
@@ -265,55 +370,45 @@ public final class SmartFiniteAutomaton {
             initialState.setAsInitial(false);
         }
 
-        // If the state is also the final state, remove it as the final state.
-        if (state == finalState) {
-            finalState = null;
-            state.setAsFinal(false);
-        }
-
         // Set the state as the initial state.
         initialState = state;
         state.setAsInitial(true);
     }
 
     /**
-     * Returns the final state of this finite automaton. May be null if the
-     * automaton is still under construction.
+     * Returns the set of final states of this finite automaton. May be empty if
+     * the automaton is still under construction.
      *
-     * @return the final state of this finite automaton
+     * @return the set of final states of this finite automaton
      */
-    public SmartState getFinalState() {
-        return finalState;
+    public LinkedHashSet<SmartState> getFinalStates() {
+        return finalStates;
     }
 
     /**
-     * Sets the state as the final state of this finite automaton. The state is
-     * updated to look like a final state. The previous final state is updated
-     * to look like a normal state. A state cannot be both initial and final, so
-     * if the state is also the initial state of this finite automaton, it is
-     * removed as the initial state.
+     * Adds the state to the set of final states of this finite automaton. The
+     * state is updated to look like a final state.
      *
-     * @param state the state to be set as the final state of this finite
+     * @param state the state to be set as a final state of this finite
      *              automaton
      */
-    public void setFinalState(SmartState state) {
-        // If there is already a final state, set it back to normal.
-        if (finalState != null) {
-            finalState.setAsFinal(false);
-        }
-
-        // If the state is also the initial state, remove it as the initial
-        // state.
-        if (state == initialState) {
-            initialState = null;
-            state.setAsInitial(false);
-        }
-
-        // Set the state as the final state.
-        finalState = state;
+    public void addFinalState(SmartState state) {
+        finalStates.add(state);
         state.setAsFinal(true);
     }
 
+    /**
+     * Removes the state from the set of final states of this finite automaton.
+     * The state is updated to look like a non-final state.
+     *
+     * @param state the state to be set as a non-final state of this finite
+     *              automaton
+     */
+    public void removeFinalState(SmartState state) {
+        finalStates.remove(state);
+        state.setAsFinal(false);
+    }
+
     /**
      * Updates the minimum size of the container of this finite automaton such
      * that all the components are within the new minimum size. The minimum
@@ -353,45 +448,76 @@ public final class SmartFiniteAutomaton {
 
     /**
      * Checks whether this finite automaton is a valid finite automaton. A valid
-     * finite automaton must have an initial state and a final state. Every
-     * state in this finite automaton must be reachable from the initial state.
+     * finite automaton must have an initial state and at least one final
+     * state. Every state in this finite automaton must be reachable from the
+     * initial state.
      *
      * @return true if this finite automaton is valid, false otherwise
      */
     public boolean isValid() {
         // If there is no initial state or no final state, the finite automaton
         // is not valid.
-        if ((initialState == null) || (finalState == null)) {
+        if ((initialState == null) || finalStates.isEmpty()) {
             return false;
         }
 
-        // Get a list of all states reachable from the initial state by doing
-        // breadth-first search.
-        ArrayList<SmartState> openList = new ArrayList<>();
-        openList.add(initialState);
-        ArrayList<SmartState> closedList = new ArrayList<>();
-        while (!openList.isEmpty()) {
-            SmartState currentState = openList.remove(0);
-            closedList.add(currentState);
-            for (SmartEdgeComponent outgoingEdge :
-                    currentState.getOutgoingEdges()) {
-                SmartState child = outgoingEdge.getEndState();
-                if (!openList.contains(child) && !closedList.contains(child)) {
-                    openList.add(child);
-                }
-            }
+        // The finite automaton is valid if every state is reachable from the
+        // initial state.
+        return getReachableStates().size() == states.size();
+    }
+
+    /**
+     * Returns the states reachable from the initial state (including the
+     * initial state), in breadth-first order.
+     *
+     * @return the states reachable from the initial state, or an empty set if
+     * there is no initial state
+     */
+    public LinkedHashSet<SmartState> getReachableStates() {
+        if (initialState == null) {
+            return new LinkedHashSet<>();
         }
+        return GraphTraversal.breadthFirstSearch(
+                initialState, (state, visit) -> {
+                    for (SmartEdgeComponent edge : state.getOutgoingEdges()) {
+                        visit.accept(edge.getEndState());
+                    }
+                });
+    }
 
-        // If there is a state that cannot be reached from the initial state,
-        // the finite automaton is not valid.
+    /**
+     * Returns the states from which a final state is reachable (including the
+     * final states), in breadth-first order from the final states.
+     *
+     * @return the states from which a final state is reachable
+     */
+    public LinkedHashSet<SmartState> getCoReachableStates() {
+        return GraphTraversal.multiSourceBreadthFirstSearch(
+                finalStates, (state, visit) -> {
+                    for (SmartEdgeComponent edge : state.getIncomingEdges()) {
+                        visit.accept(edge.getStartState());
+                    }
+                });
+    }
+
+    /**
+     * Returns the useless states of this finite automaton: the states that are
+     * not reachable from the initial state or from which no final state is
+     * reachable.
+     *
+     * @return the useless states of this finite automaton
+     */
+    public LinkedHashSet<SmartState> getUselessStates() {
+        LinkedHashSet<SmartState> reachableStates = getReachableStates();
+        LinkedHashSet<SmartState> coReachableStates = getCoReachableStates();
+        LinkedHashSet<SmartState> uselessStates = new LinkedHashSet<>();
         for (SmartState state : states) {
-            if (!closedList.contains(state)) {
-                return false;
+            if (!reachableStates.contains(state) ||
+                !coReachableStates.contains(state)) {
+                uselessStates.add(state);
             }
         }
-
-        // Otherwise, the finite automaton is valid.
-        return true;
+        return uselessStates;
     }
 
     /**
@@ -468,26 +594,22 @@ public final class SmartFiniteAutomaton {
                     "The two states cannot be the same!");
         }
 
-        // Declare the edges
-        SmartEdge s1ToS2 = null;
-        SmartEdge s2ToS1 = null;
-
-        // Get the edge from state1 to state2 if it exists.
-        for (SmartEdgeComponent edge : state1.getOutgoingEdges()) {
-            if (edge.getEndState() == state2) {
-                s1ToS2 = (SmartEdge) edge;
-            }
-        }
-
-        // Get the edge from state2 to state1 if it exists.
-        for (SmartEdgeComponent edge : state2.getOutgoingEdges()) {
-            if (edge.getEndState() == state1) {
-                s2ToS1 = (SmartEdge) edge;
-            }
-        }
+        // Get the edges between the two states if they exist.
+        SmartEdge s1ToS2 = (SmartEdge) getEdge(state1, state2);
+        SmartEdge s2ToS1 = (SmartEdge) getEdge(state2, state1);
 
         // Return the edges.
         return new Pair<>(s1ToS2, s2ToS1);
     }
 
+    /**
+     * The key of an edge in the edge index. The states are compared by
+     * reference.
+     *
+     * @param startState the start state of the edge
+     * @param endState   the end state of the edge
+     */
+    private record EdgeKey(SmartState startState, SmartState endState) {
+    }
+
 }
@@ -0,0 +1,146 @@
+package dudzinski.kacper.farec.finiteautomata.smart;
+
+import dudzinski.kacper.farec.controllers.CreateFAScreenController;
+import dudzinski.kacper.farec.finiteautomata.LayeredLayout;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+
+/**
+ * This class is responsible for converting smart finite automata into compact
+ * finite automata and back. The labels, positions, edges and initial and
+ * final states are preserved.
+ *
+ * @see SmartFiniteAutomaton
+ * @see CompactFiniteAutomaton
+ */
+public final class SmartFiniteAutomatonAdapter {
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private SmartFiniteAutomatonAdapter() {
+        throw new RuntimeException(
+                "The SmartFiniteAutomatonAdapter class should never be " +
+                "instantiated!");
+    }
+
+    /**
+     * Creates a compact finite automaton equivalent to the given smart finite
+     * automaton. The states of the compact finite automaton are numbered in
+     * the order of the set of states of the smart finite automaton.
+     *
+     * @param finiteAutomaton the smart finite automaton
+     * @return an equivalent compact finite automaton
+     */
+    public static CompactFiniteAutomaton toCompact(
+            SmartFiniteAutomaton finiteAutomaton) {
+        CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder();
+
+        // Add the states.
+        IdentityHashMap<SmartState, Integer> stateIndices =
+                new IdentityHashMap<>();
+        for (SmartState state : finiteAutomaton.getStates()) {
+            stateIndices.put(state, builder.addState(
+                    state.getLabelText(),
+                    state.getContainer().getTranslateX(),
+                    state.getContainer().getTranslateY()));
+        }
+
+        // Add the edges.
+        for (SmartEdgeComponent edge : finiteAutomaton.getEdges()) {
+            builder.addEdge(stateIndices.get(edge.getStartState()),
+                            stateIndices.get(edge.getEndState()),
+                            edge.getLabelText());
+        }
+
+        // Set the initial and final states.
+        if (finiteAutomaton.getInitialState() != null) {
+            builder.setInitialState(
+                    stateIndices.get(finiteAutomaton.getInitialState()));
+        }
+        for (SmartState state : finiteAutomaton.getFinalStates()) {
+            builder.addFinalState(stateIndices.get(state));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Creates a smart finite automaton equivalent to the given compact finite
+     * automaton. The smart finite automaton is under construction, using the
+     * given controller. If the compact finite automaton has no layout, the
+     * states are placed in columns by a layered layout.
+     *
+     * @param finiteAutomaton    the compact finite automaton
+     * @param createFAController the controller for finite automaton
+     *                           construction window
+     * @return an equivalent smart finite automaton
+     */
+    public static SmartFiniteAutomaton toSmart(
+            CompactFiniteAutomaton finiteAutomaton,
+            CreateFAScreenController createFAController) {
+        SmartFiniteAutomaton smartFiniteAutomaton =
+                new SmartFiniteAutomaton(createFAController);
+
+        // Add the states.
+        ArrayList<SmartState> states =
+                new ArrayList<>(finiteAutomaton.getStateCount());
+        double[] positions = finiteAutomaton.hasLayout() ? null :
+                             new LayeredLayout(finiteAutomaton).getPositions();
+        for (int index = 0; index < finiteAutomaton.getStateCount(); index++) {
+            SmartState state = SmartFiniteAutomatonBuilder.createState(
+                    finiteAutomaton.getStateLabel(index));
+            if (finiteAutomaton.hasLayout()) {
+                state.getContainer().setTranslateX(
+                        finiteAutomaton.getX(index));
+                state.getContainer().setTranslateY(
+                        finiteAutomaton.getY(index));
+            }
+            else {
+                state.getContainer().setTranslateX(positions[2 * index]);
+                state.getContainer().setTranslateY(
+                        positions[(2 * index) + 1]);
+            }
+            smartFiniteAutomaton.addState(state);
+            states.add(state);
+        }
+
+        // Add the edges.
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            SmartState startState =
+                    states.get(finiteAutomaton.getEdgeStart(edge));
+            SmartState endState = states.get(finiteAutomaton.getEdgeEnd(edge));
+            String labelText = finiteAutomaton.getEdgeLabelText(edge);
+            if (startState == endState) {
+                smartFiniteAutomaton.addEdge(
+                        SmartFiniteAutomatonBuilder.createLoopEdge(labelText,
+                                                                   startState));
+            }
+            else {
+                smartFiniteAutomaton.addEdge(
+                        SmartFiniteAutomatonBuilder.createStraightEdge(
+                                labelText, startState, endState));
+            }
+        }
+
+        // Set the initial and final states.
+        if (finiteAutomaton.getInitialState() != NO_STATE) {
+            smartFiniteAutomaton.setInitialState(
+                    states.get(finiteAutomaton.getInitialState()));
+        }
+        for (int index = 0; index < finiteAutomaton.getStateCount(); index++) {
+            if (finiteAutomaton.isFinal(index)) {
+                smartFiniteAutomaton.addFinalState(states.get(index));
+            }
+        }
+
+        return smartFiniteAutomaton;
+    }
+
+}
@@ -2,7 +2,6 @@ package dudzinski.kacper.farec.finiteautomata.smart;
 
 import dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings;
 import dudzinski.kacper.farec.finiteautomata.graphical.GraphicalFiniteAutomatonBuilder;
-import javafx.beans.binding.DoubleBinding;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
@@ -10,6 +9,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.*;
 import javafx.scene.text.TextAlignment;
@@ -151,360 +151,206 @@ public final class SmartFiniteAutomatonBuilder {
     }
 
     /**
-     * Creates a straight edge.
+     * Creates a straight edge. The geometry of the edge follows its states,
+     * and is updated once per frame after either state moves.
      *
      * @param labelText  the text for the edge's label
      * @param startState the start state of the edge
      * @param endState   the end state of the edge
      * @return a straight edge
+     * @see EdgeGeometryUpdater
      */
     public static SmartEdge createStraightEdge(String labelText,
                                                SmartState startState,
                                                SmartState endState) {
-        // Create the line.
-        Line line = new Line();
-        line.setStrokeWidth(2 * EDGE_STROKE_RADIUS);
-        line.setStroke(EDGE_STROKE_COLOR);
-
-        // Bind the start of the line to the start state and the end of the
-        // line to the end state.
-        line.startXProperty()
-                .bind(startState.getContainer().translateXProperty());
-        line.startYProperty()
-                .bind(startState.getContainer().translateYProperty());
-        line.endXProperty().bind(endState.getContainer().translateXProperty());
-        line.endYProperty().bind(endState.getContainer().translateYProperty());
-
-        // Create the bindings for the translation needed to get from the start
-        // state to the end state.
-        DoubleBinding sToEX =
-                line.endXProperty().subtract(line.startXProperty());
-        DoubleBinding sToEY =
-                line.endYProperty().subtract(line.startYProperty());
-
-        // Create the binding for the arrowhead's x offset.
-        DoubleBinding arrowheadXOffset = new DoubleBinding() {
-            {
-                super.bind(sToEX, sToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInRadians =
-                        Math.atan(sToEY.getValue() / sToEX.getValue());
-                double offset = (STATE_RADIUS + STATE_STROKE_RADIUS +
-                                 (0.5 * ARROWHEAD_SIZE)) *
-                                Math.abs(Math.cos(angleInRadians));
-                if (sToEX.getValue() >= 0) {
-                    return -offset;
-                }
-                else {
-                    return offset;
-                }
-            }
-        };
-
-        // Create the binding for the arrowhead's y offset.
-        DoubleBinding arrowheadYOffset = new DoubleBinding() {
-            {
-                super.bind(sToEX, sToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angle = Math.atan(sToEY.getValue() / sToEX.getValue());
-                double offset = (STATE_RADIUS + STATE_STROKE_RADIUS +
-                                 (0.5 * ARROWHEAD_SIZE)) *
-                                Math.abs(Math.sin(angle));
-                if (sToEY.getValue() >= 0) {
-                    return -offset;
-                }
-                else {
-                    return offset;
-                }
-            }
-        };
-
-        //  Create the binding for the arrowhead angle.
-        DoubleBinding angleInDegrees = new DoubleBinding() {
-            {
-                super.bind(sToEX, sToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInDegrees = Math.toDegrees(
-                        Math.atan(sToEY.getValue() / sToEX.getValue()));
-                if (sToEX.getValue() >= 0) {
-                    return angleInDegrees;
-                }
-                else {
-                    return (180 + angleInDegrees);
-                }
-            }
-        };
-
-        // Create the arrowhead.
-        Polygon arrowhead = new Polygon(0, ARROWHEAD_SIZE, 0, -ARROWHEAD_SIZE,
-                                        ARROWHEAD_SIZE, 0);
-        arrowhead.setStrokeWidth(EDGE_STROKE_RADIUS);
-        arrowhead.setStroke(EDGE_STROKE_COLOR);
-
-        // Bind the arrowhead's position and angle so that the tip is always
-        // touching the end state and aiming at its centre.
-        arrowhead.translateXProperty()
-                .bind(line.endXProperty().subtract(0.5 * ARROWHEAD_SIZE)
-                              .add(arrowheadXOffset));
-        arrowhead.translateYProperty()
-                .bind(line.endYProperty().add(arrowheadYOffset));
-        arrowhead.rotateProperty().bind(angleInDegrees);
-
-        // Create the label.
-        Label label = new Label(labelText);
-        label.setAlignment(Pos.CENTER);
-        label.setTextAlignment(TextAlignment.CENTER);
-        label.setPadding(new Insets(0, 5, 0, 5));
-        label.setBackground(new Background(
-                new BackgroundFill(CONTAINER_COLOR, CornerRadii.EMPTY,
-                                   Insets.EMPTY)));
-
-        // Bind the label to the centre of the edge.
-        label.translateXProperty()
-                .bind(line.startXProperty().add(line.endXProperty()).divide(2)
-                              .subtract(label.widthProperty().divide(2)));
-        label.translateYProperty()
-                .bind(line.startYProperty().add(line.endYProperty()).divide(2)
-                              .subtract(label.heightProperty().divide(2)));
-
-        // Create the edge.
-        return new SmartEdge(line, arrowhead, label, startState, endState);
+        return createEdge(labelText, startState, endState, false);
     }
 
     /**
-     * Creates a curved edge.
+     * Creates a curved edge. The geometry of the edge follows its states, and
+     * is updated once per frame after either state moves.
      *
      * @param labelText  the text for the edge's label
      * @param startState the start state of the edge
      * @param endState   the end state of the edge
      * @return a curved edge
+     * @see EdgeGeometryUpdater
      */
     public static SmartEdge createCurvedEdge(String labelText,
                                              SmartState startState,
                                              SmartState endState) {
+        return createEdge(labelText, startState, endState, true);
+    }
+
+    /**
+     * Creates a loop edge. The geometry of the edge follows its state, and is
+     * updated once per frame after the state moves.
+     *
+     * @param labelText the text for the edge's label
+     * @param state     the state the edge is connected to
+     * @return a loop edge
+     * @see EdgeGeometryUpdater
+     */
+    public static SmartLoopEdge createLoopEdge(String labelText,
+                                               SmartState state) {
         // Create the curve.
-        QuadCurve curve = new QuadCurve();
+        CubicCurve curve = new CubicCurve();
         curve.setFill(Color.TRANSPARENT);
         curve.setStrokeWidth(2 * EDGE_STROKE_RADIUS);
         curve.setStroke(EDGE_STROKE_COLOR);
 
-        // Bind the start of the curve to the start state and the end of the
-        // curve to the end state.
-        curve.startXProperty()
-                .bind(startState.getContainer().translateXProperty());
-        curve.startYProperty()
-                .bind(startState.getContainer().translateYProperty());
-        curve.endXProperty().bind(endState.getContainer().translateXProperty());
-        curve.endYProperty().bind(endState.getContainer().translateYProperty());
-
-        // Create the bindings for the translation needed to get from the start
-        // state to the end state.
-        DoubleBinding sToEX =
-                curve.endXProperty().subtract(curve.startXProperty());
-        DoubleBinding sToEY =
-                curve.endYProperty().subtract(curve.startYProperty());
-
-        // Create the binding for the controlX offset.
-        DoubleBinding controlXOffset = new DoubleBinding() {
-            {
-                super.bind(sToEX, sToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angle = Math.atan(sToEY.getValue() / sToEX.getValue());
-                double controlPointOffsetSin = CURVED_CONTROL_POINT_DISTANCE *
-                                               Math.abs(Math.sin(angle));
-                if ((sToEY.getValue() >= 0) && (sToEX.getValue() >= 0)) {
-                    return (sToEX.getValue() / 2) + controlPointOffsetSin;
-                }
-                else if ((sToEY.getValue() >= 0) && (sToEX.getValue() < 0)) {
-                    return (sToEX.getValue() / 2) + controlPointOffsetSin;
-                }
-                else if ((sToEY.getValue() < 0) && (sToEX.getValue() < 0)) {
-                    return (sToEX.getValue() / 2) - controlPointOffsetSin;
-                }
-                else if ((sToEY.getValue() < 0) && (sToEX.getValue() >= 0)) {
-                    return (sToEX.getValue() / 2) - controlPointOffsetSin;
-                }
-                else {
-                    throw new AssertionError(
-                            "Something's wrong I can feel it.");
-                }
-            }
-        };
-
-        // Create the binding for controlY offset.
-        DoubleBinding controlYOffset = new DoubleBinding() {
-            {
-                super.bind(sToEX, sToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angle = Math.atan(sToEY.getValue() / sToEX.getValue());
-                double controlPointOffsetCos = CURVED_CONTROL_POINT_DISTANCE *
-                                               Math.abs(Math.cos(angle));
-                if ((sToEY.getValue() >= 0) && (sToEX.getValue() >= 0)) {
-                    return (sToEY.getValue() / 2) - controlPointOffsetCos;
-                }
-                else if ((sToEY.getValue() >= 0) && (sToEX.getValue() < 0)) {
-                    return (sToEY.getValue() / 2) + controlPointOffsetCos;
-                }
-                else if ((sToEY.getValue() < 0) && (sToEX.getValue() < 0)) {
-                    return (sToEY.getValue() / 2) + controlPointOffsetCos;
-                }
-                else if ((sToEY.getValue() < 0) && (sToEX.getValue() >= 0)) {
-                    return (sToEY.getValue() / 2) - controlPointOffsetCos;
-                }
-                else {
-                    throw new AssertionError(
-                            "Something's wrong I can feel it.");
-                }
-            }
-        };
-
-        // Bind the curved line's controlX and controlY properties.
-        curve.controlXProperty()
-                .bind(curve.startXProperty().add(controlXOffset));
-        curve.controlYProperty()
-                .bind(curve.startYProperty().add(controlYOffset));
-
-        // Create the bindings for the translation needed to get from the
-        // control point to the end state.
-        DoubleBinding cToEX =
-                curve.endXProperty().subtract(curve.controlXProperty());
-        DoubleBinding cToEY =
-                curve.endYProperty().subtract(curve.controlYProperty());
-
-        // Create the binding for the arrowhead's x offset.
-        DoubleBinding arrowheadXOffset = new DoubleBinding() {
-            {
-                super.bind(cToEX, cToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInRadians =
-                        Math.atan(cToEY.getValue() / cToEX.getValue());
-                double offset = (STATE_RADIUS + STATE_STROKE_RADIUS +
-                                 (0.5 * ARROWHEAD_SIZE)) *
-                                Math.abs(Math.cos(angleInRadians));
-                if (cToEX.getValue() >= 0) {
-                    return -offset;
-                }
-                else {
-                    return offset;
-                }
-            }
-        };
-
-        // Create the binding for the arrowhead's y offset.
-        DoubleBinding arrowheadYOffset = new DoubleBinding() {
-            {
-                super.bind(cToEX, cToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInRadians =
-                        Math.atan(cToEY.getValue() / cToEX.getValue());
-                double offset = (STATE_RADIUS + STATE_STROKE_RADIUS +
-                                 (0.5 * ARROWHEAD_SIZE)) *
-                                Math.abs(Math.sin(angleInRadians));
-                if (cToEY.getValue() >= 0) {
-                    return -offset;
-                }
-                else {
-                    return offset;
-                }
-            }
-        };
-
-        //  Create the binding for the arrowhead angle.
-        DoubleBinding angleInDegrees = new DoubleBinding() {
-            {
-                super.bind(cToEX, cToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInDegrees = Math.toDegrees(
-                        Math.atan(cToEY.getValue() / cToEX.getValue()));
-                if (cToEX.getValue() >= 0) {
-                    return angleInDegrees;
-                }
-                else {
-                    return (180 + angleInDegrees);
-                }
-            }
-        };
-
-        // Create the arrowhead.
-        Polygon arrowhead = new Polygon(0, ARROWHEAD_SIZE, 0, -ARROWHEAD_SIZE,
-                                        ARROWHEAD_SIZE, 0);
-        arrowhead.setStrokeWidth(EDGE_STROKE_RADIUS);
-        arrowhead.setStroke(EDGE_STROKE_COLOR);
+        // Create the edge and place its components.
+        SmartLoopEdge edge = new SmartLoopEdge(curve, createArrowhead(),
+                                               createEdgeLabel(labelText),
+                                               state);
+        EdgeGeometryUpdater.track(edge);
+        return edge;
+    }
 
-        // Bind the arrowhead's position and angle so that the tip is always
-        // touching the end state and aiming at its centre.
-        arrowhead.translateXProperty()
-                .bind(curve.endXProperty().subtract(ARROWHEAD_SIZE / 2)
-                              .add(arrowheadXOffset));
-        arrowhead.translateYProperty()
-                .bind(curve.endYProperty().add(arrowheadYOffset));
-        arrowhead.rotateProperty().bind(angleInDegrees);
+    /**
+     * Stops keeping the geometry of the given edge up to date with its states.
+     * The states no longer refer to the edge afterwards, which matters when
+     * the states are reused for other edges.
+     *
+     * @param edge the edge that is no longer shown
+     * @see EdgeGeometryUpdater
+     */
+    public static void disconnectEdge(SmartEdgeComponent edge) {
+        EdgeGeometryUpdater.untrack(edge);
+    }
 
-        // Create the label.
-        Label label = new Label(labelText);
-        label.setAlignment(Pos.CENTER);
-        label.setTextAlignment(TextAlignment.CENTER);
-        label.setPadding(new Insets(0, 5, 0, 5));
-        label.setBackground(new Background(
-                new BackgroundFill(CONTAINER_COLOR, CornerRadii.EMPTY,
-                                   Insets.EMPTY)));
+    /**
+     * Places the components of an edge between the centres of its states. The
+     * edge is always drawn as a quadratic curve. A straight edge has its
+     * control point in the middle of the line between the states, which
+     * makes the curve a straight line. A curved edge has its control point
+     * moved perpendicularly from there. The tip of the arrowhead touches the
+     * end state and aims at its centre, and the label is on the control point.
+     *
+     * @param curve     the curve of the edge
+     * @param arrowhead the arrowhead at the end of the edge
+     * @param label     the label on the edge
+     * @param startX    the horizontal position of the start state
+     * @param startY    the vertical position of the start state
+     * @param endX      the horizontal position of the end state
+     * @param endY      the vertical position of the end state
+     * @param curved    whether the edge is curved (true), or straight (false)
+     */
+    static void layoutEdge(QuadCurve curve, Polygon arrowhead, Region label,
+                           double startX, double startY, double endX,
+                           double endY, boolean curved) {
+        // Find the control point.
+        double sToEX = endX - startX;
+        double sToEY = endY - startY;
+        double length = Math.hypot(sToEX, sToEY);
+        double controlX = startX + (sToEX / 2);
+        double controlY = startY + (sToEY / 2);
+        if (curved && (length > 0)) {
+            controlX += CURVED_CONTROL_POINT_DISTANCE * sToEY / length;
+            controlY -= CURVED_CONTROL_POINT_DISTANCE * sToEX / length;
+        }
+
+        // Place the curve.
+        curve.setStartX(startX);
+        curve.setStartY(startY);
+        curve.setControlX(controlX);
+        curve.setControlY(controlY);
+        curve.setEndX(endX);
+        curve.setEndY(endY);
+
+        // Place the arrowhead and the label.
+        placeArrowhead(arrowhead, endX, endY, endX - controlX, endY - controlY,
+                       STATE_RADIUS + STATE_STROKE_RADIUS +
+                       (0.5 * ARROWHEAD_SIZE));
+        placeLabel(label, controlX, controlY);
+    }
 
-        // Bind the label to the control point.
-        label.translateXProperty().bind(curve.controlXProperty().subtract(
-                label.widthProperty().divide(2)));
-        label.translateYProperty().bind(curve.controlYProperty().subtract(
-                label.heightProperty().divide(2)));
+    /**
+     * Places the components of a loop edge around its state. The loop may be
+     * above the state or below the state depending on the value of the
+     * <code>topside</code> parameter.
+     *
+     * @param curve     the curve of the loop edge
+     * @param arrowhead the arrowhead at the end of the loop edge
+     * @param label     the label on the loop edge
+     * @param x         the horizontal position of the state
+     * @param y         the vertical position of the state
+     * @param topside   whether to place the loop above or below the state
+     *                  (true for above, false for below)
+     */
+    static void layoutLoopEdge(CubicCurve curve, Polygon arrowhead,
+                               Region label, double x, double y,
+                               boolean topside) {
+        // Create the side multiplier.
+        final int SIDE_MULTIPLIER = topside ? 1 : -1;
 
-        // Create the edge.
-        return new SmartEdge(curve, arrowhead, label, startState, endState);
+        // Place the curve from the left side of the state to the right side
+        // of the state.
+        curve.setStartX(x - STATE_RADIUS);
+        curve.setStartY(y);
+        curve.setEndX(x + STATE_RADIUS);
+        curve.setEndY(y);
+        curve.setControlX1(x - (2 * STATE_RADIUS));
+        curve.setControlY1(y - (SIDE_MULTIPLIER * LOOP_CONTROL_POINT_DISTANCE));
+        curve.setControlX2(x + (2 * STATE_RADIUS));
+        curve.setControlY2(y - (SIDE_MULTIPLIER * LOOP_CONTROL_POINT_DISTANCE));
+
+        // Place the arrowhead so that its tip touches the end of the curve,
+        // and the label in the middle of the curve.
+        placeArrowhead(arrowhead, x + STATE_RADIUS, y, -STATE_RADIUS,
+                       SIDE_MULTIPLIER * LOOP_CONTROL_POINT_DISTANCE,
+                       0.5 * ARROWHEAD_SIZE);
+        placeLabel(label, x, y - (SIDE_MULTIPLIER *
+                                  LOOP_CONTROL_POINT_DISTANCE));
     }
 
     /**
-     * Creates a loop edge.
+     * Creates an edge between two different states, and starts keeping its
+     * geometry up to date.
      *
-     * @param labelText the text for the edge's label
-     * @param state     the state the edge is connected to
-     * @return a loop edge
+     * @param labelText  the text for the edge's label
+     * @param startState the start state of the edge
+     * @param endState   the end state of the edge
+     * @param curved     whether the edge is curved (true), or straight (false)
+     * @return an edge
      */
-    public static SmartLoopEdge createLoopEdge(String labelText,
-                                               SmartState state) {
+    private static SmartEdge createEdge(String labelText,
+                                        SmartState startState,
+                                        SmartState endState, boolean curved) {
         // Create the curve.
-        CubicCurve curve = new CubicCurve();
+        QuadCurve curve = new QuadCurve();
         curve.setFill(Color.TRANSPARENT);
         curve.setStrokeWidth(2 * EDGE_STROKE_RADIUS);
         curve.setStroke(EDGE_STROKE_COLOR);
 
-        // Create the arrowhead.
+        // Create the edge and place its components.
+        SmartEdge edge = new SmartEdge(curve, createArrowhead(),
+                                       createEdgeLabel(labelText), startState,
+                                       endState, curved);
+        EdgeGeometryUpdater.track(edge);
+        return edge;
+    }
+
+    /**
+     * Creates an arrowhead for an edge, pointing right.
+     *
+     * @return the arrowhead
+     */
+    private static Polygon createArrowhead() {
         Polygon arrowhead = new Polygon(0, ARROWHEAD_SIZE, 0, -ARROWHEAD_SIZE,
                                         ARROWHEAD_SIZE, 0);
         arrowhead.setStrokeWidth(EDGE_STROKE_RADIUS);
         arrowhead.setStroke(EDGE_STROKE_COLOR);
+        return arrowhead;
+    }
 
-        // Create the label.
+    /**
+     * Creates a label for an edge.
+     *
+     * @param labelText the text for the label
+     * @return the label
+     */
+    private static Label createEdgeLabel(String labelText) {
         Label label = new Label(labelText);
         label.setAlignment(Pos.CENTER);
         label.setTextAlignment(TextAlignment.CENTER);
@@ -512,137 +358,46 @@ public final class SmartFiniteAutomatonBuilder {
         label.setBackground(new Background(
                 new BackgroundFill(CONTAINER_COLOR, CornerRadii.EMPTY,
                                    Insets.EMPTY)));
-
-        // Set the bindings
-        setLoopEdgeBindings(curve, arrowhead, label, state, true);
-
-        // Create the edge.
-        return new SmartLoopEdge(curve, arrowhead, label, state);
+        return label;
     }
 
     /**
-     * Sets the bindings for the components of a loop edge. This includes
-     * binding the start, end and control points of the curve, the position and
-     * angle of the arrowhead and the position of the label. These bindings may
-     * be above the state or below the state depending on the value of the
-     * <code>topside</code> parameter.
+     * Moves and rotates an arrowhead so that it points in the given direction,
+     * with its centre the given distance back from the given point.
      *
-     * @param curve     the curve of the loop edge
-     * @param arrowhead the arrowhead at the end of the loop edge
-     * @param label     the label on the loop edge
-     * @param state     the state the loop edge is connected to
-     * @param topside   whether to bind the components above or below the state
-     *                  (true for above, false for below)
+     * @param arrowhead  the arrowhead
+     * @param x          the horizontal position of the point
+     * @param y          the vertical position of the point
+     * @param directionX the horizontal component of the direction
+     * @param directionY the vertical component of the direction
+     * @param distance   the distance of the centre of the arrowhead from the
+     *                   point
      */
-    public static void setLoopEdgeBindings(CubicCurve curve, Polygon arrowhead,
-                                           Label label, SmartState state,
-                                           boolean topside) {
-        // Create the side multiplier.
-        final int SIDE_MULTIPLIER = topside ? 1 : -1;
+    private static void placeArrowhead(Polygon arrowhead, double x, double y,
+                                       double directionX, double directionY,
+                                       double distance) {
+        // Compute the direction once, pointing right if there is none.
+        double length = Math.hypot(directionX, directionY);
+        double unitX = (length > 0) ? (directionX / length) : 1;
+        double unitY = (length > 0) ? (directionY / length) : 0;
+
+        // The arrowhead rotates around the centre of its bounds.
+        arrowhead.setTranslateX(x - (0.5 * ARROWHEAD_SIZE) -
+                                (distance * unitX));
+        arrowhead.setTranslateY(y - (distance * unitY));
+        arrowhead.setRotate(Math.toDegrees(Math.atan2(unitY, unitX)));
+    }
 
-        // Bind the start of the curve to the left side of the state and the
-        // end of the curve to the right side of the state.
-        curve.startXProperty().bind(state.getContainer().translateXProperty()
-                                            .subtract(STATE_RADIUS));
-        curve.startYProperty().bind(state.getContainer().translateYProperty());
-        curve.endXProperty().bind(state.getContainer().translateXProperty()
-                                          .add(STATE_RADIUS));
-        curve.endYProperty().bind(state.getContainer().translateYProperty());
-
-        // Bind the curved line's controlX and controlY properties.
-        curve.controlX1Property()
-                .bind(curve.startXProperty().subtract(STATE_RADIUS));
-        curve.controlY1Property().bind(curve.startYProperty().subtract(
-                SIDE_MULTIPLIER * LOOP_CONTROL_POINT_DISTANCE));
-        curve.controlX2Property().bind(curve.endXProperty().add(STATE_RADIUS));
-        curve.controlY2Property().bind(curve.endYProperty().subtract(
-                SIDE_MULTIPLIER * LOOP_CONTROL_POINT_DISTANCE));
-
-        // Create the bindings for the translation needed to get from the
-        // control point to the end of the curve.
-        DoubleBinding cToEX =
-                curve.endXProperty().subtract(curve.controlX2Property());
-        DoubleBinding cToEY =
-                curve.endYProperty().subtract(curve.controlY2Property());
-
-        // Create the binding for the arrowhead's x offset.
-        DoubleBinding arrowheadXOffset = new DoubleBinding() {
-            {
-                super.bind(cToEX, cToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInRadians =
-                        Math.atan(cToEY.getValue() / cToEX.getValue());
-                double offset = (0.5 * ARROWHEAD_SIZE *
-                                 Math.abs(Math.cos(angleInRadians)));
-                if (cToEX.getValue() >= 0) {
-                    return -offset;
-                }
-                else {
-                    return offset;
-                }
-            }
-        };
-
-        // Create the binding for the arrowhead's Y offset.
-        DoubleBinding arrowheadYOffset = new DoubleBinding() {
-            {
-                super.bind(cToEX, cToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInRadians =
-                        Math.atan(cToEY.getValue() / cToEX.getValue());
-                double offset = (0.5 * ARROWHEAD_SIZE *
-                                 Math.abs(Math.sin(angleInRadians)));
-                if (cToEY.getValue() >= 0) {
-                    return -offset;
-                }
-                else {
-                    return offset;
-                }
-            }
-        };
-
-        //  Create the binding for the angle.
-        DoubleBinding angleInDegrees = new DoubleBinding() {
-            {
-                super.bind(cToEX, cToEY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angleInDegrees = Math.toDegrees(
-                        Math.atan(cToEY.getValue() / cToEX.getValue()));
-                if (cToEX.getValue() >= 0) {
-                    return angleInDegrees;
-                }
-                else {
-                    return (180 + angleInDegrees);
-                }
-            }
-        };
-
-        // Bind the arrowhead's position and angle so that the tip is always
-        // touching the state and aiming at its centre.
-        arrowhead.translateXProperty()
-                .bind(curve.endXProperty().subtract(ARROWHEAD_SIZE / 2)
-                              .add(arrowheadXOffset));
-        arrowhead.translateYProperty()
-                .bind(curve.endYProperty().add(arrowheadYOffset));
-        arrowhead.rotateProperty().bind(angleInDegrees);
-
-        // Bind the label to the middle of the curve.
-        label.translateXProperty()
-                .bind(state.getContainer().translateXProperty()
-                              .subtract(label.widthProperty().divide(2)));
-        label.translateYProperty()
-                .bind(state.getContainer().translateYProperty().subtract(
-                        label.heightProperty().divide(2).add(SIDE_MULTIPLIER *
-                                                             LOOP_CONTROL_POINT_DISTANCE)));
+    /**
+     * Moves a label so that its centre is at the given point.
+     *
+     * @param label the label
+     * @param x     the horizontal position of the point
+     * @param y     the vertical position of the point
+     */
+    private static void placeLabel(Region label, double x, double y) {
+        label.setTranslateX(x - (label.getWidth() / 2));
+        label.setTranslateY(y - (label.getHeight() / 2));
     }
 
 }
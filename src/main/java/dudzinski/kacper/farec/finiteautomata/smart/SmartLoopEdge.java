@@ -40,9 +40,19 @@ public final class SmartLoopEdge extends SmartEdgeComponent {
      */
     public void flip() {
         topside = !topside;
-        SmartFiniteAutomatonBuilder.setLoopEdgeBindings((CubicCurve) edgeShape,
-                                                        arrowhead, label,
-                                                        startState, topside);
+        updateGeometry();
+    }
+
+    /**
+     * Places the curve, arrowhead and label around the current position of
+     * the state.
+     */
+    @Override
+    void updateGeometry() {
+        SmartFiniteAutomatonBuilder.layoutLoopEdge(
+                (CubicCurve) edgeShape, arrowhead, label,
+                startState.getContainer().getTranslateX(),
+                startState.getContainer().getTranslateY(), topside);
     }
 
 }
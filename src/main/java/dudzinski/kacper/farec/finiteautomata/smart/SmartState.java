@@ -1,12 +1,11 @@
 package dudzinski.kacper.farec.finiteautomata.smart;
 
-import dudzinski.kacper.farec.finiteautomata.graphical.GraphicalState;
 import javafx.scene.Group;
 import javafx.scene.control.Label;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Circle;
 
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 
 /**
  * This class represents a smart state in a finite automaton. A smart state is a
@@ -15,21 +14,20 @@ import java.util.ArrayList;
  * <p>
  * A state is a circular, labelled node. It is connected to other states by
  * directed edges (transitions). States keeps track of their incoming and
- * outgoing edges. A state may be marked as initial or final. An initial state
- * has a short, incoming edge that is not connected to any other state. A final
- * state has a second, inner circle.
- *
- * @see GraphicalState
+ * outgoing edges, in insertion-ordered sets so that edges can be added to and
+ * removed from a state in constant time. A state may be marked as initial or
+ * final. An initial state has a short, incoming edge that is not connected to
+ * any other state. A final state has a second, inner circle.
  */
 public final class SmartState extends SmartComponent {
 
     private final Group container = new Group();
     private final Circle circle;
     private final Label label;
-    private final ArrayList<SmartEdgeComponent> incomingEdges =
-            new ArrayList<>();
-    private final ArrayList<SmartEdgeComponent> outgoingEdges =
-            new ArrayList<>();
+    private final LinkedHashSet<SmartEdgeComponent> incomingEdges =
+            new LinkedHashSet<>();
+    private final LinkedHashSet<SmartEdgeComponent> outgoingEdges =
+            new LinkedHashSet<>();
     private boolean isInitial = false;
     private boolean isFinal = false;
 
@@ -172,7 +170,7 @@ public final class SmartState extends SmartComponent {
     }
 
     /**
-     * Adds the given edge to the list of incoming edges.
+     * Adds the given edge to the set of incoming edges.
      *
      * @param edge the incoming edge
      */
@@ -181,7 +179,7 @@ public final class SmartState extends SmartComponent {
     }
 
     /**
-     * Removes the edge from the list of incoming edges.
+     * Removes the edge from the set of incoming edges.
      *
      * @param edge the incoming edge
      */
@@ -190,16 +188,16 @@ public final class SmartState extends SmartComponent {
     }
 
     /**
-     * Returns the list of all edges incoming to this state.
+     * Returns the set of all edges incoming to this state.
      *
-     * @return the list of incoming edges
+     * @return the set of incoming edges
      */
-    public ArrayList<SmartEdgeComponent> getIncomingEdges() {
+    public LinkedHashSet<SmartEdgeComponent> getIncomingEdges() {
         return incomingEdges;
     }
 
     /**
-     * Adds the given edge to the list of outgoing edges.
+     * Adds the given edge to the set of outgoing edges.
      *
      * @param edge the outgoing edge
      */
@@ -208,7 +206,7 @@ public final class SmartState extends SmartComponent {
     }
 
     /**
-     * Removes the edge from the list of outgoing edges.
+     * Removes the edge from the set of outgoing edges.
      *
      * @param edge the outgoing edge
      */
@@ -217,11 +215,11 @@ public final class SmartState extends SmartComponent {
     }
 
     /**
-     * Returns the list of all outgoing edges from this state.
+     * Returns the set of all outgoing edges from this state.
      *
-     * @return the list of outgoing edges
+     * @return the set of outgoing edges
      */
-    public ArrayList<SmartEdgeComponent> getOutgoingEdges() {
+    public LinkedHashSet<SmartEdgeComponent> getOutgoingEdges() {
         return outgoingEdges;
     }
 
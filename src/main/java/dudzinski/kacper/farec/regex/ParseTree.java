@@ -29,9 +29,9 @@ public final class ParseTree {
     private final RegularExpression regularExpression;
     private final ParseTreeNode root;
 
-    // The greatest horizontal separation between two nodes.
+    // The greatest horizontal distance of a node from the centre.
     private double greatestX = 0;
-    // The greatest vertical separation between two nodes.
+    // The greatest vertical distance of a node from the root.
     private double greatestY = 0;
 
     /**
@@ -85,123 +85,41 @@ public final class ParseTree {
     }
 
     /**
-     * Builds the parse tree.
+     * Builds the parse tree. The positions of the nodes are computed by a
+     * {@link ParseTreeLayout} before any node is created.
      *
      * @return the root node of the built parse tree
      */
     private ParseTreeNode buildParseTree() {
-        // Create the parse tree nodes and connect them.
-        ParseTreeNode rootNode = buildParseTreeNodes(regularExpression, 0, 0);
-        connectNodes(rootNode);
-        return rootNode;
-    }
-
-    /**
-     * Builds the parse tree nodes for the given regular expression.
-     *
-     * @param regularExpression the regular expression for which to build a
-     *                          parse tree
-     * @param currentX          the horizontal separation used in the
-     *                          construction of the previous depth (initially
-     *                          0)
-     * @param currentY          the vertical separation used in the construction
-     *                          of the previous depth (initially 0)
-     * @return the root node of the built parse tree
-     * @throws IllegalArgumentException if the regular expression is neither
-     *                                  simple nor complex
-     */
-    private ParseTreeNode buildParseTreeNodes(
-            RegularExpression regularExpression, double currentX,
-            double currentY) throws IllegalArgumentException {
-        // If the regular expression is simple, it's parse tree is just a single
-        // node.
-        if (regularExpression instanceof SimpleRegularExpression simpleRegex) {
-            // Create the leaf node.
-            StackPane leafNodePane = createNodePane(simpleRegex.getSymbol());
-
-            // Move the leaf node into position.
-            leafNodePane.setTranslateX(currentX);
-            leafNodePane.setTranslateY(currentY);
-
-            // Add the leaf node to the parse tree.
-            container.getChildren().add(leafNodePane);
-            return new ParseTreeNode(leafNodePane);
-        }
-
-        // If the regular expression is complex, it's parse tree will include an
-        // operator node and one or two children.
-        else if (regularExpression instanceof ComplexRegularExpression complexRegex) {
-            // Create the operator node.
-            char operatorChar = RegularExpressionSettings.getCharFromOperator(
-                    complexRegex.getOperator());
-            StackPane operatorNodePane = createNodePane(operatorChar);
-
-            // Move the operator node into position.
-            operatorNodePane.setTranslateX(currentX);
-            operatorNodePane.setTranslateY(currentY);
-
-            // Add the operator node to the parse tree.
-            container.getChildren().add(operatorNodePane);
-            ParseTreeNode operatorNode = new ParseTreeNode(operatorNodePane);
-
-            // Move downwards.
-            currentY += MIN_Y_CHANGE;
-            if (currentY > greatestY) {
-                greatestY = currentY;
+        // Compute the layout.
+        ParseTreeLayout layout = new ParseTreeLayout(regularExpression);
+        greatestX = layout.getWidth() / 2;
+        greatestY = layout.getHeight();
+
+        // Create the parse tree nodes in postorder and move them into
+        // position.
+        ParseTreeNode[] nodes = new ParseTreeNode[layout.size()];
+        for (int index = 0; index < layout.size(); index++) {
+            StackPane nodePane = createNodePane(layout.getSymbol(index));
+            nodePane.setTranslateX(layout.getX(index));
+            nodePane.setTranslateY(layout.getY(index));
+            container.getChildren().add(nodePane);
+            nodes[index] = new ParseTreeNode(nodePane);
+
+            // Add the children of the node.
+            if (layout.getLeftChild(index) != -1) {
+                nodes[index].setLeftChild(nodes[layout.getLeftChild(index)]);
             }
-
-            // If the operator is STAR then there is only one child, and we do
-            // not need to move left/right.
-            if (complexRegex.getOperator() == RegexOperator.STAR) {
-                // Build the subtree rooted at the left child and add it to the
-                // parse tree.
-                operatorNode.setLeftChild(
-                        buildParseTreeNodes(complexRegex.getLeftOperand(),
-                                            currentX, currentY));
-            }
-
-            // If the operator is CONCATENATION or UNION, there are two
-            // children, and we will need to move left/right.
-            else if ((complexRegex.getOperator() ==
-                      RegexOperator.CONCATENATION) ||
-                     (complexRegex.getOperator() == RegexOperator.UNION)) {
-                // Calculate the horizontal distance between the operator node
-                // and its children.
-                double maxDepth = complexRegex.getDepth();
-                double xChange = Math.pow(2, maxDepth - 1) * MIN_X_CHANGE;
-
-                // Move to the left.
-                currentX -= xChange;
-                if (Math.abs(currentX) > greatestX) {
-                    greatestX = Math.abs(currentX);
-                }
-
-                // Build the subtree rooted at the left child and add it to the
-                // parse tree.
-                operatorNode.setLeftChild(
-                        buildParseTreeNodes(complexRegex.getLeftOperand(),
-                                            currentX, currentY));
-
-                // Move to the right.
-                currentX += xChange * 2;
-                if (currentX > greatestX) {
-                    greatestX = currentX;
-                }
-
-                // Build the subtree rooted at the right child and add it to the
-                // parse tree.
-                operatorNode.setRightChild(
-                        buildParseTreeNodes(complexRegex.getRightOperand(),
-                                            currentX, currentY));
+            if (layout.getRightChild(index) != -1) {
+                nodes[index].setRightChild(
+                        nodes[layout.getRightChild(index)]);
             }
-
-            // Return the operator node.
-            return operatorNode;
-        }
-        else {
-            throw new IllegalArgumentException(
-                    "Regular Expression is neither simple nor complex!");
         }
+
+        // Connect the nodes.
+        ParseTreeNode rootNode = nodes[nodes.length - 1];
+        connectNodes(rootNode);
+        return rootNode;
     }
 
     /**
@@ -0,0 +1,350 @@
+package dudzinski.kacper.farec.regex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static dudzinski.kacper.farec.regex.RegularExpressionSettings.MIN_X_CHANGE;
+import static dudzinski.kacper.farec.regex.RegularExpressionSettings.MIN_Y_CHANGE;
+
+/**
+ * This class represents the layout of a parse tree, computed from a regular
+ * expression without creating any JavaFX nodes. The nodes are indexed in
+ * postorder, the same order as {@link ParseTree#postorderTraversal()}.
+ * <p>
+ * The layout is a tidy tree in the style of Reingold and Tilford. Each
+ * operator node is centred above its children, and the subtrees of the two
+ * children are pushed together until some depth of their contours is exactly
+ * the minimum separation apart. The contours of a subtree are kept in a list
+ * ordered from the deepest level to the root, so merging two subtrees only
+ * touches the levels of the shorter one, and the whole layout is computed in
+ * linear time. The width of the layout grows with the number of leaves rather
+ * than exponentially with the depth.
+ *
+ * @see ParseTree
+ */
+public final class ParseTreeLayout {
+
+    // The minimum horizontal separation between two nodes at the same depth.
+    private static final double MIN_SEPARATION = 2 * MIN_X_CHANGE;
+    private final char[] symbols;
+    private final int[] leftChildren;
+    private final int[] rightChildren;
+    private final double[] xs;
+    private final double[] ys;
+    private final double width;
+    private final double height;
+
+    /**
+     * Computes the layout of the parse tree for the given regular expression.
+     *
+     * @param regularExpression the regular expression
+     * @throws IllegalArgumentException if the regular expression contains a
+     *                                  subexpression that is neither simple
+     *                                  nor complex
+     */
+    public ParseTreeLayout(RegularExpression regularExpression)
+            throws IllegalArgumentException {
+        // Flatten the regular expression into postorder.
+        ArrayList<RegularExpression> postorder = postorder(regularExpression);
+        int size = postorder.size();
+        symbols = new char[size];
+        leftChildren = new int[size];
+        rightChildren = new int[size];
+        int[] depths = new int[size];
+        ArrayDeque<Integer> subtrees = new ArrayDeque<>();
+        for (int index = 0; index < size; index++) {
+            RegularExpression subexpression = postorder.get(index);
+            leftChildren[index] = -1;
+            rightChildren[index] = -1;
+            if (subexpression instanceof SimpleRegularExpression simpleRegex) {
+                symbols[index] = simpleRegex.getSymbol();
+            }
+            else if (subexpression instanceof
+                    ComplexRegularExpression complexRegex) {
+                symbols[index] = RegularExpressionSettings.getCharFromOperator(
+                        complexRegex.getOperator());
+                if (complexRegex.getOperator() != RegexOperator.STAR) {
+                    rightChildren[index] = subtrees.pop();
+                }
+                leftChildren[index] = subtrees.pop();
+            }
+            else {
+                throw new IllegalArgumentException(
+                        "Regular Expression is neither simple nor complex!");
+            }
+            subtrees.push(index);
+        }
+
+        // Compute the offset of each node from its parent, children first.
+        double[] offsets = new double[size];
+        Contour[] contours = new Contour[size];
+        for (int index = 0; index < size; index++) {
+            int leftChild = leftChildren[index];
+            int rightChild = rightChildren[index];
+            if (leftChild == -1) {
+                contours[index] = new Contour();
+            }
+            else if (rightChild == -1) {
+                contours[index] = contours[leftChild];
+            }
+            else {
+                double separation = Contour.separation(contours[leftChild],
+                                                       contours[rightChild]);
+                offsets[leftChild] = -separation / 2;
+                offsets[rightChild] = separation / 2;
+                contours[index] = Contour.merge(contours[leftChild],
+                                                contours[rightChild],
+                                                separation);
+            }
+            contours[index].addRoot();
+
+            // The contours of the children are no longer needed.
+            if (leftChild != -1) {
+                contours[leftChild] = null;
+            }
+            if (rightChild != -1) {
+                contours[rightChild] = null;
+            }
+        }
+
+        // Place each node relative to its parent, parents first.
+        xs = new double[size];
+        ys = new double[size];
+        double minX = 0;
+        double maxX = 0;
+        double maxY = 0;
+        for (int index = size - 1; index >= 0; index--) {
+            for (int child : new int[]{leftChildren[index],
+                                       rightChildren[index]}) {
+                if (child != -1) {
+                    depths[child] = depths[index] + 1;
+                    xs[child] = xs[index] + offsets[child];
+                    ys[child] = depths[child] * MIN_Y_CHANGE;
+                }
+            }
+            minX = Math.min(minX, xs[index]);
+            maxX = Math.max(maxX, xs[index]);
+            maxY = Math.max(maxY, ys[index]);
+        }
+
+        // Centre the layout horizontally.
+        double centre = (minX + maxX) / 2;
+        for (int index = 0; index < size; index++) {
+            xs[index] -= centre;
+        }
+        width = maxX - minX;
+        height = maxY;
+    }
+
+    /**
+     * Returns the number of nodes in this layout.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Returns the symbol of the given node: either a regex operator or a regex
+     * operand.
+     *
+     * @param index the postorder index of the node
+     * @return the symbol of the node
+     */
+    public char getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * Returns the left child of the given node. The only child of a STAR node
+     * is its left child.
+     *
+     * @param index the postorder index of the node
+     * @return the postorder index of the left child, or -1 if there is none
+     */
+    public int getLeftChild(int index) {
+        return leftChildren[index];
+    }
+
+    /**
+     * Returns the right child of the given node.
+     *
+     * @param index the postorder index of the node
+     * @return the postorder index of the right child, or -1 if there is none
+     */
+    public int getRightChild(int index) {
+        return rightChildren[index];
+    }
+
+    /**
+     * Returns the horizontal position of the centre of the given node. The
+     * layout is centred on 0.
+     *
+     * @param index the postorder index of the node
+     * @return the horizontal position of the node
+     */
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Returns the vertical position of the centre of the given node. The root
+     * is at 0.
+     *
+     * @param index the postorder index of the node
+     * @return the vertical position of the node
+     */
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Returns the horizontal distance between the centres of the leftmost and
+     * the rightmost nodes.
+     *
+     * @return the width of this layout
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the vertical distance between the centres of the root and the
+     * deepest node.
+     *
+     * @return the height of this layout
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the subexpressions of the given regular expression in postorder,
+     * without recursion.
+     *
+     * @param regularExpression the regular expression
+     * @return the subexpressions in postorder
+     */
+    private static ArrayList<RegularExpression> postorder(
+            RegularExpression regularExpression) {
+        // Visit each node before its right child and then its left child, and
+        // reverse the order at the end.
+        ArrayList<RegularExpression> postorder = new ArrayList<>();
+        ArrayDeque<RegularExpression> stack = new ArrayDeque<>();
+        stack.push(regularExpression);
+        while (!stack.isEmpty()) {
+            RegularExpression subexpression = stack.pop();
+            postorder.add(subexpression);
+            if (subexpression instanceof
+                    ComplexRegularExpression complexRegex) {
+                stack.push(complexRegex.getLeftOperand());
+                if (complexRegex.getOperator() != RegexOperator.STAR) {
+                    stack.push(complexRegex.getRightOperand());
+                }
+            }
+        }
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    /**
+     * This class holds the leftmost and rightmost horizontal positions of a
+     * subtree at each of its depths, relative to the root of the subtree. The
+     * positions are stored from the deepest level to the root, and every
+     * stored position is shifted by a common offset, so that a subtree can be
+     * moved and extended at the root without touching its deeper levels.
+     */
+    private static final class Contour {
+
+        private double[] lefts = new double[4];
+        private double[] rights = new double[4];
+        private int size = 0;
+        private double offset = 0;
+
+        /**
+         * Returns the position of the leftmost node at the given depth.
+         *
+         * @param depth the depth, where the root is at 0
+         * @return the leftmost position
+         */
+        double getLeft(int depth) {
+            return lefts[size - 1 - depth] + offset;
+        }
+
+        /**
+         * Returns the position of the rightmost node at the given depth.
+         *
+         * @param depth the depth, where the root is at 0
+         * @return the rightmost position
+         */
+        double getRight(int depth) {
+            return rights[size - 1 - depth] + offset;
+        }
+
+        /**
+         * Adds a root level at position 0 above the current levels.
+         */
+        void addRoot() {
+            if (size == lefts.length) {
+                lefts = Arrays.copyOf(lefts, 2 * size);
+                rights = Arrays.copyOf(rights, 2 * size);
+            }
+            lefts[size] = -offset;
+            rights[size] = -offset;
+            size++;
+        }
+
+        /**
+         * Returns the smallest distance between the roots of two subtrees
+         * placed side by side such that no two nodes at the same depth are
+         * closer than the minimum separation.
+         *
+         * @param left  the contour of the left subtree
+         * @param right the contour of the right subtree
+         * @return the distance between the roots
+         */
+        static double separation(Contour left, Contour right) {
+            double separation = MIN_SEPARATION;
+            int sharedDepth = Math.min(left.size, right.size);
+            for (int depth = 0; depth < sharedDepth; depth++) {
+                separation = Math.max(separation,
+                                      left.getRight(depth) -
+                                      right.getLeft(depth) + MIN_SEPARATION);
+            }
+            return separation;
+        }
+
+        /**
+         * Merges the contours of two subtrees into the contour of a tree with
+         * a new root, reusing the contour of the taller subtree. The root
+         * level is not added.
+         *
+         * @param left       the contour of the left subtree
+         * @param right      the contour of the right subtree
+         * @param separation the distance between the roots of the subtrees
+         * @return the merged contour, relative to the new root
+         */
+        static Contour merge(Contour left, Contour right, double separation) {
+            // Move both subtrees relative to the new root.
+            left.offset -= separation / 2;
+            right.offset += separation / 2;
+
+            // Overwrite the shared levels of the taller contour.
+            Contour taller = (left.size >= right.size) ? left : right;
+            int sharedDepth = Math.min(left.size, right.size);
+            for (int depth = 0; depth < sharedDepth; depth++) {
+                int level = taller.size - 1 - depth;
+                double leftmost = left.getLeft(depth);
+                double rightmost = right.getRight(depth);
+                taller.lefts[level] = leftmost - taller.offset;
+                taller.rights[level] = rightmost - taller.offset;
+            }
+            return taller;
+        }
+
+    }
+
+}
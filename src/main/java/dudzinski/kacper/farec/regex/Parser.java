@@ -3,6 +3,7 @@ package dudzinski.kacper.farec.regex;
 import javafx.util.Pair;
 
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 
 /**
  * This class is responsible for parsing strings representing regular
@@ -22,6 +23,19 @@ public final class Parser {
                 "The Parser class should never be instantiated!");
     }
 
+    /**
+     * Stops parsing if the current thread has been interrupted, for example
+     * because the background task that is parsing a regex string has been
+     * cancelled.
+     *
+     * @throws CancellationException if the current thread has been interrupted
+     */
+    private static void checkInterrupted() throws CancellationException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parsing has been stopped!");
+        }
+    }
+
     /**
      * Tests if a string is a valid regex string. A valid regex string contains
      * only regex operands, brackets and regex operators. The number and
@@ -180,10 +194,16 @@ public final class Parser {
      * @throws IllegalArgumentException if the regex string is invalid or does
      *                                  not represent a valid regular
      *                                  expression
+     * @throws CancellationException    if the current thread is interrupted
+     *                                  while parsing
      * @see #findRootIndex(String)
      */
     public static RegularExpression parseRegexString(String regexString)
-            throws IllegalArgumentException {
+            throws IllegalArgumentException, CancellationException {
+        // Stop if parsing has been cancelled. This is checked for every
+        // subexpression, so a long regex string stops promptly.
+        checkInterrupted();
+
         // Check that regex string is valid.
         Pair<Boolean, String> isValid = isValid(regexString);
         if (!isValid.getKey()) {
@@ -271,8 +291,11 @@ public final class Parser {
      *
      * @param regexString the regex string to simplify
      * @return an equivalent regex string with all superfluous brackets removed
+     * @throws CancellationException if the current thread is interrupted while
+     *                               simplifying
      */
-    public static String simplifyRegexString(String regexString) {
+    public static String simplifyRegexString(String regexString)
+            throws CancellationException {
         // Get the regular expression represented by the regex string as a
         // string.
         String originalRegularExpressionAsString =
@@ -281,6 +304,9 @@ public final class Parser {
         int offset = 0;
         // Iterate through the regex string to find brackets to remove.
         while (offset < regexString.length()) {
+            // Stop if simplifying has been cancelled.
+            checkInterrupted();
+
             int currentDepth = 0;
             int openingBracketDepth = -1;
             int openingBracketIndex = -1;
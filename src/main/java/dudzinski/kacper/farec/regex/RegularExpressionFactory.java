@@ -0,0 +1,233 @@
+package dudzinski.kacper.farec.regex;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_SET;
+import static dudzinski.kacper.farec.Settings.EMPTY_STRING;
+
+/**
+ * This class is responsible for creating regular expressions that are shared
+ * between the algorithms used to convert finite automata into regular
+ * expressions. The factory hash-conses the regular expressions it creates: two
+ * requests for structurally equal regular expressions return the very same
+ * object. Since the operands of a created regular expression were themselves
+ * created by the factory, structural equality can be checked by comparing
+ * references, which keeps both lookups and memory usage small.
+ * <p>
+ * Regular expressions are simplified as they are created, according to the
+ * following rules (where R is a regular expression):
+ * <ul>
+ *     <li>EMPTY_SET UNION R = R UNION EMPTY_SET = R</li>
+ *     <li>R UNION R = R</li>
+ *     <li>EMPTY_STRING UNION R* = R* UNION EMPTY_STRING = R*</li>
+ *     <li>EMPTY_SET CONCATENATION R = R CONCATENATION EMPTY_SET =
+ *     EMPTY_SET</li>
+ *     <li>EMPTY_STRING CONCATENATION R = R CONCATENATION EMPTY_STRING =
+ *     R</li>
+ *     <li>EMPTY_SET* = EMPTY_STRING* = EMPTY_STRING</li>
+ *     <li>(R*)* = (EMPTY_STRING UNION R)* = (R UNION EMPTY_STRING)* = R*</li>
+ * </ul>
+ * <p>
+ * A factory is safe to use from multiple threads at the same time.
+ *
+ * @see RegularExpression
+ */
+public final class RegularExpressionFactory {
+
+    private final ConcurrentHashMap<Character, SimpleRegularExpression>
+            symbols = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, ComplexRegularExpression>
+            complexExpressions = new ConcurrentHashMap<>();
+    private final SimpleRegularExpression emptySet =
+            createSymbol(EMPTY_SET.charAt(0));
+    private final SimpleRegularExpression emptyString =
+            createSymbol(EMPTY_STRING.charAt(0));
+
+    /**
+     * Returns the regular expression consisting of the empty set symbol.
+     *
+     * @return the empty set regular expression
+     */
+    public SimpleRegularExpression getEmptySet() {
+        return emptySet;
+    }
+
+    /**
+     * Returns the regular expression consisting of the empty string symbol.
+     *
+     * @return the empty string regular expression
+     */
+    public SimpleRegularExpression getEmptyString() {
+        return emptyString;
+    }
+
+    /**
+     * Returns the simple regular expression for the given symbol.
+     *
+     * @param symbol the symbol of the simple regular expression
+     * @return the simple regular expression for the given symbol
+     */
+    public SimpleRegularExpression createSymbol(char symbol) {
+        return symbols.computeIfAbsent(symbol, SimpleRegularExpression::new);
+    }
+
+    /**
+     * Returns the (simplified) union of the two regular expressions.
+     *
+     * @param leftOperand  the left operand, created by this factory
+     * @param rightOperand the right operand, created by this factory
+     * @return the union of the two regular expressions
+     */
+    public RegularExpression createUnion(RegularExpression leftOperand,
+                                         RegularExpression rightOperand) {
+        if (leftOperand == emptySet) {
+            return rightOperand;
+        }
+        if ((rightOperand == emptySet) || (leftOperand == rightOperand)) {
+            return leftOperand;
+        }
+        if ((leftOperand == emptyString) && isStar(rightOperand)) {
+            return rightOperand;
+        }
+        if ((rightOperand == emptyString) && isStar(leftOperand)) {
+            return leftOperand;
+        }
+        return createComplex(leftOperand, RegexOperator.UNION, rightOperand);
+    }
+
+    /**
+     * Returns the (simplified) concatenation of the two regular expressions.
+     *
+     * @param leftOperand  the left operand, created by this factory
+     * @param rightOperand the right operand, created by this factory
+     * @return the concatenation of the two regular expressions
+     */
+    public RegularExpression createConcatenation(
+            RegularExpression leftOperand, RegularExpression rightOperand) {
+        if ((leftOperand == emptySet) || (rightOperand == emptySet)) {
+            return emptySet;
+        }
+        if (leftOperand == emptyString) {
+            return rightOperand;
+        }
+        if (rightOperand == emptyString) {
+            return leftOperand;
+        }
+        return createComplex(leftOperand, RegexOperator.CONCATENATION,
+                             rightOperand);
+    }
+
+    /**
+     * Returns the (simplified) star of the regular expression.
+     *
+     * @param operand the operand, created by this factory
+     * @return the star of the regular expression
+     */
+    public RegularExpression createStar(RegularExpression operand) {
+        if ((operand == emptySet) || (operand == emptyString)) {
+            return emptyString;
+        }
+        if (isStar(operand)) {
+            return operand;
+        }
+        if ((operand instanceof ComplexRegularExpression complexRegex) &&
+            (complexRegex.getOperator() == RegexOperator.UNION)) {
+            if (complexRegex.getLeftOperand() == emptyString) {
+                return createStar(complexRegex.getRightOperand());
+            }
+            if (complexRegex.getRightOperand() == emptyString) {
+                return createStar(complexRegex.getLeftOperand());
+            }
+        }
+        return createComplex(operand, RegexOperator.STAR, null);
+    }
+
+    /**
+     * Returns the regular expression created by this factory that is
+     * structurally equal to the given regular expression (after
+     * simplification). The given regular expression may have been created
+     * anywhere, for example by the {@link Parser}.
+     *
+     * @param regularExpression the regular expression to intern
+     * @return the interned regular expression
+     * @throws IllegalArgumentException if the regular expression is neither
+     *                                  simple nor complex
+     */
+    public RegularExpression intern(RegularExpression regularExpression)
+            throws IllegalArgumentException {
+        if (regularExpression instanceof SimpleRegularExpression simpleRegex) {
+            return createSymbol(simpleRegex.getSymbol());
+        }
+        else if (regularExpression instanceof ComplexRegularExpression complexRegex) {
+            RegularExpression leftOperand =
+                    intern(complexRegex.getLeftOperand());
+            return switch (complexRegex.getOperator()) {
+                case STAR -> createStar(leftOperand);
+                case CONCATENATION -> createConcatenation(
+                        leftOperand, intern(complexRegex.getRightOperand()));
+                case UNION -> createUnion(
+                        leftOperand, intern(complexRegex.getRightOperand()));
+            };
+        }
+        else {
+            throw new IllegalArgumentException(
+                    "Regular Expression is neither simple nor complex!");
+        }
+    }
+
+    /**
+     * Returns the number of distinct regular expressions created by this
+     * factory.
+     *
+     * @return the number of distinct regular expressions created by this
+     * factory
+     */
+    public int size() {
+        return symbols.size() + complexExpressions.size();
+    }
+
+    /**
+     * Returns the complex regular expression with the given operator and
+     * operands, creating it if it does not exist yet.
+     *
+     * @param leftOperand  the left operand
+     * @param operator     the operator
+     * @param rightOperand the right operand (might be <code>null</code>)
+     * @return the complex regular expression
+     */
+    private ComplexRegularExpression createComplex(
+            RegularExpression leftOperand, RegexOperator operator,
+            RegularExpression rightOperand) {
+        return complexExpressions.computeIfAbsent(
+                new Key(leftOperand, operator, rightOperand),
+                key -> new ComplexRegularExpression(key.leftOperand(),
+                                                    key.operator(),
+                                                    key.rightOperand()));
+    }
+
+    /**
+     * Returns whether the given regular expression has STAR as its root
+     * operator.
+     *
+     * @param regularExpression the regular expression to check
+     * @return true if the root operator is STAR, false otherwise
+     */
+    private static boolean isStar(RegularExpression regularExpression) {
+        return (regularExpression instanceof ComplexRegularExpression complexRegex) &&
+               (complexRegex.getOperator() == RegexOperator.STAR);
+    }
+
+    /**
+     * The key of a complex regular expression in the hash-consing table. The
+     * operands are compared by reference, which is correct because they were
+     * created by the factory.
+     *
+     * @param leftOperand  the left operand
+     * @param operator     the operator
+     * @param rightOperand the right operand (might be <code>null</code>)
+     */
+    private record Key(RegularExpression leftOperand, RegexOperator operator,
+                       RegularExpression rightOperand) {
+    }
+
+}
@@ -36,6 +36,9 @@ public abstract class RegularExpressionSettings extends Settings {
     public static final double MIN_X_CHANGE = 50;
     // The minimum vertical separation between two nodes in a regex parse tree.
     public static final double MIN_Y_CHANGE = 80;
+    // The number of nodes above which a regex parse tree is drawn on a canvas
+    // instead of being built from scene nodes.
+    public static final int CANVAS_NODE_THRESHOLD = 2000;
 
     //////////////////////
     // Parse Tree Edges //
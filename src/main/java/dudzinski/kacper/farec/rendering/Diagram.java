@@ -0,0 +1,465 @@
+package dudzinski.kacper.farec.rendering;
+
+import dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.regex.ParseTreeLayout;
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import javafx.scene.paint.Color;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.CURVED_CONTROL_POINT_DISTANCE;
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.LOOP_CONTROL_POINT_DISTANCE;
+
+/**
+ * This class represents the drawable contents of a parse tree or a finite
+ * automaton: circular nodes with labels, and straight, curved or loop edges
+ * between them. A diagram is plain data and holds no JavaFX nodes. The nodes
+ * and edges are kept in spatial indices, so that the ones inside a viewport
+ * or under the mouse are found quickly.
+ * <p>
+ * The nodes and edges are numbered as in the parse tree layout or the finite
+ * automaton the diagram was created from.
+ *
+ * @see DiagramCanvas
+ * @see SpatialIndex
+ */
+public final class Diagram {
+
+    /**
+     * The value returned in place of a node if there is none.
+     */
+    public static final int NO_NODE = -1;
+    private final double radius;
+    private final Color nodeFill;
+    private final boolean directed;
+    private final double[] xs;
+    private final double[] ys;
+    private final String[] nodeLabels;
+    private final BitSet finalNodes;
+    private final int initialNode;
+    private final int[] edgeStarts;
+    private final int[] edgeEnds;
+    private final String[] edgeLabels;
+    // The signed distance of the control point of each edge from the middle
+    // of the line between its nodes, or 0 for a straight edge.
+    private final double[] edgeBends;
+    private final SpatialIndex nodeIndex;
+    private final SpatialIndex edgeIndex;
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a diagram. Loop edges are drawn above their node, and an edge
+     * is bent if there is an edge in the opposite direction.
+     *
+     * @param radius      the radius of every node
+     * @param nodeFill    the fill color of every node
+     * @param directed    whether the edges have arrowheads
+     * @param xs          the horizontal position of each node
+     * @param ys          the vertical position of each node
+     * @param nodeLabels  the label of each node
+     * @param finalNodes  the nodes marked as final
+     * @param initialNode the node marked as initial, or {@link #NO_NODE}
+     * @param edgeStarts  the start node of each edge
+     * @param edgeEnds    the end node of each edge
+     * @param edgeLabels  the label of each edge, or <code>null</code> if the
+     *                    edges are unlabelled
+     * @param edgeBends   the signed bend of each edge
+     */
+    private Diagram(double radius, Color nodeFill, boolean directed,
+                    double[] xs, double[] ys, String[] nodeLabels,
+                    BitSet finalNodes, int initialNode, int[] edgeStarts,
+                    int[] edgeEnds, String[] edgeLabels, double[] edgeBends) {
+        this.radius = radius;
+        this.nodeFill = nodeFill;
+        this.directed = directed;
+        this.xs = xs;
+        this.ys = ys;
+        this.nodeLabels = nodeLabels;
+        this.finalNodes = finalNodes;
+        this.initialNode = initialNode;
+        this.edgeStarts = edgeStarts;
+        this.edgeEnds = edgeEnds;
+        this.edgeLabels = edgeLabels;
+        this.edgeBends = edgeBends;
+
+        // Index the nodes.
+        nodeIndex = new SpatialIndex(8 * radius);
+        for (int node = 0; node < xs.length; node++) {
+            include(nodeIndex, nodeIndex.add(xs[node] - radius,
+                                             ys[node] - radius,
+                                             xs[node] + radius,
+                                             ys[node] + radius));
+        }
+
+        // Index the edges by the bounds of their curves.
+        edgeIndex = new SpatialIndex(8 * radius);
+        for (int edge = 0; edge < edgeStarts.length; edge++) {
+            double startX = xs[edgeStarts[edge]];
+            double startY = ys[edgeStarts[edge]];
+            if (edgeStarts[edge] == edgeEnds[edge]) {
+                include(edgeIndex, edgeIndex.add(
+                        startX - LOOP_CONTROL_POINT_DISTANCE,
+                        startY - LOOP_CONTROL_POINT_DISTANCE - radius,
+                        startX + LOOP_CONTROL_POINT_DISTANCE, startY));
+                continue;
+            }
+            double endX = xs[edgeEnds[edge]];
+            double endY = ys[edgeEnds[edge]];
+            double bend = Math.abs(edgeBends[edge]);
+            include(edgeIndex, edgeIndex.add(Math.min(startX, endX) - bend,
+                                             Math.min(startY, endY) - bend,
+                                             Math.max(startX, endX) + bend,
+                                             Math.max(startY, endY) + bend));
+        }
+
+        // An empty diagram has empty bounds at the origin.
+        if (xs.length == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+    }
+
+    /**
+     * Creates the diagram of a parse tree from its layout. The nodes are
+     * numbered in postorder and every operator node has an edge to each of
+     * its children.
+     *
+     * @param layout the layout of the parse tree
+     * @return the diagram of the parse tree
+     */
+    public static Diagram of(ParseTreeLayout layout) {
+        // Copy the nodes.
+        int nodeCount = layout.size();
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        String[] nodeLabels = new String[nodeCount];
+        int edgeCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            xs[node] = layout.getX(node);
+            ys[node] = layout.getY(node);
+            nodeLabels[node] = String.valueOf(layout.getSymbol(node));
+            edgeCount += (layout.getLeftChild(node) != -1) ? 1 : 0;
+            edgeCount += (layout.getRightChild(node) != -1) ? 1 : 0;
+        }
+
+        // Connect the operator nodes to their children.
+        int[] edgeStarts = new int[edgeCount];
+        int[] edgeEnds = new int[edgeCount];
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int child : new int[]{layout.getLeftChild(node),
+                                       layout.getRightChild(node)}) {
+                if (child != -1) {
+                    edgeStarts[edge] = node;
+                    edgeEnds[edge] = child;
+                    edge++;
+                }
+            }
+        }
+
+        return new Diagram(RegularExpressionSettings.NODE_RADIUS,
+                           RegularExpressionSettings.NODE_FILL, false, xs, ys,
+                           nodeLabels, new BitSet(), NO_NODE, edgeStarts,
+                           edgeEnds, null, new double[edgeCount]);
+    }
+
+    /**
+     * Creates the diagram of a finite automaton. If the finite automaton has
+     * no layout, the states are placed in a square grid in the order of their
+     * indices.
+     *
+     * @param finiteAutomaton the finite automaton
+     * @return the diagram of the finite automaton
+     */
+    public static Diagram of(CompactFiniteAutomaton finiteAutomaton) {
+        // Place the states.
+        int stateCount = finiteAutomaton.getStateCount();
+        double[] xs = new double[stateCount];
+        double[] ys = new double[stateCount];
+        String[] nodeLabels = new String[stateCount];
+        int columns = (int) Math.ceil(Math.sqrt(stateCount));
+        double spacing = (2 * FiniteAutomatonSettings.STATE_RADIUS) +
+                         FiniteAutomatonSettings.STATE_SEPARATION;
+        for (int state = 0; state < stateCount; state++) {
+            if (finiteAutomaton.hasLayout()) {
+                xs[state] = finiteAutomaton.getX(state);
+                ys[state] = finiteAutomaton.getY(state);
+            }
+            else {
+                xs[state] = (state % columns) * spacing;
+                ys[state] = (state / columns) * spacing;
+            }
+            nodeLabels[state] = finiteAutomaton.getStateLabel(state);
+        }
+
+        // Copy the edges, bending the ones with an opposite edge.
+        int edgeCount = finiteAutomaton.getEdgeCount();
+        int[] edgeStarts = new int[edgeCount];
+        int[] edgeEnds = new int[edgeCount];
+        String[] edgeLabels = new String[edgeCount];
+        double[] edgeBends = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            edgeStarts[edge] = finiteAutomaton.getEdgeStart(edge);
+            edgeEnds[edge] = finiteAutomaton.getEdgeEnd(edge);
+            edgeLabels[edge] = finiteAutomaton.getEdgeLabelText(edge);
+            if ((edgeStarts[edge] != edgeEnds[edge]) &&
+                (finiteAutomaton.findEdge(edgeEnds[edge], edgeStarts[edge]) !=
+                 -1)) {
+                edgeBends[edge] = CURVED_CONTROL_POINT_DISTANCE;
+            }
+        }
+
+        return new Diagram(FiniteAutomatonSettings.STATE_RADIUS,
+                           FiniteAutomatonSettings.STATE_FILL_COLOR, true, xs,
+                           ys, nodeLabels, finiteAutomaton.getFinalStates(),
+                           finiteAutomaton.getInitialState(), edgeStarts,
+                           edgeEnds, edgeLabels, edgeBends);
+    }
+
+    /**
+     * Returns the radius of every node.
+     *
+     * @return the node radius
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns the fill color of every node.
+     *
+     * @return the node fill color
+     */
+    public Color getNodeFill() {
+        return nodeFill;
+    }
+
+    /**
+     * Returns whether the edges of this diagram have arrowheads.
+     *
+     * @return true if the edges are directed, false otherwise
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return xs.length;
+    }
+
+    /**
+     * Returns the horizontal position of the centre of the given node.
+     *
+     * @param node the node
+     * @return the horizontal position
+     */
+    public double getX(int node) {
+        return xs[node];
+    }
+
+    /**
+     * Returns the vertical position of the centre of the given node.
+     *
+     * @param node the node
+     * @return the vertical position
+     */
+    public double getY(int node) {
+        return ys[node];
+    }
+
+    /**
+     * Returns the label of the given node.
+     *
+     * @param node the node
+     * @return the label
+     */
+    public String getNodeLabel(int node) {
+        return nodeLabels[node];
+    }
+
+    /**
+     * Checks whether the given node is marked as final.
+     *
+     * @param node the node
+     * @return true if the node is final, false otherwise
+     */
+    public boolean isFinal(int node) {
+        return finalNodes.get(node);
+    }
+
+    /**
+     * Returns the node marked as initial.
+     *
+     * @return the initial node, or {@link #NO_NODE} if there is none
+     */
+    public int getInitialNode() {
+        return initialNode;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return edgeStarts.length;
+    }
+
+    /**
+     * Returns the start node of the given edge.
+     *
+     * @param edge the edge
+     * @return the start node
+     */
+    public int getEdgeStart(int edge) {
+        return edgeStarts[edge];
+    }
+
+    /**
+     * Returns the end node of the given edge.
+     *
+     * @param edge the edge
+     * @return the end node
+     */
+    public int getEdgeEnd(int edge) {
+        return edgeEnds[edge];
+    }
+
+    /**
+     * Returns the label of the given edge.
+     *
+     * @param edge the edge
+     * @return the label, or <code>null</code> if the edge is unlabelled
+     */
+    public String getEdgeLabel(int edge) {
+        return (edgeLabels == null) ? null : edgeLabels[edge];
+    }
+
+    /**
+     * Returns the distance of the control point of the given edge from the
+     * middle of the line between its nodes. The control point is on the left
+     * of the line when looking from the start node to the end node.
+     *
+     * @param edge the edge
+     * @return the bend of the edge, or 0 if the edge is straight
+     */
+    public double getEdgeBend(int edge) {
+        return edgeBends[edge];
+    }
+
+    /**
+     * Returns the left edge of the bounds of this diagram, including loops and
+     * bends.
+     *
+     * @return the left edge of the bounds
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * Returns the top edge of the bounds of this diagram, including loops and
+     * bends.
+     *
+     * @return the top edge of the bounds
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * Returns the right edge of the bounds of this diagram, including loops
+     * and bends.
+     *
+     * @return the right edge of the bounds
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Returns the bottom edge of the bounds of this diagram, including loops
+     * and bends.
+     *
+     * @return the bottom edge of the bounds
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Returns the node drawn at the given point.
+     *
+     * @param x the horizontal position of the point
+     * @param y the vertical position of the point
+     * @return the node at the point, or {@link #NO_NODE} if there is none
+     */
+    public int getNodeAt(double x, double y) {
+        // Find the nearest node whose circle contains the point.
+        int[] nearest = {NO_NODE};
+        double[] nearestDistance = {radius * radius};
+        nodeIndex.query(x, y, x, y, node -> {
+            double distance = ((xs[node] - x) * (xs[node] - x)) +
+                              ((ys[node] - y) * (ys[node] - y));
+            if (distance <= nearestDistance[0]) {
+                nearest[0] = node;
+                nearestDistance[0] = distance;
+            }
+        });
+        return nearest[0];
+    }
+
+    /**
+     * Performs the action for every node whose circle may intersect the given
+     * rectangle.
+     *
+     * @param minX   the left edge of the rectangle
+     * @param minY   the top edge of the rectangle
+     * @param maxX   the right edge of the rectangle
+     * @param maxY   the bottom edge of the rectangle
+     * @param action the action to perform for each node
+     */
+    public void forEachNodeIn(double minX, double minY, double maxX,
+                              double maxY, IntConsumer action) {
+        nodeIndex.query(minX, minY, maxX, maxY, action);
+    }
+
+    /**
+     * Performs the action for every edge whose curve may intersect the given
+     * rectangle.
+     *
+     * @param minX   the left edge of the rectangle
+     * @param minY   the top edge of the rectangle
+     * @param maxX   the right edge of the rectangle
+     * @param maxY   the bottom edge of the rectangle
+     * @param action the action to perform for each edge
+     */
+    public void forEachEdgeIn(double minX, double minY, double maxX,
+                              double maxY, IntConsumer action) {
+        edgeIndex.query(minX, minY, maxX, maxY, action);
+    }
+
+    /**
+     * Extends the bounds of this diagram to include the bounds of the given
+     * item.
+     *
+     * @param index the spatial index holding the item
+     * @param item  the item
+     */
+    private void include(SpatialIndex index, int item) {
+        minX = Math.min(minX, index.getMinX(item));
+        minY = Math.min(minY, index.getMinY(item));
+        maxX = Math.max(maxX, index.getMaxX(item));
+        maxY = Math.max(maxY, index.getMaxY(item));
+    }
+
+}
@@ -0,0 +1,448 @@
+package dudzinski.kacper.farec.rendering;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.geometry.Insets;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
+import static dudzinski.kacper.farec.rendering.Diagram.NO_NODE;
+
+/**
+ * This class represents a view that draws a diagram onto a canvas, instead of
+ * creating JavaFX nodes for its contents. Only the nodes and edges inside the
+ * viewport are drawn, found through the spatial indices of the diagram, and
+ * labels and outlines are left out once they become too small to read. This
+ * keeps panning and zooming interactive for diagrams with tens of thousands of
+ * nodes and edges.
+ * <p>
+ * Dragging the view pans it, scrolling zooms it around the mouse, and clicking
+ * a node selects it. The mouse events are consumed, so a scroll pane holding
+ * the view does not pan it as well.
+ *
+ * @see Diagram
+ */
+public final class DiagramCanvas extends Region {
+
+    private static final double MIN_SCALE = 0.001;
+    private static final double MAX_SCALE = 8;
+    // The change in scale for one step of the mouse wheel.
+    private static final double ZOOM_FACTOR = 1.1;
+    // The margin around the diagram when it is fitted to the view.
+    private static final double FIT_MARGIN = 20;
+    // The smallest radius of a node on screen for which labels are drawn.
+    private static final double MIN_LABEL_RADIUS = 6;
+    // The smallest radius of a node on screen for which outlines, arrowheads
+    // and curves are drawn.
+    private static final double MIN_DETAIL_RADIUS = 2;
+    private final Canvas canvas = new Canvas();
+    private final Diagram diagram;
+    private final ReadOnlyIntegerWrapper selectedNode =
+            new ReadOnlyIntegerWrapper(NO_NODE);
+    // The view shows the point (x, y) of the diagram at the point
+    // (x * scale + offsetX, y * scale + offsetY) of the canvas.
+    private double scale = 1;
+    private double offsetX = 0;
+    private double offsetY = 0;
+    private boolean fitted = false;
+    private double lastMouseX;
+    private double lastMouseY;
+    private boolean dragged;
+
+    /**
+     * Creates a view of the given diagram. The diagram is fitted to the view
+     * the first time the view is laid out.
+     *
+     * @param diagram the diagram to draw
+     */
+    public DiagramCanvas(Diagram diagram) {
+        this.diagram = diagram;
+        getChildren().add(canvas);
+        setBackground(new Background(
+                new BackgroundFill(CONTAINER_COLOR, CornerRadii.EMPTY,
+                                   Insets.EMPTY)));
+
+        // Pressing the mouse starts a drag.
+        setOnMousePressed(event -> {
+            lastMouseX = event.getX();
+            lastMouseY = event.getY();
+            dragged = false;
+            event.consume();
+        });
+
+        // Dragging the mouse pans the view.
+        setOnMouseDragged(event -> {
+            pan(event.getX() - lastMouseX, event.getY() - lastMouseY);
+            lastMouseX = event.getX();
+            lastMouseY = event.getY();
+            dragged = true;
+            event.consume();
+        });
+
+        // Clicking selects the node under the mouse.
+        setOnMouseReleased(event -> {
+            if (!dragged && (event.getButton() == MouseButton.PRIMARY)) {
+                setSelectedNode(diagram.getNodeAt(
+                        (event.getX() - offsetX) / scale,
+                        (event.getY() - offsetY) / scale));
+            }
+        });
+
+        // Scrolling zooms around the mouse.
+        setOnScroll(event -> {
+            if (event.getDeltaY() != 0) {
+                zoom((event.getDeltaY() > 0) ? ZOOM_FACTOR : 1 / ZOOM_FACTOR,
+                     event.getX(), event.getY());
+            }
+            event.consume();
+        });
+
+        // Redraw when the selection changes.
+        selectedNode.addListener(observable -> draw());
+    }
+
+    /**
+     * Returns the diagram drawn by this view.
+     *
+     * @return the diagram
+     */
+    public Diagram getDiagram() {
+        return diagram;
+    }
+
+    /**
+     * Returns the property holding the selected node.
+     *
+     * @return the selected node property
+     */
+    public ReadOnlyIntegerProperty selectedNodeProperty() {
+        return selectedNode.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the selected node.
+     *
+     * @return the selected node, or {@link Diagram#NO_NODE} if there is none
+     */
+    public int getSelectedNode() {
+        return selectedNode.get();
+    }
+
+    /**
+     * Selects the given node.
+     *
+     * @param node the node to select, or {@link Diagram#NO_NODE} to clear the
+     *             selection
+     */
+    public void setSelectedNode(int node) {
+        selectedNode.set(node);
+    }
+
+    /**
+     * Returns the current zoom level, where 1 draws the diagram at its own
+     * size.
+     *
+     * @return the scale of the view
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Zooms the view so that the whole diagram is visible, but never beyond
+     * its own size, and centres it.
+     */
+    public void fit() {
+        double diagramWidth = diagram.getMaxX() - diagram.getMinX();
+        double diagramHeight = diagram.getMaxY() - diagram.getMinY();
+        scale = Math.min(1, Math.min(
+                (getWidth() - (2 * FIT_MARGIN)) / Math.max(1, diagramWidth),
+                (getHeight() - (2 * FIT_MARGIN)) / Math.max(1, diagramHeight)));
+        scale = Math.max(MIN_SCALE, scale);
+        offsetX = (getWidth() / 2) -
+                  (scale * (diagram.getMinX() + (diagramWidth / 2)));
+        offsetY = (getHeight() / 2) -
+                  (scale * (diagram.getMinY() + (diagramHeight / 2)));
+        fitted = true;
+        draw();
+    }
+
+    /**
+     * Moves the view by the given distance on screen.
+     *
+     * @param deltaX the horizontal distance
+     * @param deltaY the vertical distance
+     */
+    public void pan(double deltaX, double deltaY) {
+        offsetX += deltaX;
+        offsetY += deltaY;
+        draw();
+    }
+
+    /**
+     * Zooms the view by the given factor, keeping the given point on screen
+     * in place.
+     *
+     * @param factor the factor to multiply the scale by
+     * @param pivotX the horizontal position of the point on screen
+     * @param pivotY the vertical position of the point on screen
+     */
+    public void zoom(double factor, double pivotX, double pivotY) {
+        double newScale =
+                Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        offsetX = pivotX - ((pivotX - offsetX) * (newScale / scale));
+        offsetY = pivotY - ((pivotY - offsetY) * (newScale / scale));
+        scale = newScale;
+        draw();
+    }
+
+    /**
+     * Resizes the canvas to the size of this view and redraws it.
+     */
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+        if (!fitted && (getWidth() > 0) && (getHeight() > 0)) {
+            fit();
+        }
+        else {
+            draw();
+        }
+    }
+
+    /**
+     * Draws the nodes and edges inside the viewport.
+     */
+    public void draw() {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        // Find the part of the diagram inside the viewport, with a margin for
+        // the nodes and labels overlapping its sides.
+        double margin = 2 * diagram.getRadius();
+        double minX = (-offsetX / scale) - margin;
+        double minY = (-offsetY / scale) - margin;
+        double maxX = ((canvas.getWidth() - offsetX) / scale) + margin;
+        double maxY = ((canvas.getHeight() - offsetY) / scale) + margin;
+        double screenRadius = diagram.getRadius() * scale;
+        boolean detailed = screenRadius >= MIN_DETAIL_RADIUS;
+        boolean labelled = screenRadius >= MIN_LABEL_RADIUS;
+
+        // Draw in the coordinates of the diagram.
+        graphics.save();
+        graphics.setTransform(scale, 0, 0, scale, offsetX, offsetY);
+        graphics.setLineWidth(2 * EDGE_STROKE_RADIUS);
+        graphics.setStroke(EDGE_STROKE_COLOR);
+        graphics.setFill(EDGE_STROKE_COLOR);
+        graphics.setFont(Font.getDefault());
+        graphics.setTextAlign(TextAlignment.CENTER);
+        graphics.setTextBaseline(VPos.CENTER);
+
+        // Draw the edges.
+        diagram.forEachEdgeIn(minX, minY, maxX, maxY,
+                              edge -> drawEdge(graphics, edge, detailed,
+                                               labelled));
+
+        // Draw the initial node marker.
+        int initialNode = diagram.getInitialNode();
+        if (initialNode != NO_NODE) {
+            double x = diagram.getX(initialNode) - diagram.getRadius();
+            double y = diagram.getY(initialNode);
+            graphics.strokeLine(x - INITIAL_STATE_EDGE_LENGTH, y, x, y);
+            if (detailed) {
+                drawArrowhead(graphics, x, y, 1, 0);
+            }
+        }
+
+        // Draw the nodes.
+        diagram.forEachNodeIn(minX, minY, maxX, maxY,
+                              node -> drawNode(graphics, node, detailed,
+                                               labelled));
+        graphics.restore();
+    }
+
+    /**
+     * Draws a node.
+     *
+     * @param graphics the graphics context to draw with
+     * @param node     the node
+     * @param detailed whether to draw the outline
+     * @param labelled whether to draw the label
+     */
+    private void drawNode(GraphicsContext graphics, int node, boolean detailed,
+                          boolean labelled) {
+        double x = diagram.getX(node);
+        double y = diagram.getY(node);
+        double radius = diagram.getRadius();
+        boolean selected = node == selectedNode.get();
+
+        // Draw the circle, or only a square if the node is tiny.
+        graphics.setFill(selected ? USER_HIGHLIGHT_COLOR :
+                         diagram.getNodeFill());
+        if (!detailed) {
+            graphics.fillRect(x - radius, y - radius, 2 * radius, 2 * radius);
+            return;
+        }
+        graphics.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+        graphics.setStroke(selected ? USER_HIGHLIGHT_COLOR :
+                           STATE_STROKE_COLOR);
+        graphics.strokeOval(x - radius, y - radius, 2 * radius, 2 * radius);
+        if (diagram.isFinal(node)) {
+            graphics.strokeOval(x - FINAL_STATE_CIRCLE_RADIUS,
+                                y - FINAL_STATE_CIRCLE_RADIUS,
+                                2 * FINAL_STATE_CIRCLE_RADIUS,
+                                2 * FINAL_STATE_CIRCLE_RADIUS);
+        }
+        graphics.setStroke(EDGE_STROKE_COLOR);
+
+        // Draw the label.
+        if (labelled) {
+            graphics.setFill(selected ? Color.WHITE : EDGE_STROKE_COLOR);
+            graphics.fillText(diagram.getNodeLabel(node), x, y,
+                              2 * radius);
+        }
+    }
+
+    /**
+     * Draws an edge.
+     *
+     * @param graphics the graphics context to draw with
+     * @param edge     the edge
+     * @param detailed whether to draw curves and arrowheads
+     * @param labelled whether to draw the label
+     */
+    private void drawEdge(GraphicsContext graphics, int edge, boolean detailed,
+                          boolean labelled) {
+        int start = diagram.getEdgeStart(edge);
+        int end = diagram.getEdgeEnd(edge);
+        double radius = diagram.getRadius();
+        double startX = diagram.getX(start);
+        double startY = diagram.getY(start);
+        double endX = diagram.getX(end);
+        double endY = diagram.getY(end);
+        graphics.setFill(EDGE_STROKE_COLOR);
+
+        // Draw a loop above the node.
+        if (start == end) {
+            if (!detailed) {
+                return;
+            }
+            double offset = radius * Math.sqrt(0.5);
+            double top = startY - radius - LOOP_CONTROL_POINT_DISTANCE;
+            graphics.beginPath();
+            graphics.moveTo(startX - offset, startY - offset);
+            graphics.bezierCurveTo(startX - LOOP_CONTROL_POINT_DISTANCE, top,
+                                   startX + LOOP_CONTROL_POINT_DISTANCE, top,
+                                   startX + offset, startY - offset);
+            graphics.stroke();
+            if (diagram.isDirected()) {
+                drawArrowhead(graphics, startX + offset, startY - offset,
+                              offset - LOOP_CONTROL_POINT_DISTANCE,
+                              startY - offset - top);
+            }
+            drawEdgeLabel(graphics, edge, labelled, startX,
+                          top + (LOOP_CONTROL_POINT_DISTANCE / 4));
+            return;
+        }
+
+        // Find the control point of the curve.
+        double length = Math.hypot(endX - startX, endY - startY);
+        if (length == 0) {
+            return;
+        }
+        double bend = detailed ? diagram.getEdgeBend(edge) : 0;
+        double controlX = ((startX + endX) / 2) +
+                          (bend * (endY - startY) / length);
+        double controlY = ((startY + endY) / 2) -
+                          (bend * (endX - startX) / length);
+
+        // Draw the curve or line, ending at the circumference of the end node
+        // if the edge is directed.
+        double directionX = endX - controlX;
+        double directionY = endY - controlY;
+        double directionLength = Math.hypot(directionX, directionY);
+        double tipX = endX;
+        double tipY = endY;
+        if (diagram.isDirected()) {
+            tipX -= radius * directionX / directionLength;
+            tipY -= radius * directionY / directionLength;
+        }
+        if (bend == 0) {
+            graphics.strokeLine(startX, startY, tipX, tipY);
+        }
+        else {
+            graphics.beginPath();
+            graphics.moveTo(startX, startY);
+            graphics.quadraticCurveTo(controlX, controlY, tipX, tipY);
+            graphics.stroke();
+        }
+        if (detailed && diagram.isDirected()) {
+            drawArrowhead(graphics, tipX, tipY, directionX, directionY);
+        }
+        drawEdgeLabel(graphics, edge, labelled,
+                      (startX + endX + (2 * controlX)) / 4,
+                      (startY + endY + (2 * controlY)) / 4);
+    }
+
+    /**
+     * Draws the label of an edge, if it has one.
+     *
+     * @param graphics the graphics context to draw with
+     * @param edge     the edge
+     * @param labelled whether to draw the label
+     * @param x        the horizontal position of the centre of the label
+     * @param y        the vertical position of the centre of the label
+     */
+    private void drawEdgeLabel(GraphicsContext graphics, int edge,
+                               boolean labelled, double x, double y) {
+        String label = diagram.getEdgeLabel(edge);
+        if (!labelled || (label == null)) {
+            return;
+        }
+        graphics.setFill(CONTAINER_COLOR);
+        double width = 0.6 * graphics.getFont().getSize() * label.length();
+        double height = graphics.getFont().getSize() * 1.2;
+        graphics.fillRect(x - (width / 2), y - (height / 2), width, height);
+        graphics.setFill(EDGE_STROKE_COLOR);
+        graphics.fillText(label, x, y);
+    }
+
+    /**
+     * Draws an arrowhead with its tip at the given point.
+     *
+     * @param graphics   the graphics context to draw with
+     * @param tipX       the horizontal position of the tip
+     * @param tipY       the vertical position of the tip
+     * @param directionX the horizontal component of the direction the
+     *                   arrowhead points in
+     * @param directionY the vertical component of the direction the
+     *                   arrowhead points in
+     */
+    private static void drawArrowhead(GraphicsContext graphics, double tipX,
+                                      double tipY, double directionX,
+                                      double directionY) {
+        double length = Math.hypot(directionX, directionY);
+        double unitX = directionX / length;
+        double unitY = directionY / length;
+        double baseX = tipX - (ARROWHEAD_SIZE * unitX);
+        double baseY = tipY - (ARROWHEAD_SIZE * unitY);
+        double halfWidth = ARROWHEAD_SIZE / 2;
+        graphics.fillPolygon(
+                new double[]{tipX, baseX - (halfWidth * unitY),
+                             baseX + (halfWidth * unitY)},
+                new double[]{tipY, baseY + (halfWidth * unitX),
+                             baseY - (halfWidth * unitX)}, 3);
+    }
+
+}
@@ -0,0 +1,748 @@
+package dudzinski.kacper.farec.rendering;
+
+import javafx.scene.paint.Color;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.QuadCurve2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Locale;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
+import static dudzinski.kacper.farec.rendering.Diagram.NO_NODE;
+
+/**
+ * This class contains methods for exporting diagrams as SVG and PNG images
+ * without creating any JavaFX nodes, so that diagrams far too large to
+ * snapshot can be exported. The SVG image is written element by element, and
+ * the PNG image is drawn in horizontal bands whose size is bounded, each of
+ * which is compressed and written before the next one is drawn. Only the
+ * nodes and edges overlapping a band, found through the spatial indices of
+ * the diagram, are drawn into it. The images look the same as the diagram
+ * drawn by a {@link DiagramCanvas}, and neither depends on the JavaFX
+ * application thread.
+ *
+ * @see Diagram
+ * @see DiagramCanvas
+ */
+public final class DiagramExporter {
+
+    // The margin around the diagram.
+    private static final double PADDING = 20;
+    private static final double FONT_SIZE = 12;
+    // The largest number of pixels drawn at once when exporting a PNG image.
+    private static final int MAX_BAND_PIXELS = 1 << 22;
+    // The largest number of rows drawn at once when exporting a PNG image.
+    private static final int MAX_BAND_HEIGHT = 256;
+
+    /**
+     * Objects of this class should never be created.
+     */
+    private DiagramExporter() {
+        throw new RuntimeException(
+                "The DiagramExporter class should never be instantiated!");
+    }
+
+    /**
+     * Exports the given diagram to the given file. The diagram is written as
+     * an SVG image if the name of the file ends with ".svg", and as a PNG
+     * image at its natural size otherwise.
+     *
+     * @param diagram the diagram to export
+     * @param path    the file to export to
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if the diagram is too large for a PNG
+     *                                  image
+     */
+    public static void export(Diagram diagram, Path path)
+            throws IOException, IllegalArgumentException {
+        if (path.getFileName().toString().toLowerCase(Locale.ROOT)
+                .endsWith(".svg")) {
+            try (Writer writer = Files.newBufferedWriter(
+                    path, StandardCharsets.UTF_8)) {
+                writeSvg(diagram, writer);
+            }
+        }
+        else {
+            try (OutputStream output = new BufferedOutputStream(
+                    Files.newOutputStream(path))) {
+                writePng(diagram, 1, output);
+            }
+        }
+    }
+
+    /**
+     * Writes the given diagram to the given writer as an SVG image. The
+     * elements are written one at a time, so that only the diagram itself is
+     * held in memory. The writer is flushed but not closed.
+     *
+     * @param diagram the diagram to write
+     * @param writer  the writer to write to
+     * @throws IOException if the writer cannot be written to
+     */
+    public static void writeSvg(Diagram diagram, Writer writer)
+            throws IOException {
+        // Write the header, the styles and the background.
+        double minX = diagram.getMinX() - PADDING;
+        double minY = diagram.getMinY() - PADDING;
+        double width = diagram.getMaxX() - diagram.getMinX() + (2 * PADDING);
+        double height = diagram.getMaxY() - diagram.getMinY() + (2 * PADDING);
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" +
+                     SvgSink.format(width) + "\" height=\"" +
+                     SvgSink.format(height) + "\" viewBox=\"" +
+                     SvgSink.format(minX) + " " + SvgSink.format(minY) + " " +
+                     SvgSink.format(width) + " " + SvgSink.format(height) +
+                     "\">\n");
+        writer.write("<style>" +
+                     ".e{fill:none;stroke:" + SvgSink.hex(EDGE_STROKE_COLOR) +
+                     ";stroke-width:" + SvgSink.format(2 * EDGE_STROKE_RADIUS) +
+                     "}" +
+                     ".a{fill:" + SvgSink.hex(EDGE_STROKE_COLOR) + "}" +
+                     ".n{fill:" + SvgSink.hex(diagram.getNodeFill()) +
+                     ";stroke:" + SvgSink.hex(STATE_STROKE_COLOR) +
+                     ";stroke-width:" + SvgSink.format(2 * EDGE_STROKE_RADIUS) +
+                     "}" +
+                     ".f{fill:none;stroke:" + SvgSink.hex(STATE_STROKE_COLOR) +
+                     ";stroke-width:" + SvgSink.format(2 * EDGE_STROKE_RADIUS) +
+                     "}" +
+                     ".b{fill:" + SvgSink.hex(CONTAINER_COLOR) + "}" +
+                     "text{font:" + SvgSink.format(FONT_SIZE) + "px " +
+                     "sans-serif;fill:" + SvgSink.hex(EDGE_STROKE_COLOR) +
+                     ";text-anchor:middle;dominant-baseline:central}" +
+                     "</style>\n");
+        writer.write("<rect class=\"b\" x=\"" + SvgSink.format(minX) +
+                     "\" y=\"" + SvgSink.format(minY) + "\" width=\"" +
+                     SvgSink.format(width) + "\" height=\"" +
+                     SvgSink.format(height) + "\"/>\n");
+
+        // Write the edges, the initial node marker and the nodes.
+        SvgSink sink = new SvgSink(writer);
+        for (int edge = 0; edge < diagram.getEdgeCount(); edge++) {
+            drawEdge(diagram, sink, edge);
+        }
+        drawInitialMarker(diagram, sink);
+        for (int node = 0; node < diagram.getNodeCount(); node++) {
+            drawNode(diagram, sink, node);
+        }
+        writer.write("</svg>\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the given diagram to the given stream as a PNG image. The image
+     * is drawn in horizontal bands of at most a few million pixels, and each
+     * band is compressed and written before the next one is drawn, so the
+     * memory used depends on the width of the image but not its height. The
+     * stream is flushed but not closed.
+     *
+     * @param diagram the diagram to write
+     * @param scale   the number of pixels per unit of the diagram
+     * @param output  the stream to write to
+     * @throws IOException              if the stream cannot be written to
+     * @throws IllegalArgumentException if the scale is not positive, or the
+     *                                  image would be too large
+     */
+    public static void writePng(Diagram diagram, double scale,
+                                OutputStream output)
+            throws IOException, IllegalArgumentException {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("The scale must be positive!");
+        }
+
+        // Find the size of the image.
+        double minX = diagram.getMinX() - PADDING;
+        double minY = diagram.getMinY() - PADDING;
+        double width = Math.ceil((diagram.getMaxX() - diagram.getMinX() +
+                                  (2 * PADDING)) * scale);
+        double height = Math.ceil((diagram.getMaxY() - diagram.getMinY() +
+                                   (2 * PADDING)) * scale);
+        if ((width > MAX_BAND_PIXELS) || (height > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(
+                    "The image would be too large!");
+        }
+        int imageWidth = (int) width;
+        int imageHeight = (int) height;
+
+        // Create the band, which is reused for every part of the image.
+        int bandHeight = Math.max(1, Math.min(MAX_BAND_HEIGHT,
+                                              MAX_BAND_PIXELS / imageWidth));
+        BufferedImage band = new BufferedImage(imageWidth, bandHeight,
+                                               BufferedImage.TYPE_INT_RGB);
+        int[] pixels =
+                ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+        BitSet edges = new BitSet();
+        BitSet nodes = new BitSet();
+        double margin = 2 * diagram.getRadius();
+
+        // The encoder holds a native compressor, which is released even if
+        // writing fails.
+        try (PngEncoder encoder = new PngEncoder(output, imageWidth,
+                                                 imageHeight)) {
+            for (int top = 0; top < imageHeight; top += bandHeight) {
+                // Clear the band and draw in the coordinates of the diagram.
+                Graphics2D graphics = band.createGraphics();
+                graphics.setColor(toAwtColor(CONTAINER_COLOR));
+                graphics.fillRect(0, 0, imageWidth, bandHeight);
+                graphics.setRenderingHint(
+                        RenderingHints.KEY_ANTIALIASING,
+                        RenderingHints.VALUE_ANTIALIAS_ON);
+                graphics.setRenderingHint(
+                        RenderingHints.KEY_TEXT_ANTIALIASING,
+                        RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                graphics.translate(0, -top);
+                graphics.scale(scale, scale);
+                graphics.translate(-minX, -minY);
+
+                // Find the nodes and edges overlapping the band, with a margin
+                // for the labels, and draw them in order.
+                double bandMinY = minY + (top / scale) - margin;
+                double bandMaxY = minY + ((top + bandHeight) / scale) + margin;
+                edges.clear();
+                nodes.clear();
+                diagram.forEachEdgeIn(minX, bandMinY, minX + (width / scale),
+                                      bandMaxY, edges::set);
+                diagram.forEachNodeIn(minX, bandMinY, minX + (width / scale),
+                                      bandMaxY, nodes::set);
+                GraphicsSink sink = new GraphicsSink(graphics, diagram);
+                for (int edge = edges.nextSetBit(0); edge >= 0;
+                     edge = edges.nextSetBit(edge + 1)) {
+                    drawEdge(diagram, sink, edge);
+                }
+                drawInitialMarker(diagram, sink);
+                for (int node = nodes.nextSetBit(0); node >= 0;
+                     node = nodes.nextSetBit(node + 1)) {
+                    drawNode(diagram, sink, node);
+                }
+                graphics.dispose();
+
+                // Write the rows of the band.
+                int rows = Math.min(bandHeight, imageHeight - top);
+                for (int row = 0; row < rows; row++) {
+                    encoder.writeRow(pixels, row * imageWidth);
+                }
+            }
+            encoder.finish();
+        }
+    }
+
+    /**
+     * Draws a node, its final node marker and its label.
+     *
+     * @param diagram the diagram
+     * @param sink    the sink to draw to
+     * @param node    the node
+     * @throws IOException if the sink cannot be written to
+     */
+    private static void drawNode(Diagram diagram, Sink sink, int node)
+            throws IOException {
+        double x = diagram.getX(node);
+        double y = diagram.getY(node);
+        sink.node(x, y, diagram.getRadius());
+        if (diagram.isFinal(node)) {
+            sink.finalMarker(x, y, FINAL_STATE_CIRCLE_RADIUS);
+        }
+        String label = diagram.getNodeLabel(node);
+        if ((label != null) && !label.isEmpty()) {
+            sink.text(label, x, y, false);
+        }
+    }
+
+    /**
+     * Draws the marker on the initial node, if there is one.
+     *
+     * @param diagram the diagram
+     * @param sink    the sink to draw to
+     * @throws IOException if the sink cannot be written to
+     */
+    private static void drawInitialMarker(Diagram diagram, Sink sink)
+            throws IOException {
+        int initialNode = diagram.getInitialNode();
+        if (initialNode != NO_NODE) {
+            double x = diagram.getX(initialNode) - diagram.getRadius();
+            double y = diagram.getY(initialNode);
+            sink.line(x - INITIAL_STATE_EDGE_LENGTH, y, x, y);
+            drawArrowhead(sink, x, y, 1, 0);
+        }
+    }
+
+    /**
+     * Draws an edge and its label.
+     *
+     * @param diagram the diagram
+     * @param sink    the sink to draw to
+     * @param edge    the edge
+     * @throws IOException if the sink cannot be written to
+     */
+    private static void drawEdge(Diagram diagram, Sink sink, int edge)
+            throws IOException {
+        int start = diagram.getEdgeStart(edge);
+        int end = diagram.getEdgeEnd(edge);
+        double radius = diagram.getRadius();
+        double startX = diagram.getX(start);
+        double startY = diagram.getY(start);
+        double endX = diagram.getX(end);
+        double endY = diagram.getY(end);
+        String label = diagram.getEdgeLabel(edge);
+
+        // Draw a loop above the node.
+        if (start == end) {
+            double offset = radius * Math.sqrt(0.5);
+            double top = startY - radius - LOOP_CONTROL_POINT_DISTANCE;
+            sink.cubicCurve(startX - offset, startY - offset,
+                            startX - LOOP_CONTROL_POINT_DISTANCE, top,
+                            startX + LOOP_CONTROL_POINT_DISTANCE, top,
+                            startX + offset, startY - offset);
+            if (diagram.isDirected()) {
+                drawArrowhead(sink, startX + offset, startY - offset,
+                              offset - LOOP_CONTROL_POINT_DISTANCE,
+                              startY - offset - top);
+            }
+            if (label != null) {
+                sink.text(label, startX,
+                          top + (LOOP_CONTROL_POINT_DISTANCE / 4), true);
+            }
+            return;
+        }
+
+        // Find the control point of the curve.
+        double length = Math.hypot(endX - startX, endY - startY);
+        if (length == 0) {
+            return;
+        }
+        double bend = diagram.getEdgeBend(edge);
+        double controlX = ((startX + endX) / 2) +
+                          (bend * (endY - startY) / length);
+        double controlY = ((startY + endY) / 2) -
+                          (bend * (endX - startX) / length);
+
+        // Draw the curve or line, ending at the circumference of the end node
+        // if the edge is directed.
+        double directionX = endX - controlX;
+        double directionY = endY - controlY;
+        double directionLength = Math.hypot(directionX, directionY);
+        double tipX = endX;
+        double tipY = endY;
+        if (diagram.isDirected()) {
+            tipX -= radius * directionX / directionLength;
+            tipY -= radius * directionY / directionLength;
+        }
+        if (bend == 0) {
+            sink.line(startX, startY, tipX, tipY);
+        }
+        else {
+            sink.quadCurve(startX, startY, controlX, controlY, tipX, tipY);
+        }
+        if (diagram.isDirected()) {
+            drawArrowhead(sink, tipX, tipY, directionX, directionY);
+        }
+        if (label != null) {
+            sink.text(label, (startX + endX + (2 * controlX)) / 4,
+                      (startY + endY + (2 * controlY)) / 4, true);
+        }
+    }
+
+    /**
+     * Draws an arrowhead with its tip at the given point.
+     *
+     * @param sink       the sink to draw to
+     * @param tipX       the horizontal position of the tip
+     * @param tipY       the vertical position of the tip
+     * @param directionX the horizontal component of the direction the
+     *                   arrowhead points in
+     * @param directionY the vertical component of the direction the
+     *                   arrowhead points in
+     * @throws IOException if the sink cannot be written to
+     */
+    private static void drawArrowhead(Sink sink, double tipX, double tipY,
+                                      double directionX, double directionY)
+            throws IOException {
+        double length = Math.hypot(directionX, directionY);
+        double unitX = directionX / length;
+        double unitY = directionY / length;
+        double baseX = tipX - (ARROWHEAD_SIZE * unitX);
+        double baseY = tipY - (ARROWHEAD_SIZE * unitY);
+        double halfWidth = ARROWHEAD_SIZE / 2;
+        sink.triangle(tipX, tipY, baseX - (halfWidth * unitY),
+                      baseY + (halfWidth * unitX),
+                      baseX + (halfWidth * unitY),
+                      baseY - (halfWidth * unitX));
+    }
+
+    /**
+     * Converts a JavaFX color into an AWT color.
+     *
+     * @param color the JavaFX color
+     * @return the AWT color
+     */
+    private static java.awt.Color toAwtColor(Color color) {
+        return new java.awt.Color((float) color.getRed(),
+                                  (float) color.getGreen(),
+                                  (float) color.getBlue(),
+                                  (float) color.getOpacity());
+    }
+
+    /**
+     * This interface represents the target that the shapes of a diagram are
+     * drawn to, in the coordinates of the diagram.
+     */
+    private interface Sink {
+
+        /**
+         * Draws a straight edge.
+         *
+         * @param startX the horizontal position of the start
+         * @param startY the vertical position of the start
+         * @param endX   the horizontal position of the end
+         * @param endY   the vertical position of the end
+         * @throws IOException if the sink cannot be written to
+         */
+        void line(double startX, double startY, double endX, double endY)
+                throws IOException;
+
+        /**
+         * Draws a curved edge.
+         *
+         * @param startX   the horizontal position of the start
+         * @param startY   the vertical position of the start
+         * @param controlX the horizontal position of the control point
+         * @param controlY the vertical position of the control point
+         * @param endX     the horizontal position of the end
+         * @param endY     the vertical position of the end
+         * @throws IOException if the sink cannot be written to
+         */
+        void quadCurve(double startX, double startY, double controlX,
+                       double controlY, double endX, double endY)
+                throws IOException;
+
+        /**
+         * Draws a loop edge.
+         *
+         * @param startX    the horizontal position of the start
+         * @param startY    the vertical position of the start
+         * @param control1X the horizontal position of the first control point
+         * @param control1Y the vertical position of the first control point
+         * @param control2X the horizontal position of the second control
+         *                  point
+         * @param control2Y the vertical position of the second control point
+         * @param endX      the horizontal position of the end
+         * @param endY      the vertical position of the end
+         * @throws IOException if the sink cannot be written to
+         */
+        void cubicCurve(double startX, double startY, double control1X,
+                        double control1Y, double control2X, double control2Y,
+                        double endX, double endY) throws IOException;
+
+        /**
+         * Draws a filled arrowhead.
+         *
+         * @param x1 the horizontal position of the first corner
+         * @param y1 the vertical position of the first corner
+         * @param x2 the horizontal position of the second corner
+         * @param y2 the vertical position of the second corner
+         * @param x3 the horizontal position of the third corner
+         * @param y3 the vertical position of the third corner
+         * @throws IOException if the sink cannot be written to
+         */
+        void triangle(double x1, double y1, double x2, double y2, double x3,
+                      double y3) throws IOException;
+
+        /**
+         * Draws a filled and outlined node.
+         *
+         * @param x      the horizontal position of the centre
+         * @param y      the vertical position of the centre
+         * @param radius the radius
+         * @throws IOException if the sink cannot be written to
+         */
+        void node(double x, double y, double radius) throws IOException;
+
+        /**
+         * Draws the inner circle of a final node.
+         *
+         * @param x      the horizontal position of the centre
+         * @param y      the vertical position of the centre
+         * @param radius the radius
+         * @throws IOException if the sink cannot be written to
+         */
+        void finalMarker(double x, double y, double radius)
+                throws IOException;
+
+        /**
+         * Draws a label centred on the given point.
+         *
+         * @param text       the text of the label
+         * @param x          the horizontal position of the centre
+         * @param y          the vertical position of the centre
+         * @param background whether to clear the area behind the label
+         * @throws IOException if the sink cannot be written to
+         */
+        void text(String text, double x, double y, boolean background)
+                throws IOException;
+
+    }
+
+    /**
+     * This class writes the shapes of a diagram as SVG elements.
+     */
+    private static final class SvgSink implements Sink {
+
+        private final Writer writer;
+
+        /**
+         * Creates a sink that writes to the given writer.
+         *
+         * @param writer the writer
+         */
+        SvgSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void line(double startX, double startY, double endX,
+                         double endY) throws IOException {
+            writer.write("<path class=\"e\" d=\"M" + format(startX) + " " +
+                         format(startY) + "L" + format(endX) + " " +
+                         format(endY) + "\"/>\n");
+        }
+
+        @Override
+        public void quadCurve(double startX, double startY, double controlX,
+                              double controlY, double endX, double endY)
+                throws IOException {
+            writer.write("<path class=\"e\" d=\"M" + format(startX) + " " +
+                         format(startY) + "Q" + format(controlX) + " " +
+                         format(controlY) + " " + format(endX) + " " +
+                         format(endY) + "\"/>\n");
+        }
+
+        @Override
+        public void cubicCurve(double startX, double startY, double control1X,
+                               double control1Y, double control2X,
+                               double control2Y, double endX, double endY)
+                throws IOException {
+            writer.write("<path class=\"e\" d=\"M" + format(startX) + " " +
+                         format(startY) + "C" + format(control1X) + " " +
+                         format(control1Y) + " " + format(control2X) + " " +
+                         format(control2Y) + " " + format(endX) + " " +
+                         format(endY) + "\"/>\n");
+        }
+
+        @Override
+        public void triangle(double x1, double y1, double x2, double y2,
+                             double x3, double y3) throws IOException {
+            writer.write("<path class=\"a\" d=\"M" + format(x1) + " " +
+                         format(y1) + "L" + format(x2) + " " + format(y2) +
+                         "L" + format(x3) + " " + format(y3) + "Z\"/>\n");
+        }
+
+        @Override
+        public void node(double x, double y, double radius)
+                throws IOException {
+            writer.write("<circle class=\"n\" cx=\"" + format(x) +
+                         "\" cy=\"" + format(y) + "\" r=\"" + format(radius) +
+                         "\"/>\n");
+        }
+
+        @Override
+        public void finalMarker(double x, double y, double radius)
+                throws IOException {
+            writer.write("<circle class=\"f\" cx=\"" + format(x) +
+                         "\" cy=\"" + format(y) + "\" r=\"" + format(radius) +
+                         "\"/>\n");
+        }
+
+        @Override
+        public void text(String text, double x, double y, boolean background)
+                throws IOException {
+            if (background) {
+                double width = 0.6 * FONT_SIZE * text.length();
+                double height = 1.2 * FONT_SIZE;
+                writer.write("<rect class=\"b\" x=\"" +
+                             format(x - (width / 2)) + "\" y=\"" +
+                             format(y - (height / 2)) + "\" width=\"" +
+                             format(width) + "\" height=\"" + format(height) +
+                             "\"/>\n");
+            }
+            writer.write("<text x=\"" + format(x) + "\" y=\"" + format(y) +
+                         "\">" + escape(text) + "</text>\n");
+        }
+
+        /**
+         * Formats a coordinate with at most two decimal places.
+         *
+         * @param value the coordinate
+         * @return the formatted coordinate
+         */
+        static String format(double value) {
+            long hundredths = Math.round(value * 100);
+            String sign = (hundredths < 0) ? "-" : "";
+            hundredths = Math.abs(hundredths);
+            long fraction = hundredths % 100;
+            if (fraction == 0) {
+                return sign + (hundredths / 100);
+            }
+            return sign + (hundredths / 100) + "." +
+                   ((fraction < 10) ? "0" : "") +
+                   ((fraction % 10 == 0) ? fraction / 10 : fraction);
+        }
+
+        /**
+         * Formats a color as a hexadecimal color code.
+         *
+         * @param color the color
+         * @return the color code
+         */
+        static String hex(Color color) {
+            return String.format("#%02x%02x%02x",
+                                 Math.round(color.getRed() * 255),
+                                 Math.round(color.getGreen() * 255),
+                                 Math.round(color.getBlue() * 255));
+        }
+
+        /**
+         * Replaces the characters with a special meaning in XML by their
+         * entities.
+         *
+         * @param text the text
+         * @return the escaped text
+         */
+        private static String escape(String text) {
+            StringBuilder escaped = new StringBuilder(text.length());
+            for (int index = 0; index < text.length(); index++) {
+                char character = text.charAt(index);
+                switch (character) {
+                    case '&' -> escaped.append("&amp;");
+                    case '<' -> escaped.append("&lt;");
+                    case '>' -> escaped.append("&gt;");
+                    case '"' -> escaped.append("&quot;");
+                    default -> escaped.append(character);
+                }
+            }
+            return escaped.toString();
+        }
+
+    }
+
+    /**
+     * This class draws the shapes of a diagram onto an AWT graphics context.
+     */
+    private static final class GraphicsSink implements Sink {
+
+        private final Graphics2D graphics;
+        private final java.awt.Color edgeColor =
+                toAwtColor(EDGE_STROKE_COLOR);
+        private final java.awt.Color nodeColor;
+        private final java.awt.Color strokeColor =
+                toAwtColor(STATE_STROKE_COLOR);
+        private final java.awt.Color backgroundColor =
+                toAwtColor(CONTAINER_COLOR);
+
+        /**
+         * Creates a sink that draws onto the given graphics context.
+         *
+         * @param graphics the graphics context
+         * @param diagram  the diagram being drawn
+         */
+        GraphicsSink(Graphics2D graphics, Diagram diagram) {
+            this.graphics = graphics;
+            nodeColor = toAwtColor(diagram.getNodeFill());
+            graphics.setStroke(new BasicStroke((float) (2 *
+                                                        EDGE_STROKE_RADIUS)));
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN,
+                                      (int) FONT_SIZE));
+        }
+
+        @Override
+        public void line(double startX, double startY, double endX,
+                         double endY) {
+            graphics.setColor(edgeColor);
+            graphics.draw(new Line2D.Double(startX, startY, endX, endY));
+        }
+
+        @Override
+        public void quadCurve(double startX, double startY, double controlX,
+                              double controlY, double endX, double endY) {
+            graphics.setColor(edgeColor);
+            graphics.draw(new QuadCurve2D.Double(startX, startY, controlX,
+                                                 controlY, endX, endY));
+        }
+
+        @Override
+        public void cubicCurve(double startX, double startY, double control1X,
+                               double control1Y, double control2X,
+                               double control2Y, double endX, double endY) {
+            graphics.setColor(edgeColor);
+            graphics.draw(new CubicCurve2D.Double(startX, startY, control1X,
+                                                  control1Y, control2X,
+                                                  control2Y, endX, endY));
+        }
+
+        @Override
+        public void triangle(double x1, double y1, double x2, double y2,
+                             double x3, double y3) {
+            Path2D.Double triangle = new Path2D.Double();
+            triangle.moveTo(x1, y1);
+            triangle.lineTo(x2, y2);
+            triangle.lineTo(x3, y3);
+            triangle.closePath();
+            graphics.setColor(edgeColor);
+            graphics.fill(triangle);
+        }
+
+        @Override
+        public void node(double x, double y, double radius) {
+            Ellipse2D.Double circle = new Ellipse2D.Double(
+                    x - radius, y - radius, 2 * radius, 2 * radius);
+            graphics.setColor(nodeColor);
+            graphics.fill(circle);
+            graphics.setColor(strokeColor);
+            graphics.draw(circle);
+        }
+
+        @Override
+        public void finalMarker(double x, double y, double radius) {
+            graphics.setColor(strokeColor);
+            graphics.draw(new Ellipse2D.Double(x - radius, y - radius,
+                                               2 * radius, 2 * radius));
+        }
+
+        @Override
+        public void text(String text, double x, double y,
+                         boolean background) {
+            if (background) {
+                double width = 0.6 * FONT_SIZE * text.length();
+                double height = 1.2 * FONT_SIZE;
+                graphics.setColor(backgroundColor);
+                graphics.fill(new Rectangle2D.Double(
+                        x - (width / 2), y - (height / 2), width, height));
+            }
+            FontMetrics metrics = graphics.getFontMetrics();
+            graphics.setColor(edgeColor);
+            graphics.drawString(text,
+                                (float) (x - (metrics.stringWidth(text) /
+                                              2.0)),
+                                (float) (y + ((metrics.getAscent() -
+                                               metrics.getDescent()) / 2.0)));
+        }
+
+    }
+
+}
@@ -0,0 +1,244 @@
+package dudzinski.kacper.farec.rendering;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * This class represents an encoder that writes an RGB image to a stream in the
+ * PNG format one row at a time. The rows are compressed as they arrive and
+ * written out in fixed-size chunks, so the memory used does not depend on the
+ * height of the image, and only one row is held at a time.
+ * <p>
+ * The compressor uses native memory, so the encoder has to be closed once the
+ * image has been written, or once writing it has failed.
+ *
+ * @see DiagramExporter
+ */
+final class PngEncoder implements Closeable {
+
+    private static final byte[] SIGNATURE =
+            {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    // The largest amount of compressed data in a single chunk.
+    private static final int CHUNK_SIZE = 1 << 16;
+    // The filter type that stores each byte as the difference from the same
+    // byte of the pixel to its left.
+    private static final byte SUB_FILTER = 1;
+    private final OutputStream output;
+    private final int width;
+    private final int height;
+    private final byte[] row;
+    private final DeflaterOutputStream compressedOutput;
+    private final Deflater deflater;
+    private int rowCount = 0;
+
+    /**
+     * Creates an encoder for an image of the given size, and writes the
+     * header of the image to the given stream.
+     *
+     * @param output the stream to write the image to
+     * @param width  the width of the image, in pixels
+     * @param height the height of the image, in pixels
+     * @throws IOException              if the stream cannot be written to
+     * @throws IllegalArgumentException if the width or height is not positive
+     */
+    PngEncoder(OutputStream output, int width, int height)
+            throws IOException, IllegalArgumentException {
+        if ((width <= 0) || (height <= 0)) {
+            throw new IllegalArgumentException(
+                    "The width and height of the image must be positive!");
+        }
+        this.output = output;
+        this.width = width;
+        this.height = height;
+        row = new byte[1 + (3 * width)];
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        compressedOutput = new DeflaterOutputStream(new ChunkOutputStream(),
+                                                    deflater, CHUNK_SIZE);
+
+        // Write the signature, then the size, the bit depth (8), the color
+        // type (RGB), and the default compression, filtering and interlacing.
+        // The encoder cannot be closed if it is never created, so the
+        // compressor is released here if the header cannot be written.
+        try {
+            output.write(SIGNATURE);
+            byte[] header = new byte[13];
+            putInt(header, 0, width);
+            putInt(header, 4, height);
+            header[8] = 8;
+            header[9] = 2;
+            writeChunk("IHDR", header, header.length);
+        }
+        catch (IOException e) {
+            deflater.end();
+            throw e;
+        }
+    }
+
+    /**
+     * Compresses and writes the next row of the image.
+     *
+     * @param pixels the pixels, as RGB values in the lower 24 bits
+     * @param offset the index of the first pixel of the row
+     * @throws IOException           if the stream cannot be written to
+     * @throws IllegalStateException if every row has already been written
+     */
+    void writeRow(int[] pixels, int offset)
+            throws IOException, IllegalStateException {
+        if (rowCount == height) {
+            throw new IllegalStateException(
+                    "Every row of the image has already been written!");
+        }
+        row[0] = SUB_FILTER;
+        int left = 0;
+        for (int x = 0; x < width; x++) {
+            int pixel = pixels[offset + x];
+            row[1 + (3 * x)] = (byte) ((pixel >> 16) - (left >> 16));
+            row[2 + (3 * x)] = (byte) ((pixel >> 8) - (left >> 8));
+            row[3 + (3 * x)] = (byte) (pixel - left);
+            left = pixel;
+        }
+        compressedOutput.write(row);
+        rowCount++;
+    }
+
+    /**
+     * Writes the rest of the compressed data and the end of the image. The
+     * stream is flushed but not closed.
+     *
+     * @throws IOException           if the stream cannot be written to
+     * @throws IllegalStateException if some rows have not been written
+     */
+    void finish() throws IOException, IllegalStateException {
+        if (rowCount != height) {
+            throw new IllegalStateException(
+                    "Only " + rowCount + " of " + height + " rows have been " +
+                    "written!");
+        }
+        compressedOutput.close();
+        writeChunk("IEND", new byte[0], 0);
+        output.flush();
+    }
+
+    /**
+     * Releases the native memory of the compressor. The stream is not closed.
+     * Closing the encoder more than once has no effect.
+     */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    /**
+     * Writes a chunk to the stream.
+     *
+     * @param type   the type of the chunk
+     * @param data   the data of the chunk
+     * @param length the number of bytes of data to write
+     * @throws IOException if the stream cannot be written to
+     */
+    private void writeChunk(String type, byte[] data, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] number = new byte[4];
+        putInt(number, 0, length);
+        output.write(number);
+        output.write(typeBytes);
+        output.write(data, 0, length);
+        putInt(number, 0, (int) crc.getValue());
+        output.write(number);
+    }
+
+    /**
+     * Stores an integer in four bytes, most significant byte first.
+     *
+     * @param bytes  the bytes to store the integer in
+     * @param offset the index of the first byte
+     * @param value  the integer
+     */
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * This class represents a stream that collects the compressed data and
+     * writes it to the image as data chunks of a fixed size.
+     */
+    private final class ChunkOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size = 0;
+
+        /**
+         * Adds a byte to the current chunk.
+         *
+         * @param b the byte
+         * @throws IOException if the stream cannot be written to
+         */
+        @Override
+        public void write(int b) throws IOException {
+            buffer[size++] = (byte) b;
+            if (size == CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        /**
+         * Adds some bytes to the current chunk, writing each chunk that is
+         * filled.
+         *
+         * @param bytes  the bytes
+         * @param offset the index of the first byte to add
+         * @param length the number of bytes to add
+         * @throws IOException if the stream cannot be written to
+         */
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+                throws IOException {
+            while (length > 0) {
+                int count = Math.min(length, CHUNK_SIZE - size);
+                System.arraycopy(bytes, offset, buffer, size, count);
+                size += count;
+                offset += count;
+                length -= count;
+                if (size == CHUNK_SIZE) {
+                    flushChunk();
+                }
+            }
+        }
+
+        /**
+         * Writes the last, partly filled chunk.
+         *
+         * @throws IOException if the stream cannot be written to
+         */
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        /**
+         * Writes the current chunk, if it is not empty.
+         *
+         * @throws IOException if the stream cannot be written to
+         */
+        private void flushChunk() throws IOException {
+            if (size > 0) {
+                writeChunk("IDAT", buffer, size);
+                size = 0;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,252 @@
+package dudzinski.kacper.farec.rendering;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * This class represents a spatial index of items with rectangular bounds. The
+ * plane is divided into a uniform grid of square cells, and each item is
+ * stored in every cell its bounds overlap, so that the items near a point or
+ * inside a rectangle are found without looking at the rest. Items whose bounds
+ * overlap too many cells, such as long edges, are kept in a separate list that
+ * every query checks.
+ * <p>
+ * Items are numbered from 0 in the order they are added.
+ */
+public final class SpatialIndex {
+
+    // The largest number of cells an item is stored in before it is treated
+    // as oversized.
+    private static final int MAX_CELLS_PER_ITEM = 64;
+    private final double cellSize;
+    private final HashMap<Long, int[]> cells = new HashMap<>();
+    private int[] oversizedItems = new int[4];
+    private int oversizedCount = 0;
+    private double[] bounds = new double[16];
+    private int size = 0;
+    // The query in which each item was last reported, to report it only once.
+    private int[] queryStamps = new int[4];
+    private int queryCount = 0;
+
+    /**
+     * Creates an empty spatial index.
+     *
+     * @param cellSize the width and height of a cell
+     * @throws IllegalArgumentException if the cell size is not positive
+     */
+    public SpatialIndex(double cellSize) throws IllegalArgumentException {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException(
+                    "The cell size must be positive!");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Returns the number of items in this spatial index.
+     *
+     * @return the number of items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an item with the given bounds.
+     *
+     * @param minX the left edge of the bounds
+     * @param minY the top edge of the bounds
+     * @param maxX the right edge of the bounds
+     * @param maxY the bottom edge of the bounds
+     * @return the index of the added item
+     */
+    public int add(double minX, double minY, double maxX, double maxY) {
+        // Store the bounds.
+        if (4 * (size + 1) > bounds.length) {
+            bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+            queryStamps = Arrays.copyOf(queryStamps, bounds.length / 4);
+        }
+        int item = size++;
+        bounds[4 * item] = minX;
+        bounds[(4 * item) + 1] = minY;
+        bounds[(4 * item) + 2] = maxX;
+        bounds[(4 * item) + 3] = maxY;
+
+        // Store the item in the cells it overlaps, or as an oversized item.
+        long firstColumn = cell(minX);
+        long lastColumn = cell(maxX);
+        long firstRow = cell(minY);
+        long lastRow = cell(maxY);
+        if ((lastColumn - firstColumn + 1) * (lastRow - firstRow + 1) >
+            MAX_CELLS_PER_ITEM) {
+            if (oversizedCount == oversizedItems.length) {
+                oversizedItems = Arrays.copyOf(oversizedItems,
+                                               2 * oversizedCount);
+            }
+            oversizedItems[oversizedCount++] = item;
+            return item;
+        }
+        for (long column = firstColumn; column <= lastColumn; column++) {
+            for (long row = firstRow; row <= lastRow; row++) {
+                cells.merge(key(column, row), new int[]{1, item},
+                            SpatialIndex::append);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Returns the left edge of the bounds of the given item.
+     *
+     * @param item the item
+     * @return the left edge of the bounds
+     */
+    public double getMinX(int item) {
+        return bounds[4 * item];
+    }
+
+    /**
+     * Returns the top edge of the bounds of the given item.
+     *
+     * @param item the item
+     * @return the top edge of the bounds
+     */
+    public double getMinY(int item) {
+        return bounds[(4 * item) + 1];
+    }
+
+    /**
+     * Returns the right edge of the bounds of the given item.
+     *
+     * @param item the item
+     * @return the right edge of the bounds
+     */
+    public double getMaxX(int item) {
+        return bounds[(4 * item) + 2];
+    }
+
+    /**
+     * Returns the bottom edge of the bounds of the given item.
+     *
+     * @param item the item
+     * @return the bottom edge of the bounds
+     */
+    public double getMaxY(int item) {
+        return bounds[(4 * item) + 3];
+    }
+
+    /**
+     * Reports every item whose bounds intersect the given rectangle, each
+     * once, in no particular order. This method must not be called again from
+     * the action.
+     *
+     * @param minX   the left edge of the rectangle
+     * @param minY   the top edge of the rectangle
+     * @param maxX   the right edge of the rectangle
+     * @param maxY   the bottom edge of the rectangle
+     * @param action the action to perform for each item
+     */
+    public void query(double minX, double minY, double maxX, double maxY,
+                      IntConsumer action) {
+        // Start a new query.
+        if (++queryCount == 0) {
+            Arrays.fill(queryStamps, 0);
+            queryCount = 1;
+        }
+
+        // Check the oversized items.
+        for (int index = 0; index < oversizedCount; index++) {
+            report(oversizedItems[index], minX, minY, maxX, maxY, action);
+        }
+
+        // Check the items in the cells the rectangle overlaps. If the
+        // rectangle overlaps more cells than there are items, check every
+        // item instead.
+        long firstColumn = cell(minX);
+        long lastColumn = cell(maxX);
+        long firstRow = cell(minY);
+        long lastRow = cell(maxY);
+        if ((double) (lastColumn - firstColumn + 1) *
+            (lastRow - firstRow + 1) > cells.size()) {
+            for (int[] cellItems : cells.values()) {
+                for (int index = 1; index <= cellItems[0]; index++) {
+                    report(cellItems[index], minX, minY, maxX, maxY, action);
+                }
+            }
+            return;
+        }
+        for (long column = firstColumn; column <= lastColumn; column++) {
+            for (long row = firstRow; row <= lastRow; row++) {
+                int[] cellItems = cells.get(key(column, row));
+                if (cellItems == null) {
+                    continue;
+                }
+                for (int index = 1; index <= cellItems[0]; index++) {
+                    report(cellItems[index], minX, minY, maxX, maxY, action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the item if its bounds intersect the given rectangle and it has
+     * not been reported in the current query.
+     *
+     * @param item   the item
+     * @param minX   the left edge of the rectangle
+     * @param minY   the top edge of the rectangle
+     * @param maxX   the right edge of the rectangle
+     * @param maxY   the bottom edge of the rectangle
+     * @param action the action to perform for the item
+     */
+    private void report(int item, double minX, double minY, double maxX,
+                        double maxY, IntConsumer action) {
+        if ((queryStamps[item] != queryCount) &&
+            (getMinX(item) <= maxX) && (getMaxX(item) >= minX) &&
+            (getMinY(item) <= maxY) && (getMaxY(item) >= minY)) {
+            queryStamps[item] = queryCount;
+            action.accept(item);
+        }
+    }
+
+    /**
+     * Returns the column or row of the cell containing the given coordinate.
+     *
+     * @param coordinate the coordinate
+     * @return the column or row
+     */
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Returns the key of the cell in the given column and row.
+     *
+     * @param column the column
+     * @param row    the row
+     * @return the key of the cell
+     */
+    private static long key(long column, long row) {
+        return (column << 32) ^ (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Appends the single item of the second list to the first list. Each list
+     * stores its size at index 0.
+     *
+     * @param items   the list to append to
+     * @param newItem a list holding the item to append
+     * @return the list with the item appended
+     */
+    private static int[] append(int[] items, int[] newItem) {
+        int count = items[0];
+        if (count + 1 == items.length) {
+            items = Arrays.copyOf(items, 2 * items.length);
+        }
+        items[count + 1] = newItem[1];
+        items[0] = count + 1;
+        return items;
+    }
+
+}
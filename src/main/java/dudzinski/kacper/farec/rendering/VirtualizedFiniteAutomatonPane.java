@@ -0,0 +1,343 @@
+package dudzinski.kacper.farec.rendering;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.smart.SmartEdgeComponent;
+import dudzinski.kacper.farec.finiteautomata.smart.SmartFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.finiteautomata.smart.SmartState;
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
+
+/**
+ * This class represents a read-only view of a finite automaton that only
+ * creates scene nodes for the states and edges near the visible part of a
+ * scroll pane. The positions of every state and edge are kept as plain data in
+ * a {@link Diagram}, whose spatial indices find the ones inside the viewport.
+ * When the viewport moves, states that leave it are returned to a pool and
+ * reused for states that enter it, and edges are created and dropped as
+ * needed. The number of scene nodes, and the cost of each layout pass, depend
+ * on the size of the screen rather than the size of the finite automaton.
+ * <p>
+ * The view listens to the scroll pane it is attached to, so it has to be
+ * detached before another view replaces it.
+ *
+ * @see Diagram
+ * @see SmartFiniteAutomatonBuilder
+ */
+public final class VirtualizedFiniteAutomatonPane extends Pane {
+
+    // The padding around the finite automaton.
+    static final double PADDING = 50;
+    // The margin around the viewport within which scene nodes are created.
+    static final double VIEWPORT_MARGIN = 200;
+    private Diagram diagram;
+    private final Group edgeLayer = new Group();
+    private final Group stateLayer = new Group();
+    private final HashMap<Integer, SmartState> states = new HashMap<>();
+    private final HashMap<Integer, SmartEdgeComponent> edges = new HashMap<>();
+    private final ArrayDeque<SmartState> statePool = new ArrayDeque<>();
+    // Updates the scene nodes when the scroll pane is scrolled or resized.
+    private final InvalidationListener viewportListener =
+            observable -> updateViewport();
+    private ScrollPane scrollPane = null;
+
+    /**
+     * Creates a view of the given finite automaton. No scene nodes are created
+     * until the view is attached to a scroll pane.
+     *
+     * @param finiteAutomaton the finite automaton
+     */
+    public VirtualizedFiniteAutomatonPane(
+            CompactFiniteAutomaton finiteAutomaton) {
+        diagram = Diagram.of(finiteAutomaton);
+        fitToDiagram();
+        getChildren().addAll(edgeLayer, stateLayer);
+        setBackground(new Background(
+                new BackgroundFill(CONTAINER_COLOR, CornerRadii.EMPTY,
+                                   Insets.EMPTY)));
+    }
+
+    /**
+     * Shows the given finite automaton instead, keeping the scroll pane this
+     * view is attached to and the pooled states. This is meant for showing the
+     * same finite automaton in a new layout, without creating another view.
+     *
+     * @param finiteAutomaton the finite automaton
+     */
+    public void setFiniteAutomaton(CompactFiniteAutomaton finiteAutomaton) {
+        diagram = Diagram.of(finiteAutomaton);
+        fitToDiagram();
+
+        // The node indices now refer to another diagram, so release every
+        // scene node before showing the viewport again.
+        for (SmartEdgeComponent edge : edges.values()) {
+            SmartFiniteAutomatonBuilder.disconnectEdge(edge);
+        }
+        edges.clear();
+        statePool.addAll(states.values());
+        states.clear();
+        edgeLayer.getChildren().clear();
+        stateLayer.getChildren().clear();
+        if (scrollPane != null) {
+            updateViewport();
+        }
+    }
+
+    /**
+     * Sizes this pane to the whole diagram, and moves the layers so that the
+     * top left corner of the diagram is inside the padding.
+     */
+    private void fitToDiagram() {
+        double width = diagram.getMaxX() - diagram.getMinX() + (2 * PADDING);
+        double height = diagram.getMaxY() - diagram.getMinY() + (2 * PADDING);
+        setMinSize(width, height);
+        setPrefSize(width, height);
+        for (Group layer : new Group[]{edgeLayer, stateLayer}) {
+            layer.setTranslateX(PADDING - diagram.getMinX());
+            layer.setTranslateY(PADDING - diagram.getMinY());
+        }
+    }
+
+    /**
+     * Returns the number of states that currently have scene nodes.
+     *
+     * @return the number of materialised states
+     */
+    public int getMaterialisedStateCount() {
+        return states.size();
+    }
+
+    /**
+     * Returns the number of edges that currently have scene nodes.
+     *
+     * @return the number of materialised edges
+     */
+    public int getMaterialisedEdgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * Returns the number of states that are waiting in the pool to be reused.
+     *
+     * @return the number of pooled states
+     */
+    int getPooledStateCount() {
+        return statePool.size();
+    }
+
+    /**
+     * Shows this view in the given scroll pane, and updates the scene nodes
+     * whenever the scroll pane is scrolled or resized. If this view is
+     * already attached to a scroll pane, it is detached from it first.
+     *
+     * @param scrollPane the scroll pane
+     * @see #detach()
+     */
+    public void attachTo(ScrollPane scrollPane) {
+        detach();
+        this.scrollPane = scrollPane;
+        scrollPane.setContent(this);
+        scrollPane.hvalueProperty().addListener(viewportListener);
+        scrollPane.vvalueProperty().addListener(viewportListener);
+        scrollPane.viewportBoundsProperty().addListener(viewportListener);
+        updateViewport();
+    }
+
+    /**
+     * Stops listening to the scroll pane this view is attached to, and
+     * releases all of its scene nodes, so that neither the scroll pane nor the
+     * scene nodes keep this view alive. The scroll pane keeps its content,
+     * which should be replaced straight away. Does nothing if this view is
+     * not attached.
+     */
+    public void detach() {
+        if (scrollPane == null) {
+            return;
+        }
+        scrollPane.hvalueProperty().removeListener(viewportListener);
+        scrollPane.vvalueProperty().removeListener(viewportListener);
+        scrollPane.viewportBoundsProperty().removeListener(viewportListener);
+        scrollPane = null;
+
+        // Release the scene nodes.
+        for (SmartEdgeComponent edge : edges.values()) {
+            SmartFiniteAutomatonBuilder.disconnectEdge(edge);
+        }
+        edges.clear();
+        states.clear();
+        statePool.clear();
+        edgeLayer.getChildren().clear();
+        stateLayer.getChildren().clear();
+    }
+
+    /**
+     * Shows the part of this view that is visible in the scroll pane it is
+     * attached to.
+     */
+    private void updateViewport() {
+        Bounds viewport = scrollPane.getViewportBounds();
+        double x = scrollOffset(scrollPane.getHvalue(), scrollPane.getHmin(),
+                                scrollPane.getHmax(),
+                                getWidth() - viewport.getWidth());
+        double y = scrollOffset(scrollPane.getVvalue(), scrollPane.getVmin(),
+                                scrollPane.getVmax(),
+                                getHeight() - viewport.getHeight());
+        showViewport(x, y, viewport.getWidth(), viewport.getHeight());
+    }
+
+    /**
+     * Creates scene nodes for the states and edges near the given part of
+     * this pane, and recycles the rest.
+     *
+     * @param x      the left edge of the visible part
+     * @param y      the top edge of the visible part
+     * @param width  the width of the visible part
+     * @param height the height of the visible part
+     */
+    public void showViewport(double x, double y, double width, double height) {
+        // Convert the visible part, with a margin, into the coordinates of the
+        // finite automaton.
+        double minX = x + diagram.getMinX() - PADDING - VIEWPORT_MARGIN;
+        double minY = y + diagram.getMinY() - PADDING - VIEWPORT_MARGIN;
+        double maxX = minX + width + (2 * VIEWPORT_MARGIN);
+        double maxY = minY + height + (2 * VIEWPORT_MARGIN);
+
+        // Find the visible edges, and the states they need.
+        HashSet<Integer> visibleEdges = new HashSet<>();
+        HashSet<Integer> visibleStates = new HashSet<>();
+        diagram.forEachEdgeIn(minX, minY, maxX, maxY, edge -> {
+            visibleEdges.add(edge);
+            visibleStates.add(diagram.getEdgeStart(edge));
+            visibleStates.add(diagram.getEdgeEnd(edge));
+        });
+        diagram.forEachNodeIn(minX, minY, maxX, maxY, visibleStates::add);
+
+        // Drop the edges that are no longer visible, so that their states do
+        // not refer to them, then recycle the states. The containers are
+        // removed in a single pass over each layer.
+        HashSet<Node> removedNodes = new HashSet<>();
+        Iterator<Map.Entry<Integer, SmartEdgeComponent>> edgeIterator =
+                edges.entrySet().iterator();
+        while (edgeIterator.hasNext()) {
+            Map.Entry<Integer, SmartEdgeComponent> entry = edgeIterator.next();
+            if (!visibleEdges.contains(entry.getKey())) {
+                SmartFiniteAutomatonBuilder.disconnectEdge(entry.getValue());
+                removedNodes.add(entry.getValue().getContainer());
+                edgeIterator.remove();
+            }
+        }
+        Iterator<Map.Entry<Integer, SmartState>> stateIterator =
+                states.entrySet().iterator();
+        while (stateIterator.hasNext()) {
+            Map.Entry<Integer, SmartState> entry = stateIterator.next();
+            if (!visibleStates.contains(entry.getKey())) {
+                removedNodes.add(entry.getValue().getContainer());
+                statePool.push(entry.getValue());
+                stateIterator.remove();
+            }
+        }
+        edgeLayer.getChildren().removeAll(removedNodes);
+        stateLayer.getChildren().removeAll(removedNodes);
+
+        // Materialise the newly visible states, then the edges between them.
+        for (int state : visibleStates) {
+            if (!states.containsKey(state)) {
+                SmartState smartState = materialiseState(state);
+                states.put(state, smartState);
+                stateLayer.getChildren().add(smartState.getContainer());
+            }
+        }
+        for (int edge : visibleEdges) {
+            if (!edges.containsKey(edge)) {
+                SmartEdgeComponent smartEdge = materialiseEdge(edge);
+                edges.put(edge, smartEdge);
+                edgeLayer.getChildren().add(smartEdge.getContainer());
+            }
+        }
+    }
+
+    /**
+     * Returns a state for the given node of the diagram, reusing one from the
+     * pool if possible.
+     *
+     * @param state the state
+     * @return the scene state
+     */
+    private SmartState materialiseState(int state) {
+        SmartState smartState = statePool.poll();
+        if (smartState == null) {
+            smartState = SmartFiniteAutomatonBuilder.createState(
+                    diagram.getNodeLabel(state));
+        }
+        else {
+            smartState.setLabelText(diagram.getNodeLabel(state));
+        }
+        smartState.getContainer().setTranslateX(diagram.getX(state));
+        smartState.getContainer().setTranslateY(diagram.getY(state));
+        smartState.setAsInitial(state == diagram.getInitialNode());
+        smartState.setAsFinal(diagram.isFinal(state));
+        return smartState;
+    }
+
+    /**
+     * Returns an edge for the given edge of the diagram, connected to the
+     * materialised states.
+     *
+     * @param edge the edge
+     * @return the scene edge
+     */
+    private SmartEdgeComponent materialiseEdge(int edge) {
+        SmartState startState = states.get(diagram.getEdgeStart(edge));
+        SmartState endState = states.get(diagram.getEdgeEnd(edge));
+        String labelText = diagram.getEdgeLabel(edge);
+        if (startState == endState) {
+            return SmartFiniteAutomatonBuilder.createLoopEdge(labelText,
+                                                              startState);
+        }
+        else if (diagram.getEdgeBend(edge) != 0) {
+            return SmartFiniteAutomatonBuilder.createCurvedEdge(labelText,
+                                                                startState,
+                                                                endState);
+        }
+        else {
+            return SmartFiniteAutomatonBuilder.createStraightEdge(labelText,
+                                                                  startState,
+                                                                  endState);
+        }
+    }
+
+    /**
+     * Returns the offset of the visible part of the content of a scroll pane
+     * along one axis.
+     *
+     * @param value  the scroll value
+     * @param min    the minimum scroll value
+     * @param max    the maximum scroll value
+     * @param hidden the length of the content that does not fit in the
+     *               viewport
+     * @return the offset of the visible part
+     */
+    private static double scrollOffset(double value, double min, double max,
+                                       double hidden) {
+        if ((max <= min) || (hidden <= 0)) {
+            return 0;
+        }
+        return ((value - min) / (max - min)) * hidden;
+    }
+
+}
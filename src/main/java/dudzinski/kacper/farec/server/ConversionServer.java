@@ -0,0 +1,376 @@
+package dudzinski.kacper.farec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dudzinski.kacper.farec.conversion.ArdenConverter;
+import dudzinski.kacper.farec.conversion.FiniteAutomatonConverter;
+import dudzinski.kacper.farec.conversion.KleeneConverter;
+import dudzinski.kacper.farec.conversion.StateEliminationConverter;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonImporter;
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa;
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledRegexCache;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class represents a local HTTP service for parsing and converting
+ * regular expressions and finite automata, so that other tools can use FAREC
+ * without starting a new process for every request. It does not start the
+ * JavaFX toolkit. The service has the following endpoints, which respond with
+ * plain text:
+ * <ul>
+ *     <li><code>GET /parse?regex=R</code>: the regular expression, fully
+ *     bracketed</li>
+ *     <li><code>GET /convert?regex=R</code>: the finite automaton created by
+ *     Thompson's construction, as an edge list</li>
+ *     <li><code>POST /convert?format=F&amp;algorithm=A</code>: the regular
+ *     expression of the finite automaton in the request body, which is a DOT
+ *     graph if the format is <code>dot</code> and an edge list otherwise</li>
+ *     <li><code>GET /match?regex=R&amp;word=W</code>: whether the regular
+ *     expression matches the word</li>
+ *     <li><code>GET /equivalence?left=R&amp;right=S</code>: whether the two
+ *     regular expressions match the same words</li>
+ *     <li><code>GET /statistics</code>: the hit and miss counters of the
+ *     cache</li>
+ * </ul>
+ * In query parameters, the + character is the UNION operator rather than a
+ * space. Invalid input is answered with status 400 and an error message.
+ * <p>
+ * Finite automata and DFAs are cached by the canonical form of their regular
+ * expression, and concurrent requests for the same regular expression share a
+ * single computation.
+ *
+ * @see CompiledRegexCache
+ */
+public final class ConversionServer {
+
+    private static final String USAGE =
+            "Usage: ConversionServer [--port N] [--threads N] " +
+            "[--cache-megabytes N] [--soft-spill]";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CompiledRegexCache cache;
+
+    /**
+     * A function handling a request and returning the response body.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        String respond(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Creates a server listening on the given port of the loopback address.
+     * The server is not started.
+     *
+     * @param port    the port to listen on, or 0 for any free port
+     * @param threads the number of threads handling requests
+     * @param cache   the cache of compiled regular expressions
+     * @throws IOException if the server cannot listen on the port
+     */
+    public ConversionServer(int port, int threads, CompiledRegexCache cache)
+            throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        this.cache = cache;
+
+        // Create the endpoints.
+        server.createContext("/parse", exchange -> handle(
+                exchange, "GET", this::parse));
+        server.createContext("/convert", exchange -> handle(
+                exchange, exchange.getRequestMethod().equals("POST") ?
+                          "POST" : "GET", this::convert));
+        server.createContext("/match", exchange -> handle(
+                exchange, "GET", this::match));
+        server.createContext("/equivalence", exchange -> handle(
+                exchange, "GET", this::equivalence));
+        server.createContext("/statistics", exchange -> handle(
+                exchange, "GET", ignored -> cache.getStatistics().toString()));
+    }
+
+    /**
+     * Starts a server with the given arguments, and stops it when the
+     * process is terminated.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long cacheMegabytes = 256;
+        boolean softSpill = false;
+        try {
+            for (int index = 0; index < args.length; index++) {
+                switch (args[index]) {
+                    case "--port" -> port = Integer.parseInt(args[++index]);
+                    case "--threads" ->
+                            threads = Integer.parseInt(args[++index]);
+                    case "--cache-megabytes" ->
+                            cacheMegabytes = Long.parseLong(args[++index]);
+                    case "--soft-spill" -> softSpill = true;
+                    default -> throw new IllegalArgumentException();
+                }
+            }
+            ConversionServer conversionServer = new ConversionServer(
+                    port, threads,
+                    new CompiledRegexCache(cacheMegabytes << 20, softSpill));
+            conversionServer.start();
+            Runtime.getRuntime().addShutdownHook(
+                    new Thread(conversionServer::stop));
+            System.err.println("Listening on port " +
+                               conversionServer.getPort() + ".");
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        catch (IOException e) {
+            System.err.println("Could not start the server: " +
+                               e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts handling requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops handling requests and releases the port and threads.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the port this server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handles a request using the given endpoint, and sends its response.
+     *
+     * @param exchange the request and response
+     * @param method   the method accepted by the endpoint
+     * @param endpoint the endpoint
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange, String method,
+                        Endpoint endpoint) throws IOException {
+        int status;
+        String body;
+        if (!exchange.getRequestMethod().equals(method)) {
+            status = 405;
+            body = "Method not allowed!";
+        }
+        else {
+            try {
+                body = endpoint.respond(exchange);
+                status = 200;
+            }
+            catch (IllegalArgumentException | IOException e) {
+                status = 400;
+                body = e.getMessage();
+            }
+            catch (RuntimeException | StackOverflowError e) {
+                status = 500;
+                body = "The request could not be handled!";
+            }
+        }
+
+        // Send the response.
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                                          "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Returns the canonical form of the regular expression in the request.
+     *
+     * @param exchange the request
+     * @return the canonical regular expression
+     * @throws IllegalArgumentException if the regular expression is missing
+     *                                  or invalid
+     */
+    private String parse(HttpExchange exchange)
+            throws IllegalArgumentException {
+        return CompiledRegexCache.canonicalForm(
+                getParameter(exchange, "regex"));
+    }
+
+    /**
+     * Converts the regular expression in the request into a finite automaton,
+     * or the finite automaton in the request body into a regular expression.
+     *
+     * @param exchange the request
+     * @return the edge list of the finite automaton, or the regular expression
+     * @throws IOException if the request body cannot be read or is invalid
+     */
+    private String convert(HttpExchange exchange) throws IOException {
+        // Convert a regular expression.
+        if (exchange.getRequestMethod().equals("GET")) {
+            return toEdgeList(cache.getFiniteAutomaton(
+                    getParameter(exchange, "regex")));
+        }
+
+        // Convert a finite automaton.
+        HashMap<String, String> parameters = getParameters(exchange);
+        FiniteAutomatonConverter converter =
+                switch (parameters.getOrDefault("algorithm",
+                                                "state-elimination")) {
+                    case "state-elimination" -> new StateEliminationConverter();
+                    case "kleene" -> new KleeneConverter();
+                    case "arden" -> new ArdenConverter();
+                    default -> throw new IllegalArgumentException(
+                            "Unknown algorithm!");
+                };
+        CompactFiniteAutomaton finiteAutomaton;
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(),
+                                                   StandardCharsets.UTF_8)) {
+            finiteAutomaton = "dot".equals(parameters.get("format")) ?
+                              CompactFiniteAutomatonImporter.importDot(reader) :
+                              CompactFiniteAutomatonImporter.importEdgeList(
+                                      reader);
+        }
+        return converter.convert(finiteAutomaton).toString();
+    }
+
+    /**
+     * Checks whether the regular expression in the request matches the word.
+     *
+     * @param exchange the request
+     * @return true or false
+     * @throws IllegalArgumentException if a parameter is missing or invalid
+     */
+    private String match(HttpExchange exchange)
+            throws IllegalArgumentException {
+        String word = getParameter(exchange, "word");
+        return String.valueOf(cache.matches(getParameter(exchange, "regex"),
+                                            word));
+    }
+
+    /**
+     * Checks whether the two regular expressions in the request match the
+     * same words.
+     *
+     * @param exchange the request
+     * @return true or false
+     * @throws IllegalArgumentException if a parameter is missing or invalid
+     */
+    private String equivalence(HttpExchange exchange)
+            throws IllegalArgumentException {
+        CompiledDfa left = cache.getMinimalDfa(getParameter(exchange, "left"));
+        CompiledDfa right =
+                cache.getMinimalDfa(getParameter(exchange, "right"));
+        return String.valueOf(left.isEquivalent(right));
+    }
+
+    /**
+     * Returns the finite automaton as an edge list, which can be imported
+     * again. The states are named after their indices.
+     *
+     * @param finiteAutomaton the finite automaton
+     * @return the edge list
+     * @see CompactFiniteAutomatonImporter#importEdgeList(Reader)
+     */
+    private static String toEdgeList(CompactFiniteAutomaton finiteAutomaton) {
+        StringBuilder edgeList = new StringBuilder();
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            edgeList.append('q').append(finiteAutomaton.getEdgeStart(edge))
+                    .append("\tq").append(finiteAutomaton.getEdgeEnd(edge))
+                    .append('\t')
+                    .append(finiteAutomaton.getEdgeLabelText(edge))
+                    .append('\n');
+        }
+        edgeList.append("initial\tq")
+                .append(finiteAutomaton.getInitialState());
+        for (int state = 0; state < finiteAutomaton.getStateCount(); state++) {
+            if (finiteAutomaton.isFinal(state)) {
+                edgeList.append("\nfinal\tq").append(state);
+            }
+        }
+        return edgeList.toString();
+    }
+
+    /**
+     * Returns the value of the given query parameter.
+     *
+     * @param exchange the request
+     * @param name     the name of the parameter
+     * @return the value of the parameter
+     * @throws IllegalArgumentException if the parameter is missing
+     */
+    private static String getParameter(HttpExchange exchange, String name)
+            throws IllegalArgumentException {
+        String value = getParameters(exchange).get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    "Missing parameter " + name + "!");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the query parameters of the request. The + character is kept,
+     * since it is the UNION operator.
+     *
+     * @param exchange the request
+     * @return the query parameters by name
+     */
+    private static HashMap<String, String> getParameters(
+            HttpExchange exchange) {
+        HashMap<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(decode(parameter.substring(0, separator)),
+                               decode(parameter.substring(separator + 1)));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Decodes a percent-encoded query string component, keeping the +
+     * character.
+     *
+     * @param component the encoded component
+     * @return the decoded component
+     */
+    private static String decode(String component) {
+        return URLDecoder.decode(component.replace("+", "%2B"),
+                                 StandardCharsets.UTF_8);
+    }
+
+}
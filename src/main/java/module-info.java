@@ -1,15 +1,23 @@
 module dudzinski.kacper.farec {
     requires javafx.controls;
     requires javafx.fxml;
+    requires java.desktop;
+    requires jdk.httpserver;
 
     opens dudzinski.kacper.farec to javafx.fxml;
     exports dudzinski.kacper.farec;
+    exports dudzinski.kacper.farec.cli;
     exports dudzinski.kacper.farec.controllers;
     opens dudzinski.kacper.farec.controllers to javafx.fxml;
+    exports dudzinski.kacper.farec.conversion;
     exports dudzinski.kacper.farec.regex;
     opens dudzinski.kacper.farec.regex to javafx.fxml;
+    exports dudzinski.kacper.farec.rendering;
+    exports dudzinski.kacper.farec.server;
     exports dudzinski.kacper.farec.finiteautomata;
     opens dudzinski.kacper.farec.finiteautomata to javafx.fxml;
+    exports dudzinski.kacper.farec.finiteautomata.compact;
+    exports dudzinski.kacper.farec.finiteautomata.dfa;
     exports dudzinski.kacper.farec.finiteautomata.smart;
     opens dudzinski.kacper.farec.finiteautomata.smart to javafx.fxml;
     exports dudzinski.kacper.farec.finiteautomata.graphical;
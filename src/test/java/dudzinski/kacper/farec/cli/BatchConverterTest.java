@@ -0,0 +1,161 @@
+package dudzinski.kacper.farec.cli;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link BatchConverter} class and its methods.
+ */
+public class BatchConverterTest {
+
+    @TempDir
+    private Path directory;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    /**
+     * Runs the batch converter with the given arguments and input.
+     *
+     * @param input the standard input
+     * @param args  the command line arguments
+     * @return the exit status
+     */
+    private int run(String input, String... args) {
+        return BatchConverter.run(
+                args, new ByteArrayInputStream(
+                        input.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the lines printed to standard output.
+     *
+     * @return the lines of the output
+     */
+    private String[] outputLines() {
+        return out.toString(StandardCharsets.UTF_8).split("\\R");
+    }
+
+    /**
+     * Test class for converting regular expressions.
+     */
+    @Nested
+    @DisplayName("Converting regular expressions")
+    public class RegexModeTest {
+        @Test
+        @DisplayName("prints one result per line in input order")
+        public void test1() {
+            StringBuilder input = new StringBuilder();
+            for (int index = 0; index < 100; index++) {
+                input.append("(a + b)* | c\n\n");
+            }
+            input.append("a + \n");
+
+            int status = run(input.toString(), "re", "--threads", "3");
+
+            assertEquals(1, status);
+            String[] lines = outputLines();
+            assertEquals(101, lines.length);
+            for (int index = 0; index < 100; index++) {
+                String[] fields = lines[index].split("\t");
+                assertEquals(String.valueOf((2 * index) + 1), fields[0]);
+                assertEquals("ok", fields[1]);
+                assertTrue(Long.parseLong(fields[2]) >= 0);
+                assertEquals("10 states, 12 edges", fields[3]);
+            }
+            assertTrue(lines[100].startsWith("201\terror\t"));
+        }
+
+        @Test
+        @DisplayName("saves the finite automata to the output directory")
+        public void test2() throws IOException {
+            Path file = directory.resolve("expressions.txt");
+            Files.writeString(file, "a|b\n");
+            Path outputDirectory = directory.resolve("output");
+
+            int status = run("", "re", "--output", outputDirectory.toString(),
+                             file.toString());
+
+            assertEquals(0, status);
+            assertTrue(outputLines()[0].startsWith(file + ":1\tok\t"));
+            CompactFiniteAutomaton finiteAutomaton =
+                    CompactFiniteAutomatonSerializer.read(
+                            outputDirectory.resolve("1.fa"));
+            assertEquals(4, finiteAutomaton.getStateCount());
+        }
+    }
+
+    /**
+     * Test class for converting finite automata.
+     */
+    @Nested
+    @DisplayName("Converting finite automata")
+    public class FiniteAutomatonModeTest {
+        @Test
+        @DisplayName("converts the files in a directory in alphabetical order")
+        public void test1() throws IOException {
+            Files.writeString(directory.resolve("b.tsv"),
+                              "q0\tq1\ta\ninitial\tq0\nfinal\tq1\n");
+            Files.writeString(directory.resolve("a.dot"),
+                              "digraph { s [shape=point]; s -> q0; " +
+                              "q0 [shape=doublecircle] }");
+            Files.writeString(directory.resolve("ignored.txt"), "");
+
+            int status = run("", "fa", "--algorithm", "kleene",
+                             directory.toString());
+
+            assertEquals(0, status);
+            String[] lines = outputLines();
+            assertEquals(2, lines.length);
+            assertTrue(lines[0].startsWith(directory.resolve("a.dot") +
+                                           "\tok\t"));
+            assertTrue(lines[1].endsWith("\ta"));
+        }
+
+        @Test
+        @DisplayName("reports the files that cannot be converted")
+        public void test2() throws IOException {
+            Path file = directory.resolve("no_initial_state.tsv");
+            Files.writeString(file, "q0\tq1\ta\n");
+
+            int status = run(file + "\n", "fa");
+
+            assertEquals(1, status);
+            assertTrue(outputLines()[0].startsWith(file + "\terror\t"));
+        }
+    }
+
+    /**
+     * Test class for invalid arguments.
+     */
+    @Nested
+    @DisplayName("Running the batch converter with invalid arguments")
+    public class InvalidArgumentsTest {
+        @Test
+        @DisplayName("prints the usage and returns 2")
+        public void test1() {
+            assertEquals(2, run(""));
+            assertEquals(2, run("", "xx"));
+            assertEquals(2, run("", "re", "--threads", "0"));
+            assertEquals(2, run("", "fa", "--algorithm", "magic"));
+            assertTrue(err.toString(StandardCharsets.UTF_8)
+                          .startsWith("Usage:"));
+        }
+    }
+
+}
@@ -404,4 +404,53 @@ class ConvertFAScreenControllerTest {
         }
     }
 
+    /**
+     * Test class for the
+     * {@link ConvertFAScreenController#createUpdatedLabel(String, String,
+     * String, String)} method.
+     */
+    @Nested
+    @DisplayName("Creating an updated label returns")
+    class CreateUpdatedLabelTest {
+        @Test
+        @DisplayName("the union of the direct and indirect paths")
+        void test1() {
+            String updatedLabel =
+                    ConvertFAScreenController.createUpdatedLabel("A", "B",
+                                                                 "C", "D");
+            assertEquals("(A)+(B)|(C)*|(D)", updatedLabel);
+        }
+
+        @Test
+        @DisplayName("the empty set symbol for missing edges")
+        void test2() {
+            String updatedLabel =
+                    ConvertFAScreenController.createUpdatedLabel(null, "B",
+                                                                 null, "D");
+            assertEquals("(ø)+(B)|(ø)*|(D)", updatedLabel);
+            assertEquals("B|D",
+                         ConvertFAScreenController.simplifyLabel(
+                                 updatedLabel));
+        }
+
+        @Test
+        @DisplayName("a label using the current operator symbols")
+        void test3() {
+            RegularExpressionSettings.setOperatorChar(RegexOperator.UNION,
+                                                      '~');
+            RegularExpressionSettings.setOperatorChar(
+                    RegexOperator.CONCATENATION, '&');
+            try {
+                String updatedLabel =
+                        ConvertFAScreenController.createUpdatedLabel(
+                                "A", "B", "C", "D");
+                assertEquals("(A)~(B)&(C)*&(D)", updatedLabel);
+            }
+            finally {
+                // Other test classes expect the default symbols.
+                resetOperatorChars();
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpression;
+
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * This class compares the algorithms used to convert finite automata into
+ * regular expressions, in terms of running time and size of the resulting
+ * regular expression. It is not run as part of the test suite; run its main
+ * method directly instead.
+ */
+public abstract class ConverterBenchmark {
+
+    private static final int[] SIZES = {4, 8, 12, 16, 20, 24};
+    private static final int REPETITIONS = 5;
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        System.out.printf("%-20s %6s %12s %16s%n", "Algorithm", "States",
+                          "Time (ms)", "Size (nodes)");
+        for (int size : SIZES) {
+            benchmark("State Elimination", size,
+                      StateEliminationConverter::new);
+            benchmark("McNaughton-Yamada", size, KleeneConverter::new);
+            benchmark("Arden's lemma", size, ArdenConverter::new);
+        }
+    }
+
+    /**
+     * Converts random finite automata of the given size with new converters
+     * and prints the average running time and regular expression size.
+     *
+     * @param name              the name of the algorithm
+     * @param size              the number of states
+     * @param converterSupplier creates a new converter for each repetition
+     */
+    private static void benchmark(
+            String name, int size,
+            Supplier<FiniteAutomatonConverter> converterSupplier) {
+        Random random = new Random(size);
+        long totalTime = 0;
+        long totalSize = 0;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            FiniteAutomatonConverter converter = converterSupplier.get();
+            RegularExpression[][] transitions =
+                    FiniteAutomatonConverterTest.randomTransitions(
+                            converter.getFactory(), size, random);
+
+            long start = System.nanoTime();
+            RegularExpression result =
+                    converter.convert(transitions, 0, size - 1);
+            totalTime += System.nanoTime() - start;
+            totalSize += treeSize(result, new IdentityHashMap<>());
+        }
+        System.out.printf("%-20s %6d %12.2f %16d%n", name, size,
+                          totalTime / 1e6 / REPETITIONS,
+                          totalSize / REPETITIONS);
+    }
+
+    /**
+     * Returns the number of nodes in the parse tree of the regular expression,
+     * counting shared subexpressions once per occurrence.
+     *
+     * @param regularExpression the regular expression
+     * @param sizes             the sizes of the subexpressions already counted
+     * @return the number of nodes in the parse tree
+     */
+    private static long treeSize(RegularExpression regularExpression,
+                                 IdentityHashMap<RegularExpression, Long>
+                                         sizes) {
+        if (!(regularExpression instanceof ComplexRegularExpression complexRegex)) {
+            return 1;
+        }
+        Long size = sizes.get(complexRegex);
+        if (size == null) {
+            size = 1 + treeSize(complexRegex.getLeftOperand(), sizes);
+            if (complexRegex.getRightOperand() != null) {
+                size += treeSize(complexRegex.getRightOperand(), sizes);
+            }
+            sizes.put(complexRegex, size);
+        }
+        return size;
+    }
+
+}
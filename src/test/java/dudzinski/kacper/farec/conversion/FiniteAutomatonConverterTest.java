@@ -0,0 +1,426 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.regex.JavaPatterns;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionFactory;
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link FiniteAutomatonConverter} subclasses and their
+ * methods.
+ */
+class FiniteAutomatonConverterTest {
+
+    private static final char[] ALPHABET = {'a', 'b'};
+    private static final int MAX_STRING_LENGTH = 6;
+
+    /**
+     * Make sure the operators are set to their default symbols before each
+     * test.
+     */
+    @BeforeEach
+    void resetOperatorChars() {
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+    }
+
+    /**
+     * Returns all strings over the alphabet up to the maximum length.
+     *
+     * @return all strings over the alphabet up to the maximum length
+     */
+    static ArrayList<String> allStrings() {
+        ArrayList<String> strings = new ArrayList<>();
+        strings.add("");
+        int start = 0;
+        for (int length = 1; length <= MAX_STRING_LENGTH; length++) {
+            int end = strings.size();
+            for (int index = start; index < end; index++) {
+                for (char symbol : ALPHABET) {
+                    strings.add(strings.get(index) + symbol);
+                }
+            }
+            start = end;
+        }
+        return strings;
+    }
+
+    /**
+     * Creates a random transition matrix whose labels are single symbols, the
+     * empty string or a union of two symbols.
+     *
+     * @param factory the factory used to create the labels
+     * @param size    the number of states
+     * @param random  the source of randomness
+     * @return a random transition matrix
+     */
+    static RegularExpression[][] randomTransitions(
+            RegularExpressionFactory factory, int size, Random random) {
+        RegularExpression[][] transitions = new RegularExpression[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                transitions[i][j] = switch (random.nextInt(6)) {
+                    case 0 -> factory.createSymbol('a');
+                    case 1 -> factory.createSymbol('b');
+                    case 2 -> factory.createUnion(factory.createSymbol('a'),
+                                                  factory.createSymbol('b'));
+                    case 3 -> factory.getEmptyString();
+                    default -> factory.getEmptySet();
+                };
+            }
+        }
+        return transitions;
+    }
+
+    /**
+     * Returns whether the finite automaton described by the transition matrix
+     * accepts the given string. The labels of the transition matrix must be
+     * single symbols, the empty string or a union of two symbols.
+     *
+     * @param transitions  the transition matrix
+     * @param initialState the index of the initial state
+     * @param finalState   the index of the final state
+     * @param string       the string to test
+     * @return true if the string is accepted, false otherwise
+     */
+    static boolean accepts(RegularExpression[][] transitions, int initialState,
+                           int finalState, String string) {
+        int size = transitions.length;
+        boolean[] current = closure(transitions, initialState);
+        for (char symbol : string.toCharArray()) {
+            boolean[] next = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                if (!current[i]) {
+                    continue;
+                }
+                for (int j = 0; j < size; j++) {
+                    String label = transitions[i][j].toString();
+                    if (label.equals(String.valueOf(symbol)) ||
+                        label.equals("(a)+(b)")) {
+                        boolean[] reached = closure(transitions, j);
+                        for (int k = 0; k < size; k++) {
+                            next[k] |= reached[k];
+                        }
+                    }
+                }
+            }
+            current = next;
+        }
+        return current[finalState];
+    }
+
+    /**
+     * Returns the states reachable from the given state using only empty
+     * string transitions.
+     *
+     * @param transitions the transition matrix
+     * @param state       the start state
+     * @return the states reachable using only empty string transitions
+     */
+    private static boolean[] closure(RegularExpression[][] transitions,
+                                     int state) {
+        boolean[] reached = new boolean[transitions.length];
+        ArrayList<Integer> stack = new ArrayList<>();
+        stack.add(state);
+        reached[state] = true;
+        while (!stack.isEmpty()) {
+            int current = stack.remove(stack.size() - 1);
+            for (int next = 0; next < transitions.length; next++) {
+                if (!reached[next] &&
+                    transitions[current][next].toString().equals("ε")) {
+                    reached[next] = true;
+                    stack.add(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Checks that the converter produces a regular expression with the same
+     * language as randomly generated finite automata.
+     *
+     * @param converter the converter to test
+     */
+    static void assertConvertsRandomAutomata(
+            FiniteAutomatonConverter converter) {
+        Random random = new Random(42);
+        ArrayList<String> strings = allStrings();
+        for (int test = 0; test < 30; test++) {
+            int size = 2 + random.nextInt(5);
+            RegularExpression[][] transitions =
+                    randomTransitions(converter.getFactory(), size, random);
+            int initialState = random.nextInt(size);
+            int finalState = (initialState + 1 + random.nextInt(size - 1)) %
+                             size;
+
+            RegularExpression result =
+                    converter.convert(transitions, initialState, finalState);
+            Pattern pattern = JavaPatterns.toPattern(result);
+            for (String string : strings) {
+                assertEquals(accepts(transitions, initialState, finalState,
+                                     string),
+                             pattern.matcher(string).matches(),
+                             "String \"" + string + "\" with result " +
+                             result);
+            }
+        }
+    }
+
+    /**
+     * Test class for the {@link KleeneConverter} class.
+     */
+    @Nested
+    @DisplayName("The McNaughton–Yamada algorithm")
+    class KleeneConverterTest {
+        @Test
+        @DisplayName("converts a single edge")
+        void test1() {
+            KleeneConverter converter = new KleeneConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(2);
+            transitions[0][1] = converter.getFactory().createSymbol('a');
+
+            assertEquals("a", converter.convert(transitions, 0, 1).toString());
+        }
+
+        @Test
+        @DisplayName("converts a loop followed by an edge")
+        void test2() {
+            KleeneConverter converter = new KleeneConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(2);
+            transitions[0][0] = converter.getFactory().createSymbol('a');
+            transitions[0][1] = converter.getFactory().createSymbol('b');
+
+            Pattern pattern = JavaPatterns.toPattern(
+                    converter.convert(transitions, 0, 1));
+
+            assertTrue(pattern.matcher("b").matches());
+            assertTrue(pattern.matcher("aab").matches());
+            assertFalse(pattern.matcher("").matches());
+            assertFalse(pattern.matcher("aba").matches());
+        }
+
+        @Test
+        @DisplayName("produces an equivalent regular expression for random " +
+                     "finite automata")
+        void test3() {
+            assertConvertsRandomAutomata(new KleeneConverter());
+        }
+
+        @Test
+        @DisplayName("converts a large finite automaton in parallel")
+        void test4() {
+            KleeneConverter converter = new KleeneConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(40);
+            for (int state = 0; state < 39; state++) {
+                transitions[state][state + 1] =
+                        converter.getFactory().createSymbol('a');
+            }
+            Pattern pattern = JavaPatterns.toPattern(
+                    converter.convert(transitions, 0, 39));
+
+            assertTrue(pattern.matcher("a".repeat(39)).matches());
+            assertFalse(pattern.matcher("a".repeat(38)).matches());
+        }
+    }
+
+    /**
+     * Test class for the {@link StateEliminationConverter} class.
+     */
+    @Nested
+    @DisplayName("The State Elimination algorithm")
+    class StateEliminationConverterTest {
+        @Test
+        @DisplayName("converts a single edge")
+        void test1() {
+            StateEliminationConverter converter =
+                    new StateEliminationConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(2);
+            transitions[0][1] = converter.getFactory().createSymbol('a');
+
+            assertEquals("a", converter.convert(transitions, 0, 1).toString());
+        }
+
+        @Test
+        @DisplayName("converts a loop followed by an edge")
+        void test2() {
+            StateEliminationConverter converter =
+                    new StateEliminationConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(2);
+            transitions[0][0] = converter.getFactory().createSymbol('a');
+            transitions[0][1] = converter.getFactory().createSymbol('b');
+
+            assertEquals("((a)*)|(b)",
+                         converter.convert(transitions, 0, 1).toString());
+        }
+
+        @Test
+        @DisplayName("produces an equivalent regular expression for random " +
+                     "finite automata")
+        void test3() {
+            assertConvertsRandomAutomata(new StateEliminationConverter());
+        }
+    }
+
+    /**
+     * Test class for the {@link ArdenConverter} class.
+     */
+    @Nested
+    @DisplayName("The Arden's lemma algorithm")
+    class ArdenConverterTest {
+        @Test
+        @DisplayName("converts a single edge")
+        void test1() {
+            ArdenConverter converter = new ArdenConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(2);
+            transitions[0][1] = converter.getFactory().createSymbol('a');
+
+            assertEquals("a", converter.convert(transitions, 0, 1).toString());
+        }
+
+        @Test
+        @DisplayName("converts a loop followed by an edge")
+        void test2() {
+            ArdenConverter converter = new ArdenConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(2);
+            transitions[0][0] = converter.getFactory().createSymbol('a');
+            transitions[0][1] = converter.getFactory().createSymbol('b');
+
+            assertEquals("((a)*)|(b)",
+                         converter.convert(transitions, 0, 1).toString());
+        }
+
+        @Test
+        @DisplayName("produces an equivalent regular expression for random " +
+                     "finite automata")
+        void test3() {
+            assertConvertsRandomAutomata(new ArdenConverter());
+        }
+
+        @Test
+        @DisplayName("converts a large finite automaton in parallel")
+        void test4() {
+            ArdenConverter converter = new ArdenConverter();
+            RegularExpression[][] transitions =
+                    converter.createEmptyTransitions(40);
+            for (int state = 0; state < 39; state++) {
+                transitions[state][state + 1] =
+                        converter.getFactory().createSymbol('a');
+                transitions[state + 1][0] =
+                        converter.getFactory().createSymbol('b');
+            }
+            Pattern pattern = JavaPatterns.toPattern(
+                    converter.convert(transitions, 0, 39));
+
+            assertTrue(pattern.matcher("a".repeat(39)).matches());
+            assertTrue(pattern.matcher("ab" + "a".repeat(39)).matches());
+            assertFalse(pattern.matcher("a".repeat(38)).matches());
+        }
+    }
+
+    /**
+     * Test class for the
+     * {@link FiniteAutomatonConverter#convert(CompactFiniteAutomaton)} method.
+     */
+    @Nested
+    @DisplayName("Converting a compact finite automaton")
+    class ConvertCompactTest {
+        @Test
+        @DisplayName("parses the edge labels")
+        void test1() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s0, s0, "a, b");
+            builder.addEdge(s0, s1, "b");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+
+            assertEquals("(((a)+(b))*)|(b)",
+                         new StateEliminationConverter().convert(
+                                 builder.build()).toString());
+        }
+
+        @Test
+        @DisplayName("throws an exception if there is no final state")
+        void test2() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            builder.setInitialState(builder.addState("s0"));
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> new KleeneConverter().convert(builder.build()));
+        }
+
+        @Test
+        @DisplayName("accepts the words of every final state")
+        void test3() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            int s2 = builder.addState("s2");
+            builder.addEdge(s0, s1, "a");
+            builder.addEdge(s1, s2, "b");
+            builder.addEdge(s2, s1, "a");
+            builder.setInitialState(s0);
+            builder.addFinalState(s0);
+            builder.addFinalState(s2);
+
+            FiniteAutomatonConverter[] converters = {
+                    new KleeneConverter(), new StateEliminationConverter(),
+                    new ArdenConverter()};
+            for (FiniteAutomatonConverter converter : converters) {
+                Pattern pattern = JavaPatterns.toPattern(
+                        converter.convert(builder.build()));
+
+                assertTrue(pattern.matcher("").matches());
+                assertTrue(pattern.matcher("abab").matches());
+                assertFalse(pattern.matcher("a").matches());
+                assertFalse(pattern.matcher("aba").matches());
+            }
+        }
+
+        @Test
+        @DisplayName("returns the empty set if no final state is reachable")
+        void test4() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s1, s0, "a");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+
+            StateEliminationConverter converter =
+                    new StateEliminationConverter();
+
+            assertSame(converter.getFactory().getEmptySet(),
+                       converter.convert(builder.build()));
+        }
+    }
+
+}
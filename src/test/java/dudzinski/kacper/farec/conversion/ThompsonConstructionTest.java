@@ -0,0 +1,102 @@
+package dudzinski.kacper.farec.conversion;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.JavaPatterns;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.SimpleRegularExpression;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_SET;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link ThompsonConstruction} class and its methods.
+ */
+class ThompsonConstructionTest {
+
+    /**
+     * Test class for the
+     * {@link ThompsonConstruction#toFiniteAutomaton(RegularExpression)}
+     * method.
+     */
+    @Nested
+    @DisplayName("Converting a regular expression into a finite automaton")
+    class ToFiniteAutomatonTest {
+        @Test
+        @DisplayName("creates a single edge for a symbol")
+        void test1() {
+            CompactFiniteAutomaton finiteAutomaton =
+                    ThompsonConstruction.toFiniteAutomaton(
+                            new SimpleRegularExpression('a'));
+
+            assertEquals(2, finiteAutomaton.getStateCount());
+            assertEquals("a", finiteAutomaton.getEdgeLabelText(
+                    finiteAutomaton.findEdge(finiteAutomaton.getInitialState(),
+                                             1)));
+            assertTrue(finiteAutomaton.isFinal(1));
+        }
+
+        @Test
+        @DisplayName("creates no edge for the empty set")
+        void test2() {
+            CompactFiniteAutomaton finiteAutomaton =
+                    ThompsonConstruction.toFiniteAutomaton(
+                            new SimpleRegularExpression(EMPTY_SET.charAt(0)));
+
+            assertEquals(2, finiteAutomaton.getStateCount());
+            assertEquals(0, finiteAutomaton.getEdgeCount());
+        }
+
+        @Test
+        @DisplayName("creates an equivalent finite automaton")
+        void test3() {
+            // ((a)+(b))*|(a)
+            RegularExpression regularExpression = new ComplexRegularExpression(
+                    new ComplexRegularExpression(
+                            new ComplexRegularExpression(
+                                    new SimpleRegularExpression('a'),
+                                    RegexOperator.UNION,
+                                    new SimpleRegularExpression('b')),
+                            RegexOperator.STAR, null),
+                    RegexOperator.CONCATENATION,
+                    new SimpleRegularExpression('a'));
+
+            CompactFiniteAutomaton finiteAutomaton =
+                    ThompsonConstruction.toFiniteAutomaton(regularExpression);
+            Pattern pattern = JavaPatterns.toPattern(
+                    new StateEliminationConverter().convert(finiteAutomaton));
+
+            assertEquals(10, finiteAutomaton.getStateCount());
+            assertTrue(pattern.matcher("a").matches());
+            assertTrue(pattern.matcher("abba").matches());
+            assertFalse(pattern.matcher("").matches());
+            assertFalse(pattern.matcher("ab").matches());
+        }
+
+        @Test
+        @DisplayName("does not overflow the stack for deep regular expressions")
+        void test4() {
+            int depth = 100_000;
+            RegularExpression regularExpression =
+                    new SimpleRegularExpression('a');
+            for (int index = 0; index < depth; index++) {
+                regularExpression = new ComplexRegularExpression(
+                        regularExpression, RegexOperator.CONCATENATION,
+                        new SimpleRegularExpression('b'));
+            }
+
+            CompactFiniteAutomaton finiteAutomaton =
+                    ThompsonConstruction.toFiniteAutomaton(regularExpression);
+
+            assertEquals(2 * (depth + 1), finiteAutomaton.getStateCount());
+            assertEquals(2 * depth + 1, finiteAutomaton.getEdgeCount());
+        }
+    }
+
+}
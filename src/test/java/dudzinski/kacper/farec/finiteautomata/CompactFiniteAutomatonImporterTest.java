@@ -0,0 +1,272 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonImporter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link CompactFiniteAutomatonImporter} class and its
+ * methods.
+ */
+public class CompactFiniteAutomatonImporterTest {
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Creates a reader that generates an edge list one line at a time, with
+     * edges between distinct pairs of states.
+     *
+     * @param stateCount the number of states
+     * @param edgeCount  the number of edges
+     * @param atEnd      run when the end of the edge list is first reached
+     * @return the reader
+     */
+    private static Reader createEdgeListReader(int stateCount, int edgeCount,
+                                               Runnable atEnd) {
+        return new Reader() {
+            private int edge = 0;
+            private String line = "";
+            private int position = 0;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (position == line.length()) {
+                    if (edge == edgeCount) {
+                        atEnd.run();
+                        return -1;
+                    }
+                    line = "s" + (edge / 500) + "\ts" +
+                           (edge % stateCount) + "\t" + (edge % 7) + "\n";
+                    position = 0;
+                    edge++;
+                }
+                int count = Math.min(length, line.length() - position);
+                line.getChars(position, position + count, buffer, offset);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Returns the memory used by reachable objects, after collecting garbage.
+     *
+     * @return the used memory in bytes
+     */
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Test class for importing edge lists.
+     */
+    @Nested
+    @DisplayName("Importing an edge list")
+    public class EdgeListTest {
+        @Test
+        @DisplayName("creates its states, edges, initial and final states")
+        public void test1() throws IOException {
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importEdgeList(
+                            new StringReader("""
+                                    # A comment.
+                                    q0\tq1\ta, b
+
+                                    q1\tq1\tc
+                                    q2
+                                    initial\tq0
+                                    final\tq1
+                                    """));
+
+            assertEquals(3, result.getStateCount());
+            assertEquals(2, result.getEdgeCount());
+            assertEquals("q2", result.getStateLabel(2));
+            assertEquals("a,b", result.getEdgeLabelText(result.findEdge(0, 1)));
+            assertEquals(0, result.getInitialState());
+            assertTrue(result.isFinal(1));
+            assertFalse(result.hasLayout());
+        }
+
+        @Test
+        @DisplayName("merges the labels of repeated edges")
+        public void test2() throws IOException {
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importEdgeList(
+                            new StringReader("q0\tq1\ta\nq0\tq1\tb\n"));
+
+            assertEquals(1, result.getEdgeCount());
+            assertEquals("a,b", result.getEdgeLabelText(0));
+        }
+
+        @Test
+        @DisplayName("throws an exception for an invalid label or line")
+        public void test3() {
+            IOException exception = assertThrows(
+                    IOException.class,
+                    () -> CompactFiniteAutomatonImporter.importEdgeList(
+                            new StringReader("q0\tq1\ta\nq0\tq1\ta b\n")));
+            assertTrue(exception.getMessage().startsWith("Line 2"));
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonImporter.importEdgeList(
+                                 new StringReader("q0\tq1\ta\tb\n")));
+        }
+
+        @Test
+        @DisplayName("imports 500 000 edges while streaming the input")
+        public void test4() throws IOException {
+            int stateCount = 1000;
+            int edgeCount = 500_000;
+            Reader reader = createEdgeListReader(stateCount, edgeCount,
+                                                 () -> {});
+
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importEdgeList(reader);
+
+            assertEquals(stateCount, result.getStateCount());
+            assertEquals(edgeCount, result.getEdgeCount());
+            assertEquals(7, result.getLabelCount());
+        }
+
+        @Test
+        @DisplayName("holds less than the imported finite automaton")
+        public void test5() throws IOException {
+            // Measure the memory held once every edge has been read, but
+            // before the finite automaton is built.
+            long[] heldMemory = new long[1];
+            long baseline = getUsedMemory();
+            Reader reader = createEdgeListReader(
+                    1000, 500_000,
+                    () -> heldMemory[0] = getUsedMemory() - baseline);
+
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importEdgeList(reader);
+
+            assertTrue(heldMemory[0] > 0);
+            assertTrue(heldMemory[0] < result.getMemoryEstimate(),
+                       heldMemory[0] + " bytes held while importing, " +
+                       result.getMemoryEstimate() + " bytes imported");
+        }
+
+        @Test
+        @DisplayName("keeps only the joined label of repeated edges")
+        public void test6() throws IOException {
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importEdgeList(
+                            new StringReader("q0\tq1\ta\nq1\tq0\tc\n" +
+                                             "q0\tq1\tb\nq0\tq1\tc\n"));
+
+            assertEquals(2, result.getEdgeCount());
+            assertEquals("a,b,c",
+                         result.getEdgeLabelText(result.findEdge(0, 1)));
+            assertEquals(2, result.getLabelCount());
+        }
+    }
+
+    /**
+     * Test class for importing DOT graphs.
+     */
+    @Nested
+    @DisplayName("Importing a DOT graph")
+    public class DotTest {
+        @Test
+        @DisplayName("creates its states, edges, initial and final states")
+        public void test1() throws IOException {
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importDot(
+                            new StringReader("""
+                                    // Written by hand.
+                                    digraph finite_state_machine {
+                                        rankdir=LR;
+                                        node [shape = point]; start
+                                        node [shape = doublecircle]; q2;
+                                        node [shape = circle];
+                                        /* The edges. */
+                                        start -> q0
+                                        q0 -> q1 [label = "a, b"];
+                                        q1 -> q2 -> q0 [label="c"];
+                                        q1 -> q1
+                                        q0 -> q1 [label=d]
+                                        "q 3" [label="final"]
+                                    }
+                                    """));
+
+            assertEquals(4, result.getStateCount());
+            assertEquals("q2", result.getStateLabel(0));
+            assertEquals("final", result.getStateLabel(3));
+            int q0 = 1;
+            int q1 = 2;
+            assertEquals(q0, result.getInitialState());
+            assertEquals(1, result.getFinalStateCount());
+            assertTrue(result.isFinal(0));
+            assertEquals(4, result.getEdgeCount());
+            assertEquals("a,b,d",
+                         result.getEdgeLabelText(result.findEdge(q0, q1)));
+            assertEquals("c", result.getEdgeLabelText(result.findEdge(0, q0)));
+            assertEquals("ε",
+                         result.getEdgeLabelText(result.findEdge(q1, q1)));
+        }
+
+        @Test
+        @DisplayName("uses the positions of its nodes as the layout")
+        public void test2() throws IOException {
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importDot(
+                            new StringReader("digraph { a [pos=\"10,20!\"] }"));
+
+            assertTrue(result.hasLayout());
+            assertEquals(10, result.getX(0));
+            assertEquals(-20, result.getY(0));
+            assertEquals(NO_STATE, result.getInitialState());
+        }
+
+        @Test
+        @DisplayName("throws an exception for an invalid graph")
+        public void test3() {
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonImporter.importDot(
+                                 new StringReader("digraph { a -> b")));
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonImporter.importDot(
+                                 new StringReader("a -> b")));
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonImporter.importDot(
+                                 new StringReader(
+                                         "digraph { a -> b [label=\"**\"] }")));
+        }
+
+        @Test
+        @DisplayName("is chosen by the file extension")
+        public void test4() throws IOException {
+            Path file = directory.resolve("test.gv");
+            Files.writeString(file, "digraph { a -> b [label=x] }");
+
+            CompactFiniteAutomaton result =
+                    CompactFiniteAutomatonImporter.importFile(file);
+
+            assertEquals(2, result.getStateCount());
+            assertEquals("x", result.getEdgeLabelText(0));
+        }
+    }
+
+}
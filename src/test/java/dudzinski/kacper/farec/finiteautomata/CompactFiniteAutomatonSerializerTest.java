@@ -0,0 +1,181 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link CompactFiniteAutomatonSerializer} class and its
+ * methods.
+ */
+public class CompactFiniteAutomatonSerializerTest {
+
+    @TempDir
+    private Path directory;
+    private Path file;
+    private CompactFiniteAutomatonBuilder builder;
+
+    /**
+     * Create a new builder and file name for each test.
+     */
+    @BeforeEach
+    public void setup() {
+        builder = new CompactFiniteAutomatonBuilder();
+        file = directory.resolve("test.fa");
+    }
+
+    /**
+     * Saves the finite automaton and loads it back.
+     *
+     * @param finiteAutomaton the finite automaton to save
+     * @return the loaded finite automaton
+     * @throws IOException if the file cannot be written or read
+     */
+    private CompactFiniteAutomaton roundTrip(
+            CompactFiniteAutomaton finiteAutomaton) throws IOException {
+        CompactFiniteAutomatonSerializer.write(finiteAutomaton, file);
+        return CompactFiniteAutomatonSerializer.read(file);
+    }
+
+    /**
+     * Test class for saving and loading compact finite automata.
+     */
+    @Nested
+    @DisplayName("Saving and loading a compact finite automaton")
+    public class RoundTripTest {
+        @Test
+        @DisplayName("preserves its states, edges, initial and final states")
+        public void test1() throws IOException {
+            int s0 = builder.addState("s0", 10, -20.5);
+            int s1 = builder.addState("s1", 300, 40);
+            int s2 = builder.addState("ünïcödé", 0, 0);
+            builder.addEdge(s0, s1, "a, b");
+            builder.addEdge(s1, s1, "a");
+            builder.addEdge(s1, s2, "a, b");
+            builder.addEdge(s2, s0, "ε");
+            builder.setInitialState(s0);
+            builder.addFinalState(s0);
+            builder.addFinalState(s2);
+
+            CompactFiniteAutomaton result = roundTrip(builder.build());
+
+            assertEquals(3, result.getStateCount());
+            assertEquals(4, result.getEdgeCount());
+            assertEquals(3, result.getLabelCount());
+            assertTrue(result.hasLayout());
+            assertEquals("ünïcödé", result.getStateLabel(s2));
+            assertEquals(-20.5, result.getY(s0));
+            assertEquals(300, result.getX(s1));
+            assertEquals("a, b", result.getEdgeLabelText(
+                    result.findEdge(s1, s2)));
+            assertEquals("ε", result.getEdgeLabelText(
+                    result.findEdge(s2, s0)));
+            assertEquals(s0, result.getInitialState());
+            assertEquals(2, result.getFinalStateCount());
+            assertTrue(result.isFinal(s2));
+        }
+
+        @Test
+        @DisplayName("preserves a missing initial state and layout")
+        public void test2() throws IOException {
+            builder.addState("s0");
+            builder.addState("s1");
+            builder.addEdge(1, 0, "a");
+
+            CompactFiniteAutomaton result = roundTrip(builder.build());
+
+            assertFalse(result.hasLayout());
+            assertEquals(NO_STATE, result.getInitialState());
+            assertEquals(0, result.getFinalStateCount());
+            assertEquals(0, result.findEdge(1, 0));
+        }
+
+        @Test
+        @DisplayName("preserves a finite automaton with a million edges")
+        public void test3() throws IOException {
+            int stateCount = 1000;
+            for (int state = 0; state < stateCount; state++) {
+                builder.addState("s" + state, state, -state);
+            }
+            for (int start = 0; start < stateCount; start++) {
+                for (int end = 0; end < stateCount; end++) {
+                    builder.addEdge(start, end, String.valueOf(end % 7));
+                }
+            }
+            builder.setInitialState(0);
+            builder.addFinalState(stateCount - 1);
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            CompactFiniteAutomaton result = roundTrip(finiteAutomaton);
+
+            assertEquals(1_000_000, result.getEdgeCount());
+            for (int edge = 0; edge < result.getEdgeCount(); edge++) {
+                assertEquals(finiteAutomaton.getEdgeStart(edge),
+                             result.getEdgeStart(edge));
+                assertEquals(finiteAutomaton.getEdgeEnd(edge),
+                             result.getEdgeEnd(edge));
+                assertEquals(finiteAutomaton.getEdgeLabelText(edge),
+                             result.getEdgeLabelText(edge));
+            }
+            assertEquals(stateCount, result.getInDegree(5));
+            assertTrue(result.isFinal(stateCount - 1));
+        }
+    }
+
+    /**
+     * Test class for loading invalid files.
+     */
+    @Nested
+    @DisplayName("Loading a compact finite automaton throws an exception if")
+    public class InvalidFileTest {
+        @Test
+        @DisplayName("the file is not a finite automaton file")
+        public void test1() throws IOException {
+            Files.write(file, new byte[]{'N', 'O', 'P', 'E', 1, 0, 0, 0, 0});
+
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonSerializer.read(file));
+        }
+
+        @Test
+        @DisplayName("the file is truncated")
+        public void test2() throws IOException {
+            int s0 = builder.addState("s0");
+            builder.addEdge(s0, s0, "a");
+            CompactFiniteAutomatonSerializer.write(builder.build(), file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonSerializer.read(file));
+        }
+
+        @Test
+        @DisplayName("the file refers to a state that does not exist")
+        public void test3() throws IOException {
+            builder.addState("s0");
+            CompactFiniteAutomatonSerializer.write(builder.build(), file);
+            byte[] bytes = Files.readAllBytes(file);
+            // The initial state is stored after the state label "s0".
+            bytes[bytes.length - 3] = 5;
+            Files.write(file, bytes);
+
+            assertThrows(IOException.class,
+                         () -> CompactFiniteAutomatonSerializer.read(file));
+        }
+    }
+
+}
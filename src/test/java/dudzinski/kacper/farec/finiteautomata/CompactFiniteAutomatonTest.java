@@ -0,0 +1,285 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton.NO_STATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link CompactFiniteAutomaton} and
+ * {@link CompactFiniteAutomatonBuilder} classes and their methods.
+ */
+public class CompactFiniteAutomatonTest {
+
+    private CompactFiniteAutomatonBuilder builder;
+
+    /**
+     * Create a new builder for each test.
+     */
+    @BeforeEach
+    public void setup() {
+        builder = new CompactFiniteAutomatonBuilder();
+    }
+
+    /**
+     * Test class for the
+     * {@link CompactFiniteAutomatonBuilder#addEdge(int, int, String)} method.
+     */
+    @Nested
+    @DisplayName("Adding an edge to a compact finite automaton")
+    public class AddEdgeTest {
+        @Test
+        @DisplayName("orders the outgoing edges by start and end state")
+        public void test1() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            int s2 = builder.addState("s2");
+            builder.addEdge(s2, s0, "c");
+            builder.addEdge(s0, s2, "b");
+            builder.addEdge(s0, s1, "a");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(0, finiteAutomaton.getOutgoingOffset(s0));
+            assertEquals(2, finiteAutomaton.getOutgoingOffset(s1));
+            assertEquals(2, finiteAutomaton.getOutgoingOffset(s2));
+            assertEquals(3, finiteAutomaton.getOutgoingOffset(3));
+            assertEquals("a", finiteAutomaton.getEdgeLabelText(0));
+            assertEquals("b", finiteAutomaton.getEdgeLabelText(1));
+            assertEquals("c", finiteAutomaton.getEdgeLabelText(2));
+        }
+
+        @Test
+        @DisplayName("records it as an incoming edge of its end state")
+        public void test2() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s1, s0, "b");
+            builder.addEdge(s0, s0, "a");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(2, finiteAutomaton.getInDegree(s0));
+            assertEquals(0, finiteAutomaton.getInDegree(s1));
+            int offset = finiteAutomaton.getIncomingOffset(s0);
+            assertEquals(s0, finiteAutomaton.getEdgeStart(
+                    finiteAutomaton.getIncomingEdge(offset)));
+            assertEquals(s1, finiteAutomaton.getEdgeStart(
+                    finiteAutomaton.getIncomingEdge(offset + 1)));
+        }
+
+        @Test
+        @DisplayName("replaces an existing, equivalent edge")
+        public void test3() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s0, s1, "a");
+            builder.addEdge(s0, s1, "b");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(1, finiteAutomaton.getEdgeCount());
+            assertEquals("b", finiteAutomaton.getEdgeLabelText(
+                    finiteAutomaton.findEdge(s0, s1)));
+            // The replaced label is not kept.
+            assertEquals(1, finiteAutomaton.getLabelCount());
+        }
+
+        @Test
+        @DisplayName("interns its label")
+        public void test4() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s0, s1, "a");
+            builder.addEdge(s1, s0, "a");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(1, finiteAutomaton.getLabelCount());
+            assertEquals(finiteAutomaton.getEdgeLabel(0),
+                         finiteAutomaton.getEdgeLabel(1));
+        }
+
+        @Test
+        @DisplayName("throws an exception if a state does not exist")
+        public void test5() {
+            int s0 = builder.addState("s0");
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> builder.addEdge(s0, 1, "a"));
+        }
+    }
+
+    /**
+     * Test class for the {@link CompactFiniteAutomaton#findEdge(int, int)}
+     * method.
+     */
+    @Nested
+    @DisplayName("Finding an edge in a compact finite automaton")
+    public class FindEdgeTest {
+        @Test
+        @DisplayName("returns the edge between the two states")
+        public void test1() {
+            for (int index = 0; index < 10; index++) {
+                builder.addState("s" + index);
+            }
+            for (int index = 9; index > 0; index--) {
+                builder.addEdge(0, index, "a" + index);
+            }
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            for (int index = 1; index < 10; index++) {
+                assertEquals("a" + index, finiteAutomaton.getEdgeLabelText(
+                        finiteAutomaton.findEdge(0, index)));
+            }
+        }
+
+        @Test
+        @DisplayName("returns -1 if there is no edge between the two states")
+        public void test2() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s0, s1, "a");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(-1, finiteAutomaton.findEdge(s1, s0));
+        }
+    }
+
+    /**
+     * Test class for the initial and final states of a compact finite
+     * automaton.
+     */
+    @Nested
+    @DisplayName("Setting the initial and final states")
+    public class InitialFinalStateTest {
+        @Test
+        @DisplayName("allows the initial state to be a final state")
+        public void test1() {
+            int s0 = builder.addState("s0");
+            builder.addFinalState(s0);
+            builder.setInitialState(s0);
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(s0, finiteAutomaton.getInitialState());
+            assertTrue(finiteAutomaton.isFinal(s0));
+        }
+
+        @Test
+        @DisplayName("allows several final states")
+        public void test2() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            int s2 = builder.addState("s2");
+            builder.addFinalState(s0);
+            builder.addFinalState(s1);
+            builder.addFinalState(s2);
+            builder.removeFinalState(s1);
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertEquals(NO_STATE, finiteAutomaton.getInitialState());
+            assertEquals(2, finiteAutomaton.getFinalStateCount());
+            assertTrue(finiteAutomaton.isFinal(s0));
+            assertFalse(finiteAutomaton.isFinal(s1));
+            assertTrue(finiteAutomaton.isFinal(s2));
+        }
+
+        @Test
+        @DisplayName("does not change the built finite automaton")
+        public void test3() {
+            int s0 = builder.addState("s0");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+            builder.addFinalState(s0);
+            finiteAutomaton.getFinalStates().set(s0);
+
+            assertFalse(finiteAutomaton.isFinal(s0));
+        }
+    }
+
+    /**
+     * Test class for the {@link CompactFiniteAutomaton#isValid()} method.
+     */
+    @Nested
+    @DisplayName("Checking whether a compact finite automaton is valid")
+    public class IsValidTest {
+        @Test
+        @DisplayName("returns false if there is no initial state")
+        public void test1() {
+            builder.addState("s0");
+            builder.addFinalState(0);
+
+            assertFalse(builder.build().isValid());
+        }
+
+        @Test
+        @DisplayName("returns false if a state is unreachable")
+        public void test2() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            int s2 = builder.addState("s2");
+            builder.addEdge(s0, s1, "a");
+            builder.addEdge(s2, s1, "a");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+
+            assertFalse(builder.build().isValid());
+        }
+
+        @Test
+        @DisplayName("returns true if every state is reachable")
+        public void test3() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            int s2 = builder.addState("s2");
+            builder.addEdge(s0, s2, "a");
+            builder.addEdge(s2, s1, "a");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+
+            assertTrue(builder.build().isValid());
+        }
+    }
+
+    /**
+     * Test class for the
+     * {@link CompactFiniteAutomaton#withCoordinates(double[], double[])}
+     * method.
+     */
+    @Nested
+    @DisplayName("Moving the states of a compact finite automaton")
+    public class WithCoordinatesTest {
+        @Test
+        @DisplayName("keeps everything but the coordinates")
+        public void test1() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s0, s1, "a");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+            CompactFiniteAutomaton finiteAutomaton = builder.build()
+                    .withCoordinates(new double[]{1, 2}, new double[]{3, 4});
+
+            assertTrue(finiteAutomaton.hasLayout());
+            assertEquals(2, finiteAutomaton.getX(s1));
+            assertEquals(3, finiteAutomaton.getY(s0));
+            assertEquals("s1", finiteAutomaton.getStateLabel(s1));
+            assertEquals(0, finiteAutomaton.findEdge(s0, s1));
+            assertEquals(s0, finiteAutomaton.getInitialState());
+            assertTrue(finiteAutomaton.isFinal(s1));
+        }
+
+        @Test
+        @DisplayName("throws an exception if a coordinate is missing")
+        public void test2() {
+            builder.addState("s0");
+            builder.addState("s1");
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> finiteAutomaton.withCoordinates(
+                                 new double[]{1, 2}, new double[]{3}));
+        }
+    }
+
+}
@@ -0,0 +1,309 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.conversion.ThompsonConstruction;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa;
+import dudzinski.kacper.farec.finiteautomata.dfa.DfaCompiler;
+import dudzinski.kacper.farec.finiteautomata.dfa.DfaMinimizer;
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.JavaPatterns;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.SimpleRegularExpression;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_SET;
+import static dudzinski.kacper.farec.Settings.EMPTY_STRING;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DfaCompiler}, {@link DfaMinimizer} and
+ * {@link CompiledDfa} classes and their methods.
+ */
+public class CompiledDfaTest {
+
+    private static final String OPERANDS = "ab" + EMPTY_STRING + EMPTY_SET;
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Returns a random regular expression over the symbols a and b.
+     *
+     * @param random the random number generator
+     * @param depth  the maximum depth of the regular expression
+     * @return the random regular expression
+     */
+    private static RegularExpression randomRegularExpression(Random random,
+                                                             int depth) {
+        if ((depth == 0) || (random.nextInt(4) == 0)) {
+            return new SimpleRegularExpression(
+                    OPERANDS.charAt(random.nextInt(OPERANDS.length())));
+        }
+        RegexOperator operator =
+                RegexOperator.values()[random.nextInt(3)];
+        return new ComplexRegularExpression(
+                randomRegularExpression(random, depth - 1), operator,
+                (operator == RegexOperator.STAR) ? null :
+                randomRegularExpression(random, depth - 1));
+    }
+
+    /**
+     * Returns all words over the symbols a and b up to the given length.
+     *
+     * @param maxLength the maximum length of the words
+     * @return all words up to the maximum length
+     */
+    private static ArrayList<String> allWords(int maxLength) {
+        ArrayList<String> words = new ArrayList<>();
+        words.add("");
+        for (int index = 0; words.get(index).length() < maxLength; index++) {
+            words.add(words.get(index) + "a");
+            words.add(words.get(index) + "b");
+        }
+        return words;
+    }
+
+    /**
+     * Test class for the
+     * {@link DfaCompiler#compile(
+     *dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton)}
+     * method.
+     */
+    @Nested
+    @DisplayName("Compiling a finite automaton")
+    public class CompileTest {
+        @Test
+        @DisplayName("creates a DFA accepting the same words")
+        public void test1() {
+            Random random = new Random(42);
+            ArrayList<String> words = allWords(6);
+            for (int test = 0; test < 50; test++) {
+                RegularExpression regularExpression =
+                        randomRegularExpression(random, 5);
+                Pattern pattern = JavaPatterns.toPattern(regularExpression);
+
+                CompiledDfa dfa = DfaCompiler.compile(
+                        ThompsonConstruction.toFiniteAutomaton(
+                                regularExpression));
+
+                for (String word : words) {
+                    assertEquals(pattern.matcher(word).matches(),
+                                 dfa.matches(word),
+                                 "Word \"" + word + "\" for " +
+                                 regularExpression);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("reads edge labels that are lists of symbols")
+        public void test2() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s0, s1, "a, b, " + EMPTY_STRING);
+            builder.addEdge(s1, s1, "c");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+
+            CompiledDfa dfa = DfaCompiler.compile(builder.build());
+
+            assertEquals(3, dfa.getSymbolCount());
+            assertTrue(dfa.matches(""));
+            assertTrue(dfa.matches("bcc"));
+            assertFalse(dfa.matches("ab"));
+            assertFalse(dfa.matches("d"));
+            assertFalse(dfa.matches("ä"));
+        }
+
+        @Test
+        @DisplayName("throws an exception if an edge label is not a symbol")
+        public void test3() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            int s0 = builder.addState("s0");
+            builder.addEdge(s0, s0, "ab");
+            builder.setInitialState(s0);
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> DfaCompiler.compile(builder.build()));
+        }
+    }
+
+    /**
+     * Test class for saving and opening compiled DFAs.
+     */
+    @Nested
+    @DisplayName("Saving and opening a compiled DFA")
+    public class OpenTest {
+        @Test
+        @DisplayName("creates a DFA accepting the same words")
+        public void test1() throws IOException {
+            // ((a)+(b))*|(a)
+            CompiledDfa dfa = DfaCompiler.compile(
+                    ThompsonConstruction.toFiniteAutomaton(
+                            new ComplexRegularExpression(
+                                    new ComplexRegularExpression(
+                                            new ComplexRegularExpression(
+                                                    new SimpleRegularExpression(
+                                                            'a'),
+                                                    RegexOperator.UNION,
+                                                    new SimpleRegularExpression(
+                                                            'b')),
+                                            RegexOperator.STAR, null),
+                                    RegexOperator.CONCATENATION,
+                                    new SimpleRegularExpression('a'))));
+            Path file = directory.resolve("test.dfa");
+
+            dfa.write(file);
+            CompiledDfa opened = CompiledDfa.open(file);
+
+            assertEquals(dfa.getStateCount(), opened.getStateCount());
+            assertEquals(dfa.getSymbolCount(), opened.getSymbolCount());
+            for (String word : allWords(6)) {
+                assertEquals(dfa.matches(word), opened.matches(word));
+            }
+        }
+
+        @Test
+        @DisplayName("throws an exception if the file is not a compiled DFA")
+        public void test2() throws IOException {
+            Path file = directory.resolve("test.dfa");
+            Files.write(file, new byte[1024]);
+
+            assertThrows(IOException.class, () -> CompiledDfa.open(file));
+        }
+
+        @Test
+        @DisplayName("throws an exception if the file is truncated")
+        public void test3() throws IOException {
+            Path file = directory.resolve("test.dfa");
+            DfaCompiler.compile(ThompsonConstruction.toFiniteAutomaton(
+                    new SimpleRegularExpression('a'))).write(file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+            assertThrows(IOException.class, () -> CompiledDfa.open(file));
+        }
+    }
+
+    /**
+     * Test class for the {@link DfaMinimizer#minimize(CompiledDfa)} method.
+     */
+    @Nested
+    @DisplayName("Minimising a compiled DFA")
+    public class MinimizeTest {
+        @Test
+        @DisplayName("creates an equivalent DFA that cannot be smaller")
+        public void test1() {
+            Random random = new Random(11);
+            ArrayList<String> words = allWords(8);
+            for (int test = 0; test < 200; test++) {
+                RegularExpression regularExpression =
+                        randomRegularExpression(random, 4);
+                CompiledDfa dfa = DfaCompiler.compile(
+                        ThompsonConstruction.toFiniteAutomaton(
+                                regularExpression));
+                CompiledDfa minimalDfa = DfaMinimizer.minimize(dfa);
+
+                assertTrue(minimalDfa.getStateCount() <= dfa.getStateCount());
+                for (String word : words) {
+                    assertEquals(dfa.matches(word), minimalDfa.matches(word));
+                }
+                assertEquals(minimalDfa.getStateCount(),
+                             DfaMinimizer.minimize(minimalDfa)
+                                         .getStateCount());
+            }
+        }
+
+        @Test
+        @DisplayName("creates the same DFA for equivalent regular expressions")
+        public void test2() {
+            // (a* | b*)* and (a + b)* both accept every word over a and b.
+            RegularExpression left = new ComplexRegularExpression(
+                    new ComplexRegularExpression(
+                            new ComplexRegularExpression(
+                                    new SimpleRegularExpression('a'),
+                                    RegexOperator.STAR, null),
+                            RegexOperator.CONCATENATION,
+                            new ComplexRegularExpression(
+                                    new SimpleRegularExpression('b'),
+                                    RegexOperator.STAR, null)),
+                    RegexOperator.STAR, null);
+            RegularExpression right = new ComplexRegularExpression(
+                    new ComplexRegularExpression(
+                            new SimpleRegularExpression('a'),
+                            RegexOperator.UNION,
+                            new SimpleRegularExpression('b')),
+                    RegexOperator.STAR, null);
+
+            CompiledDfa leftDfa = DfaMinimizer.minimize(DfaCompiler.compile(
+                    ThompsonConstruction.toFiniteAutomaton(left)));
+            CompiledDfa rightDfa = DfaMinimizer.minimize(DfaCompiler.compile(
+                    ThompsonConstruction.toFiniteAutomaton(right)));
+
+            assertEquals(1, leftDfa.getStateCount());
+            assertEquals(1, rightDfa.getStateCount());
+            assertTrue(leftDfa.isEquivalent(rightDfa));
+        }
+
+        @Test
+        @DisplayName("creates a single state if no word is accepted")
+        public void test3() {
+            CompiledDfa minimalDfa = DfaMinimizer.minimize(DfaCompiler.compile(
+                    ThompsonConstruction.toFiniteAutomaton(
+                            new ComplexRegularExpression(
+                                    new SimpleRegularExpression('a'),
+                                    RegexOperator.CONCATENATION,
+                                    new SimpleRegularExpression(
+                                            EMPTY_SET.charAt(0))))));
+
+            assertEquals(1, minimalDfa.getStateCount());
+            assertFalse(minimalDfa.matches(""));
+            assertFalse(minimalDfa.matches("a"));
+        }
+    }
+
+    /**
+     * Test class for the {@link CompiledDfa#isEquivalent(CompiledDfa)}
+     * method.
+     */
+    @Nested
+    @DisplayName("Comparing compiled DFAs")
+    public class IsEquivalentTest {
+        @Test
+        @DisplayName("agrees with comparing the words they accept")
+        public void test1() {
+            Random random = new Random(7);
+            ArrayList<String> words = allWords(8);
+            for (int test = 0; test < 200; test++) {
+                CompiledDfa left = DfaCompiler.compile(
+                        ThompsonConstruction.toFiniteAutomaton(
+                                randomRegularExpression(random, 3)));
+                CompiledDfa right = DfaCompiler.compile(
+                        ThompsonConstruction.toFiniteAutomaton(
+                                randomRegularExpression(random, 3)));
+                boolean sameWords = words.stream().allMatch(
+                        word -> left.matches(word) == right.matches(word));
+
+                assertTrue(left.isEquivalent(left));
+                assertEquals(sameWords, left.isEquivalent(right));
+                assertEquals(sameWords, right.isEquivalent(left));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledDfa;
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledRegexCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link CompiledRegexCache} class and its methods.
+ */
+public class CompiledRegexCacheTest {
+
+    /**
+     * Test class for looking up compiled regular expressions.
+     */
+    @Nested
+    @DisplayName("Looking up a regular expression")
+    public class LookupTest {
+        @Test
+        @DisplayName("reuses the automata of equivalent regex strings")
+        public void test1() {
+            CompiledRegexCache cache = new CompiledRegexCache(1 << 20, false);
+
+            CompactFiniteAutomaton finiteAutomaton =
+                    cache.getFiniteAutomaton("a + b*");
+            CompiledDfa dfa = cache.getMinimalDfa("((a)+(b*))");
+
+            assertSame(finiteAutomaton, cache.getFiniteAutomaton("a+(b)*"));
+            assertSame(dfa, cache.getMinimalDfa("a+b*"));
+            assertTrue(cache.matches("a+b*", "bbb"));
+            assertFalse(cache.matches("a+b*", "ab"));
+            CompiledRegexCache.Statistics statistics = cache.getStatistics();
+            assertEquals(1, statistics.missCount());
+            assertEquals(5, statistics.hitCount());
+            assertEquals(1, statistics.size());
+            assertTrue(statistics.weight() > 0);
+        }
+
+        @Test
+        @DisplayName("throws an exception for an invalid regex string")
+        public void test2() {
+            CompiledRegexCache cache = new CompiledRegexCache(1 << 20, false);
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> cache.getFiniteAutomaton("a+"));
+            assertEquals(0, cache.getStatistics().size());
+        }
+
+        @Test
+        @DisplayName("compiles each regular expression once for many threads")
+        public void test3() throws Exception {
+            CompiledRegexCache cache = new CompiledRegexCache(1 << 20, false);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                ArrayList<Future<CompiledDfa>> results = new ArrayList<>();
+                for (int index = 0; index < 64; index++) {
+                    results.add(executor.submit(
+                            () -> cache.getMinimalDfa("(a+b)*|a|b|a|b")));
+                }
+                CompiledDfa dfa = results.get(0).get();
+                for (Future<CompiledDfa> result : results) {
+                    assertSame(dfa, result.get());
+                }
+                assertEquals(1, cache.getStatistics().missCount());
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Test class for evicting compiled regular expressions.
+     */
+    @Nested
+    @DisplayName("Exceeding the maximum weight")
+    public class EvictionTest {
+        @Test
+        @DisplayName("evicts the least recently used regular expressions")
+        public void test1() {
+            CompiledRegexCache cache = new CompiledRegexCache(4096, false);
+            for (int index = 0; index < 100; index++) {
+                cache.getMinimalDfa("a|b|c|" + (index % 10));
+                cache.getMinimalDfa("a*");
+            }
+
+            CompiledRegexCache.Statistics statistics = cache.getStatistics();
+            assertTrue(statistics.weight() <= 4096);
+            assertTrue(statistics.evictionCount() > 0);
+            assertTrue(statistics.size() < 11);
+            // The most recently used regular expression is still cached.
+            long missCount = statistics.missCount();
+            cache.getMinimalDfa("a*");
+            assertEquals(missCount, cache.getStatistics().missCount());
+        }
+
+        @Test
+        @DisplayName("keeps evicted automata if soft spill is enabled")
+        public void test2() {
+            CompiledRegexCache cache = new CompiledRegexCache(0, true);
+
+            CompiledDfa dfa = cache.getMinimalDfa("a|b");
+            assertEquals(0, cache.getStatistics().size());
+            assertSame(dfa, cache.getMinimalDfa("a|b"));
+
+            assertEquals(1, cache.getStatistics().spillHitCount());
+            assertEquals(0.5, cache.getStatistics().hitRate());
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link FiniteAutomatonTrimmer} class and its methods.
+ */
+public class FiniteAutomatonTrimmerTest {
+
+    private CompactFiniteAutomatonBuilder builder;
+
+    /**
+     * Create a new builder for each test.
+     */
+    @BeforeEach
+    public void setup() {
+        builder = new CompactFiniteAutomatonBuilder();
+    }
+
+    /**
+     * Test class for the
+     * {@link FiniteAutomatonTrimmer#trim(CompactFiniteAutomaton)} method.
+     */
+    @Nested
+    @DisplayName("Trimming a compact finite automaton")
+    public class TrimTest {
+        @Test
+        @DisplayName("removes unreachable and dead states and their edges")
+        public void test1() {
+            int s0 = builder.addState("s0", 0, 0);
+            int s1 = builder.addState("s1", 10, 0);
+            int dead = builder.addState("dead", 20, 0);
+            int s2 = builder.addState("s2", 30, 0);
+            int unreachable = builder.addState("unreachable", 40, 0);
+            builder.addEdge(s0, s1, "a");
+            builder.addEdge(s1, s2, "b");
+            builder.addEdge(s1, dead, "c");
+            builder.addEdge(dead, dead, "c");
+            builder.addEdge(unreachable, s2, "d");
+            builder.setInitialState(s0);
+            builder.addFinalState(s2);
+
+            FiniteAutomatonTrimmer.Result result =
+                    FiniteAutomatonTrimmer.trim(builder.build());
+            CompactFiniteAutomaton trimmed = result.finiteAutomaton();
+
+            assertEquals(2, result.removedStates());
+            assertEquals(3, result.removedEdges());
+            assertEquals(3, trimmed.getStateCount());
+            assertEquals(2, trimmed.getEdgeCount());
+            assertTrue(trimmed.isFinal(2));
+            assertEquals("s2", trimmed.getStateLabel(2));
+            assertEquals(30, trimmed.getX(2));
+            assertEquals("b", trimmed.getEdgeLabelText(
+                    trimmed.findEdge(1, 2)));
+        }
+
+        @Test
+        @DisplayName("keeps the initial state but removes unreachable final " +
+                     "states")
+        public void test2() {
+            int s0 = builder.addState("s0");
+            int s1 = builder.addState("s1");
+            builder.addEdge(s1, s0, "a");
+            builder.setInitialState(s0);
+            builder.addFinalState(s1);
+
+            FiniteAutomatonTrimmer.Result result =
+                    FiniteAutomatonTrimmer.trim(builder.build());
+
+            assertEquals(1, result.removedStates());
+            assertEquals(1, result.finiteAutomaton().getStateCount());
+            assertEquals(0, result.finiteAutomaton().getFinalStateCount());
+        }
+
+        @Test
+        @DisplayName("throws an exception if there is no initial state")
+        public void test3() {
+            builder.addFinalState(builder.addState("s0"));
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> FiniteAutomatonTrimmer.trim(builder.build()));
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_RADIUS;
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_SEPARATION;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link ForceDirectedLayout} class and its methods.
+ */
+public class ForceDirectedLayoutTest {
+
+    private CompactFiniteAutomatonBuilder builder;
+
+    /**
+     * Create a new builder for each test.
+     */
+    @BeforeEach
+    public void setup() {
+        builder = new CompactFiniteAutomatonBuilder();
+    }
+
+    /**
+     * Runs the layout of the given finite automaton until it settles.
+     *
+     * @param finiteAutomaton the finite automaton
+     * @return the final positions of the states
+     */
+    private static double[] settle(CompactFiniteAutomaton finiteAutomaton) {
+        ForceDirectedLayout layout = new ForceDirectedLayout(finiteAutomaton);
+        while (layout.step()) {
+            assertFalse(layout.isFinished());
+        }
+        assertTrue(layout.isFinished());
+        assertEquals(layout.getIterationCount(), layout.getIteration());
+        return layout.getPositions();
+    }
+
+    /**
+     * Returns the distance between the given states.
+     *
+     * @param positions the positions of the states
+     * @param state1    the first state
+     * @param state2    the second state
+     * @return the distance between the states
+     */
+    private static double distance(double[] positions, int state1,
+                                   int state2) {
+        return Math.hypot(positions[2 * state1] - positions[2 * state2],
+                          positions[(2 * state1) + 1] -
+                          positions[(2 * state2) + 1]);
+    }
+
+    /**
+     * Test class for the positions computed by the layout.
+     */
+    @Nested
+    @DisplayName("Laying out a finite automaton")
+    public class LayoutTest {
+        @Test
+        @DisplayName("does nothing for a single state")
+        public void test1() {
+            builder.addState("s0");
+            ForceDirectedLayout layout =
+                    new ForceDirectedLayout(builder.build());
+
+            assertTrue(layout.isFinished());
+            assertFalse(layout.step());
+            assertEquals(2, layout.getPositions().length);
+        }
+
+        @Test
+        @DisplayName("separates states at the same position")
+        public void test2() {
+            for (int index = 0; index < 50; index++) {
+                builder.addState("s" + index, 100, 100);
+            }
+            double[] positions = settle(builder.build());
+
+            for (int state1 = 0; state1 < 50; state1++) {
+                for (int state2 = state1 + 1; state2 < 50; state2++) {
+                    assertTrue(distance(positions, state1, state2) >
+                               2 * STATE_RADIUS);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("keeps connected states close together")
+        public void test3() {
+            // A chain of 100 states.
+            builder.addState("s0");
+            for (int index = 1; index < 100; index++) {
+                builder.addState("s" + index);
+                builder.addEdge(index - 1, index, "a");
+            }
+            double[] positions = settle(builder.build());
+
+            double idealDistance = (2 * STATE_RADIUS) + STATE_SEPARATION;
+            for (int state = 1; state < 100; state++) {
+                double distance = distance(positions, state - 1, state);
+                assertTrue(distance > idealDistance / 4);
+                assertTrue(distance < 4 * idealDistance);
+            }
+        }
+
+        @Test
+        @DisplayName("moves the states next to the axes")
+        public void test4() {
+            builder.addState("s0", -500, -500);
+            builder.addState("s1", -400, -300);
+            builder.addEdge(0, 1, "a");
+            double[] positions = settle(builder.build());
+
+            double idealDistance = (2 * STATE_RADIUS) + STATE_SEPARATION;
+            assertEquals(idealDistance / 2,
+                         Math.min(positions[0], positions[2]), 1e-9);
+            assertEquals(idealDistance / 2,
+                         Math.min(positions[1], positions[3]), 1e-9);
+        }
+
+        @Test
+        @DisplayName("settles a large finite automaton")
+        public void test5() {
+            // A grid of 10000 states, with an edge to the right and below.
+            for (int index = 0; index < 10000; index++) {
+                builder.addState("s" + index);
+            }
+            for (int index = 0; index < 10000; index++) {
+                if (index % 100 != 99) {
+                    builder.addEdge(index, index + 1, "a");
+                }
+                if (index < 9900) {
+                    builder.addEdge(index, index + 100, "b");
+                }
+            }
+            ForceDirectedLayout layout =
+                    new ForceDirectedLayout(builder.build());
+            while (layout.step()) {
+                assertTrue(layout.getIteration() < 1000);
+            }
+
+            double[] positions = layout.getPositions();
+            for (double position : positions) {
+                assertTrue(Double.isFinite(position));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link GraphTraversal} class and its methods.
+ */
+public class GraphTraversalTest {
+
+    private CompactFiniteAutomaton finiteAutomaton;
+
+    /**
+     * Create a finite automaton with the edges s0 -> s1 -> s2, s1 -> s3 and
+     * s4 -> s2, where s0 is the initial state and s2 is the final state. The
+     * state s3 is a dead state and s4 is unreachable.
+     */
+    @BeforeEach
+    public void setup() {
+        CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder();
+        for (int index = 0; index < 5; index++) {
+            builder.addState("s" + index);
+        }
+        builder.addEdge(0, 1, "a");
+        builder.addEdge(1, 2, "a");
+        builder.addEdge(1, 3, "a");
+        builder.addEdge(4, 2, "a");
+        builder.setInitialState(0);
+        builder.addFinalState(2);
+        finiteAutomaton = builder.build();
+    }
+
+    /**
+     * Returns a bit set with the given bits set.
+     *
+     * @param bits the bits to set
+     * @return the bit set
+     */
+    private static BitSet bits(int... bits) {
+        BitSet bitSet = new BitSet();
+        for (int bit : bits) {
+            bitSet.set(bit);
+        }
+        return bitSet;
+    }
+
+    /**
+     * Test class for the
+     * {@link GraphTraversal#breadthFirstSearch(Object,
+     * java.util.function.BiConsumer)} method.
+     */
+    @Nested
+    @DisplayName("Breadth-first search")
+    public class BreadthFirstSearchTest {
+        @Test
+        @DisplayName("visits the reachable nodes in breadth-first order")
+        public void test1() {
+            List<List<Integer>> graph =
+                    List.of(List.of(2, 1), List.of(3), List.of(3, 0), List.of(),
+                            List.of(0));
+
+            assertEquals(List.of(0, 2, 1, 3),
+                         List.copyOf(GraphTraversal.breadthFirstSearch(
+                                 0, (node, visit) -> graph.get(node)
+                                         .forEach(visit))));
+        }
+    }
+
+    /**
+     * Test class for the traversals of compact finite automata.
+     */
+    @Nested
+    @DisplayName("Traversing a compact finite automaton finds")
+    public class CompactTraversalTest {
+        @Test
+        @DisplayName("the reachable states")
+        public void test1() {
+            assertEquals(bits(0, 1, 2, 3),
+                         GraphTraversal.reachableStates(finiteAutomaton, 0));
+        }
+
+        @Test
+        @DisplayName("the co-reachable states")
+        public void test2() {
+            assertEquals(bits(0, 1, 2, 4),
+                         GraphTraversal.coReachableStates(finiteAutomaton,
+                                                          bits(2)));
+        }
+
+        @Test
+        @DisplayName("the useless states")
+        public void test3() {
+            assertEquals(bits(3, 4),
+                         GraphTraversal.uselessStates(finiteAutomaton));
+        }
+
+        @Test
+        @DisplayName("the states co-reachable to any of several states")
+        public void test5() {
+            assertEquals(bits(0, 1, 2, 3, 4),
+                         GraphTraversal.coReachableStates(finiteAutomaton,
+                                                          bits(2, 3)));
+        }
+
+        @Test
+        @DisplayName("the reachable states of a large finite automaton")
+        public void test4() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            int stateCount = 100_000;
+            for (int index = 0; index < stateCount; index++) {
+                builder.addState("");
+            }
+            for (int index = 0; index < stateCount - 1; index++) {
+                builder.addEdge(index, index + 1, "a");
+                builder.addEdge(index + 1, index, "b");
+            }
+
+            assertEquals(stateCount, GraphTraversal.reachableStates(
+                    builder.build(), stateCount / 2).cardinality());
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.conversion.ThompsonConstruction;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.Parser;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import dudzinski.kacper.farec.regex.SimpleRegularExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link LayeredLayout} class and its methods.
+ */
+public class LayeredLayoutTest {
+
+    private CompactFiniteAutomatonBuilder builder;
+
+    /**
+     * Create a new builder for each test, and make sure the operators are set
+     * to their default symbols.
+     */
+    @BeforeEach
+    public void setup() {
+        builder = new CompactFiniteAutomatonBuilder();
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+    }
+
+    /**
+     * Checks that every edge between different states of the given finite
+     * automaton goes from left to right, unless it closes a cycle, and that
+     * no two states are at the same position.
+     *
+     * @param finiteAutomaton the finite automaton
+     * @param layout          the layout of the finite automaton
+     */
+    private static void assertLayered(CompactFiniteAutomaton finiteAutomaton,
+                                      LayeredLayout layout) {
+        double[] positions = layout.getPositions();
+        HashSet<String> occupied = new HashSet<>();
+        for (int state = 0; state < finiteAutomaton.getStateCount(); state++) {
+            assertTrue(occupied.add(positions[2 * state] + "," +
+                                    positions[(2 * state) + 1]));
+        }
+        for (int edge = 0; edge < finiteAutomaton.getEdgeCount(); edge++) {
+            int start = finiteAutomaton.getEdgeStart(edge);
+            int end = finiteAutomaton.getEdgeEnd(edge);
+            if (start != end) {
+                assertNotEquals(layout.getLayer(start), layout.getLayer(end));
+            }
+        }
+    }
+
+    /**
+     * Test class for the layers of the layout.
+     */
+    @Nested
+    @DisplayName("The layers of the layout")
+    public class LayerTest {
+        @Test
+        @DisplayName("follow a chain of states from left to right")
+        public void test1() {
+            builder.addState("s0");
+            builder.setInitialState(0);
+            for (int index = 1; index < 100; index++) {
+                builder.addState("s" + index);
+                builder.addEdge(index - 1, index, "a");
+            }
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+            LayeredLayout layout = new LayeredLayout(finiteAutomaton);
+
+            assertEquals(100, layout.getLayerCount());
+            double[] positions = layout.getPositions();
+            for (int state = 1; state < 100; state++) {
+                assertEquals(state, layout.getLayer(state));
+                assertTrue(positions[2 * state] > positions[2 * (state - 1)]);
+                assertEquals(positions[1], positions[(2 * state) + 1], 1e-9);
+            }
+        }
+
+        @Test
+        @DisplayName("start at the initial state of a cycle")
+        public void test2() {
+            builder.addState("s0");
+            builder.addState("s1");
+            builder.addState("s2");
+            builder.addEdge(0, 1, "a");
+            builder.addEdge(1, 2, "a");
+            builder.addEdge(2, 0, "a");
+            builder.addEdge(2, 2, "b");
+            builder.setInitialState(1);
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+            LayeredLayout layout = new LayeredLayout(finiteAutomaton);
+
+            assertEquals(0, layout.getLayer(1));
+            assertEquals(1, layout.getLayer(2));
+            assertEquals(2, layout.getLayer(0));
+            assertLayered(finiteAutomaton, layout);
+        }
+
+        @Test
+        @DisplayName("separate the states of a Thompson finite automaton")
+        public void test3() {
+            CompactFiniteAutomaton finiteAutomaton =
+                    ThompsonConstruction.toFiniteAutomaton(
+                            Parser.parseRegexString("((a+b)*|c)+d"));
+            LayeredLayout layout = new LayeredLayout(finiteAutomaton);
+
+            assertEquals(0, layout.getLayer(finiteAutomaton.getInitialState()));
+            int finalState = finiteAutomaton.getFinalStates().nextSetBit(0);
+            assertEquals(layout.getLayerCount() - 1,
+                         layout.getLayer(finalState));
+            assertLayered(finiteAutomaton, layout);
+        }
+    }
+
+    /**
+     * Test class for the positions of the layout.
+     */
+    @Nested
+    @DisplayName("The positions of the layout")
+    public class PositionTest {
+        @Test
+        @DisplayName("centre a state between its predecessors")
+        public void test1() {
+            builder.addState("s0");
+            builder.addState("s1");
+            builder.addState("s2");
+            builder.addState("s3");
+            builder.addEdge(0, 1, "a");
+            builder.addEdge(0, 2, "b");
+            builder.addEdge(1, 3, "a");
+            builder.addEdge(2, 3, "b");
+            builder.setInitialState(0);
+            LayeredLayout layout = new LayeredLayout(builder.build());
+
+            double[] positions = layout.getPositions();
+            assertEquals((positions[3] + positions[5]) / 2, positions[7],
+                         1e-9);
+            assertEquals(positions[1], positions[7], 1e-9);
+            assertTrue(Math.abs(positions[3] - positions[5]) >=
+                       (2 * FiniteAutomatonSettings.STATE_RADIUS) +
+                       FiniteAutomatonSettings.STATE_SEPARATION - 1e-9);
+        }
+
+        @Test
+        @DisplayName("uncross the edges of a tree")
+        public void test2() {
+            // A binary tree whose left children have larger indices, so that
+            // the initial order of each layer crosses every edge.
+            int size = 63;
+            for (int index = 0; index < size; index++) {
+                builder.addState("s" + index);
+            }
+            for (int index = 0; 2 * index + 2 < size; index++) {
+                builder.addEdge(size - 1 - index, size - 1 - (2 * index + 2),
+                                "a");
+                builder.addEdge(size - 1 - index, size - 1 - (2 * index + 1),
+                                "b");
+            }
+            builder.setInitialState(size - 1);
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+            LayeredLayout layout = new LayeredLayout(finiteAutomaton);
+
+            for (int edge1 = 0; edge1 < finiteAutomaton.getEdgeCount();
+                 edge1++) {
+                for (int edge2 = 0; edge2 < finiteAutomaton.getEdgeCount();
+                     edge2++) {
+                    int start1 = finiteAutomaton.getEdgeStart(edge1);
+                    int start2 = finiteAutomaton.getEdgeStart(edge2);
+                    int end1 = finiteAutomaton.getEdgeEnd(edge1);
+                    int end2 = finiteAutomaton.getEdgeEnd(edge2);
+                    if ((layout.getLayer(start1) == layout.getLayer(start2)) &&
+                        (layout.getRank(start1) < layout.getRank(start2))) {
+                        assertTrue(layout.getRank(end1) <
+                                   layout.getRank(end2));
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("are found quickly for a large finite automaton")
+        public void test3() {
+            // A union of 5000 starred concatenations.
+            RegularExpression starred = new ComplexRegularExpression(
+                    Parser.parseRegexString("b|c"), RegexOperator.STAR, null);
+            RegularExpression regularExpression =
+                    new SimpleRegularExpression('a');
+            for (int index = 0; index < 5000; index++) {
+                regularExpression = new ComplexRegularExpression(
+                        regularExpression, RegexOperator.UNION, starred);
+            }
+            CompactFiniteAutomaton finiteAutomaton =
+                    ThompsonConstruction.toFiniteAutomaton(regularExpression);
+            LayeredLayout layout = new LayeredLayout(finiteAutomaton);
+
+            assertLayered(finiteAutomaton, layout);
+        }
+    }
+
+}
@@ -1,10 +1,15 @@
 package dudzinski.kacper.farec.finiteautomata;
 
 import dudzinski.kacper.farec.controllers.CreateFAScreenController;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
 import dudzinski.kacper.farec.finiteautomata.smart.*;
 import dudzinski.kacper.farec.regex.StartJavaFX;
+import javafx.scene.Node;
+import javafx.scene.shape.QuadCurve;
 import org.junit.jupiter.api.*;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -145,6 +150,38 @@ public class SmartFiniteAutomatonTest {
             assertTrue(state1.getOutgoingEdges().contains(edge));
             assertTrue(state2.getIncomingEdges().contains(edge));
         }
+
+        @Test
+        @DisplayName("curves symmetric edges without replacing their parts")
+        public void test5() {
+            SmartState state1 = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state1);
+
+            SmartState state2 = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state2);
+
+            SmartEdge edge =
+                    SmartFiniteAutomatonBuilder.createStraightEdge("", state1,
+                                                                   state2);
+            finiteAutomaton.addEdge(edge);
+            Object[] parts = edge.getContainer().getChildren().toArray();
+
+            SmartEdge reverseEdge =
+                    SmartFiniteAutomatonBuilder.createStraightEdge("", state2,
+                                                                   state1);
+            finiteAutomaton.addEdge(reverseEdge);
+
+            assertTrue(edge.isCurved());
+            assertTrue(reverseEdge.isCurved());
+            assertArrayEquals(parts,
+                              edge.getContainer().getChildren().toArray());
+
+            finiteAutomaton.removeEdge(reverseEdge);
+
+            assertFalse(edge.isCurved());
+            assertArrayEquals(parts,
+                              edge.getContainer().getChildren().toArray());
+        }
     }
 
     /**
@@ -212,6 +249,44 @@ public class SmartFiniteAutomatonTest {
         }
     }
 
+    /**
+     * Test class for the
+     * {@link SmartFiniteAutomaton#getEdge(SmartState, SmartState)} method.
+     */
+    @Nested
+    @DisplayName("Getting an edge of a finite automaton")
+    public class GetEdgeTest {
+        @Test
+        @DisplayName("returns the edge between the two states")
+        public void test1() {
+            SmartState state1 = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state1);
+            SmartState state2 = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state2);
+            SmartEdge edge = SmartFiniteAutomatonBuilder.createStraightEdge(
+                    "", state1, state2);
+            finiteAutomaton.addEdge(edge);
+
+            assertSame(edge, finiteAutomaton.getEdge(state1, state2));
+            assertNull(finiteAutomaton.getEdge(state2, state1));
+        }
+
+        @Test
+        @DisplayName("returns null after the edge is removed")
+        public void test2() {
+            SmartState state1 = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state1);
+            SmartState state2 = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state2);
+            SmartEdge edge = SmartFiniteAutomatonBuilder.createStraightEdge(
+                    "", state1, state2);
+            finiteAutomaton.addEdge(edge);
+            finiteAutomaton.removeState(state2);
+
+            assertNull(finiteAutomaton.getEdge(state1, state2));
+        }
+    }
+
     /**
      * Test class for the {@link SmartFiniteAutomaton#removeState(SmartState)}
      * method.
@@ -259,10 +334,10 @@ public class SmartFiniteAutomatonTest {
         public void test4() {
             SmartState state = SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(state);
-            finiteAutomaton.setFinalState(state);
+            finiteAutomaton.addFinalState(state);
             finiteAutomaton.removeState(state);
 
-            assertNull(finiteAutomaton.getFinalState());
+            assertTrue(finiteAutomaton.getFinalStates().isEmpty());
         }
 
         @Test
@@ -287,6 +362,37 @@ public class SmartFiniteAutomatonTest {
             assertFalse(finiteAutomaton.getEdges().contains(edge));
             assertFalse(finiteAutomaton.getEdges().contains(loopEdge));
         }
+
+        @Test
+        @DisplayName("many times removes all of their containers at once")
+        public void test6() {
+            int stateCount = 2000;
+            SmartState[] states = new SmartState[stateCount];
+            for (int index = 0; index < stateCount; index++) {
+                states[index] = SmartFiniteAutomatonBuilder.createState("");
+                finiteAutomaton.addState(states[index]);
+                if (index > 0) {
+                    finiteAutomaton.addEdge(
+                            SmartFiniteAutomatonBuilder.createStraightEdge(
+                                    "", states[index - 1], states[index]));
+                }
+            }
+
+            // Remove every other state, together with both of its edges.
+            for (int index = 0; index < stateCount; index += 2) {
+                finiteAutomaton.removeState(states[index]);
+                assertFalse(states[index].getContainer().isVisible());
+            }
+
+            assertEquals(stateCount / 2, finiteAutomaton.getStates().size());
+            assertTrue(finiteAutomaton.getEdges().isEmpty());
+            List<Node> children = finiteAutomaton.getContainer().getChildren();
+            assertEquals(stateCount / 2, children.size());
+            for (int index = 1; index < stateCount; index += 2) {
+                assertTrue(children.contains(states[index].getContainer()));
+                assertTrue(states[index].getContainer().isVisible());
+            }
+        }
     }
 
     /**
@@ -335,34 +441,34 @@ public class SmartFiniteAutomatonTest {
         }
 
         @Test
-        @DisplayName("removes it as the final state")
+        @DisplayName("keeps it as a final state")
         public void test4() {
             SmartState state = SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(state);
-            finiteAutomaton.setFinalState(state);
+            finiteAutomaton.addFinalState(state);
             finiteAutomaton.setInitialState(state);
 
-            assertFalse(state.isFinal());
-            assertNotEquals(state, finiteAutomaton.getFinalState());
+            assertTrue(state.isFinal());
+            assertTrue(finiteAutomaton.getFinalStates().contains(state));
             assertEquals(state, finiteAutomaton.getInitialState());
         }
     }
 
     /**
-     * Test class for the {@link SmartFiniteAutomaton#setFinalState(SmartState)}
-     * method.
+     * Test class for the {@link SmartFiniteAutomaton#addFinalState(SmartState)}
+     * and {@link SmartFiniteAutomaton#removeFinalState(SmartState)} methods.
      */
     @Nested
-    @DisplayName("Setting a state as the final state")
+    @DisplayName("Setting a state as a final state")
     public class SetFinalStateTest {
         @Test
-        @DisplayName("sets it as the final state of the finite automaton")
+        @DisplayName("adds it to the final states of the finite automaton")
         public void test1() {
             SmartState state = SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(state);
-            finiteAutomaton.setFinalState(state);
+            finiteAutomaton.addFinalState(state);
 
-            assertEquals(state, finiteAutomaton.getFinalState());
+            assertTrue(finiteAutomaton.getFinalStates().contains(state));
         }
 
         @Test
@@ -370,40 +476,52 @@ public class SmartFiniteAutomatonTest {
         public void test2() {
             SmartState state = SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(state);
-            finiteAutomaton.setFinalState(state);
+            finiteAutomaton.addFinalState(state);
 
             assertTrue(state.isFinal());
         }
 
         @Test
-        @DisplayName("replaces the previous final state")
+        @DisplayName("keeps the previous final states")
         public void test3() {
             SmartState previousFinalState =
                     SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(previousFinalState);
-            finiteAutomaton.setFinalState(previousFinalState);
+            finiteAutomaton.addFinalState(previousFinalState);
 
             SmartState newFinalState =
                     SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(newFinalState);
-            finiteAutomaton.setFinalState(newFinalState);
+            finiteAutomaton.addFinalState(newFinalState);
 
-            assertFalse(previousFinalState.isFinal());
+            assertTrue(previousFinalState.isFinal());
             assertTrue(newFinalState.isFinal());
-            assertEquals(newFinalState, finiteAutomaton.getFinalState());
+            assertEquals(2, finiteAutomaton.getFinalStates().size());
         }
 
         @Test
-        @DisplayName("removes it as the initial state")
+        @DisplayName("keeps it as the initial state")
         public void test4() {
             SmartState state = SmartFiniteAutomatonBuilder.createState("");
             finiteAutomaton.addState(state);
             finiteAutomaton.setInitialState(state);
-            finiteAutomaton.setFinalState(state);
+            finiteAutomaton.addFinalState(state);
 
-            assertFalse(state.isInitial());
-            assertNotEquals(state, finiteAutomaton.getInitialState());
-            assertEquals(state, finiteAutomaton.getFinalState());
+            assertTrue(state.isInitial());
+            assertEquals(state, finiteAutomaton.getInitialState());
+            assertTrue(finiteAutomaton.getFinalStates().contains(state));
+        }
+
+        @Test
+        @DisplayName("can be undone by removing it as a final state")
+        public void test5() {
+            SmartState state = SmartFiniteAutomatonBuilder.createState("");
+            finiteAutomaton.addState(state);
+            finiteAutomaton.addFinalState(state);
+            finiteAutomaton.removeFinalState(state);
+
+            assertFalse(state.isFinal());
+            assertTrue(finiteAutomaton.getFinalStates().isEmpty());
         }
     }
 
@@ -433,7 +551,7 @@ public class SmartFiniteAutomatonTest {
                 SmartState finalState =
                         SmartFiniteAutomatonBuilder.createState("");
                 finiteAutomaton.addState(finalState);
-                finiteAutomaton.setFinalState(finalState);
+                finiteAutomaton.addFinalState(finalState);
 
                 SmartEdge initialToFinal =
                         SmartFiniteAutomatonBuilder.createStraightEdge("",
@@ -466,7 +584,7 @@ public class SmartFiniteAutomatonTest {
                 SmartState finalState =
                         SmartFiniteAutomatonBuilder.createState("");
                 finiteAutomaton.addState(finalState);
-                finiteAutomaton.setFinalState(finalState);
+                finiteAutomaton.addFinalState(finalState);
 
                 SmartEdge initialToFinal =
                         SmartFiniteAutomatonBuilder.createStraightEdge("",
@@ -494,7 +612,7 @@ public class SmartFiniteAutomatonTest {
                 SmartState finalState =
                         SmartFiniteAutomatonBuilder.createState("");
                 finiteAutomaton.addState(finalState);
-                //finiteAutomaton.setFinalState(finalState);
+                //finiteAutomaton.addFinalState(finalState);
 
                 SmartEdge initialToFinal =
                         SmartFiniteAutomatonBuilder.createStraightEdge("",
@@ -522,7 +640,7 @@ public class SmartFiniteAutomatonTest {
                 SmartState finalState =
                         SmartFiniteAutomatonBuilder.createState("");
                 finiteAutomaton.addState(finalState);
-                finiteAutomaton.setFinalState(finalState);
+                finiteAutomaton.addFinalState(finalState);
 
                 SmartState unreachableState =
                         SmartFiniteAutomatonBuilder.createState("");
@@ -553,7 +671,7 @@ public class SmartFiniteAutomatonTest {
                 SmartState finalState =
                         SmartFiniteAutomatonBuilder.createState("");
                 finiteAutomaton.addState(finalState);
-                finiteAutomaton.setFinalState(finalState);
+                finiteAutomaton.addFinalState(finalState);
 
                 SmartState unreachableState =
                         SmartFiniteAutomatonBuilder.createState("");
@@ -576,4 +694,94 @@ public class SmartFiniteAutomatonTest {
         }
     }
 
+    /**
+     * Test class for the {@link SmartFiniteAutomatonAdapter} class.
+     */
+    @Nested
+    @DisplayName("Converting a finite automaton to a compact finite automaton " +
+                 "and back")
+    public class AdapterTest {
+        @Test
+        @DisplayName("preserves its states, edges, initial and final state")
+        public void test1() {
+            SmartState state1 = SmartFiniteAutomatonBuilder.createState("s1");
+            state1.getContainer().setTranslateX(10);
+            finiteAutomaton.addState(state1);
+            finiteAutomaton.setInitialState(state1);
+            SmartState state2 = SmartFiniteAutomatonBuilder.createState("s2");
+            state2.getContainer().setTranslateY(20);
+            finiteAutomaton.addState(state2);
+            finiteAutomaton.addFinalState(state2);
+            finiteAutomaton.addEdge(SmartFiniteAutomatonBuilder.createStraightEdge(
+                    "a", state1, state2));
+            finiteAutomaton.addEdge(SmartFiniteAutomatonBuilder.createLoopEdge(
+                    "b", state2));
+
+            CompactFiniteAutomaton compactFiniteAutomaton =
+                    SmartFiniteAutomatonAdapter.toCompact(finiteAutomaton);
+            SmartFiniteAutomaton result = SmartFiniteAutomatonAdapter.toSmart(
+                    compactFiniteAutomaton, createFAScreenController);
+
+            assertEquals(2, result.getStates().size());
+            assertEquals(2, result.getEdges().size());
+            SmartState finalState = result.getFinalStates().iterator().next();
+            assertEquals(1, result.getFinalStates().size());
+            assertEquals("s1", result.getInitialState().getLabelText());
+            assertEquals("s2", finalState.getLabelText());
+            assertEquals(10, result.getInitialState().getContainer()
+                    .getTranslateX());
+            assertEquals(20, finalState.getContainer().getTranslateY());
+            assertTrue(finalState.getOutgoingEdges().iterator().next()
+                               instanceof SmartLoopEdge);
+        }
+    }
+
+    /**
+     * Test class for the {@link SmartEdge#setCurved(boolean)} method.
+     */
+    @Nested
+    @DisplayName("Setting an edge as curved")
+    public class SetCurvedTest {
+        @Test
+        @DisplayName("moves the control point of its curve off the line " +
+                     "between the states, and back again")
+        public void test1() {
+            SmartState state1 = SmartFiniteAutomatonBuilder.createState("s1");
+            SmartState state2 = SmartFiniteAutomatonBuilder.createState("s2");
+            state2.getContainer().setTranslateX(100);
+            SmartEdge edge = SmartFiniteAutomatonBuilder.createStraightEdge(
+                    "a", state1, state2);
+            QuadCurve curve =
+                    (QuadCurve) edge.getContainer().getChildren().get(0);
+
+            assertEquals(50, curve.getControlX());
+            assertEquals(0, curve.getControlY());
+
+            edge.setCurved(true);
+            assertTrue(edge.isCurved());
+            assertEquals(50, curve.getControlX());
+            assertEquals(-FiniteAutomatonSettings.CURVED_CONTROL_POINT_DISTANCE,
+                         curve.getControlY());
+            assertEquals(100, curve.getEndX());
+
+            edge.setCurved(false);
+            assertFalse(edge.isCurved());
+            assertEquals(0, curve.getControlY());
+        }
+
+        @Test
+        @DisplayName("keeps the same components")
+        public void test2() {
+            SmartState state1 = SmartFiniteAutomatonBuilder.createState("s1");
+            SmartState state2 = SmartFiniteAutomatonBuilder.createState("s2");
+            SmartEdge edge = SmartFiniteAutomatonBuilder.createStraightEdge(
+                    "a", state1, state2);
+            List<Node> children =
+                    List.copyOf(edge.getContainer().getChildren());
+            edge.setCurved(true);
+
+            assertEquals(children, edge.getContainer().getChildren());
+        }
+    }
+
 }
@@ -0,0 +1,202 @@
+package dudzinski.kacper.farec.finiteautomata;
+
+import dudzinski.kacper.farec.regex.ComplexRegularExpression;
+import dudzinski.kacper.farec.regex.Parser;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpression;
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import dudzinski.kacper.farec.regex.SimpleRegularExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_RADIUS;
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.STATE_STROKE_RADIUS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link ThompsonLayout} class and its methods.
+ */
+public class ThompsonLayoutTest {
+
+    /**
+     * Make sure the operators are set to their default symbols before each
+     * test.
+     */
+    @BeforeEach
+    void resetOperatorChars() {
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+    }
+
+    /**
+     * Checks that every directed segment of the given layout ends at the
+     * centre of a state, and that every state and segment is within the
+     * bounds of the layout.
+     *
+     * @param layout the layout to check
+     */
+    private static void assertConnected(ThompsonLayout layout) {
+        for (int segment = 0; segment < layout.getSegmentCount(); segment++) {
+            double endX = layout.getSegmentEndX(segment);
+            double endY = layout.getSegmentEndY(segment);
+            assertTrue(layout.getMinX() <= endX && endX <= layout.getMaxX());
+            assertTrue(layout.getMinY() <= endY && endY <= layout.getMaxY());
+            if (layout.isSegmentDirected(segment)) {
+                boolean atState = false;
+                for (int state = 0; state < layout.getStateCount(); state++) {
+                    if ((layout.getStateX(state) == endX) &&
+                        (layout.getStateY(state) == endY)) {
+                        atState = true;
+                        break;
+                    }
+                }
+                assertTrue(atState);
+            }
+        }
+        for (int state = 0; state < layout.getStateCount(); state++) {
+            assertTrue(layout.getMinX() < layout.getStateX(state));
+            assertTrue(layout.getStateX(state) < layout.getMaxX());
+            assertTrue(layout.getMinY() < layout.getStateY(state));
+            assertTrue(layout.getStateY(state) < layout.getMaxY());
+        }
+    }
+
+    /**
+     * Test class for the states and segments of the layout.
+     */
+    @Nested
+    @DisplayName("The layout of a regular expression")
+    public class StructureTest {
+        @Test
+        @DisplayName("with a single symbol has one labelled edge")
+        public void test1() {
+            ThompsonLayout layout =
+                    new ThompsonLayout(new SimpleRegularExpression('a'));
+
+            assertEquals(2, layout.getStateCount());
+            assertEquals(1, layout.getSegmentCount());
+            assertEquals("a", layout.getSegmentLabel(0));
+            assertTrue(layout.isSegmentDirected(0));
+            assertTrue(layout.getStateX(layout.getInitialState()) <
+                       layout.getStateX(layout.getFinalState()));
+            assertEquals(0, layout.getStateX(layout.getInitialState()) +
+                            layout.getStateX(layout.getFinalState()), 1e-9);
+            assertConnected(layout);
+        }
+
+        @Test
+        @DisplayName("with a star wraps its operand in two U-shaped edges")
+        public void test2() {
+            ThompsonLayout layout =
+                    new ThompsonLayout(Parser.parseRegexString("a*"));
+
+            assertEquals(4, layout.getStateCount());
+            assertEquals(9, layout.getSegmentCount());
+            int directed = 0;
+            for (int segment = 0; segment < layout.getSegmentCount();
+                 segment++) {
+                if (layout.isSegmentDirected(segment)) {
+                    directed++;
+                }
+            }
+            assertEquals(5, directed);
+            double extent = STATE_RADIUS + STATE_STROKE_RADIUS;
+            assertTrue(layout.getMinY() < -extent);
+            assertTrue(layout.getMaxY() > extent);
+            assertConnected(layout);
+        }
+
+        @Test
+        @DisplayName("with a union puts its operands above and below")
+        public void test3() {
+            ThompsonLayout layout =
+                    new ThompsonLayout(Parser.parseRegexString("a+b"));
+
+            assertEquals(6, layout.getStateCount());
+            assertEquals(6, layout.getSegmentCount());
+            double initialY = layout.getStateY(layout.getInitialState());
+            int above = 0;
+            int below = 0;
+            for (int state = 0; state < layout.getStateCount(); state++) {
+                if (layout.getStateY(state) < initialY) {
+                    above++;
+                }
+                else if (layout.getStateY(state) > initialY) {
+                    below++;
+                }
+            }
+            assertEquals(2, above);
+            assertEquals(2, below);
+            assertConnected(layout);
+        }
+
+        @Test
+        @DisplayName("with a concatenation puts its operands side by side")
+        public void test4() {
+            ThompsonLayout layout =
+                    new ThompsonLayout(Parser.parseRegexString("(a+b)*|c"));
+
+            assertEquals(10, layout.getStateCount());
+            assertEquals(15, layout.getSegmentCount());
+            double initialX = layout.getStateX(layout.getInitialState());
+            double finalX = layout.getStateX(layout.getFinalState());
+            for (int state = 0; state < layout.getStateCount(); state++) {
+                assertTrue(initialX <= layout.getStateX(state));
+                assertTrue(layout.getStateX(state) <= finalX);
+            }
+            assertConnected(layout);
+        }
+    }
+
+    /**
+     * Test class for the size of the layout.
+     */
+    @Nested
+    @DisplayName("The layout of a deeply nested regular expression")
+    public class DepthTest {
+        @Test
+        @DisplayName("is computed without recursion")
+        public void test1() {
+            RegularExpression regularExpression =
+                    new SimpleRegularExpression('a');
+            for (int i = 0; i < 100_000; i++) {
+                regularExpression = new ComplexRegularExpression(
+                        regularExpression, RegexOperator.CONCATENATION,
+                        new SimpleRegularExpression('b'));
+            }
+
+            ThompsonLayout layout = new ThompsonLayout(regularExpression);
+
+            assertEquals(200_002, layout.getStateCount());
+            assertEquals(100_001, layout.getSegmentCount());
+            assertEquals(0, layout.getMinY() + layout.getMaxY(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("keeps nested stars inside each other")
+        public void test2() {
+            RegularExpression regularExpression =
+                    new SimpleRegularExpression('a');
+            for (int i = 0; i < 1000; i++) {
+                regularExpression = new ComplexRegularExpression(
+                        regularExpression, RegexOperator.STAR, null);
+            }
+
+            ThompsonLayout layout = new ThompsonLayout(regularExpression);
+
+            assertEquals(2002, layout.getStateCount());
+            assertEquals(8001, layout.getSegmentCount());
+            double initialX = layout.getStateX(layout.getInitialState());
+            double finalX = layout.getStateX(layout.getFinalState());
+            for (int state = 0; state < layout.getStateCount(); state++) {
+                assertTrue(initialX <= layout.getStateX(state));
+                assertTrue(layout.getStateX(state) <= finalX);
+            }
+        }
+    }
+
+}
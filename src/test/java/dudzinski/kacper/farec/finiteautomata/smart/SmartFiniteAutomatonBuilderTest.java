@@ -0,0 +1,214 @@
+package dudzinski.kacper.farec.finiteautomata.smart;
+
+import javafx.scene.layout.Region;
+import javafx.scene.shape.CubicCurve;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.QuadCurve;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static dudzinski.kacper.farec.finiteautomata.FiniteAutomatonSettings.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for the edge geometry methods of the
+ * {@link SmartFiniteAutomatonBuilder} class. The geometry only involves
+ * shapes and regions, so these tests do not need the JavaFX runtime.
+ */
+public class SmartFiniteAutomatonBuilderTest {
+
+    private static final double DELTA = 1e-9;
+    // The distance of the centre of an arrowhead from the centre of the state
+    // it points at.
+    private static final double ARROWHEAD_DISTANCE =
+            STATE_RADIUS + STATE_STROKE_RADIUS + (0.5 * ARROWHEAD_SIZE);
+
+    private Polygon arrowhead;
+    private Region label;
+
+    /**
+     * Create an arrowhead and a label for each test. The label is given a
+     * size, so that centring it can be checked.
+     */
+    @BeforeEach
+    public void setup() {
+        arrowhead = new Polygon(0, ARROWHEAD_SIZE, 0, -ARROWHEAD_SIZE,
+                                ARROWHEAD_SIZE, 0);
+        label = new Region();
+        label.resize(20, 10);
+    }
+
+    /**
+     * Test class for the {@link SmartFiniteAutomatonBuilder#layoutEdge}
+     * method.
+     */
+    @Nested
+    @DisplayName("Laying out an edge between two states")
+    public class LayoutEdgeTest {
+        @Test
+        @DisplayName("that is straight puts the control point half way")
+        public void test1() {
+            QuadCurve curve = new QuadCurve();
+            SmartFiniteAutomatonBuilder.layoutEdge(curve, arrowhead, label, 0,
+                                                   0, 100, 0, false);
+
+            assertEquals(0, curve.getStartX(), DELTA);
+            assertEquals(0, curve.getStartY(), DELTA);
+            assertEquals(100, curve.getEndX(), DELTA);
+            assertEquals(0, curve.getEndY(), DELTA);
+            assertEquals(50, curve.getControlX(), DELTA);
+            assertEquals(0, curve.getControlY(), DELTA);
+        }
+
+        @Test
+        @DisplayName("that is straight points the arrowhead at the end state")
+        public void test2() {
+            SmartFiniteAutomatonBuilder.layoutEdge(new QuadCurve(), arrowhead,
+                                                   label, 0, 0, 100, 0,
+                                                   false);
+
+            assertEquals(100 - (0.5 * ARROWHEAD_SIZE) - ARROWHEAD_DISTANCE,
+                         arrowhead.getTranslateX(), DELTA);
+            assertEquals(0, arrowhead.getTranslateY(), DELTA);
+            assertEquals(0, arrowhead.getRotate(), DELTA);
+        }
+
+        @Test
+        @DisplayName("that is curved moves the control point to the left of " +
+                     "the edge")
+        public void test3() {
+            QuadCurve curve = new QuadCurve();
+            SmartFiniteAutomatonBuilder.layoutEdge(curve, arrowhead, label, 0,
+                                                   0, 100, 0, true);
+
+            assertEquals(0, curve.getStartX(), DELTA);
+            assertEquals(100, curve.getEndX(), DELTA);
+            assertEquals(50, curve.getControlX(), DELTA);
+            assertEquals(-CURVED_CONTROL_POINT_DISTANCE, curve.getControlY(),
+                         DELTA);
+        }
+
+        @Test
+        @DisplayName("that is curved and vertical moves the control point " +
+                     "sideways")
+        public void test4() {
+            QuadCurve curve = new QuadCurve();
+            SmartFiniteAutomatonBuilder.layoutEdge(curve, arrowhead, label, 0,
+                                                   0, 0, 100, true);
+
+            assertEquals(CURVED_CONTROL_POINT_DISTANCE, curve.getControlX(),
+                         DELTA);
+            assertEquals(50, curve.getControlY(), DELTA);
+        }
+
+        @Test
+        @DisplayName("that is curved aims the arrowhead along the curve")
+        public void test5() {
+            SmartFiniteAutomatonBuilder.layoutEdge(new QuadCurve(), arrowhead,
+                                                   label, 0, 0, 100, 0, true);
+
+            // The arrowhead points from the control point to the end state.
+            double length = Math.hypot(50, CURVED_CONTROL_POINT_DISTANCE);
+            assertEquals(Math.toDegrees(Math.atan2(
+                                 CURVED_CONTROL_POINT_DISTANCE, 50)),
+                         arrowhead.getRotate(), DELTA);
+            assertEquals(-ARROWHEAD_DISTANCE * CURVED_CONTROL_POINT_DISTANCE /
+                         length, arrowhead.getTranslateY(), DELTA);
+        }
+
+        @Test
+        @DisplayName("centres the label on the control point")
+        public void test6() {
+            SmartFiniteAutomatonBuilder.layoutEdge(new QuadCurve(), arrowhead,
+                                                   label, 0, 0, 100, 0, true);
+
+            assertEquals(50 - 10, label.getTranslateX(), DELTA);
+            assertEquals(-CURVED_CONTROL_POINT_DISTANCE - 5,
+                         label.getTranslateY(), DELTA);
+        }
+
+        @Test
+        @DisplayName("in the same place does not fail")
+        public void test7() {
+            QuadCurve curve = new QuadCurve();
+            SmartFiniteAutomatonBuilder.layoutEdge(curve, arrowhead, label, 30,
+                                                   40, 30, 40, true);
+
+            assertEquals(30, curve.getControlX(), DELTA);
+            assertEquals(40, curve.getControlY(), DELTA);
+            assertEquals(0, arrowhead.getRotate(), DELTA);
+        }
+    }
+
+    /**
+     * Test class for the {@link SmartFiniteAutomatonBuilder#layoutLoopEdge}
+     * method.
+     */
+    @Nested
+    @DisplayName("Laying out a loop edge")
+    public class LayoutLoopEdgeTest {
+        @Test
+        @DisplayName("above its state goes from its left side to its right " +
+                     "side")
+        public void test1() {
+            CubicCurve curve = new CubicCurve();
+            SmartFiniteAutomatonBuilder.layoutLoopEdge(curve, arrowhead, label,
+                                                       100, 100, true);
+
+            assertEquals(100 - STATE_RADIUS, curve.getStartX(), DELTA);
+            assertEquals(100, curve.getStartY(), DELTA);
+            assertEquals(100 + STATE_RADIUS, curve.getEndX(), DELTA);
+            assertEquals(100, curve.getEndY(), DELTA);
+            assertEquals(100 - (2 * STATE_RADIUS), curve.getControlX1(),
+                         DELTA);
+            assertEquals(100 - LOOP_CONTROL_POINT_DISTANCE,
+                         curve.getControlY1(), DELTA);
+            assertEquals(100 + (2 * STATE_RADIUS), curve.getControlX2(),
+                         DELTA);
+            assertEquals(100 - LOOP_CONTROL_POINT_DISTANCE,
+                         curve.getControlY2(), DELTA);
+        }
+
+        @Test
+        @DisplayName("below its state mirrors the control points")
+        public void test2() {
+            CubicCurve curve = new CubicCurve();
+            SmartFiniteAutomatonBuilder.layoutLoopEdge(curve, arrowhead, label,
+                                                       100, 100, false);
+
+            assertEquals(100 - STATE_RADIUS, curve.getStartX(), DELTA);
+            assertEquals(100 + STATE_RADIUS, curve.getEndX(), DELTA);
+            assertEquals(100 + LOOP_CONTROL_POINT_DISTANCE,
+                         curve.getControlY1(), DELTA);
+            assertEquals(100 + LOOP_CONTROL_POINT_DISTANCE,
+                         curve.getControlY2(), DELTA);
+        }
+
+        @Test
+        @DisplayName("centres the label above the state")
+        public void test3() {
+            SmartFiniteAutomatonBuilder.layoutLoopEdge(new CubicCurve(),
+                                                       arrowhead, label, 100,
+                                                       100, true);
+
+            assertEquals(100 - 10, label.getTranslateX(), DELTA);
+            assertEquals(100 - LOOP_CONTROL_POINT_DISTANCE - 5,
+                         label.getTranslateY(), DELTA);
+        }
+
+        @Test
+        @DisplayName("aims the arrowhead at the end of the curve")
+        public void test4() {
+            SmartFiniteAutomatonBuilder.layoutLoopEdge(new CubicCurve(),
+                                                       arrowhead, label, 100,
+                                                       100, false);
+
+            assertEquals(Math.toDegrees(Math.atan2(-LOOP_CONTROL_POINT_DISTANCE,
+                                                   -STATE_RADIUS)),
+                         arrowhead.getRotate(), DELTA);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package dudzinski.kacper.farec.regex;
+
+import java.util.regex.Pattern;
+
+import static dudzinski.kacper.farec.Settings.EMPTY_SET;
+import static dudzinski.kacper.farec.Settings.EMPTY_STRING;
+
+/**
+ * This class translates regular expressions into Java patterns, so that tests
+ * can check which strings a regular expression matches.
+ */
+public abstract class JavaPatterns {
+
+    /**
+     * Returns a Java pattern that matches exactly the strings described by the
+     * given regular expression.
+     *
+     * @param regularExpression the regular expression to translate
+     * @return the equivalent Java pattern
+     */
+    public static Pattern toPattern(RegularExpression regularExpression) {
+        return Pattern.compile(toPatternString(regularExpression));
+    }
+
+    /**
+     * Returns the Java regex string for the given regular expression.
+     *
+     * @param regularExpression the regular expression to translate
+     * @return the equivalent Java regex string
+     */
+    private static String toPatternString(
+            RegularExpression regularExpression) {
+        if (regularExpression instanceof SimpleRegularExpression simpleRegex) {
+            String symbol = String.valueOf(simpleRegex.getSymbol());
+            if (symbol.equals(EMPTY_STRING)) {
+                return "";
+            }
+            else if (symbol.equals(EMPTY_SET)) {
+                return "(?!)";
+            }
+            return Pattern.quote(symbol);
+        }
+        ComplexRegularExpression complexRegex =
+                (ComplexRegularExpression) regularExpression;
+        String left = toPatternString(complexRegex.getLeftOperand());
+        return switch (complexRegex.getOperator()) {
+            case STAR -> "(?:" + left + ")*";
+            case CONCATENATION -> "(?:" + left + ")(?:" +
+                                  toPatternString(
+                                          complexRegex.getRightOperand()) +
+                                  ")";
+            case UNION -> "(?:" + left + "|" +
+                          toPatternString(complexRegex.getRightOperand()) +
+                          ")";
+        };
+    }
+
+}
@@ -0,0 +1,152 @@
+package dudzinski.kacper.farec.regex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link ParseTreeLayout} class and its methods.
+ */
+public class ParseTreeLayoutTest {
+
+    /**
+     * Make sure the operators are set to their default symbols before each
+     * test.
+     */
+    @BeforeEach
+    void resetOperatorChars() {
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+    }
+
+    /**
+     * Checks that no two nodes at the same depth are closer than twice the
+     * minimum horizontal change.
+     *
+     * @param layout the layout to check
+     */
+    private static void assertSeparated(ParseTreeLayout layout) {
+        for (int first = 0; first < layout.size(); first++) {
+            for (int second = first + 1; second < layout.size(); second++) {
+                if (layout.getY(first) == layout.getY(second)) {
+                    assertTrue(Math.abs(layout.getX(first) -
+                                        layout.getX(second)) >=
+                               2 * RegularExpressionSettings.MIN_X_CHANGE -
+                               1e-9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test class for the structure of the layout.
+     */
+    @Nested
+    @DisplayName("The nodes of the layout")
+    public class StructureTest {
+        @Test
+        @DisplayName("are in postorder")
+        public void test1() {
+            ParseTreeLayout layout = new ParseTreeLayout(
+                    Parser.parseRegexString("(a+b)*|c"));
+
+            StringBuilder symbols = new StringBuilder();
+            for (int index = 0; index < layout.size(); index++) {
+                symbols.append(layout.getSymbol(index));
+            }
+            assertEquals("ab+*c|", symbols.toString());
+            assertEquals(0, layout.getLeftChild(2));
+            assertEquals(1, layout.getRightChild(2));
+            assertEquals(2, layout.getLeftChild(3));
+            assertEquals(-1, layout.getRightChild(3));
+            assertEquals(3, layout.getLeftChild(5));
+            assertEquals(4, layout.getRightChild(5));
+        }
+
+        @Test
+        @DisplayName("are centred above their children")
+        public void test2() {
+            ParseTreeLayout layout = new ParseTreeLayout(
+                    Parser.parseRegexString("(a+b)*|c"));
+
+            assertEquals(0, layout.getY(5));
+            assertEquals(RegularExpressionSettings.MIN_Y_CHANGE,
+                         layout.getY(4));
+            assertEquals(layout.getX(2), layout.getX(3));
+            assertEquals((layout.getX(0) + layout.getX(1)) / 2,
+                         layout.getX(2), 1e-9);
+            assertEquals((layout.getX(3) + layout.getX(4)) / 2,
+                         layout.getX(5), 1e-9);
+            assertSeparated(layout);
+        }
+    }
+
+    /**
+     * Test class for the size of the layout.
+     */
+    @Nested
+    @DisplayName("The width of the layout")
+    public class WidthTest {
+        @Test
+        @DisplayName("is the minimum separation for two leaves")
+        public void test1() {
+            ParseTreeLayout layout =
+                    new ParseTreeLayout(Parser.parseRegexString("a+b"));
+
+            assertEquals(2 * RegularExpressionSettings.MIN_X_CHANGE,
+                         layout.getWidth(), 1e-9);
+            assertEquals(-layout.getX(0), layout.getX(1), 1e-9);
+        }
+
+        @Test
+        @DisplayName("grows linearly with the number of leaves")
+        public void test2() {
+            // A chain of 200 nested unions is 200 levels deep.
+            RegularExpression regularExpression =
+                    new SimpleRegularExpression('a');
+            for (int index = 0; index < 200; index++) {
+                regularExpression = new ComplexRegularExpression(
+                        new SimpleRegularExpression('b'), RegexOperator.UNION,
+                        regularExpression);
+            }
+            ParseTreeLayout layout = new ParseTreeLayout(regularExpression);
+
+            assertEquals(401, layout.size());
+            assertEquals(200 * RegularExpressionSettings.MIN_Y_CHANGE,
+                         layout.getHeight(), 1e-9);
+            assertTrue(layout.getWidth() <=
+                       201 * 2 * RegularExpressionSettings.MIN_X_CHANGE);
+            assertSeparated(layout);
+        }
+
+        @Test
+        @DisplayName("stays compact for a balanced tree")
+        public void test3() {
+            // A balanced tree with 1024 leaves is 10 levels deep.
+            RegularExpression[] level = new RegularExpression[1024];
+            for (int index = 0; index < level.length; index++) {
+                level[index] = new SimpleRegularExpression('a');
+            }
+            while (level.length > 1) {
+                RegularExpression[] parents =
+                        new RegularExpression[level.length / 2];
+                for (int index = 0; index < parents.length; index++) {
+                    parents[index] = new ComplexRegularExpression(
+                            level[2 * index], RegexOperator.CONCATENATION,
+                            level[(2 * index) + 1]);
+                }
+                level = parents;
+            }
+            ParseTreeLayout layout = new ParseTreeLayout(level[0]);
+
+            assertEquals(1023 * 2 * RegularExpressionSettings.MIN_X_CHANGE,
+                         layout.getWidth(), 1e-9);
+        }
+    }
+
+}
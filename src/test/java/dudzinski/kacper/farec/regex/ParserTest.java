@@ -6,6 +6,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CancellationException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -693,4 +695,41 @@ class ParserTest {
         }
     }
 
+    /**
+     * Test class for stopping the parser by interrupting its thread.
+     */
+    @Nested
+    @DisplayName("When the thread is interrupted,")
+    class InterruptTest {
+        @Test
+        @DisplayName("parsing a regex string stops")
+        void test1() {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(CancellationException.class,
+                             () -> Parser.parseRegexString("(a+b)*|c"));
+            }
+            finally {
+                // Clear the interrupt so that other tests are not affected.
+                //noinspection ResultOfMethodCallIgnored
+                Thread.interrupted();
+            }
+        }
+
+        @Test
+        @DisplayName("simplifying a regex string stops")
+        void test2() {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(CancellationException.class,
+                             () -> Parser.simplifyRegexString("((a))+(b)"));
+            }
+            finally {
+                // Clear the interrupt so that other tests are not affected.
+                //noinspection ResultOfMethodCallIgnored
+                Thread.interrupted();
+            }
+        }
+    }
+
 }
\ No newline at end of file
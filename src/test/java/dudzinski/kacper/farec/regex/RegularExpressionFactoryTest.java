@@ -0,0 +1,120 @@
+package dudzinski.kacper.farec.regex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test class for the {@link RegularExpressionFactory} class and its methods.
+ */
+class RegularExpressionFactoryTest {
+
+    private RegularExpressionFactory factory;
+
+    /**
+     * Make sure the operators are set to their default symbols and create a
+     * new factory before each test.
+     */
+    @BeforeEach
+    void setup() {
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+        factory = new RegularExpressionFactory();
+    }
+
+    /**
+     * Test class for the hash-consing of regular expressions.
+     */
+    @Nested
+    @DisplayName("Creating a regular expression returns the same object for")
+    class HashConsingTest {
+        @Test
+        @DisplayName("the same symbol")
+        void test1() {
+            assertSame(factory.createSymbol('a'), factory.createSymbol('a'));
+        }
+
+        @Test
+        @DisplayName("the same complex regular expression")
+        void test2() {
+            RegularExpression first = factory.createStar(
+                    factory.createUnion(factory.createSymbol('a'),
+                                        factory.createSymbol('b')));
+            RegularExpression second = factory.createStar(
+                    factory.createUnion(factory.createSymbol('a'),
+                                        factory.createSymbol('b')));
+            assertSame(first, second);
+        }
+
+        @Test
+        @DisplayName("an interned parsed regular expression")
+        void test3() {
+            RegularExpression first =
+                    factory.intern(Parser.parseRegexString("(a+b)|c*"));
+            RegularExpression second =
+                    factory.intern(Parser.parseRegexString("((a+b))|(c*)"));
+            assertSame(first, second);
+        }
+    }
+
+    /**
+     * Test class for the simplification of regular expressions.
+     */
+    @Nested
+    @DisplayName("Creating a regular expression simplifies")
+    class SimplificationTest {
+        @Test
+        @DisplayName("ø+a to a")
+        void test1() {
+            RegularExpression a = factory.createSymbol('a');
+            assertSame(a, factory.createUnion(factory.getEmptySet(), a));
+        }
+
+        @Test
+        @DisplayName("a+a to a")
+        void test2() {
+            RegularExpression a = factory.createSymbol('a');
+            assertSame(a, factory.createUnion(a, a));
+        }
+
+        @Test
+        @DisplayName("a|ø to ø")
+        void test3() {
+            RegularExpression a = factory.createSymbol('a');
+            assertSame(factory.getEmptySet(),
+                       factory.createConcatenation(a, factory.getEmptySet()));
+        }
+
+        @Test
+        @DisplayName("ε|a to a")
+        void test4() {
+            RegularExpression a = factory.createSymbol('a');
+            assertSame(a, factory.createConcatenation(factory.getEmptyString(),
+                                                      a));
+        }
+
+        @Test
+        @DisplayName("ø* to ε")
+        void test5() {
+            assertSame(factory.getEmptyString(),
+                       factory.createStar(factory.getEmptySet()));
+        }
+
+        @Test
+        @DisplayName("(ε+a)* to a*")
+        void test6() {
+            RegularExpression a = factory.createSymbol('a');
+            RegularExpression star = factory.createStar(
+                    factory.createUnion(factory.getEmptyString(), a));
+            assertEquals("(a)*", star.toString());
+            assertSame(star, factory.createStar(star));
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+package dudzinski.kacper.farec.rendering;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.regex.ParseTreeLayout;
+import dudzinski.kacper.farec.regex.Parser;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DiagramExporter} class and its methods.
+ */
+public class DiagramExporterTest {
+
+    /**
+     * Make sure the operators are set to their default symbols before each
+     * test.
+     */
+    @BeforeEach
+    void resetOperatorChars() {
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+    }
+
+    /**
+     * Creates a diagram of a finite automaton with two states, an edge in
+     * each direction and a loop.
+     *
+     * @return the diagram
+     */
+    private static Diagram createSmallDiagram() {
+        CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder();
+        builder.addState("s", 0, 0);
+        builder.addState("t", 200, 0);
+        builder.addEdge(0, 1, "a<b");
+        builder.addEdge(1, 0, "b");
+        builder.addEdge(1, 1, "c");
+        builder.setInitialState(0);
+        builder.addFinalState(1);
+        return Diagram.of(builder.build());
+    }
+
+    /**
+     * Counts the occurrences of a string in another string.
+     *
+     * @param text   the string to search
+     * @param target the string to count
+     * @return the number of occurrences
+     */
+    private static int count(String text, String target) {
+        int count = 0;
+        int index = text.indexOf(target);
+        while (index >= 0) {
+            count++;
+            index = text.indexOf(target, index + target.length());
+        }
+        return count;
+    }
+
+    /**
+     * Writes the given diagram as a PNG image and reads it back.
+     *
+     * @param diagram the diagram
+     * @param scale   the scale of the image
+     * @return the image
+     * @throws IOException if the image cannot be written or read
+     */
+    private static BufferedImage writeAndRead(Diagram diagram, double scale)
+            throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DiagramExporter.writePng(diagram, scale, output);
+        return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    /**
+     * Test class for exporting SVG images.
+     */
+    @Nested
+    @DisplayName("Exporting an SVG image of")
+    public class SvgTest {
+        @Test
+        @DisplayName("a finite automaton writes every state and edge")
+        public void test1() throws IOException {
+            StringWriter writer = new StringWriter();
+            DiagramExporter.writeSvg(createSmallDiagram(), writer);
+            String svg = writer.toString();
+
+            assertTrue(svg.startsWith("<?xml"));
+            assertTrue(svg.endsWith("</svg>\n"));
+            // Two states, and the inner circle of the final state.
+            assertEquals(2, count(svg, "<circle class=\"n\""));
+            assertEquals(1, count(svg, "<circle class=\"f\""));
+            // Three edges and the initial state marker, with an arrowhead
+            // each.
+            assertEquals(4, count(svg, "<path class=\"e\""));
+            assertEquals(4, count(svg, "<path class=\"a\""));
+            assertTrue(svg.contains(">a&lt;b</text>"));
+            assertFalse(svg.contains("a<b"));
+        }
+
+        @Test
+        @DisplayName("a parse tree writes undirected edges")
+        public void test2() throws IOException {
+            StringWriter writer = new StringWriter();
+            DiagramExporter.writeSvg(Diagram.of(new ParseTreeLayout(
+                    Parser.parseRegexString("(a+b)*"))), writer);
+            String svg = writer.toString();
+
+            assertEquals(4, count(svg, "<circle class=\"n\""));
+            assertEquals(3, count(svg, "<path class=\"e\""));
+            assertEquals(0, count(svg, "<path class=\"a\""));
+            assertTrue(svg.contains(">*</text>"));
+        }
+    }
+
+    /**
+     * Test class for exporting diagrams to files.
+     */
+    @Nested
+    @DisplayName("Exporting a diagram to a file")
+    public class ExportTest {
+        @TempDir
+        Path directory;
+
+        @Test
+        @DisplayName("with an upper-case SVG extension writes an SVG image " +
+                     "in any locale")
+        public void test1() throws IOException {
+            Locale defaultLocale = Locale.getDefault();
+            Locale.setDefault(new Locale("tr", "TR"));
+            try {
+                Path path = directory.resolve("DIAGRAM.SVG");
+                DiagramExporter.export(createSmallDiagram(), path);
+
+                assertTrue(Files.readString(path, StandardCharsets.UTF_8)
+                                   .startsWith("<?xml"));
+            }
+            finally {
+                Locale.setDefault(defaultLocale);
+            }
+        }
+
+        @Test
+        @DisplayName("with any other extension writes a PNG image")
+        public void test2() throws IOException {
+            Path path = directory.resolve("diagram.png");
+            DiagramExporter.export(createSmallDiagram(), path);
+
+            assertNotNull(ImageIO.read(path.toFile()));
+        }
+    }
+
+    /**
+     * Test class for exporting PNG images.
+     */
+    @Nested
+    @DisplayName("Exporting a PNG image of")
+    public class PngTest {
+        @Test
+        @DisplayName("a finite automaton draws the states where they are")
+        public void test1() throws IOException {
+            Diagram diagram = createSmallDiagram();
+            BufferedImage image = writeAndRead(diagram, 2);
+
+            double width = diagram.getMaxX() - diagram.getMinX();
+            double height = diagram.getMaxY() - diagram.getMinY();
+            assertEquals(Math.ceil((width + 40) * 2), image.getWidth());
+            assertEquals(Math.ceil((height + 40) * 2), image.getHeight());
+            Color fill = diagram.getNodeFill();
+            int pixelX = (int) ((diagram.getX(0) - diagram.getMinX() + 20) * 2);
+            int pixelY = (int) ((diagram.getY(0) + 10 - diagram.getMinY() +
+                                 20) * 2);
+            int pixel = image.getRGB(pixelX, pixelY);
+            assertEquals(Math.round(fill.getRed() * 255), (pixel >> 16) & 0xFF);
+            assertEquals(Math.round(fill.getGreen() * 255),
+                         (pixel >> 8) & 0xFF);
+            assertEquals(Math.round(fill.getBlue() * 255), pixel & 0xFF);
+            assertEquals(0xFFFFFF, image.getRGB(0, 0) & 0xFFFFFF);
+        }
+
+        @Test
+        @DisplayName("a large finite automaton draws it in several bands")
+        public void test2() throws IOException {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            for (int state = 0; state < 10000; state++) {
+                builder.addState("q" + state);
+            }
+            for (int state = 1; state < 10000; state++) {
+                builder.addEdge(state - 1, state, "a");
+            }
+            Diagram diagram = Diagram.of(builder.build());
+            BufferedImage image = writeAndRead(diagram, 0.5);
+
+            assertTrue(image.getHeight() > 1000);
+            // The last state is drawn, so every band was written.
+            int node = 9999;
+            int pixelX = (int) ((diagram.getX(node) - diagram.getMinX() + 20) *
+                                0.5);
+            int pixelY = (int) ((diagram.getY(node) + 10 - diagram.getMinY() +
+                                 20) * 0.5);
+            assertNotEquals(0xFFFFFF, image.getRGB(pixelX, pixelY) & 0xFFFFFF);
+        }
+
+        @Test
+        @DisplayName("with a scale that is not positive fails")
+        public void test3() {
+            assertThrows(IllegalArgumentException.class,
+                         () -> DiagramExporter.writePng(
+                                 createSmallDiagram(), 0,
+                                 new ByteArrayOutputStream()));
+        }
+    }
+
+    /**
+     * Test class for the PNG encoder.
+     */
+    @Nested
+    @DisplayName("The PNG encoder")
+    public class PngEncoderTest {
+        @Test
+        @DisplayName("writes rows that can be read back")
+        public void test1() throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (PngEncoder encoder = new PngEncoder(output, 3, 2)) {
+                encoder.writeRow(new int[]{0xFF0000, 0x00FF00, 0x0000FF}, 0);
+                encoder.writeRow(new int[]{0, 0x123456, 0xFFFFFF}, 0);
+                encoder.finish();
+            }
+            BufferedImage image = ImageIO.read(
+                    new ByteArrayInputStream(output.toByteArray()));
+
+            assertEquals(3, image.getWidth());
+            assertEquals(2, image.getHeight());
+            assertEquals(0xFF0000, image.getRGB(0, 0) & 0xFFFFFF);
+            assertEquals(0x0000FF, image.getRGB(2, 0) & 0xFFFFFF);
+            assertEquals(0x123456, image.getRGB(1, 1) & 0xFFFFFF);
+        }
+
+        @Test
+        @DisplayName("rejects too few or too many rows")
+        public void test2() throws IOException {
+            try (PngEncoder encoder =
+                         new PngEncoder(new ByteArrayOutputStream(), 1, 1)) {
+                assertThrows(IllegalStateException.class, encoder::finish);
+                encoder.writeRow(new int[]{0}, 0);
+                assertThrows(IllegalStateException.class,
+                             () -> encoder.writeRow(new int[]{0}, 0));
+            }
+            assertThrows(IllegalArgumentException.class,
+                         () -> new PngEncoder(new ByteArrayOutputStream(), 0,
+                                              1));
+        }
+
+        @Test
+        @DisplayName("passes on a failure to write the image")
+        public void test3() {
+            // A stream that fails once the header has been written.
+            OutputStream output = new OutputStream() {
+                private int count = 0;
+
+                @Override
+                public void write(int b) throws IOException {
+                    if (++count > 100) {
+                        throw new IOException("The disk is full!");
+                    }
+                }
+            };
+
+            assertThrows(IOException.class,
+                         () -> DiagramExporter.writePng(createSmallDiagram(),
+                                                        1, output));
+        }
+    }
+
+}
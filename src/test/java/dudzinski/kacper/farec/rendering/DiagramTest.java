@@ -0,0 +1,136 @@
+package dudzinski.kacper.farec.rendering;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.regex.ParseTreeLayout;
+import dudzinski.kacper.farec.regex.Parser;
+import dudzinski.kacper.farec.regex.RegexOperator;
+import dudzinski.kacper.farec.regex.RegularExpressionSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static dudzinski.kacper.farec.rendering.Diagram.NO_NODE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link Diagram} class and its methods.
+ */
+public class DiagramTest {
+
+    /**
+     * Make sure the operators are set to their default symbols before each
+     * test.
+     */
+    @BeforeEach
+    void resetOperatorChars() {
+        RegularExpressionSettings.setOperatorChar(RegexOperator.STAR, '*');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.UNION, '+');
+        RegularExpressionSettings.setOperatorChar(RegexOperator.CONCATENATION,
+                                                  '|');
+    }
+
+    /**
+     * Test class for creating diagrams.
+     */
+    @Nested
+    @DisplayName("A diagram created from")
+    public class CreationTest {
+        @Test
+        @DisplayName("a parse tree layout connects operators to children")
+        public void test1() {
+            ParseTreeLayout layout =
+                    new ParseTreeLayout(Parser.parseRegexString("(a+b)*"));
+            Diagram diagram = Diagram.of(layout);
+
+            assertEquals(4, diagram.getNodeCount());
+            assertEquals(3, diagram.getEdgeCount());
+            assertEquals("*", diagram.getNodeLabel(3));
+            assertEquals(layout.getX(2), diagram.getX(2));
+            assertFalse(diagram.isDirected());
+            assertNull(diagram.getEdgeLabel(0));
+            assertEquals(NO_NODE, diagram.getInitialNode());
+            HashSet<String> edges = new HashSet<>();
+            for (int edge = 0; edge < diagram.getEdgeCount(); edge++) {
+                edges.add(diagram.getEdgeStart(edge) + "-" +
+                          diagram.getEdgeEnd(edge));
+            }
+            assertEquals(Set.of("2-0", "2-1", "3-2"), edges);
+        }
+
+        @Test
+        @DisplayName("a finite automaton bends opposite edges")
+        public void test2() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            builder.addState("s", 0, 0);
+            builder.addState("t", 200, 0);
+            builder.addEdge(0, 1, "a");
+            builder.addEdge(1, 0, "b");
+            builder.addEdge(1, 1, "c");
+            builder.setInitialState(0);
+            builder.addFinalState(1);
+            CompactFiniteAutomaton finiteAutomaton = builder.build();
+            Diagram diagram = Diagram.of(finiteAutomaton);
+
+            assertTrue(diagram.isDirected());
+            assertEquals(0, diagram.getInitialNode());
+            assertTrue(diagram.isFinal(1));
+            for (int edge = 0; edge < diagram.getEdgeCount(); edge++) {
+                assertEquals(finiteAutomaton.getEdgeLabelText(edge),
+                             diagram.getEdgeLabel(edge));
+                boolean loop = diagram.getEdgeStart(edge) ==
+                               diagram.getEdgeEnd(edge);
+                assertEquals(loop, diagram.getEdgeBend(edge) == 0);
+            }
+            // The loop is above the state.
+            assertTrue(diagram.getMinY() < -diagram.getRadius());
+        }
+    }
+
+    /**
+     * Test class for finding nodes.
+     */
+    @Nested
+    @DisplayName("Looking up a diagram")
+    public class LookupTest {
+        @Test
+        @DisplayName("finds the node under a point")
+        public void test1() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            for (int state = 0; state < 10000; state++) {
+                builder.addState("q" + state);
+            }
+            Diagram diagram = Diagram.of(builder.build());
+
+            int node = 5432;
+            assertEquals(node, diagram.getNodeAt(diagram.getX(node) + 3,
+                                                 diagram.getY(node) - 3));
+            assertEquals(NO_NODE, diagram.getNodeAt(
+                    diagram.getX(node) + diagram.getRadius() + 1,
+                    diagram.getY(node)));
+        }
+
+        @Test
+        @DisplayName("finds only the nodes in a rectangle")
+        public void test2() {
+            CompactFiniteAutomatonBuilder builder =
+                    new CompactFiniteAutomatonBuilder();
+            for (int state = 0; state < 10000; state++) {
+                builder.addState("q" + state);
+            }
+            Diagram diagram = Diagram.of(builder.build());
+
+            HashSet<Integer> nodes = new HashSet<>();
+            diagram.forEachNodeIn(0, 0, 150, 150, nodes::add);
+            // The states are 100 apart in a 100 by 100 grid.
+            assertEquals(Set.of(0, 1, 100, 101), nodes);
+        }
+    }
+
+}
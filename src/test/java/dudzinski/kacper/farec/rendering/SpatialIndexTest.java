@@ -0,0 +1,94 @@
+package dudzinski.kacper.farec.rendering;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link SpatialIndex} class and its methods.
+ */
+public class SpatialIndexTest {
+
+    /**
+     * Returns the items reported by a query, sorted.
+     *
+     * @param index the spatial index
+     * @param minX  the left edge of the rectangle
+     * @param minY  the top edge of the rectangle
+     * @param maxX  the right edge of the rectangle
+     * @param maxY  the bottom edge of the rectangle
+     * @return the sorted items
+     */
+    private static ArrayList<Integer> query(SpatialIndex index, double minX,
+                                            double minY, double maxX,
+                                            double maxY) {
+        ArrayList<Integer> items = new ArrayList<>();
+        index.query(minX, minY, maxX, maxY, items::add);
+        items.sort(null);
+        return items;
+    }
+
+    /**
+     * Test class for querying a spatial index.
+     */
+    @Nested
+    @DisplayName("Querying a rectangle reports")
+    public class QueryTest {
+        @Test
+        @DisplayName("the items intersecting it, each once")
+        public void test1() {
+            SpatialIndex index = new SpatialIndex(10);
+            index.add(0, 0, 5, 5);
+            index.add(-25, -25, 25, 25);
+            index.add(30, 30, 35, 35);
+            // An oversized item spanning many cells.
+            index.add(-1000, 0, 1000, 1);
+
+            assertEquals(4, index.size());
+            assertEquals(List.of(0, 1, 3), query(index, 1, 1, 2, 2));
+            assertEquals(List.of(1, 2), query(index, 20, 20, 31, 31));
+            assertEquals(List.of(), query(index, 40, 40, 50, 50));
+            assertEquals(List.of(0, 1, 2, 3),
+                         query(index, -1e9, -1e9, 1e9, 1e9));
+        }
+
+        @Test
+        @DisplayName("the same items as checking every item")
+        public void test2() {
+            Random random = new Random(42);
+            SpatialIndex index = new SpatialIndex(16);
+            double[][] bounds = new double[5000][];
+            for (int item = 0; item < bounds.length; item++) {
+                double x = random.nextDouble() * 2000 - 1000;
+                double y = random.nextDouble() * 2000 - 1000;
+                double width = random.nextDouble() * 100;
+                double height = random.nextDouble() * 100;
+                bounds[item] = new double[]{x, y, x + width, y + height};
+                index.add(x, y, x + width, y + height);
+            }
+
+            for (int query = 0; query < 100; query++) {
+                double x = random.nextDouble() * 2000 - 1000;
+                double y = random.nextDouble() * 2000 - 1000;
+                double size = random.nextDouble() * 300;
+                ArrayList<Integer> expected = new ArrayList<>();
+                for (int item = 0; item < bounds.length; item++) {
+                    if ((bounds[item][0] <= x + size) &&
+                        (bounds[item][2] >= x) &&
+                        (bounds[item][1] <= y + size) &&
+                        (bounds[item][3] >= y)) {
+                        expected.add(item);
+                    }
+                }
+                assertEquals(expected, query(index, x, y, x + size, y + size));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+package dudzinski.kacper.farec.rendering;
+
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomaton;
+import dudzinski.kacper.farec.finiteautomata.compact.CompactFiniteAutomatonBuilder;
+import dudzinski.kacper.farec.regex.StartJavaFX;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollPane;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static dudzinski.kacper.farec.rendering.VirtualizedFiniteAutomatonPane.PADDING;
+import static dudzinski.kacper.farec.rendering.VirtualizedFiniteAutomatonPane.VIEWPORT_MARGIN;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link VirtualizedFiniteAutomatonPane} class and its
+ * methods.
+ */
+public class VirtualizedFiniteAutomatonPaneTest {
+
+    // The number of states along each side of the grid.
+    private static final int GRID_SIZE = 30;
+    // The distance between neighbouring states of the grid.
+    private static final double SPACING = 300;
+
+    private CompactFiniteAutomaton finiteAutomaton;
+    private Diagram diagram;
+    private VirtualizedFiniteAutomatonPane pane;
+
+    /**
+     * Because these tests involve JavaFX elements, the JavaFX runtime has to be
+     * started first.
+     */
+    @BeforeAll
+    static void startJavaFX() {
+        StartJavaFX.startJavaFX();
+    }
+
+    /**
+     * Create a grid of states for each test, with an edge from every state to
+     * its right neighbour and a loop on every state in the first column.
+     */
+    @BeforeEach
+    public void setup() {
+        CompactFiniteAutomatonBuilder builder =
+                new CompactFiniteAutomatonBuilder();
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int column = 0; column < GRID_SIZE; column++) {
+                builder.addState("q" + row + "_" + column, column * SPACING,
+                                 row * SPACING);
+            }
+        }
+        for (int row = 0; row < GRID_SIZE; row++) {
+            int first = row * GRID_SIZE;
+            builder.addEdge(first, first, "a");
+            for (int column = 1; column < GRID_SIZE; column++) {
+                builder.addEdge(first + column - 1, first + column, "b");
+            }
+        }
+        builder.setInitialState(0);
+        builder.addFinalState((GRID_SIZE * GRID_SIZE) - 1);
+        finiteAutomaton = builder.build();
+        diagram = Diagram.of(finiteAutomaton);
+        pane = new VirtualizedFiniteAutomatonPane(finiteAutomaton);
+    }
+
+    /**
+     * Returns the containers of the states that currently have scene nodes.
+     *
+     * @return the containers of the materialised states
+     */
+    private HashSet<Node> getStateContainers() {
+        return new HashSet<>(((Group) pane.getChildren().get(1)).getChildren());
+    }
+
+    /**
+     * Test class for the
+     * {@link VirtualizedFiniteAutomatonPane#showViewport(double, double,
+     * double, double)} method.
+     */
+    @Nested
+    @DisplayName("Showing a viewport")
+    public class ShowViewportTest {
+        @Test
+        @DisplayName("materialises only the states and edges that intersect " +
+                     "it")
+        public void test1() {
+            double x = 2000;
+            double y = 1500;
+            double width = 800;
+            double height = 600;
+            pane.showViewport(x, y, width, height);
+
+            // Find the states and edges in the same area of the diagram.
+            double minX = x + diagram.getMinX() - PADDING - VIEWPORT_MARGIN;
+            double minY = y + diagram.getMinY() - PADDING - VIEWPORT_MARGIN;
+            double maxX = minX + width + (2 * VIEWPORT_MARGIN);
+            double maxY = minY + height + (2 * VIEWPORT_MARGIN);
+            HashSet<Integer> expectedEdges = new HashSet<>();
+            HashSet<Integer> expectedStates = new HashSet<>();
+            diagram.forEachEdgeIn(minX, minY, maxX, maxY, edge -> {
+                expectedEdges.add(edge);
+                expectedStates.add(diagram.getEdgeStart(edge));
+                expectedStates.add(diagram.getEdgeEnd(edge));
+            });
+            diagram.forEachNodeIn(minX, minY, maxX, maxY, expectedStates::add);
+
+            assertFalse(expectedStates.isEmpty());
+            assertTrue(expectedStates.size() <
+                       finiteAutomaton.getStateCount() / 10);
+            assertEquals(expectedStates.size(),
+                         pane.getMaterialisedStateCount());
+            assertEquals(expectedEdges.size(),
+                         pane.getMaterialisedEdgeCount());
+            assertEquals(expectedStates.size(), getStateContainers().size());
+        }
+
+        @Test
+        @DisplayName("far away from every state materialises nothing")
+        public void test2() {
+            pane.showViewport(-10000, -10000, 800, 600);
+
+            assertEquals(0, pane.getMaterialisedStateCount());
+            assertEquals(0, pane.getMaterialisedEdgeCount());
+        }
+
+        @Test
+        @DisplayName("and then moving away releases its states to the pool " +
+                     "and drops its edges")
+        public void test3() {
+            pane.showViewport(0, 0, 800, 600);
+            int materialised = pane.getMaterialisedStateCount();
+            pane.showViewport(-10000, -10000, 800, 600);
+
+            assertTrue(materialised > 0);
+            assertEquals(0, pane.getMaterialisedStateCount());
+            assertEquals(0, pane.getMaterialisedEdgeCount());
+            assertEquals(materialised, pane.getPooledStateCount());
+        }
+
+        @Test
+        @DisplayName("and then moving to another part reuses its states")
+        public void test4() {
+            pane.showViewport(2000, 2000, 800, 600);
+            HashSet<Node> firstContainers = getStateContainers();
+            pane.showViewport(-10000, -10000, 800, 600);
+            pane.showViewport(5000, 5000, 800, 600);
+            HashSet<Node> secondContainers = getStateContainers();
+
+            // The second part of the grid lines up with the first, so every
+            // pooled state is reused and none are created.
+            assertEquals(firstContainers.size(), secondContainers.size());
+            assertEquals(firstContainers, secondContainers);
+            assertEquals(0, pane.getPooledStateCount());
+        }
+
+        @Test
+        @DisplayName("that overlaps the previous one keeps the shared states")
+        public void test5() {
+            pane.showViewport(2000, 2000, 800, 600);
+            HashSet<Node> firstContainers = getStateContainers();
+            pane.showViewport(2000 + SPACING, 2000, 800, 600);
+            HashSet<Node> secondContainers = getStateContainers();
+
+            HashSet<Node> sharedContainers = new HashSet<>(firstContainers);
+            sharedContainers.retainAll(secondContainers);
+            // The states that left the viewport are pooled, unless they were
+            // reused for the states that entered it.
+            assertFalse(sharedContainers.isEmpty());
+            assertEquals(Math.max(0, firstContainers.size() -
+                                     secondContainers.size()),
+                         pane.getPooledStateCount());
+        }
+    }
+
+    /**
+     * Test class for the
+     * {@link VirtualizedFiniteAutomatonPane#setFiniteAutomaton(
+     *CompactFiniteAutomaton)} method.
+     */
+    @Nested
+    @DisplayName("Showing a finite automaton in a new layout")
+    public class SetFiniteAutomatonTest {
+        @Test
+        @DisplayName("reuses the states and follows the same scroll pane")
+        public void test1() {
+            ScrollPane scrollPane = new ScrollPane();
+            pane.attachTo(scrollPane);
+            pane.showViewport(2000, 2000, 800, 600);
+            HashSet<Node> firstContainers = getStateContainers();
+
+            // Mirror the grid, so that the same part of the pane shows other
+            // states at the same positions.
+            double maxX = (GRID_SIZE - 1) * SPACING;
+            double[] xCoordinates = new double[finiteAutomaton.getStateCount()];
+            double[] yCoordinates = new double[finiteAutomaton.getStateCount()];
+            for (int state = 0; state < xCoordinates.length; state++) {
+                xCoordinates[state] = maxX - finiteAutomaton.getX(state);
+                yCoordinates[state] = finiteAutomaton.getY(state);
+            }
+            pane.setFiniteAutomaton(finiteAutomaton.withCoordinates(
+                    xCoordinates, yCoordinates));
+            pane.showViewport(2000, 2000, 800, 600);
+
+            assertSame(pane, scrollPane.getContent());
+            HashSet<Node> secondContainers = getStateContainers();
+            assertEquals(firstContainers.size(), secondContainers.size());
+            assertEquals(firstContainers, secondContainers);
+            assertEquals(0, pane.getPooledStateCount());
+        }
+    }
+
+    /**
+     * Test class for the
+     * {@link VirtualizedFiniteAutomatonPane#detach()} method.
+     */
+    @Nested
+    @DisplayName("Detaching a view")
+    public class DetachTest {
+        @Test
+        @DisplayName("releases its scene nodes and stops following the " +
+                     "scroll pane")
+        public void test1() {
+            ScrollPane scrollPane = new ScrollPane();
+            scrollPane.setPrefViewportWidth(800);
+            scrollPane.setPrefViewportHeight(600);
+            pane.attachTo(scrollPane);
+            pane.showViewport(0, 0, 800, 600);
+            pane.detach();
+            scrollPane.setHvalue(0.5);
+            scrollPane.setVvalue(0.5);
+
+            assertEquals(0, pane.getMaterialisedStateCount());
+            assertEquals(0, pane.getMaterialisedEdgeCount());
+            assertEquals(0, pane.getPooledStateCount());
+        }
+    }
+
+}
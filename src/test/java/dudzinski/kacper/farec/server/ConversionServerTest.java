@@ -0,0 +1,160 @@
+package dudzinski.kacper.farec.server;
+
+import dudzinski.kacper.farec.finiteautomata.dfa.CompiledRegexCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link ConversionServer} class and its methods.
+ */
+public class ConversionServerTest {
+
+    private ConversionServer server;
+
+    /**
+     * Start a new server for each test.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        server = new ConversionServer(0, 4,
+                                      new CompiledRegexCache(1 << 20, false));
+        server.start();
+    }
+
+    /**
+     * Stop the server after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        server.stop();
+    }
+
+    /**
+     * Sends a request to the server.
+     *
+     * @param method the request method
+     * @param path   the path and query of the request
+     * @param body   the request body, or <code>null</code>
+     * @return the status and the response body, separated by a space
+     * @throws IOException if the request fails
+     */
+    private String request(String method, String path, String body)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + server.getPort() + path)
+                .openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream input = (status == 200) ?
+                                 connection.getInputStream() :
+                                 connection.getErrorStream()) {
+            return status + " " +
+                   new String(input.readAllBytes(), StandardCharsets.UTF_8)
+                           .strip();
+        }
+    }
+
+    /**
+     * Encodes a query parameter value.
+     *
+     * @param value the value
+     * @return the encoded value
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test class for the endpoints.
+     */
+    @Nested
+    @DisplayName("The server responds to")
+    public class EndpointTest {
+        @Test
+        @DisplayName("parse requests with the canonical regular expression")
+        public void test1() throws IOException {
+            assertEquals("200 (a)+((b)*)",
+                         request("GET", "/parse?regex=((a)%2Bb*)", null));
+            // An unencoded + is the UNION operator, not a space.
+            assertEquals("200 (a)+(b)",
+                         request("GET", "/parse?regex=a+b", null));
+            assertTrue(request("GET", "/parse?regex=a%2B", null)
+                               .startsWith("400 "));
+            assertTrue(request("GET", "/parse", null).startsWith("400 "));
+        }
+
+        @Test
+        @DisplayName("convert requests in both directions")
+        public void test2() throws IOException {
+            assertEquals("200 q0\tq1\ta\ninitial\tq0\nfinal\tq1",
+                         request("GET", "/convert?regex=a", null));
+            assertEquals("200 a",
+                         request("POST", "/convert?algorithm=kleene",
+                                 "s\tt\ta\ninitial\ts\nfinal\tt\n"));
+            assertEquals("200 b",
+                         request("POST", "/convert?format=dot",
+                                 "digraph { i [shape=point]; i -> s; " +
+                                 "s -> t [label=b]; " +
+                                 "t [shape=doublecircle] }"));
+        }
+
+        @Test
+        @DisplayName("match and equivalence requests")
+        public void test3() throws IOException {
+            String regex = encode("(a+b)*|c");
+            assertEquals("200 true",
+                         request("GET", "/match?regex=" + regex +
+                                        "&word=abbac", null));
+            assertEquals("200 false",
+                         request("GET", "/match?regex=" + regex +
+                                        "&word=abca", null));
+            assertEquals("200 true",
+                         request("GET", "/equivalence?left=" +
+                                        encode("(a*|b*)*") + "&right=" +
+                                        encode("(a+b)*"), null));
+            assertEquals("200 false",
+                         request("GET", "/equivalence?left=" +
+                                        encode("a*") + "&right=" +
+                                        encode("a|a*"), null));
+        }
+
+        @Test
+        @DisplayName("requests with the wrong method with status 405")
+        public void test4() throws IOException {
+            assertTrue(request("POST", "/match", "").startsWith("405 "));
+        }
+
+        @Test
+        @DisplayName("statistics requests with the counters of the cache")
+        public void test5() throws IOException {
+            request("GET", "/match?regex=" + encode("a|b") + "&word=ab",
+                    null);
+            request("GET", "/match?regex=" + encode("((a)|(b))") +
+                           "&word=ba", null);
+
+            String statistics = request("GET", "/statistics", null);
+            assertTrue(statistics.startsWith("200 Statistics[hitCount=1, " +
+                                             "missCount=1,"));
+        }
+    }
+
+}